@@ -0,0 +1,108 @@
+package com.insurai.insurai_backend.config;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.insurai.insurai_backend.model.Agent;
+import com.insurai.insurai_backend.repository.AgentRepository;
+import com.insurai.insurai_backend.util.BoundedExpiringCache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Short-lived cache of the agent rows that {@link JwtAuthenticationFilter} checks on every
+ * agent request. Only the id and email are kept, never the password hash. Unknown emails
+ * are cached too, so a removed agent polling the console does not reach the database either.
+ *
+ * Entries expire after the configured TTL; anything that creates or changes an agent
+ * calls {@link #invalidate(String)} so the next request sees the new row.
+ */
+@Component
+public class AgentPrincipalCache implements MeterBinder {
+
+    public record AgentPrincipal(Long id, String email) {}
+
+    private final AgentRepository agentRepository;
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final BoundedExpiringCache<String, Optional<AgentPrincipal>> cache;
+
+    public AgentPrincipalCache(AgentRepository agentRepository,
+                               @Value("${insurai.agent.cache.enabled:true}") boolean enabled,
+                               @Value("${insurai.agent.cache.ttl-ms:60000}") long ttlMillis,
+                               @Value("${insurai.agent.cache.max-entries:5000}") int maxEntries) {
+        this.agentRepository = agentRepository;
+        this.enabled = enabled;
+        this.ttlMillis = ttlMillis;
+        this.cache = new BoundedExpiringCache<>(maxEntries);
+    }
+
+    public Optional<AgentPrincipal> findByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        if (!enabled) {
+            return load(email);
+        }
+        Optional<AgentPrincipal> cached = cache.get(email);
+        if (cached != null) {
+            return cached;
+        }
+        Optional<AgentPrincipal> loaded = load(email);
+        cache.put(email, loaded, System.currentTimeMillis() + ttlMillis);
+        return loaded;
+    }
+
+    public void invalidate(String email) {
+        if (email != null) {
+            cache.invalidate(email);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Scheduled(fixedDelayString = "${insurai.agent.cache.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        cache.purgeExpired();
+    }
+
+    private Optional<AgentPrincipal> load(String email) {
+        return agentRepository.findByEmail(email).map(AgentPrincipalCache::toPrincipal);
+    }
+
+    private static AgentPrincipal toPrincipal(Agent agent) {
+        return new AgentPrincipal(agent.getId(), agent.getEmail());
+    }
+
+    private static double hitRatio(BoundedExpiringCache<?, ?> cache) {
+        long hits = cache.hitCount();
+        long total = hits + cache.missCount();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("insurai.agent.cache.hits", cache, BoundedExpiringCache::hitCount)
+                .description("Agent lookups answered from the cache")
+                .register(registry);
+        FunctionCounter.builder("insurai.agent.cache.misses", cache, BoundedExpiringCache::missCount)
+                .description("Agent lookups that queried the agents table")
+                .register(registry);
+        FunctionCounter.builder("insurai.agent.cache.evictions", cache, BoundedExpiringCache::evictionCount)
+                .description("Entries removed on expiry or to respect the entry cap")
+                .register(registry);
+        Gauge.builder("insurai.agent.cache.size", cache, BoundedExpiringCache::size)
+                .register(registry);
+        Gauge.builder("insurai.agent.cache.hit.ratio", cache, AgentPrincipalCache::hitRatio)
+                .description("Share of agent lookups answered from the cache since startup")
+                .register(registry);
+    }
+}
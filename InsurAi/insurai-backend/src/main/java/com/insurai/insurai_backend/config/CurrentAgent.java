@@ -0,0 +1,18 @@
+package com.insurai.insurai_backend.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Injects the calling agent, taken from the verified token, into a controller parameter.
+ * The parameter may be a {@code Long} (the primary key) or an {@code Agent} (a lazy reference,
+ * loaded only if its fields are read). Resolves to null when the caller is not an agent.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentAgent {
+}
@@ -0,0 +1,97 @@
+package com.insurai.insurai_backend.config;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import com.insurai.insurai_backend.model.Agent;
+import com.insurai.insurai_backend.model.Employee;
+import com.insurai.insurai_backend.model.Hr;
+import com.insurai.insurai_backend.repository.AgentRepository;
+import com.insurai.insurai_backend.repository.EmployeeRepository;
+import com.insurai.insurai_backend.repository.HrRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Resolves {@link CurrentEmployee}, {@link CurrentHr} and {@link CurrentAgent} parameters
+ * from the principal that {@link JwtAuthenticationFilter} verified for this request.
+ *
+ * Tokens carry the account id, so no query runs on the hot path: a {@code Long} parameter
+ * gets the id and an entity parameter gets a lazy reference. Tokens issued before ids were
+ * embedded fall back to a findByEmail lookup.
+ */
+@Component
+@RequiredArgsConstructor
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final EmployeeRepository employeeRepository;
+    private final HrRepository hrRepository;
+    private final AgentRepository agentRepository;
+    private final AgentPrincipalCache agentPrincipalCache;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentEmployee.class)
+                || parameter.hasParameterAnnotation(CurrentHr.class)
+                || parameter.hasParameterAnnotation(CurrentAgent.class);
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter,
+                                  ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest,
+                                  WebDataBinderFactory binderFactory) {
+        JwtPrincipal principal = (JwtPrincipal) webRequest.getAttribute(
+                JwtAuthenticationFilter.PRINCIPAL_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (principal == null) {
+            return null;
+        }
+
+        if (parameter.hasParameterAnnotation(CurrentEmployee.class)) {
+            if (!principal.hasRole("EMPLOYEE")) return null;
+            Long id = principal.accountIdFor("EMPLOYEE");
+            if (id == null) {
+                id = employeeRepository.findByEmail(principal.subject()).map(Employee::getId).orElse(null);
+            }
+            return toParameter(parameter, id, Employee.class, employeeRepository);
+        }
+
+        if (parameter.hasParameterAnnotation(CurrentHr.class)) {
+            if (!principal.hasRole("HR")) return null;
+            Long id = principal.accountIdFor("HR");
+            if (id == null) {
+                id = hrRepository.findByEmail(principal.subject()).map(Hr::getId).orElse(null);
+            }
+            return toParameter(parameter, id, Hr.class, hrRepository);
+        }
+
+        if (!principal.hasRole("AGENT")) return null;
+        Long id = principal.accountIdFor("AGENT");
+        if (id == null) {
+            id = agentPrincipalCache.findByEmail(principal.subject()).map(AgentPrincipalCache.AgentPrincipal::id).orElse(null);
+        }
+        return toParameter(parameter, id, Agent.class, agentRepository);
+    }
+
+    private static <T> Object toParameter(MethodParameter parameter, Long id,
+                                          Class<T> entityType, JpaRepository<T, Long> repository) {
+        if (id == null) {
+            return null;
+        }
+        Class<?> type = parameter.getParameterType();
+        if (type == Long.class) {
+            return id;
+        }
+        if (type == entityType) {
+            return repository.getReferenceById(id);
+        }
+        throw new IllegalStateException("Unsupported parameter type " + type.getName()
+                + " for the current " + entityType.getSimpleName());
+    }
+}
@@ -0,0 +1,124 @@
+package com.insurai.insurai_backend.config;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.insurai.insurai_backend.service.TokenRevocationService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Single JWT filter for every role. The bearer token is verified once per request,
+ * the authority is taken from the role claim, and the verified {@link JwtPrincipal}
+ * is stored both in the SecurityContext and as a request attribute for controllers.
+ */
+@Component
+@RequiredArgsConstructor
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    public static final String PRINCIPAL_ATTRIBUTE = "insurai.jwtPrincipal";
+
+    // Login/register endpoints: never verify, so a stale token cannot block signing in again
+    private static final List<String> UNAUTHENTICATED_PATHS = List.of(
+            "/auth/login",
+            "/auth/register",
+            "/employee/login",
+            "/employee/register",
+            "/hr/login",
+            "/agent/login",
+            "/agent/register",
+            "/admin/login",
+            "/admin/register"
+    );
+
+    // Agent paths that skip the "agent still exists" lookup (polled by the dashboards)
+    private static final List<String> AGENT_LOOKUP_EXCLUDED_PATHS = List.of(
+            "/agent/queries/pending",
+            "/agent/availability"
+    );
+
+    private final JwtUtil jwtUtil;
+    private final AgentPrincipalCache agentPrincipalCache;
+    private final TokenRevocationService tokenRevocationService;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String authHeader = request.getHeader("Authorization");
+
+        if (authHeader != null && authHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            JwtPrincipal principal;
+            try {
+                principal = jwtUtil.parse(authHeader.substring(7).trim());
+            } catch (Exception e) {
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                response.getWriter().write("Invalid or expired token");
+                return;
+            }
+
+            // In-memory check, no I/O: logged-out tokens and revoked sessions
+            if (tokenRevocationService.isRevoked(principal)) {
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                response.getWriter().write("Token has been revoked");
+                return;
+            }
+
+            if (principal.subject() != null && principal.role() != null && isKnownUser(principal, request)) {
+                SimpleGrantedAuthority authority =
+                        new SimpleGrantedAuthority("ROLE_" + principal.role().toUpperCase());
+
+                UsernamePasswordAuthenticationToken authToken =
+                        new UsernamePasswordAuthenticationToken(principal, null, Collections.singletonList(authority));
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+                SecurityContextHolder.getContext().setAuthentication(authToken);
+                request.setAttribute(PRINCIPAL_ATTRIBUTE, principal);
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    // Agents are confirmed against the (cached) agent table; other roles are trusted from the signed claim
+    private boolean isKnownUser(JwtPrincipal principal, HttpServletRequest request) {
+        if (!principal.hasRole("AGENT") || startsWithAny(pathOf(request), AGENT_LOOKUP_EXCLUDED_PATHS)) {
+            return true;
+        }
+        return agentPrincipalCache.findByEmail(principal.subject()).isPresent();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return startsWithAny(pathOf(request), UNAUTHENTICATED_PATHS);
+    }
+
+    // Path inside the application, independent of how the dispatcher servlet is mapped
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static boolean startsWithAny(String path, List<String> prefixes) {
+        for (String prefix : prefixes) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
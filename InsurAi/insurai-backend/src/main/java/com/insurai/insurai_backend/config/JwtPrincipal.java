@@ -0,0 +1,36 @@
+package com.insurai.insurai_backend.config;
+
+import java.security.Principal;
+import java.time.Instant;
+
+/**
+ * Immutable view of a token whose signature and expiry have already been checked
+ * by {@link JwtUtil#parse(String)}. Callers read the claims from here instead of
+ * parsing the compact token again.
+ *
+ * accountType names the table accountId belongs to (EMPLOYEE, HR or AGENT); both are
+ * null for admin tokens and for tokens issued before ids were embedded. tokenId is the
+ * "jti" claim used for revocation, null on tokens issued before it was added.
+ */
+public record JwtPrincipal(String subject, String role, String accountType, Long accountId,
+                           Instant expiresAt, Instant issuedAt, String tokenId) implements Principal {
+
+    @Override
+    public String getName() {
+        return subject;
+    }
+
+    // Case-insensitive role check, matching how controllers compare roles today
+    public boolean hasRole(String expected) {
+        return role != null && role.equalsIgnoreCase(expected);
+    }
+
+    // Primary key of the caller in the given account table, or null if the token does not carry it
+    public Long accountIdFor(String expectedAccountType) {
+        return expectedAccountType.equals(accountType) ? accountId : null;
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !now.isBefore(expiresAt);
+    }
+}
@@ -1,10 +1,14 @@
 package com.insurai.insurai_backend.config;
 
 import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
+import java.util.UUID;
 
 import org.springframework.stereotype.Component;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -12,33 +16,71 @@ import io.jsonwebtoken.security.Keys;
 @Component
 public class JwtUtil {
 
-    private final String SECRET_KEY = "insuraiSecretKey1234567890insuraiSecretKey1234567890"; 
+    private final String SECRET_KEY = "insuraiSecretKey1234567890insuraiSecretKey1234567890";
     // must be at least 256-bit for HS256
     private final long EXPIRATION_TIME = 86400000; // 1 day
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    // Key and parser are immutable and thread-safe, so build them once instead of per call
+    private final Key signingKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    private final JwtParser parser = Jwts.parserBuilder()
+            .setSigningKey(signingKey)
+            .build();
+
+    private final VerifiedTokenCache tokenCache;
+
+    public JwtUtil(VerifiedTokenCache tokenCache) {
+        this.tokenCache = tokenCache;
+    }
+
+    // Longest a token can stay valid; revocation entries are kept no longer than this
+    public long getExpirationTime() {
+        return EXPIRATION_TIME;
     }
 
     // Generate JWT token
     public String generateToken(String email, String role) {
+        return generateToken(email, role, null, null);
+    }
+
+    // Generate JWT token that also carries the caller's primary key, so controllers can skip findByEmail
+    public String generateToken(String email, String role, String accountType, Long accountId) {
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(email)
                 .claim("role", role)
+                .claim("acct", accountType)
+                .claim("uid", accountId)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * Verify the signature and expiry once and return the claims callers need.
+     * Tokens seen recently are answered from the {@link VerifiedTokenCache}.
+     * Throws a {@link io.jsonwebtoken.JwtException} if the token is invalid or expired.
+     */
+    public JwtPrincipal parse(String token) {
+        return tokenCache.getOrVerify(token, this::verify);
+    }
+
+    private JwtPrincipal verify(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        return new JwtPrincipal(
+                claims.getSubject(),
+                claims.get("role", String.class),
+                claims.get("acct", String.class),
+                claims.get("uid", Long.class),
+                toInstant(claims.getExpiration()),
+                toInstant(claims.getIssuedAt()),
+                claims.getId()
+        );
+    }
+
     // Extract email from token
     public String extractEmail(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return parse(token).subject();
     }
 
     // ------------------- Added for Agent JWT filter -------------------
@@ -48,31 +90,20 @@ public class JwtUtil {
 
     public boolean validateToken(String token, String email) {
         try {
-            String tokenEmail = extractEmail(token);
-            return (tokenEmail.equals(email) && !isTokenExpired(token));
+            JwtPrincipal principal = parse(token);
+            return principal.subject().equals(email) && !principal.isExpired(Instant.now());
         } catch (Exception e) {
             return false;
         }
     }
-
-    private boolean isTokenExpired(String token) {
-        Date expiration = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getExpiration();
-        return expiration.before(new Date());
-    }
     // -------------------------------------------------------------------
 
     // Extract role from token
     public String extractRole(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .get("role", String.class);
+        return parse(token).role();
+    }
+
+    private static Instant toInstant(Date date) {
+        return date != null ? date.toInstant() : null;
     }
 }
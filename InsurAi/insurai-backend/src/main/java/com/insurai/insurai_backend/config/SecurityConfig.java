@@ -1,8 +1,14 @@
 package com.insurai.insurai_backend.config;
 
+import jakarta.servlet.DispatcherType;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.SecurityFilterChain;
@@ -13,16 +19,13 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @Configuration
 public class SecurityConfig {
 
-    private final EmployeeJwtAuthenticationFilter employeeJwtAuthenticationFilter;
-    private final AgentJwtAuthenticationFilter agentJwtAuthenticationFilter;
-    private final HrJwtAuthenticationFilter hrJwtAuthenticationFilter; // Added
+    private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final boolean publicUploadLinks;
 
-    public SecurityConfig(EmployeeJwtAuthenticationFilter employeeJwtAuthenticationFilter,
-                          AgentJwtAuthenticationFilter agentJwtAuthenticationFilter,
-                          HrJwtAuthenticationFilter hrJwtAuthenticationFilter) { // Added
-        this.employeeJwtAuthenticationFilter = employeeJwtAuthenticationFilter;
-        this.agentJwtAuthenticationFilter = agentJwtAuthenticationFilter;
-        this.hrJwtAuthenticationFilter = hrJwtAuthenticationFilter; // Added
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter,
+                          @Value("${insurai.uploads.public-links.enabled:false}") boolean publicUploadLinks) {
+        this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.publicUploadLinks = publicUploadLinks;
     }
 
     @Bean
@@ -31,11 +34,21 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .cors(cors -> {}) // Keep global CORS
             .authorizeHttpRequests(auth -> auth
+                // Completing an already authorized async request (SSE streams); the token is not sent again
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                 // Employee claim endpoints
                 .requestMatchers("/employee/claims/**").hasRole("EMPLOYEE")
                 .requestMatchers("/employee/queries/**").hasRole("EMPLOYEE")
-                .requestMatchers("/uploads/**").permitAll()
+                // Old document links: unchecked, so closed unless insurai.uploads.public-links.enabled
+                .requestMatchers("/uploads/**").access((authentication, context) ->
+                        new AuthorizationDecision(publicUploadLinks))
+                // Claim documents and their previews; the controller checks the caller may read that claim
+                .requestMatchers("/claims/*/documents/*", "/claims/*/documents/*/preview").hasAnyRole("EMPLOYEE", "HR", "ADMIN")
                 .requestMatchers("/hr/claims").hasAnyRole("HR")
+                .requestMatchers("/hr/claims/stream").hasRole("HR")
+                .requestMatchers(HttpMethod.GET, "/hr/claims/*").hasRole("HR")
+                .requestMatchers("/agent/queries/stream").hasRole("AGENT")
                 .requestMatchers("/admin/claims").hasAnyRole("ADMIN")
 
                 // Public endpoints
@@ -74,14 +87,21 @@ public class SecurityConfig {
             .httpBasic(httpBasic -> httpBasic.disable())
             .formLogin(formLogin -> formLogin.disable());
 
-        // Add JWT filters in order
-        http.addFilterBefore(employeeJwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
-        http.addFilterBefore(agentJwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
-        http.addFilterBefore(hrJwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class); // Added
+        // One JWT filter verifies the token for every role
+        http.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
 
+    // Keep Spring Boot from also registering the JWT filter as a plain servlet filter
+    @Bean
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilterRegistration() {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration =
+                new FilterRegistrationBean<>(jwtAuthenticationFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration authConfig) throws Exception {
         return authConfig.getAuthenticationManager();
@@ -0,0 +1,95 @@
+package com.insurai.insurai_backend.config;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.insurai.insurai_backend.util.BoundedExpiringCache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Cache of already-verified tokens so that a dashboard polling with the same bearer
+ * token does not pay the HMAC check on every request. Entries are keyed by a SHA-256
+ * digest of the compact token (the token itself is never stored) and expire no later
+ * than the token's own "exp" claim.
+ */
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+
+    // 128 bits of SHA-256: collision resistant, and cheap to hash and compare as a map key
+    private record TokenKey(long high, long low) {}
+
+    private final boolean enabled;
+    private final BoundedExpiringCache<TokenKey, JwtPrincipal> cache;
+
+    public VerifiedTokenCache(@Value("${insurai.jwt.cache.enabled:true}") boolean enabled,
+                              @Value("${insurai.jwt.cache.max-entries:10000}") int maxEntries) {
+        this.enabled = enabled;
+        this.cache = new BoundedExpiringCache<>(maxEntries);
+    }
+
+    /**
+     * Return the cached principal for this token, or run the verifier and cache its result.
+     * With the cache switched off this simply calls the verifier.
+     */
+    public JwtPrincipal getOrVerify(String token, Function<String, JwtPrincipal> verifier) {
+        if (!enabled) {
+            return verifier.apply(token);
+        }
+        TokenKey key = keyOf(token);
+        JwtPrincipal cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        JwtPrincipal verified = verifier.apply(token);
+        if (verified.expiresAt() != null) {
+            cache.put(key, verified, verified.expiresAt().toEpochMilli());
+        }
+        return verified;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Reads already skip expired entries; this only reclaims their memory
+    @Scheduled(fixedDelayString = "${insurai.jwt.cache.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        cache.purgeExpired();
+    }
+
+    private static TokenKey keyOf(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            return new TokenKey(buffer.getLong(), buffer.getLong());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("insurai.jwt.cache.hits", cache, BoundedExpiringCache::hitCount)
+                .description("Token verifications answered from the cache")
+                .register(registry);
+        FunctionCounter.builder("insurai.jwt.cache.misses", cache, BoundedExpiringCache::missCount)
+                .description("Token verifications that ran the HMAC check")
+                .register(registry);
+        FunctionCounter.builder("insurai.jwt.cache.evictions", cache, BoundedExpiringCache::evictionCount)
+                .description("Entries removed on expiry or to respect the entry cap")
+                .register(registry);
+        Gauge.builder("insurai.jwt.cache.size", cache, BoundedExpiringCache::size)
+                .register(registry);
+    }
+}
@@ -1,21 +1,108 @@
 package com.insurai.insurai_backend.config;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.multipart.MultipartResolver;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+import org.springframework.web.servlet.DispatcherServlet;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.AbstractResourceResolver;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+import com.insurai.insurai_backend.service.DocumentBlobStore;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
-    // Absolute path to your uploads folder
-    private static final String UPLOAD_DIR = "C:/Users/Jeevan/Documents/InsurAi/insurai-backend/uploads/";
+    // Uploads that parse their own request body as it arrives, see ClaimDocumentStorage.readForm
+    private static final Set<String> STREAMED_UPLOADS = Set.of("/employee/claims/stream", "/employee/claims/update/stream");
+
+    private final CurrentUserArgumentResolver currentUserArgumentResolver;
+    private final DocumentBlobStore blobStore;
+    private final String uploadDir;
+    private final boolean publicLinks;
+
+    public WebConfig(CurrentUserArgumentResolver currentUserArgumentResolver,
+                     DocumentBlobStore blobStore,
+                     @Value("${insurai.uploads.dir:C:/Users/Jeevan/Documents/InsurAi/insurai-backend/uploads/}") String uploadDir,
+                     @Value("${insurai.uploads.public-links.enabled:false}") boolean publicLinks) {
+        this.currentUserArgumentResolver = currentUserArgumentResolver;
+        this.blobStore = blobStore;
+        this.uploadDir = uploadDir;
+        this.publicLinks = publicLinks;
+    }
 
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // Serve /uploads/** URLs from the local folder
+        // Documents go through ClaimDocumentController; the unchecked /uploads/** links only while old ones are around
+        if (!publicLinks) {
+            return;
+        }
         registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:///" + UPLOAD_DIR) // Ensure triple slash
+                .addResourceLocations(Paths.get(uploadDir).toUri().toString())
                 .setCachePeriod(0) // Disable caching for development
-                .resourceChain(true);
+                .resourceChain(true)
+                .addResolver(new StoredDocumentResolver());
+    }
+
+    // A claim document path names its content's blob; anything else is a plain file under the uploads folder,
+    // except the store's own directories, which are only reached through document paths
+    private class StoredDocumentResolver extends AbstractResourceResolver {
+
+        @Override
+        protected Resource resolveResourceInternal(HttpServletRequest request, String requestPath,
+                                                   List<? extends Resource> locations, ResourceResolverChain chain) {
+            if (requestPath.startsWith("blobs/") || requestPath.startsWith("tmp/")) {
+                return null;
+            }
+            Path blob = blobStore.resolveStored(DocumentBlobStore.URL_PREFIX + requestPath);
+            if (blob == null) {
+                return chain.resolveResource(request, requestPath, locations);
+            }
+            String filename = requestPath.substring(requestPath.lastIndexOf('/') + 1);
+            // Named after the path, so the content type still comes from the uploaded file's extension
+            return Files.isReadable(blob) ? new FileSystemResource(blob) {
+                @Override
+                public String getFilename() {
+                    return filename;
+                }
+            } : null;
+        }
+
+        @Override
+        protected String resolveUrlPathInternal(String resourceUrlPath, List<? extends Resource> locations,
+                                                ResourceResolverChain chain) {
+            return chain.resolveUrlPath(resourceUrlPath, locations);
+        }
+    }
+
+    // Multipart as usual, except for the streamed uploads: their body must reach the controller unread
+    @Bean(name = DispatcherServlet.MULTIPART_RESOLVER_BEAN_NAME)
+    public MultipartResolver multipartResolver() {
+        return new StandardServletMultipartResolver() {
+            @Override
+            public boolean isMultipart(HttpServletRequest request) {
+                return !STREAMED_UPLOADS.contains(request.getServletPath()) && super.isMultipart(request);
+            }
+        };
+    }
+
+    // @CurrentEmployee / @CurrentHr / @CurrentAgent controller parameters
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(currentUserArgumentResolver);
     }
 }
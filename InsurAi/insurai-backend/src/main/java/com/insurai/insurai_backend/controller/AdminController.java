@@ -1,25 +1,39 @@
 package com.insurai.insurai_backend.controller;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.insurai.insurai_backend.config.JwtUtil;
-import com.insurai.insurai_backend.model.Claim;
+import com.insurai.insurai_backend.model.ClaimDTO;
+import com.insurai.insurai_backend.model.ClaimStatus;
 import com.insurai.insurai_backend.model.LoginRequest;
 import com.insurai.insurai_backend.model.RegisterRequest;
 import com.insurai.insurai_backend.service.AdminService;
+import com.insurai.insurai_backend.service.ClaimAutomationService;
+import com.insurai.insurai_backend.service.ClaimExportService;
 import com.insurai.insurai_backend.service.ClaimService;
+import com.insurai.insurai_backend.service.DocumentLayoutMigration;
 import com.insurai.insurai_backend.service.PolicyService;
+import com.insurai.insurai_backend.service.TokenRevocationService;
 
 @RestController
 @RequestMapping("/admin")
@@ -38,6 +52,18 @@ public class AdminController {
     @Autowired
     private ClaimService claimService;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private ClaimExportService claimExportService;
+
+    @Autowired
+    private ClaimAutomationService claimAutomationService;
+
+    @Autowired
+    private DocumentLayoutMigration documentLayoutMigration;
+
     // -------------------- Admin Login --------------------
     @PostMapping("/login")
     public ResponseEntity<?> adminLogin(@RequestBody LoginRequest loginRequest) {
@@ -88,29 +114,168 @@ public class AdminController {
 
     // -------------------- Get All Claims --------------------
     @GetMapping("/claims")
-    public ResponseEntity<?> getAllClaims(@RequestHeader(value = "Authorization") String authHeader) {
+    public ResponseEntity<?> getAllClaims(
+            @RequestHeader(value = "Authorization") String authHeader,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean unpaged) {
         try {
             if (!isAdminJwt(authHeader)) {
                 return ResponseEntity.status(403).body("Access denied. Please login as Admin.");
             }
 
-            List<Claim> claims = claimService.getAllClaims(); // Make sure this method exists in ClaimService
-            List<ClaimDTO> dtos = claims.stream()
-                    .map(ClaimDTO::new)
-                    .collect(Collectors.toList());
+            // Legacy shape: the whole claims table in one array
+            if (unpaged) {
+                return ResponseEntity.ok(claimService.getAllClaimDtos());
+            }
 
-            return ResponseEntity.ok(dtos);
+            return ResponseEntity.ok(claimService.getClaimsPage(cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body("Error fetching claims: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Error fetching claims: " + e.getMessage());
         }
     }
 
+    // -------------------- Reassign a Claim to another HR --------------------
+    @PostMapping("/claims/{claimId}/reassign")
+    public ResponseEntity<?> reassignClaim(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @PathVariable Long claimId,
+            @RequestParam Long hrId) {
+        try {
+            if (!isAdminJwt(authHeader)) {
+                return ResponseEntity.status(403).body("Access denied. Please login as Admin.");
+            }
+            return ResponseEntity.ok(new ClaimDTO(claimService.reassignClaim(claimId, hrId)));
+        } catch (Exception e) {
+            return ResponseEntity.status(400).body("Error reassigning claim: " + e.getMessage());
+        }
+    }
+
+    // -------------------- Export Claims (streamed) --------------------
+    @GetMapping("/claims/export")
+    public ResponseEntity<?> exportClaims(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long hrId,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+
+        if (!isAdminJwt(authHeader)) {
+            return ResponseEntity.status(403).body("Access denied. Please login as Admin.");
+        }
+
+        ClaimExportService.Format exportFormat;
+        try {
+            exportFormat = ClaimExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Unsupported export format: " + format);
+        }
+
+        ClaimStatus statusFilter = null;
+        if (status != null && !status.isBlank()) {
+            try {
+                statusFilter = ClaimStatus.fromLabel(status);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
+
+        ClaimExportService.ExportFilter filter = new ClaimExportService.ExportFilter(statusFilter, from, to, hrId);
+        StreamingResponseBody body = out -> {
+            // syncFlush so each batch flushed by the exporter reaches the client compressed
+            OutputStream target = gzip ? new GZIPOutputStream(out, 8192, true) : out;
+            claimExportService.export(filter, exportFormat, target);
+            if (target instanceof GZIPOutputStream gzipOut) {
+                gzipOut.finish();
+            }
+        };
+
+        String fileName = exportFormat == ClaimExportService.Format.CSV ? "claims.csv" : "claims.ndjson";
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(exportFormat == ClaimExportService.Format.CSV
+                        ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    // -------------------- Auto-adjudication --------------------
+    @PostMapping("/automation/rules/reload")
+    public ResponseEntity<?> reloadAutomationRules(
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        if (!isAdminJwt(authHeader)) {
+            return ResponseEntity.status(403).body("Access denied. Please login as Admin.");
+        }
+        try {
+            return ResponseEntity.ok(Map.of("rules", claimAutomationService.reload()));
+        } catch (IllegalArgumentException e) {
+            // The previous rules stay in force
+            return ResponseEntity.status(400).body("Rules not reloaded: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/automation/sweep")
+    public ResponseEntity<?> sweepPendingClaims(
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        if (!isAdminJwt(authHeader)) {
+            return ResponseEntity.status(403).body("Access denied. Please login as Admin.");
+        }
+        try {
+            return ResponseEntity.ok(claimAutomationService.sweepPending());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(503).body("Sweep interrupted");
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Error sweeping claims: " + e.getMessage());
+        }
+    }
+
+    // -------------------- Uploads directory layout migration --------------------
+    // Starts a run in the background (or reports the one going); POST again to resume one that stopped
+    @PostMapping("/uploads/migration")
+    public ResponseEntity<?> startUploadsMigration(
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        if (!isAdminJwt(authHeader)) {
+            return ResponseEntity.status(403).body("Access denied. Please login as Admin.");
+        }
+        return ResponseEntity.status(202).body(documentLayoutMigration.start());
+    }
+
+    @GetMapping("/uploads/migration")
+    public ResponseEntity<?> getUploadsMigration(
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        if (!isAdminJwt(authHeader)) {
+            return ResponseEntity.status(403).body("Access denied. Please login as Admin.");
+        }
+        return ResponseEntity.ok(documentLayoutMigration.progress());
+    }
+
+    // -------------------- Revoke All Sessions for a User --------------------
+    @PostMapping("/sessions/revoke")
+    public ResponseEntity<?> revokeSessions(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestParam String email) {
+
+        if (!isAdminJwt(authHeader)) {
+            return ResponseEntity.status(403).body("Access denied. Please login as Admin.");
+        }
+
+        tokenRevocationService.revokeAllSessions(email);
+        return ResponseEntity.ok("All sessions revoked for " + email);
+    }
+
     // -------------------- JWT Validation Helper --------------------
     private boolean isAdminJwt(String authHeader) {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
-            String role = jwtUtil.extractRole(token);
-            return "ADMIN".equalsIgnoreCase(role);
+            return jwtUtil.parse(token).hasRole("ADMIN");
         }
         return false;
     }
@@ -134,55 +299,4 @@ public class AdminController {
         public String getRole() { return role; }
         public String getToken() { return token; }
     }
-
-    // -------------------- Inner class for Claim DTO --------------------
-    public static class ClaimDTO {
-        private Long id;
-        private String title;
-        private String description;
-        private Double amount;
-        private String status;
-        private String remarks;
-        private java.time.LocalDateTime claimDate;
-        private java.time.LocalDateTime createdAt;
-        private java.time.LocalDateTime updatedAt;
-        private Long employeeId;
-        private Long policyId;
-        private String policyName;
-        private java.util.List<String> documents;
-        private Long assignedHrId;
-
-        public ClaimDTO(Claim claim) {
-            this.id = claim.getId();
-            this.title = claim.getTitle();
-            this.description = claim.getDescription();
-            this.amount = claim.getAmount();
-            this.status = claim.getStatus();
-            this.remarks = claim.getRemarks();
-            this.claimDate = claim.getClaimDate();
-            this.createdAt = claim.getCreatedAt();
-            this.updatedAt = claim.getUpdatedAt();
-            this.employeeId = (claim.getEmployee() != null) ? claim.getEmployee().getId() : null;
-            this.policyId = (claim.getPolicy() != null) ? claim.getPolicy().getId() : null;
-            this.policyName = (claim.getPolicy() != null) ? claim.getPolicy().getPolicyName() : "N/A";
-            this.documents = claim.getDocuments();
-            this.assignedHrId = (claim.getAssignedHr() != null) ? claim.getAssignedHr().getId() : null;
-        }
-
-        // Getters
-        public Long getId() { return id; }
-        public String getTitle() { return title; }
-        public String getDescription() { return description; }
-        public Double getAmount() { return amount; }
-        public String getStatus() { return status; }
-        public String getRemarks() { return remarks; }
-        public java.time.LocalDateTime getClaimDate() { return claimDate; }
-        public java.time.LocalDateTime getCreatedAt() { return createdAt; }
-        public java.time.LocalDateTime getUpdatedAt() { return updatedAt; }
-        public Long getEmployeeId() { return employeeId; }
-        public Long getPolicyId() { return policyId; }
-        public String getPolicyName() { return policyName; }
-        public java.util.List<String> getDocuments() { return documents; }
-        public Long getAssignedHrId() { return assignedHrId; }
-    }
 }
@@ -2,9 +2,11 @@ package com.insurai.insurai_backend.controller;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -15,6 +17,7 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.insurai.insurai_backend.config.CurrentAgent;
 import com.insurai.insurai_backend.config.JwtUtil;
 import com.insurai.insurai_backend.model.Agent;
 import com.insurai.insurai_backend.model.AgentAvailability;
@@ -22,6 +25,8 @@ import com.insurai.insurai_backend.model.EmployeeQuery;
 import com.insurai.insurai_backend.service.AgentAvailabilityService;
 import com.insurai.insurai_backend.service.AgentService;
 import com.insurai.insurai_backend.service.EmployeeQueryService;
+import com.insurai.insurai_backend.service.InboxStreamService;
+import com.insurai.insurai_backend.service.PasswordVerificationService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -35,7 +40,9 @@ public class AgentController {
     private final AgentAvailabilityService availabilityService;
     private final EmployeeQueryService queryService;
     private final JwtUtil jwtUtil;  
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final PasswordEncoder passwordEncoder;
+    private final PasswordVerificationService passwordVerificationService;
+    private final InboxStreamService inboxStreamService;
 
     // -------------------- Get all agents --------------------
     @GetMapping
@@ -61,32 +68,40 @@ public class AgentController {
 
     // -------------------- Agent login --------------------
     @PostMapping("/login")
-    public ResponseEntity<?> loginAgent(@RequestBody Agent loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> loginAgent(@RequestBody Agent loginRequest) {
+        Agent agent;
         try {
-            Agent agent = agentService.findByEmail(loginRequest.getEmail())
+            agent = agentService.findByEmail(loginRequest.getEmail())
                     .orElseThrow(() -> new RuntimeException("Agent not found"));
-
-            if (!passwordEncoder.matches(loginRequest.getPassword(), agent.getPassword())) {
-                return ResponseEntity.status(401).body("Invalid password");
-            }
-
-            String token = jwtUtil.generateToken(agent.getEmail(), "AGENT");
-
-            AgentLoginResponse response = new AgentLoginResponse(
-                    "Login successful",
-                    agent.getId(),
-                    agent.getName(),
-                    "agent",
-                    token
-            );
-
-            return ResponseEntity.ok(response);
-
         } catch (RuntimeException e) {
-            return ResponseEntity.status(404).body(e.getMessage());
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("Server error: " + e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.status(404).body(e.getMessage()));
         }
+
+        return passwordVerificationService.verify(loginRequest.getPassword(), agent.getPassword())
+                .<ResponseEntity<?>>thenApply(check -> {
+                    if (check.rejected()) {
+                        return passwordVerificationService.overloadedResponse();
+                    }
+                    if (!check.matches()) {
+                        return ResponseEntity.status(401).body("Invalid password");
+                    }
+                    if (check.rehashed() != null) {
+                        agentService.updatePassword(agent, check.rehashed());
+                    }
+
+                    String token = jwtUtil.generateToken(agent.getEmail(), "AGENT", "AGENT", agent.getId());
+
+                    AgentLoginResponse response = new AgentLoginResponse(
+                            "Login successful",
+                            agent.getId(),
+                            agent.getName(),
+                            "agent",
+                            token
+                    );
+
+                    return ResponseEntity.ok(response);
+                })
+                .exceptionally(e -> ResponseEntity.status(500).body("Server error: " + e.getMessage()));
     }
 
     // -------------------- Save or schedule availability --------------------
@@ -151,50 +166,39 @@ public class AgentController {
         return ResponseEntity.ok(pendingQueries);
     }
 
+    // -------------------- Stream changes to the logged-in agent's queries (SSE) --------------------
+    // Send Last-Event-ID on reconnect to get what was missed; a reset event means reload the pending list
+    @GetMapping(value = "/queries/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamQueries(
+            @CurrentAgent Long agentId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        if (agentId == null) {
+            return ResponseEntity.status(403).body("Unauthorized: not an agent");
+        }
+        try {
+            return ResponseEntity.ok(inboxStreamService.open(InboxStreamService.AGENT, agentId, lastEventId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).body(e.getMessage());
+        }
+    }
+
 // -------------------- Respond to a query with full debug logs --------------------
 @PutMapping("/queries/respond/{queryId}")
 public ResponseEntity<?> respondToQuery(
         @PathVariable Long queryId,
         @RequestBody RespondQueryRequest request,
-        @RequestHeader(value = "Authorization", required = false) String authHeader
+        @CurrentAgent Long agentId
 ) {
     System.out.println("\n=== [DEBUG] respondToQuery CALLED ===");
     System.out.println("QueryId: " + queryId);
     System.out.println("Request body response: " + (request != null ? request.getResponse() : "null"));
-    System.out.println("Authorization header received: " + authHeader);
 
     try {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            System.out.println("[DEBUG] Missing or invalid Authorization header");
-            return ResponseEntity.status(403).body("Missing or invalid Authorization header");
-        }
-
-        String token = authHeader.substring(7).trim();
-        System.out.println("[DEBUG] Extracted token: " + token);
-
-        String email = jwtUtil.extractEmail(token);
-        String role = jwtUtil.extractRole(token);
-
-        System.out.println("[DEBUG] Extracted email from token: " + email);
-        System.out.println("[DEBUG] Extracted role from token: " + role);
-
-        if (email == null) {
-            System.out.println("[DEBUG] Email from token is null");
-        }
-        if (role == null) {
-            System.out.println("[DEBUG] Role from token is null");
-        }
-
-        if (email == null || role == null || !"AGENT".equalsIgnoreCase(role)) {
-            System.out.println("[DEBUG] Role check failed. Required: AGENT, Found: " + role);
+        // The JWT filter already confirmed the agent exists; the id comes from the token
+        if (agentId == null) {
             return ResponseEntity.status(403).body("Unauthorized: not an agent");
         }
 
-        // Fetch agent by email
-        Agent agent = agentService.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Agent not found in DB"));
-        System.out.println("[DEBUG] Agent found in DB: " + agent.getId() + " (" + agent.getEmail() + ")");
-
         // Fetch query
         EmployeeQuery query = queryService.findById(queryId)
                 .orElseThrow(() -> new RuntimeException("Query not found"));
@@ -202,18 +206,12 @@ public ResponseEntity<?> respondToQuery(
                            (query.getAgent() != null ? query.getAgent().getId() : "null"));
 
         // ✅ Ensure this agent is assigned to this query
-        if (query.getAgent() == null || !query.getAgent().getId().equals(agent.getId())) {
-            System.out.println("[DEBUG] Query assignment check failed. AgentId=" + agent.getId() +
-                               " QueryAgentId=" + (query.getAgent() != null ? query.getAgent().getId() : "null"));
+        if (query.getAgent() == null || !query.getAgent().getId().equals(agentId)) {
             return ResponseEntity.status(403).body("You are not assigned to this query");
         }
 
-        // Update query response and status
-        query.setResponse(request.getResponse());
-        query.setStatus("resolved");
-        query.setUpdatedAt(LocalDateTime.now());
-
-        EmployeeQuery updatedQuery = queryService.save(query);
+        // Update query response and status (recorded in the outbox with the change)
+        EmployeeQuery updatedQuery = queryService.respondToQuery(query, request.getResponse());
         System.out.println("[DEBUG] Query updated successfully with response: " + updatedQuery.getResponse());
 
         // ✅ Return DTO instead of full entity
@@ -1,8 +1,10 @@
 package com.insurai.insurai_backend.controller;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,12 +13,15 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.insurai.insurai_backend.config.JwtPrincipal;
 import com.insurai.insurai_backend.config.JwtUtil;
 import com.insurai.insurai_backend.model.Employee;
 import com.insurai.insurai_backend.model.LoginRequest;
 import com.insurai.insurai_backend.model.RegisterRequest;
 import com.insurai.insurai_backend.repository.EmployeeRepository;
 import com.insurai.insurai_backend.service.EmployeeService;
+import com.insurai.insurai_backend.service.PasswordVerificationService;
+import com.insurai.insurai_backend.service.TokenRevocationService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -29,6 +34,8 @@ public class AuthController {
     private final EmployeeService employeeService;
     private final EmployeeRepository employeeRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PasswordVerificationService passwordVerificationService;
+    private final TokenRevocationService tokenRevocationService;
     private final JwtUtil jwtUtil; // <-- Inject JwtUtil for proper JWT
 
     // ================= Employee Registration =================
@@ -60,7 +67,7 @@ public class AuthController {
 
     // ================= Employee Login =================
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest request) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest request) {
         Employee emp = null;
 
         // Allow login by either employeeId OR email
@@ -71,24 +78,45 @@ public class AuthController {
         }
 
         if (emp == null) {
-            return ResponseEntity.status(404).body("User not found");
+            return CompletableFuture.completedFuture(ResponseEntity.status(404).body("User not found"));
         }
 
-        // Check password
-        if (!passwordEncoder.matches(request.getPassword(), emp.getPassword())) {
-            return ResponseEntity.status(401).body("Incorrect password");
-        }
-
-        // Generate JWT
-        String token = jwtUtil.generateToken(emp.getEmail(), emp.getRole().name());
+        // Check password on the login pool, off the servlet thread
+        Employee employee = emp;
+        return passwordVerificationService.verify(request.getPassword(), employee.getPassword())
+                .<ResponseEntity<?>>thenApply(check -> {
+                    if (check.rejected()) {
+                        return passwordVerificationService.overloadedResponse();
+                    }
+                    if (!check.matches()) {
+                        return ResponseEntity.status(401).body("Incorrect password");
+                    }
+                    if (check.rehashed() != null) {
+                        employee.setPassword(check.rehashed());
+                        employeeRepository.save(employee);
+                    }
+
+                    // Generate JWT
+                    String token = jwtUtil.generateToken(employee.getEmail(), employee.getRole().name(), "EMPLOYEE", employee.getId());
+
+                    // Return token, role, and name
+                    return ResponseEntity.ok(Map.of(
+                            "token", token,
+                            "role", employee.getRole().name(),
+                            "name", employee.getName(),
+                            "employeeId", employee.getEmployeeId()
+                    ));
+                });
+    }
 
-        // Return token, role, and name
-        return ResponseEntity.ok(Map.of(
-                "token", token,
-                "role", emp.getRole().name(),
-                "name", emp.getName(),
-                "employeeId", emp.getEmployeeId()
-        ));
+    // ================= Logout (revokes the presented token) =================
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@AuthenticationPrincipal JwtPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(401).body("Not logged in");
+        }
+        tokenRevocationService.revoke(principal);
+        return ResponseEntity.ok("Logged out");
     }
 
     // ================= Get All Employees =================
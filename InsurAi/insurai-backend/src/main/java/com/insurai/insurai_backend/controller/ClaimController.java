@@ -1,16 +1,12 @@
 package com.insurai.insurai_backend.controller;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -19,15 +15,24 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
 
-import com.insurai.insurai_backend.config.JwtUtil;
+import com.insurai.insurai_backend.config.CurrentEmployee;
 import com.insurai.insurai_backend.model.Claim;
+import com.insurai.insurai_backend.model.ClaimDTO;
 import com.insurai.insurai_backend.model.Employee;
 import com.insurai.insurai_backend.model.Policy;
-import com.insurai.insurai_backend.repository.EmployeeRepository;
 import com.insurai.insurai_backend.repository.PolicyRepository;
+import com.insurai.insurai_backend.service.ClaimDocumentStorage;
+import com.insurai.insurai_backend.service.ClaimDocumentStorage.StoredDocument;
+import com.insurai.insurai_backend.service.ClaimDocumentStorage.StreamedForm;
+import com.insurai.insurai_backend.service.ClaimDocumentStorage.Upload;
 import com.insurai.insurai_backend.service.ClaimService;
+import com.insurai.insurai_backend.service.CoverageLedgerService;
+import com.insurai.insurai_backend.service.IdempotencyService;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 @RestController
 @RequestMapping("/employee/claims")
@@ -41,58 +46,92 @@ public class ClaimController {
     private PolicyRepository policyRepository;
 
     @Autowired
-    private EmployeeRepository employeeRepository;
+    private ClaimDocumentStorage claimDocumentStorage;
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private CoverageLedgerService coverageLedgerService;
 
-    private final String uploadDir = "C:/Users/Jeevan/Documents/InsurAi/insurai-backend/uploads/";
+    @Autowired
+    private IdempotencyService idempotencyService;
 
     // -------------------- Submit Claim --------------------
     @PostMapping("")
     public ResponseEntity<?> submitClaim(
-            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @CurrentEmployee Employee employee,
             @RequestParam Long policyId,
             @RequestParam String title,
             @RequestParam String description,
             @RequestParam Double amount,
             @RequestParam String date,
-            @RequestParam(required = false) List<MultipartFile> documents
+            @RequestParam(required = false) List<MultipartFile> documents,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey
     ) {
-        try {
-            // Validate token
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                return ResponseEntity.status(403).body("Unauthorized: Missing token");
-            }
-            String token = authHeader.substring(7).trim();
-            String email = jwtUtil.extractEmail(token);
-            String role = jwtUtil.extractRole(token);
-            if (!"EMPLOYEE".equalsIgnoreCase(role)) {
-                return ResponseEntity.status(403).body("Unauthorized: Not an employee");
-            }
+        // Caller comes from the verified token; employee is a lazy reference, no lookup needed
+        if (employee == null) {
+            return ResponseEntity.status(403).body("Unauthorized: Not an employee");
+        }
 
-            Employee employee = employeeRepository.findByEmail(email).orElse(null);
-            if (employee == null) {
-                return ResponseEntity.status(403).body("Unauthorized: Invalid token");
-            }
+        // A retry with the same key gets the first response back: no second claim, no second copy of the files
+        return idempotencyService.execute("claim.submit", employee.getId(), idempotencyKey,
+                IdempotencyService.fingerprint(policyId, title, description, amount, date, documents),
+                () -> submitClaim(employee, policyId, title, description, amount, date,
+                        claimDocumentStorage.upload(documents)));
+    }
 
+    // -------------------- Submit Claim, Streaming the Documents --------------------
+    // The same form, parsed as it arrives: each document goes straight to its file through a fixed-size
+    // buffer instead of being buffered whole first. The fields must come before the documents.
+    @PostMapping(value = "/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> submitClaimStreaming(
+            @CurrentEmployee Employee employee,
+            HttpServletRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey
+    ) {
+        if (employee == null) {
+            return ResponseEntity.status(403).body("Unauthorized: Not an employee");
+        }
+        try {
+            StreamedForm form = claimDocumentStorage.readForm(request.getContentType(), request.getInputStream());
+            Long policyId = Long.valueOf(field(form, "policyId"));
+            String title = field(form, "title");
+            String description = field(form, "description");
+            Double amount = Double.valueOf(field(form, "amount"));
+            String date = field(form, "date");
+
+            // The documents are not read yet, so only the fields identify the request; a replay never reads them
+            return idempotencyService.execute("claim.submit", employee.getId(), idempotencyKey,
+                    IdempotencyService.fingerprint(policyId, title, description, amount, date),
+                    () -> submitClaim(employee, policyId, title, description, amount, date, form.documents()));
+        } catch (Exception e) {
+            return ResponseEntity.status(400).body("Error submitting claim: " + e.getMessage());
+        }
+    }
+
+    private ResponseEntity<?> submitClaim(Employee employee, Long policyId, String title, String description,
+                                          Double amount, String date, Upload documents) {
+        List<StoredDocument> stored = new ArrayList<>();
+        try {
             Policy policy = policyRepository.findById(policyId)
                     .orElseThrow(() -> new RuntimeException("Policy not found"));
 
-            // Handle document uploads safely
-            List<String> documentPaths = (documents != null) ?
-                    documents.stream().map(file -> storeFile(file)).collect(Collectors.toList())
-                    : List.of();
+            // Handle document uploads safely; their hashes feed duplicate detection
+            documents.storeInto(stored);
+            List<String> documentPaths = stored.stream().map(StoredDocument::path).collect(Collectors.toList());
 
             LocalDateTime claimDate = LocalDateTime.parse(date + "T00:00:00");
 
             Claim claim = new Claim(title, description, amount, claimDate, employee, policy, null, documentPaths);
+            claim.setDocumentFingerprint(ClaimDocumentStorage.fingerprint(stored));
 
             Claim savedClaim = claimService.submitClaim(claim);
 
             return ResponseEntity.ok(new ClaimDTO(savedClaim));
 
+        } catch (MaxUploadSizeExceededException e) {
+            claimDocumentStorage.delete(stored);
+            return ResponseEntity.status(413).body("Error submitting claim: " + e.getMessage());
         } catch (Exception e) {
+            claimDocumentStorage.delete(stored);
             return ResponseEntity.status(400).body("Error submitting claim: " + e.getMessage());
         }
     }
@@ -100,33 +139,68 @@ public class ClaimController {
     // -------------------- Update Claim --------------------
     @PostMapping("/update")
     public ResponseEntity<?> updateClaim(
-            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @CurrentEmployee Long employeeId,
             @RequestParam Long claimId,
             @RequestParam Long policyId,
             @RequestParam String title,
             @RequestParam String description,
             @RequestParam Double amount,
             @RequestParam String date,
-            @RequestParam(required = false) List<MultipartFile> documents
+            @RequestParam(required = false) List<MultipartFile> documents,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey
+    ) {
+        if (employeeId == null) {
+            return ResponseEntity.status(403).body("Unauthorized: Not an employee");
+        }
+
+        // Replayed on retry: the new documents are not appended to the claim twice
+        return idempotencyService.execute("claim.update", employeeId, idempotencyKey,
+                IdempotencyService.fingerprint(claimId, policyId, title, description, amount, date, documents),
+                () -> updateClaim(employeeId, claimId, policyId, title, description, amount, date,
+                        claimDocumentStorage.upload(documents)));
+    }
+
+    // -------------------- Update Claim, Streaming the Documents --------------------
+    @PostMapping(value = "/update/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> updateClaimStreaming(
+            @CurrentEmployee Long employeeId,
+            HttpServletRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey
     ) {
+        if (employeeId == null) {
+            return ResponseEntity.status(403).body("Unauthorized: Not an employee");
+        }
         try {
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                return ResponseEntity.status(403).body("Unauthorized: Missing token");
-            }
-            String token = authHeader.substring(7).trim();
-            String email = jwtUtil.extractEmail(token);
-            String role = jwtUtil.extractRole(token);
-            if (!"EMPLOYEE".equalsIgnoreCase(role)) {
-                return ResponseEntity.status(403).body("Unauthorized: Not an employee");
-            }
+            StreamedForm form = claimDocumentStorage.readForm(request.getContentType(), request.getInputStream());
+            Long claimId = Long.valueOf(field(form, "claimId"));
+            Long policyId = Long.valueOf(field(form, "policyId"));
+            String title = field(form, "title");
+            String description = field(form, "description");
+            Double amount = Double.valueOf(field(form, "amount"));
+            String date = field(form, "date");
+
+            return idempotencyService.execute("claim.update", employeeId, idempotencyKey,
+                    IdempotencyService.fingerprint(claimId, policyId, title, description, amount, date),
+                    () -> updateClaim(employeeId, claimId, policyId, title, description, amount, date, form.documents()));
+        } catch (Exception e) {
+            return ResponseEntity.status(400).body("Error updating claim: " + e.getMessage());
+        }
+    }
 
-            Employee employee = employeeRepository.findByEmail(email).orElse(null);
-            if (employee == null) {
-                return ResponseEntity.status(403).body("Unauthorized: Invalid token");
-            }
+    private static String field(StreamedForm form, String name) {
+        String value = form.fields().get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing field " + name);
+        }
+        return value;
+    }
 
+    private ResponseEntity<?> updateClaim(Long employeeId, Long claimId, Long policyId, String title, String description,
+                                          Double amount, String date, Upload documents) {
+        List<StoredDocument> stored = new ArrayList<>();
+        try {
             Claim claim = claimService.getClaimById(claimId);
-            if (claim == null || !claim.getEmployee().getId().equals(employee.getId())) {
+            if (claim == null || !claim.getEmployee().getId().equals(employeeId)) {
                 return ResponseEntity.status(403).body("Unauthorized: Cannot edit this claim");
             }
 
@@ -139,15 +213,17 @@ public class ClaimController {
             claim.setClaimDate(LocalDateTime.parse(date + "T00:00:00"));
             claim.setPolicy(policy);
 
-            if (documents != null && !documents.isEmpty()) {
-                List<String> documentPaths = documents.stream().map(file -> storeFile(file)).collect(Collectors.toList());
-                claim.getDocuments().addAll(documentPaths);
-            }
+            documents.storeInto(stored);
+            stored.forEach(document -> claim.getDocuments().add(document.path()));
 
             Claim updatedClaim = claimService.updateClaim(claim);
             return ResponseEntity.ok(new ClaimDTO(updatedClaim));
 
+        } catch (MaxUploadSizeExceededException e) {
+            claimDocumentStorage.delete(stored);
+            return ResponseEntity.status(413).body("Error updating claim: " + e.getMessage());
         } catch (Exception e) {
+            claimDocumentStorage.delete(stored);
             return ResponseEntity.status(400).body("Error updating claim: " + e.getMessage());
         }
     }
@@ -155,100 +231,65 @@ public class ClaimController {
     // -------------------- Get Employee Claims --------------------
     @GetMapping("")
     public ResponseEntity<?> getEmployeeClaims(
-            @RequestHeader(value = "Authorization", required = false) String authHeader
+            @CurrentEmployee Long employeeId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean unpaged
     ) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return ResponseEntity.status(403).body("Missing or invalid Authorization header");
+        if (employeeId == null) {
+            return ResponseEntity.status(403).body("Access denied: Not an employee");
         }
 
-        String token = authHeader.substring(7).trim();
-        String email = jwtUtil.extractEmail(token);
-        String role = jwtUtil.extractRole(token);
+        // Legacy shape: all of the employee's claims in one array
+        if (unpaged) {
+            return ResponseEntity.ok(claimService.getClaimDtosByEmployee(employeeId));
+        }
 
-        if (!"EMPLOYEE".equalsIgnoreCase(role)) {
-            return ResponseEntity.status(403).body("Access denied: Not an employee");
+        try {
+            return ResponseEntity.ok(claimService.getClaimsPageByEmployee(employeeId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body("Error fetching claims: " + e.getMessage());
         }
+    }
 
-        Employee employee = employeeRepository.findByEmail(email).orElse(null);
-        if (employee == null) {
-            return ResponseEntity.status(403).body("Invalid token: employee not found");
+    // -------------------- Remaining Coverage --------------------
+    @GetMapping("/coverage")
+    public ResponseEntity<?> getCoverage(
+            @CurrentEmployee Long employeeId,
+            @RequestParam(required = false) Long policyId
+    ) {
+        if (employeeId == null) {
+            return ResponseEntity.status(403).body("Access denied: Not an employee");
         }
 
-        List<Claim> claims = claimService.getClaimsByEmployee(employee);
-        List<ClaimDTO> claimDTOs = claims.stream().map(ClaimDTO::new).collect(Collectors.toList());
-        return ResponseEntity.ok(claimDTOs);
+        // Read from the ledger's in-memory totals; no claim is summed here
+        if (policyId != null) {
+            Policy policy = policyRepository.findById(policyId).orElse(null);
+            if (policy == null) {
+                return ResponseEntity.status(404).body("Policy not found");
+            }
+            return ResponseEntity.ok(coverageLedgerService.summary(employeeId, policy));
+        }
+        return ResponseEntity.ok(policyRepository.findAll().stream()
+                .map(policy -> coverageLedgerService.summary(employeeId, policy))
+                .collect(Collectors.toList()));
     }
 
     // -------------------- Get All Claims (for admin) --------------------
     @GetMapping("/all")
-    public ResponseEntity<?> getAllClaims() {
+    public ResponseEntity<?> getAllClaims(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean unpaged
+    ) {
         try {
-            List<Claim> claims = claimService.getAllClaims();
-            List<ClaimDTO> claimDTOs = claims.stream().map(ClaimDTO::new).collect(Collectors.toList());
-            return ResponseEntity.ok(claimDTOs);
+            if (unpaged) {
+                return ResponseEntity.ok(claimService.getAllClaimDtos());
+            }
+
+            return ResponseEntity.ok(claimService.getClaimsPage(cursor, size));
         } catch (Exception e) {
             return ResponseEntity.status(400).body("Error fetching all claims: " + e.getMessage());
         }
     }
-
-    // -------------------- Helper: Store file safely --------------------
-    private String storeFile(MultipartFile file) {
-        try {
-            String uniqueName = UUID.randomUUID() + "_" + file.getOriginalFilename();
-            Path filePath = Paths.get(uploadDir + uniqueName);
-            Files.createDirectories(filePath.getParent());
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-            return "/uploads/" + uniqueName;
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to store file " + file.getOriginalFilename(), e);
-        }
-    }
-
-    // -------------------- Claim DTO --------------------
-    public static class ClaimDTO {
-        private Long id;
-        private String title;
-        private String description;
-        private Double amount;
-        private String status;
-        private String remarks;
-        private LocalDateTime claimDate;
-        private LocalDateTime createdAt;
-        private LocalDateTime updatedAt;
-        private Long employeeId;
-        private Long policyId;
-        private List<String> documents;
-        private Long assignedHrId;
-
-        public ClaimDTO(Claim claim) {
-            this.id = claim.getId();
-            this.title = claim.getTitle();
-            this.description = claim.getDescription();
-            this.amount = claim.getAmount();
-            this.status = claim.getStatus();
-            this.remarks = claim.getRemarks();
-            this.claimDate = claim.getClaimDate();
-            this.createdAt = claim.getCreatedAt();
-            this.updatedAt = claim.getUpdatedAt();
-            this.employeeId = (claim.getEmployee() != null) ? claim.getEmployee().getId() : null;
-            this.policyId = (claim.getPolicy() != null) ? claim.getPolicy().getId() : null;
-            this.documents = claim.getDocuments();
-            this.assignedHrId = (claim.getAssignedHr() != null) ? claim.getAssignedHr().getId() : null;
-        }
-
-        // Getters
-        public Long getId() { return id; }
-        public String getTitle() { return title; }
-        public String getDescription() { return description; }
-        public Double getAmount() { return amount; }
-        public String getStatus() { return status; }
-        public String getRemarks() { return remarks; }
-        public LocalDateTime getClaimDate() { return claimDate; }
-        public LocalDateTime getCreatedAt() { return createdAt; }
-        public LocalDateTime getUpdatedAt() { return updatedAt; }
-        public Long getEmployeeId() { return employeeId; }
-        public Long getPolicyId() { return policyId; }
-        public List<String> getDocuments() { return documents; }
-        public Long getAssignedHrId() { return assignedHrId; }
-    }
 }
@@ -0,0 +1,88 @@
+package com.insurai.insurai_backend.controller;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.insurai.insurai_backend.config.CurrentEmployee;
+import com.insurai.insurai_backend.config.CurrentHr;
+import com.insurai.insurai_backend.config.JwtAuthenticationFilter;
+import com.insurai.insurai_backend.config.JwtPrincipal;
+import com.insurai.insurai_backend.service.DocumentBlobStore;
+import com.insurai.insurai_backend.service.DocumentDownloadService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/claims")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:5173", allowCredentials = "true")
+public class ClaimDocumentController {
+
+    private final DocumentDownloadService documentDownloadService;
+
+    // ================= Download a Claim Document =================
+    // name is the last segment of a path in the claim's documents: /uploads/<name> -> /claims/{claimId}/documents/<name>.
+    // GET and HEAD; answers Range, If-Range and If-None-Match
+    @GetMapping("/{claimId}/documents/{name}")
+    public ResponseEntity<?> downloadDocument(
+            @PathVariable Long claimId,
+            @PathVariable String name,
+            @CurrentEmployee Long employeeId,
+            @CurrentHr Long hrId,
+            @RequestAttribute(name = JwtAuthenticationFilter.PRINCIPAL_ATTRIBUTE, required = false) JwtPrincipal principal,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        String path = DocumentBlobStore.URL_PREFIX + name;
+        boolean admin = principal != null && principal.hasRole("ADMIN");
+        try {
+            // Someone else's document is reported as missing, like one that does not exist
+            if (!documentDownloadService.canRead(claimId, path, employeeId, hrId, admin)) {
+                return ResponseEntity.status(404).body("Document not found");
+            }
+            documentDownloadService.send(path, request, response);
+            // Written to the response already
+            return null;
+        } catch (NoSuchFileException | IllegalArgumentException e) {
+            return ResponseEntity.status(404).body("Document not found");
+        } catch (IOException e) {
+            return ResponseEntity.status(500).body("Error reading document: " + e.getMessage());
+        }
+    }
+
+    // ================= Preview of a Claim Document =================
+    // The PNG the document pipeline rendered for /uploads/<name>; readable by whoever may read the document.
+    // 404 until it has been rendered
+    @GetMapping("/{claimId}/documents/{name}/preview")
+    public ResponseEntity<?> downloadPreview(
+            @PathVariable Long claimId,
+            @PathVariable String name,
+            @CurrentEmployee Long employeeId,
+            @CurrentHr Long hrId,
+            @RequestAttribute(name = JwtAuthenticationFilter.PRINCIPAL_ATTRIBUTE, required = false) JwtPrincipal principal,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        boolean admin = principal != null && principal.hasRole("ADMIN");
+        try {
+            if (!documentDownloadService.canRead(claimId, DocumentBlobStore.URL_PREFIX + name, employeeId, hrId, admin)) {
+                return ResponseEntity.status(404).body("Preview not found");
+            }
+            documentDownloadService.send(DocumentBlobStore.PREVIEW_PREFIX + name + ".png", request, response);
+            return null;
+        } catch (NoSuchFileException | IllegalArgumentException e) {
+            return ResponseEntity.status(404).body("Preview not found");
+        } catch (IOException e) {
+            return ResponseEntity.status(500).body("Error reading preview: " + e.getMessage());
+        }
+    }
+}
@@ -13,15 +13,14 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.insurai.insurai_backend.config.JwtUtil;
+import com.insurai.insurai_backend.config.CurrentEmployee;
 import com.insurai.insurai_backend.model.Agent;
 import com.insurai.insurai_backend.model.AgentAvailability;
-import com.insurai.insurai_backend.model.Employee;
 import com.insurai.insurai_backend.model.EmployeeQuery;
 import com.insurai.insurai_backend.repository.AgentAvailabilityRepository;
 import com.insurai.insurai_backend.repository.AgentRepository;
-import com.insurai.insurai_backend.repository.EmployeeRepository;
 import com.insurai.insurai_backend.service.EmployeeQueryService;
+import com.insurai.insurai_backend.service.IdempotencyService;
 
 @RestController
 @RequestMapping("/employee")
@@ -31,9 +30,6 @@ public class EmployeeQueryController {
     @Autowired
     private EmployeeQueryService queryService;
 
-    @Autowired
-    private EmployeeRepository employeeRepository;
-
     @Autowired
     private AgentRepository agentRepository;
 
@@ -41,33 +37,28 @@ public class EmployeeQueryController {
     private AgentAvailabilityRepository agentAvailabilityRepository;
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private IdempotencyService idempotencyService;
 
     // ================= Employee Submits a Query =================
     @PostMapping("/queries")
     public ResponseEntity<?> submitQuery(
-            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @CurrentEmployee Long employeeId,
             @RequestParam Long agentId,
-            @RequestParam String queryText
+            @RequestParam String queryText,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey
     ) {
-        try {
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                return ResponseEntity.status(403).body("Missing or invalid Authorization header");
-            }
-
-            String token = authHeader.substring(7).trim();
-            String email = jwtUtil.extractEmail(token);
-            String role = jwtUtil.extractRole(token);
-
-            if (!"EMPLOYEE".equalsIgnoreCase(role)) {
-                return ResponseEntity.status(403).body("Unauthorized: not an employee");
-            }
+        if (employeeId == null) {
+            return ResponseEntity.status(403).body("Unauthorized: not an employee");
+        }
 
-            Employee emp = employeeRepository.findByEmail(email).orElse(null);
-            if (emp == null) {
-                return ResponseEntity.status(403).body("Invalid token: employee not found");
-            }
+        // A retry with the same key gets the first response back instead of a second query
+        return idempotencyService.execute("query.submit", employeeId, idempotencyKey,
+                IdempotencyService.fingerprint(agentId, queryText),
+                () -> submitQuery(employeeId, agentId, queryText));
+    }
 
+    private ResponseEntity<?> submitQuery(Long employeeId, Long agentId, String queryText) {
+        try {
             Agent agent = agentRepository.findById(agentId).orElse(null);
             if (agent == null) {
                 return ResponseEntity.badRequest().body("Invalid agent ID");
@@ -86,7 +77,7 @@ public class EmployeeQueryController {
             }
 
             // Submit query
-            EmployeeQuery query = queryService.submitQuery(emp.getId(), agentId, queryText);
+            EmployeeQuery query = queryService.submitQuery(employeeId, agentId, queryText);
             return ResponseEntity.ok(query);
 
         } catch (Exception e) {
@@ -96,29 +87,14 @@ public class EmployeeQueryController {
 
     // ================= Get all queries for logged-in employee =================
     @GetMapping("/queries")
-    public ResponseEntity<?> getEmployeeQueries(
-            @RequestHeader(value = "Authorization", required = false) String authHeader
-    ) {
+    public ResponseEntity<?> getEmployeeQueries(@CurrentEmployee Long employeeId) {
         try {
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                return ResponseEntity.status(403).body("Missing or invalid Authorization header");
-            }
-
-            String token = authHeader.substring(7).trim();
-            String email = jwtUtil.extractEmail(token);
-            String role = jwtUtil.extractRole(token);
-
-            if (!"EMPLOYEE".equalsIgnoreCase(role)) {
+            if (employeeId == null) {
                 return ResponseEntity.status(403).body("Unauthorized: not an employee");
             }
 
-            Employee emp = employeeRepository.findByEmail(email).orElse(null);
-            if (emp == null) {
-                return ResponseEntity.status(403).body("Invalid token: employee not found");
-            }
-
             // Fetch all queries for this employee
-            return ResponseEntity.ok(queryService.getQueriesForEmployee(emp.getId()));
+            return ResponseEntity.ok(queryService.getQueriesForEmployee(employeeId));
 
         } catch (Exception e) {
             return ResponseEntity.status(500).body(e.getMessage());
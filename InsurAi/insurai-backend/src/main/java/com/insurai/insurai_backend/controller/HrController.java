@@ -1,12 +1,12 @@
 package com.insurai.insurai_backend.controller;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -14,15 +14,23 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.insurai.insurai_backend.config.CurrentHr;
+import com.insurai.insurai_backend.config.JwtPrincipal;
 import com.insurai.insurai_backend.config.JwtUtil;
+import com.insurai.insurai_backend.model.BulkDecisionRequest;
 import com.insurai.insurai_backend.model.Claim;
+import com.insurai.insurai_backend.model.ClaimDTO;
+import com.insurai.insurai_backend.model.ClaimStatus;
 import com.insurai.insurai_backend.model.Hr;
 import com.insurai.insurai_backend.model.LoginRequest;
 import com.insurai.insurai_backend.repository.HrRepository;
 import com.insurai.insurai_backend.service.ClaimService;
 import com.insurai.insurai_backend.service.HrService;
+import com.insurai.insurai_backend.service.InboxStreamService;
+import com.insurai.insurai_backend.service.PasswordVerificationService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -34,28 +42,42 @@ public class HrController {
 
     private final HrService hrService;
     private final HrRepository hrRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordVerificationService passwordVerificationService;
     private final JwtUtil jwtUtil;
     private final ClaimService claimService;
+    private final InboxStreamService inboxStreamService;
+
+    @Value("${insurai.claims.bulk.max-ids:10000}")
+    private int maxBulkClaims;
 
     // ================= HR Login =================
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest request) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest request) {
         Hr hr = hrRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("HR not found"));
 
-        if (!passwordEncoder.matches(request.getPassword(), hr.getPassword())) {
-            return ResponseEntity.status(401).body("Invalid credentials");
-        }
-
-        String token = jwtUtil.generateToken(hr.getEmail(), "HR");
-
-        return ResponseEntity.ok(Map.of(
-                "token", token,
-                "role", "HR",
-                "name", hr.getName(),
-                "id", hr.getId()
-        ));
+        return passwordVerificationService.verify(request.getPassword(), hr.getPassword())
+                .<ResponseEntity<?>>thenApply(check -> {
+                    if (check.rejected()) {
+                        return passwordVerificationService.overloadedResponse();
+                    }
+                    if (!check.matches()) {
+                        return ResponseEntity.status(401).body("Invalid credentials");
+                    }
+                    if (check.rehashed() != null) {
+                        hr.setPassword(check.rehashed());
+                        hrRepository.save(hr);
+                    }
+
+                    String token = jwtUtil.generateToken(hr.getEmail(), "HR", "HR", hr.getId());
+
+                    return ResponseEntity.ok(Map.of(
+                            "token", token,
+                            "role", "HR",
+                            "name", hr.getName(),
+                            "id", hr.getId()
+                    ));
+                });
     }
 
     // ================= Get All HRs =================
@@ -66,27 +88,57 @@ public class HrController {
 
     // ================= Get Claims Assigned to Logged-in HR =================
     @GetMapping("/claims")
-    public ResponseEntity<?> getAssignedClaims(@RequestHeader(value = "Authorization") String authHeader) {
+    public ResponseEntity<?> getAssignedClaims(
+            @CurrentHr Long hrId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean unpaged) {
         try {
-            validateHrToken(authHeader);
-            String token = authHeader.substring(7).trim();
-            String hrEmail = jwtUtil.extractUsername(token);
-
-            Hr hr = hrRepository.findByEmail(hrEmail)
-                    .orElseThrow(() -> new RuntimeException("HR not found"));
-
-            // Fetch only claims assigned to this HR
-            List<Claim> claims = claimService.getClaimsByAssignedHr(hr.getId());
-            List<ClaimDTO> dtos = claims.stream()
-                    .map(ClaimDTO::new)
-                    .collect(Collectors.toList());
-
-            return ResponseEntity.ok(dtos);
+            if (hrId == null) {
+                throw new RuntimeException("Unauthorized: not an HR");
+            }
+
+            // Legacy shape: every claim assigned to this HR in one array
+            if (unpaged) {
+                return ResponseEntity.ok(claimService.getClaimDtosByAssignedHr(hrId));
+            }
+
+            return ResponseEntity.ok(claimService.getClaimsPageByAssignedHr(hrId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body("Error fetching claims: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(403).body("Error fetching claims: " + e.getMessage());
         }
     }
 
+    // ================= Get One Claim Assigned to Logged-in HR =================
+    // What a claim.assigned or claim.escalated stream event refers to; 404 once it is no longer this HR's
+    @GetMapping("/claims/{claimId}")
+    public ResponseEntity<?> getAssignedClaim(@CurrentHr Long hrId, @PathVariable Long claimId) {
+        if (hrId == null) {
+            return ResponseEntity.status(403).body("Unauthorized: not an HR");
+        }
+        return claimService.getClaimDtoForAssignedHr(claimId, hrId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(404).body("Claim not found"));
+    }
+
+    // ================= Stream Changes to the Logged-in HR's Claims (SSE) =================
+    // Send Last-Event-ID on reconnect to get what was missed; a reset event means reload /hr/claims
+    @GetMapping(value = "/claims/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamAssignedClaims(
+            @CurrentHr Long hrId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        if (hrId == null) {
+            return ResponseEntity.status(403).body("Unauthorized: not an HR");
+        }
+        try {
+            return ResponseEntity.ok(inboxStreamService.open(InboxStreamService.HR, hrId, lastEventId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).body(e.getMessage());
+        }
+    }
+
   // Approve a claim with remarks
 @PostMapping("/claims/approve/{claimId}")
 public ResponseEntity<?> approveClaim(
@@ -97,11 +149,7 @@ public ResponseEntity<?> approveClaim(
         validateHrToken(authHeader);
 
         String remarks = body.get("remarks"); // <-- get from JSON body
-        Claim claim = claimService.getClaimById(claimId);
-        claim.setStatus("Approved");
-        claim.setRemarks(remarks);
-        claim.setUpdatedAt(LocalDateTime.now());
-        Claim updated = claimService.updateClaim(claim);
+        Claim updated = claimService.approveClaim(claimId, remarks);
 
         return ResponseEntity.ok(new ClaimDTO(updated));
     } catch (Exception e) {
@@ -119,11 +167,7 @@ public ResponseEntity<?> rejectClaim(
         validateHrToken(authHeader);
 
         String remarks = body.get("remarks"); // <-- get from JSON body
-        Claim claim = claimService.getClaimById(claimId);
-        claim.setStatus("Rejected");
-        claim.setRemarks(remarks);
-        claim.setUpdatedAt(LocalDateTime.now());
-        Claim updated = claimService.updateClaim(claim);
+        Claim updated = claimService.rejectClaim(claimId, remarks);
 
         return ResponseEntity.ok(new ClaimDTO(updated));
     } catch (Exception e) {
@@ -132,66 +176,47 @@ public ResponseEntity<?> rejectClaim(
 }
 
 
+    // ================= Bulk approve / reject =================
+    @PostMapping("/claims/decisions")
+    public ResponseEntity<?> decideClaims(@CurrentHr Long hrId, @RequestBody BulkDecisionRequest request) {
+        if (hrId == null) {
+            return ResponseEntity.status(403).body("Unauthorized: not an HR");
+        }
+
+        ClaimStatus status;
+        if ("approve".equalsIgnoreCase(request.getDecision())) {
+            status = ClaimStatus.APPROVED;
+        } else if ("reject".equalsIgnoreCase(request.getDecision())) {
+            status = ClaimStatus.REJECTED;
+        } else {
+            return ResponseEntity.status(400).body("decision must be 'approve' or 'reject'");
+        }
+        if (request.getClaimIds() == null || request.getClaimIds().isEmpty()) {
+            return ResponseEntity.status(400).body("claimIds must not be empty");
+        }
+        if (request.getClaimIds().size() > maxBulkClaims) {
+            return ResponseEntity.status(400).body("At most " + maxBulkClaims + " claims per request");
+        }
+        if (request.getClaimIds().contains(null)) {
+            return ResponseEntity.status(400).body("claimIds must not contain null");
+        }
+
+        try {
+            return ResponseEntity.ok(claimService.decideClaims(hrId, request.getClaimIds(), status, request.getRemarks()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Error deciding claims: " + e.getMessage());
+        }
+    }
+
     // ================= Helper to validate HR token =================
-    private void validateHrToken(String authHeader) {
+    private JwtPrincipal validateHrToken(String authHeader) {
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             throw new RuntimeException("Missing or invalid Authorization header");
         }
-        String token = authHeader.substring(7).trim();
-        String role = jwtUtil.extractRole(token);
-        if (!"HR".equalsIgnoreCase(role)) {
+        JwtPrincipal principal = jwtUtil.parse(authHeader.substring(7).trim());
+        if (!principal.hasRole("HR")) {
             throw new RuntimeException("Unauthorized: not an HR");
         }
-    }
-
-    // ================= ClaimDTO =================
-    public static class ClaimDTO {
-        private Long id;
-        private String title;
-        private String description;
-        private Double amount;
-        private String status;
-        private String remarks;
-        private LocalDateTime claimDate;
-        private LocalDateTime createdAt;
-        private LocalDateTime updatedAt;
-        private Long employeeId;
-        private Long policyId;
-        private String policyName;  // <-- New field
-        private List<String> documents;
-        private Long assignedHrId;
-
-        public ClaimDTO(Claim claim) {
-            this.id = claim.getId();
-            this.title = claim.getTitle();
-            this.description = claim.getDescription();
-            this.amount = claim.getAmount();
-            this.status = claim.getStatus();
-            this.remarks = claim.getRemarks();
-            this.claimDate = claim.getClaimDate();
-            this.createdAt = claim.getCreatedAt();
-            this.updatedAt = claim.getUpdatedAt();
-            this.employeeId = (claim.getEmployee() != null) ? claim.getEmployee().getId() : null;
-            this.policyId = (claim.getPolicy() != null) ? claim.getPolicy().getId() : null;
-            this.policyName = (claim.getPolicy() != null) ? claim.getPolicy().getPolicyName() : "N/A";
-            this.documents = claim.getDocuments();
-            this.assignedHrId = (claim.getAssignedHr() != null) ? claim.getAssignedHr().getId() : null;
-        }
-
-        // Getters
-        public Long getId() { return id; }
-        public String getTitle() { return title; }
-        public String getDescription() { return description; }
-        public Double getAmount() { return amount; }
-        public String getStatus() { return status; }
-        public String getRemarks() { return remarks; }
-        public LocalDateTime getClaimDate() { return claimDate; }
-        public LocalDateTime getCreatedAt() { return createdAt; }
-        public LocalDateTime getUpdatedAt() { return updatedAt; }
-        public Long getEmployeeId() { return employeeId; }
-        public Long getPolicyId() { return policyId; }
-        public String getPolicyName() { return policyName; }
-        public List<String> getDocuments() { return documents; }
-        public Long getAssignedHrId() { return assignedHrId; }
+        return principal;
     }
 }
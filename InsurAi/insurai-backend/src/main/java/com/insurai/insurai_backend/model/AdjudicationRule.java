@@ -0,0 +1,28 @@
+package com.insurai.insurai_backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One auto-adjudication rule as written in the rules file (see automation-rules.json).
+ * Every condition is optional; a rule matches a claim when all the conditions it sets hold.
+ * Rules are tried in file order and the first match decides the claim.
+ */
+@Data
+@NoArgsConstructor
+public class AdjudicationRule {
+
+    private String id;              // unique, used in remarks and metrics
+    private String policyType;      // "Health", "Accident", ... or "*" for any type
+    private String decision;        // "APPROVE" or "REJECT"
+    private String remarks;         // stored on the claim; defaults to a mention of the rule
+
+    private Double minAmount;
+    private Double maxAmount;
+    private Double maxCoverageRatio;    // claim amount / policy coverage, e.g. 0.1 = at most 10% of cover
+    private Integer minDocuments;
+    private Integer minClaimAgeDays;    // days from the claim (incident) date to evaluation
+    private Integer maxClaimAgeDays;
+    private String policyStatus;        // e.g. "Active", compared ignoring case
+    private Boolean employeeActive;     // only known during sweeps; an unknown value never matches
+}
@@ -0,0 +1,27 @@
+package com.insurai.insurai_backend.model;
+
+import java.util.List;
+
+public class BulkDecisionRequest {
+    private List<Long> claimIds;   // required
+    private String decision;       // "approve" or "reject"
+    private String remarks;        // optional, applied to every claim
+
+    // Constructors
+    public BulkDecisionRequest() {}
+    public BulkDecisionRequest(List<Long> claimIds, String decision, String remarks) {
+        this.claimIds = claimIds;
+        this.decision = decision;
+        this.remarks = remarks;
+    }
+
+    // Getters & Setters
+    public List<Long> getClaimIds() { return claimIds; }
+    public void setClaimIds(List<Long> claimIds) { this.claimIds = claimIds; }
+
+    public String getDecision() { return decision; }
+    public void setDecision(String decision) { this.decision = decision; }
+
+    public String getRemarks() { return remarks; }
+    public void setRemarks(String remarks) { this.remarks = remarks; }
+}
@@ -0,0 +1,16 @@
+package com.insurai.insurai_backend.model;
+
+import java.util.List;
+
+// Outcome of a bulk approve/reject: one entry per distinct claim id, in request order
+public record BulkDecisionResult(ClaimStatus status, int requested, int updated, List<Item> results) {
+
+    public enum Outcome {
+        UPDATED,          // was pending and assigned to the caller; now decided
+        ALREADY_DECIDED,  // assigned to the caller but no longer pending
+        NOT_ASSIGNED,     // belongs to another HR (or none)
+        NOT_FOUND
+    }
+
+    public record Item(Long claimId, Outcome outcome) {}
+}
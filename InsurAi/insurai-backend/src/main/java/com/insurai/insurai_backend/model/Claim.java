@@ -3,20 +3,39 @@ package com.insurai.insurai_backend.model;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 
 @Entity
-@Table(name = "claims")
+@Table(name = "claims", indexes = {
+        // Keyset pagination: newest first, overall / per employee / per assigned HR
+        @Index(name = "idx_claims_created_id", columnList = "createdAt, id"),
+        @Index(name = "idx_claims_employee_created_id", columnList = "employee_id, createdAt, id"),
+        @Index(name = "idx_claims_hr_created_id", columnList = "assigned_hr_id, createdAt, id"),
+        // Status filters: per-HR pending counts and bulk decisions, status listings and exports
+        @Index(name = "idx_claims_hr_status", columnList = "assigned_hr_id, status"),
+        @Index(name = "idx_claims_status_created", columnList = "status, createdAt"),
+        // SLA timers are recovered from the pending claims' deadlines as one range
+        @Index(name = "idx_claims_status_sla", columnList = "status, slaDeadline")
+})
 public class Claim {
 
     @Id
@@ -39,9 +58,14 @@ public class Claim {
     @Column(nullable = false)
     private LocalDateTime claimDate;
 
-    // Status: Pending, Approved, Rejected
-    @Column(nullable = false)
-    private String status = "Pending";
+    // Status: Pending, Approved, Rejected (stored by label)
+    @Convert(converter = ClaimStatusConverter.class)
+    @Column(nullable = false, length = 16)
+    private ClaimStatus status = ClaimStatus.PENDING;
+
+    // Optimistic lock; status transitions bump it in their conditional UPDATE
+    @Version
+    private long version;
 
     // Optional remarks by HR
     @Column(length = 2000)
@@ -70,10 +94,33 @@ public class Claim {
 
     // Supporting documents (file paths)
     @ElementCollection
-    @CollectionTable(name = "claim_documents", joinColumns = @JoinColumn(name = "claim_id"))
+    @CollectionTable(name = "claim_documents", joinColumns = @JoinColumn(name = "claim_id"),
+            indexes = @Index(name = "idx_claim_documents_path", columnList = "document_path"))
     @Column(name = "document_path")
     private List<String> documents;
 
+    // SHA-256 over the content hashes of the documents submitted with the claim (null without documents)
+    @Column(length = 64)
+    private String documentFingerprint;
+
+    // Set at submission when the claim looks like a resubmission of this earlier claim
+    private Long duplicateOfClaimId;
+
+    // When a pending claim is escalated if still undecided; null once there is nothing left to escalate
+    private LocalDateTime slaDeadline;
+
+    // Priority: how many deadlines the claim has missed (0 while on time)
+    @Column(nullable = false)
+    private int escalationLevel;
+
+    // Amount and policy as last read from or written to the database; an edit moves the
+    // coverage ledger by the difference
+    @Transient
+    private Double persistedAmount;
+
+    @Transient
+    private Long persistedPolicyId;
+
     // Constructors
     public Claim() {}
 
@@ -125,14 +172,18 @@ public class Claim {
         this.claimDate = claimDate;
     }
 
-    public String getStatus() {
+    public ClaimStatus getStatus() {
         return status;
     }
 
-    public void setStatus(String status) {
+    public void setStatus(ClaimStatus status) {
         this.status = status;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public String getRemarks() {
         return remarks;
     }
@@ -188,4 +239,54 @@ public class Claim {
     public void setDocuments(List<String> documents) {
         this.documents = documents;
     }
+
+    public String getDocumentFingerprint() {
+        return documentFingerprint;
+    }
+
+    public void setDocumentFingerprint(String documentFingerprint) {
+        this.documentFingerprint = documentFingerprint;
+    }
+
+    @JsonIgnore
+    public Double getPersistedAmount() {
+        return persistedAmount;
+    }
+
+    @JsonIgnore
+    public Long getPersistedPolicyId() {
+        return persistedPolicyId;
+    }
+
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    private void rememberPersistedCoverage() {
+        persistedAmount = amount;
+        persistedPolicyId = policy != null ? policy.getId() : null;
+    }
+
+    public LocalDateTime getSlaDeadline() {
+        return slaDeadline;
+    }
+
+    public void setSlaDeadline(LocalDateTime slaDeadline) {
+        this.slaDeadline = slaDeadline;
+    }
+
+    public int getEscalationLevel() {
+        return escalationLevel;
+    }
+
+    public void setEscalationLevel(int escalationLevel) {
+        this.escalationLevel = escalationLevel;
+    }
+
+    public Long getDuplicateOfClaimId() {
+        return duplicateOfClaimId;
+    }
+
+    public void setDuplicateOfClaimId(Long duplicateOfClaimId) {
+        this.duplicateOfClaimId = duplicateOfClaimId;
+    }
 }
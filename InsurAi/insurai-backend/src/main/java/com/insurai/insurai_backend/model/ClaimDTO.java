@@ -0,0 +1,99 @@
+package com.insurai.insurai_backend.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Read model for claims, shared by the employee, HR and admin endpoints.
+ *
+ * Listings build it straight from a JPQL constructor expression (see ClaimRepository)
+ * and attach documents with one batched query, so no lazy association is touched.
+ * The entity constructor is for single claims that are already loaded.
+ */
+public class ClaimDTO {
+    private Long id;
+    private String title;
+    private String description;
+    private Double amount;
+    private String status;
+    private String remarks;
+    private LocalDateTime claimDate;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private Long employeeId;
+    private Long policyId;
+    private String policyName;
+    private List<String> documents = List.of();
+    // Listings only: how far each document got through the document pipeline
+    private List<ClaimDocumentState> documentStates = List.of();
+    private Long assignedHrId;
+    private Long duplicateOfClaimId;
+    private LocalDateTime slaDeadline;
+    private int escalationLevel;
+
+    public ClaimDTO(Claim claim) {
+        this.id = claim.getId();
+        this.title = claim.getTitle();
+        this.description = claim.getDescription();
+        this.amount = claim.getAmount();
+        this.status = (claim.getStatus() != null) ? claim.getStatus().getLabel() : null;
+        this.remarks = claim.getRemarks();
+        this.claimDate = claim.getClaimDate();
+        this.createdAt = claim.getCreatedAt();
+        this.updatedAt = claim.getUpdatedAt();
+        this.employeeId = (claim.getEmployee() != null) ? claim.getEmployee().getId() : null;
+        this.policyId = (claim.getPolicy() != null) ? claim.getPolicy().getId() : null;
+        this.policyName = (claim.getPolicy() != null) ? claim.getPolicy().getPolicyName() : "N/A";
+        this.documents = claim.getDocuments();
+        this.assignedHrId = (claim.getAssignedHr() != null) ? claim.getAssignedHr().getId() : null;
+        this.duplicateOfClaimId = claim.getDuplicateOfClaimId();
+        this.slaDeadline = claim.getSlaDeadline();
+        this.escalationLevel = claim.getEscalationLevel();
+    }
+
+    // Used by the projection queries; documents are filled in afterwards
+    public ClaimDTO(Long id, String title, String description, Double amount, ClaimStatus status, String remarks,
+                    LocalDateTime claimDate, LocalDateTime createdAt, LocalDateTime updatedAt,
+                    Long employeeId, Long policyId, String policyName, Long assignedHrId, Long duplicateOfClaimId,
+                    LocalDateTime slaDeadline, int escalationLevel) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.amount = amount;
+        this.status = (status != null) ? status.getLabel() : null;
+        this.remarks = remarks;
+        this.claimDate = claimDate;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.employeeId = employeeId;
+        this.policyId = policyId;
+        this.policyName = (policyId != null) ? policyName : "N/A";
+        this.assignedHrId = assignedHrId;
+        this.duplicateOfClaimId = duplicateOfClaimId;
+        this.slaDeadline = slaDeadline;
+        this.escalationLevel = escalationLevel;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getTitle() { return title; }
+    public String getDescription() { return description; }
+    public Double getAmount() { return amount; }
+    public String getStatus() { return status; }
+    public String getRemarks() { return remarks; }
+    public LocalDateTime getClaimDate() { return claimDate; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public Long getEmployeeId() { return employeeId; }
+    public Long getPolicyId() { return policyId; }
+    public String getPolicyName() { return policyName; }
+    public List<String> getDocuments() { return documents; }
+    public List<ClaimDocumentState> getDocumentStates() { return documentStates; }
+    public Long getAssignedHrId() { return assignedHrId; }
+    public Long getDuplicateOfClaimId() { return duplicateOfClaimId; }
+    public LocalDateTime getSlaDeadline() { return slaDeadline; }
+    public int getEscalationLevel() { return escalationLevel; }
+
+    public void setDocuments(List<String> documents) { this.documents = documents; }
+    public void setDocumentStates(List<ClaimDocumentState> documentStates) { this.documentStates = documentStates; }
+}
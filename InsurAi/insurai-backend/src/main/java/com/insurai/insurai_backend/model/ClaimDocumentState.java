@@ -0,0 +1,14 @@
+package com.insurai.insurai_backend.model;
+
+/**
+ * Processing state of one claim document, as listed with the claim. status is PENDING until
+ * the document pipeline has picked it up. previewPath is the URL its preview is read from, relative
+ * to the API, once one has been rendered.
+ */
+public record ClaimDocumentState(String path, String status, String contentType, Long sizeBytes,
+                                 Integer pageCount, String previewPath, String error) {
+
+    public static ClaimDocumentState pending(String path) {
+        return new ClaimDocumentState(path, DocumentProcessing.Status.PENDING.name(), null, null, null, null, null);
+    }
+}
@@ -0,0 +1,26 @@
+package com.insurai.insurai_backend.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * What the auto-adjudication rules look at, flattened from a claim, its policy and its
+ * employee. Built from the entity at submission, or by a projection query in sweeps.
+ * employeeActive is null when the employee row was not read.
+ */
+public record ClaimFacts(Long claimId, String policyType, String policyStatus, Double amount, Double coverageAmount,
+                         Integer documentCount, LocalDateTime claimDate, Boolean employeeActive, Long assignedHrId) {
+
+    // At submission: the policy is loaded, the employee is only a reference to the caller
+    public static ClaimFacts of(Claim claim) {
+        Policy policy = claim.getPolicy();
+        return new ClaimFacts(claim.getId(),
+                policy != null ? policy.getPolicyType() : null,
+                policy != null ? policy.getPolicyStatus() : null,
+                claim.getAmount(),
+                policy != null ? policy.getCoverageAmount() : null,
+                claim.getDocuments() != null ? claim.getDocuments().size() : 0,
+                claim.getClaimDate(),
+                null,
+                claim.getAssignedHr() != null ? claim.getAssignedHr().getId() : null);
+    }
+}
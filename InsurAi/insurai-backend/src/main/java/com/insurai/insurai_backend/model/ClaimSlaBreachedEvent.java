@@ -0,0 +1,8 @@
+package com.insurai.insurai_backend.model;
+
+import java.time.LocalDateTime;
+
+// Payload of the claim.escalated outbox event: a pending claim passed its decision deadline.
+// level counts the escalations so far (1 for the first); the HR ids are null when there was none
+public record ClaimSlaBreachedEvent(Long claimId, int level, LocalDateTime deadline,
+                                    Long previousHrId, Long assignedHrId, LocalDateTime nextDeadline) {}
@@ -0,0 +1,59 @@
+package com.insurai.insurai_backend.model;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Lifecycle of a claim. The label is what the API and the claims.status column carry
+ * ("Pending", ...), so existing rows and the frontend keep working unchanged.
+ *
+ * Decisions are final: a pending claim can be approved or rejected once, and nothing
+ * leaves APPROVED or REJECTED. ClaimService applies a transition as one conditional
+ * UPDATE whose WHERE clause is {@link #sourcesOf(ClaimStatus)}, and takes the status the
+ * claim left from it: every target is reached from at most one status.
+ */
+public enum ClaimStatus {
+    PENDING("Pending"),
+    APPROVED("Approved"),
+    REJECTED("Rejected");
+
+    private final String label;
+
+    ClaimStatus(String label) {
+        this.label = label;
+    }
+
+    @JsonValue
+    public String getLabel() {
+        return label;
+    }
+
+    public boolean canTransitionTo(ClaimStatus target) {
+        return this == PENDING && (target == APPROVED || target == REJECTED);
+    }
+
+    // Every status a claim may be in for a move to target to be allowed
+    public static Set<ClaimStatus> sourcesOf(ClaimStatus target) {
+        Set<ClaimStatus> sources = EnumSet.noneOf(ClaimStatus.class);
+        for (ClaimStatus status : values()) {
+            if (status.canTransitionTo(target)) {
+                sources.add(status);
+            }
+        }
+        return sources;
+    }
+
+    // Accepts the label or the constant name, in any case ("Pending", "pending", "PENDING")
+    @JsonCreator
+    public static ClaimStatus fromLabel(String value) {
+        for (ClaimStatus status : values()) {
+            if (status.label.equalsIgnoreCase(value) || status.name().equalsIgnoreCase(value)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown claim status: " + value);
+    }
+}
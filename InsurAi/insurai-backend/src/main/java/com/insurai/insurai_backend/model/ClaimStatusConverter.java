@@ -0,0 +1,19 @@
+package com.insurai.insurai_backend.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// Stores ClaimStatus by label, matching the values already in claims.status
+@Converter
+public class ClaimStatusConverter implements AttributeConverter<ClaimStatus, String> {
+
+    @Override
+    public String convertToDatabaseColumn(ClaimStatus status) {
+        return status != null ? status.getLabel() : null;
+    }
+
+    @Override
+    public ClaimStatus convertToEntityAttribute(String label) {
+        return label != null ? ClaimStatus.fromLabel(label) : null;
+    }
+}
@@ -0,0 +1,45 @@
+package com.insurai.insurai_backend.model;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// How much of a policy's coverage one employee has used: pending claims reserve, approved claims consume
+@Entity
+@Table(name = "coverage_ledger", uniqueConstraints =
+        @UniqueConstraint(name = "uk_coverage_ledger_employee_policy", columnNames = {"employeeId", "policyId"}))
+@Data
+@NoArgsConstructor
+public class CoverageLedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long employeeId;
+
+    @Column(nullable = false)
+    private Long policyId;
+
+    // Sum of pending claim amounts
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal reserved = BigDecimal.ZERO;
+
+    // Sum of approved claim amounts
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal approved = BigDecimal.ZERO;
+
+    public CoverageLedgerEntry(Long employeeId, Long policyId) {
+        this.employeeId = employeeId;
+        this.policyId = policyId;
+    }
+}
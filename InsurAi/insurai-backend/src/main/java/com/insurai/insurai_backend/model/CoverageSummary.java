@@ -0,0 +1,11 @@
+package com.insurai.insurai_backend.model;
+
+import java.math.BigDecimal;
+
+/**
+ * One employee's use of one policy's coverage: pending claims hold a reservation,
+ * approved claims have consumed theirs, and remaining is what a new claim may still ask for.
+ */
+public record CoverageSummary(Long policyId, String policyName, BigDecimal coverageAmount,
+                              BigDecimal reserved, BigDecimal approved, BigDecimal remaining) {
+}
@@ -0,0 +1,12 @@
+package com.insurai.insurai_backend.model;
+
+import java.util.List;
+import java.util.function.Function;
+
+// One page of a keyset-paginated listing; next is null on the last page
+public record CursorPage<T>(List<T> items, String next) {
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new CursorPage<>(items.stream().<R>map(mapper).toList(), next);
+    }
+}
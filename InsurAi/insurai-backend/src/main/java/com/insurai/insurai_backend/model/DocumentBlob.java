@@ -0,0 +1,44 @@
+package com.insurai.insurai_backend.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One stored document content, kept once however many claim documents have it. refCount is the number of
+// DocumentReferences to it; at zero the file is deleted by the blob store's garbage collection.
+@Entity
+@Table(name = "document_blobs", indexes = @Index(name = "idx_document_blobs_unreferenced", columnList = "refCount, releasedAt"))
+@Data
+@NoArgsConstructor
+public class DocumentBlob {
+
+    // SHA-256 of the content, hex; also names the file
+    @Id
+    @Column(length = 64)
+    private String sha256;
+
+    @Column(nullable = false)
+    private long sizeBytes;
+
+    @Column(nullable = false)
+    private int refCount;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // Last time a reference was released
+    private LocalDateTime releasedAt;
+
+    public DocumentBlob(String sha256, long sizeBytes) {
+        this.sha256 = sha256;
+        this.sizeBytes = sizeBytes;
+        this.refCount = 1;
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,92 @@
+package com.insurai.insurai_backend.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Background processing of one claim document (validation, checksum, metadata, preview), recorded once its bytes
+// are on disk and the claim is committed. The claim is usable straight away; this tells how far its documents got.
+@Entity
+@Table(name = "document_processing",
+        uniqueConstraints = @UniqueConstraint(name = "uk_document_processing_claim_path", columnNames = {"claimId", "path"}),
+        indexes = @Index(name = "idx_document_processing_status", columnList = "status, startedAt"))
+@Data
+@NoArgsConstructor
+public class DocumentProcessing {
+
+    public enum Status {
+        // Waiting for a worker (again, after a failed attempt)
+        PENDING,
+        PROCESSING,
+        READY,
+        // Not an acceptable document: wrong type, empty, changed since upload
+        REJECTED,
+        // Gave up after the configured number of attempts
+        FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long claimId;
+
+    // As stored on the claim, e.g. /uploads/<uuid>_scan.pdf
+    @Column(nullable = false, length = 500)
+    private String path;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    private int attempts;
+
+    // Detected from the content, not taken from the client
+    @Column(length = 100)
+    private String contentType;
+
+    private Long sizeBytes;
+
+    @Column(length = 64)
+    private String sha256;
+
+    // PDFs; null when it cannot be told without rendering
+    private Integer pageCount;
+
+    // Images
+    private Integer width;
+    private Integer height;
+
+    @Column(length = 500)
+    private String previewPath;
+
+    // Why it was rejected, or the last failure
+    @Column(length = 500)
+    private String error;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime completedAt;
+
+    public DocumentProcessing(Long claimId, String path) {
+        this.claimId = claimId;
+        this.path = path;
+        this.status = Status.PENDING;
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,49 @@
+package com.insurai.insurai_backend.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A claim document path (/uploads/<uuid>_scan.pdf, as listed in Claim.documents) and the content it stands for.
+// Each upload gets its own path, so file names and URLs stay as they were; the bytes are shared.
+@Entity
+@Table(name = "document_references", indexes = {
+        @Index(name = "uk_document_references_path", columnList = "path", unique = true),
+        @Index(name = "idx_document_references_sha256", columnList = "sha256"),
+        @Index(name = "idx_document_references_unconfirmed", columnList = "confirmed, createdAt")
+})
+@Data
+@NoArgsConstructor
+public class DocumentReference {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 500)
+    private String path;
+
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // Set once garbage collection has found a claim listing the path; claims never drop documents, so it stays live
+    @Column(nullable = false)
+    private boolean confirmed;
+
+    public DocumentReference(String path, String sha256) {
+        this.path = path;
+        this.sha256 = sha256;
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,44 @@
+package com.insurai.insurai_backend.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// The outcome of a request sent with an Idempotency-Key, replayed when the same request comes again.
+// Written before the request runs (responseStatus 0, in progress) so that a duplicate on another instance waits.
+@Entity
+@Table(name = "idempotency_records", indexes = @Index(name = "idx_idempotency_records_expires_at", columnList = "expiresAt"))
+@Data
+@NoArgsConstructor
+public class IdempotencyRecord {
+
+    // SHA-256 of operation, caller and key
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    // SHA-256 of the request parameters; the same key with other parameters is refused
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    // 0 while the first request is running
+    @Column(nullable = false)
+    private int responseStatus;
+
+    // JSON
+    @Lob
+    private String responseBody;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+}
@@ -0,0 +1,52 @@
+package com.insurai.insurai_backend.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A lifecycle event (claim submitted, decided, ...), written in the transaction of the change it
+// describes and delivered afterwards by the outbox relay. The id orders events and is each subscriber's offset.
+@Entity
+@Table(name = "outbox_events")
+@Data
+@NoArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // e.g. claim.submitted, claim.status-changed, query.resolved
+    @Column(nullable = false, length = 64)
+    private String type;
+
+    // claim / query, and its id
+    @Column(nullable = false, length = 32)
+    private String aggregateType;
+
+    private Long aggregateId;
+
+    // JSON
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public OutboxEvent(String type, String aggregateType, Long aggregateId, String payload) {
+        this.type = type;
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.payload = payload;
+        this.createdAt = LocalDateTime.now();
+    }
+}
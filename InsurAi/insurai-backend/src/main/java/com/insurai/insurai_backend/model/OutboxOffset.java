@@ -0,0 +1,33 @@
+package com.insurai.insurai_backend.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// How far one outbox subscriber got: every event up to lastEventId has been handled
+@Entity
+@Table(name = "outbox_offsets")
+@Data
+@NoArgsConstructor
+public class OutboxOffset {
+
+    @Id
+    @Column(length = 64)
+    private String subscriber;
+
+    @Column(nullable = false)
+    private long lastEventId;
+
+    private LocalDateTime updatedAt;
+
+    public OutboxOffset(String subscriber, long lastEventId) {
+        this.subscriber = subscriber;
+        this.lastEventId = lastEventId;
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,30 @@
+package com.insurai.insurai_backend.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// "Revoke all sessions": every token for this subject issued at or before the cutoff is rejected
+@Entity
+@Table(name = "session_revocations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionRevocation {
+
+    @Id
+    private String subject;
+
+    @Column(nullable = false)
+    private Instant revokedBefore;
+
+    // revokedBefore plus the token lifetime: no affected token can be alive after this
+    @Column(nullable = false)
+    private Instant expiresAt;
+}
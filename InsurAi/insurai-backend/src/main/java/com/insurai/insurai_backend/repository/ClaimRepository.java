@@ -1,15 +1,31 @@
 package com.insurai.insurai_backend.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.insurai.insurai_backend.model.Claim;
+import com.insurai.insurai_backend.model.ClaimDTO;
+import com.insurai.insurai_backend.model.ClaimFacts;
+import com.insurai.insurai_backend.model.ClaimStatus;
 import com.insurai.insurai_backend.model.Employee;
 import com.insurai.insurai_backend.model.Hr;
 import com.insurai.insurai_backend.model.Policy;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface ClaimRepository extends JpaRepository<Claim, Long> {
 
@@ -23,19 +39,191 @@ public interface ClaimRepository extends JpaRepository<Claim, Long> {
     List<Claim> findByPolicy(Policy policy);
 
     // Get all claims by status (Pending, Approved, Rejected)
-    List<Claim> findByStatus(String status);
+    List<Claim> findByStatus(ClaimStatus status);
 
     // Get all claims of a specific employee with a specific status
-    List<Claim> findByEmployeeAndStatus(Employee employee, String status);
+    List<Claim> findByEmployeeAndStatus(Employee employee, ClaimStatus status);
 
     // Get all claims of a specific employee by corporate ID and status
-    List<Claim> findByEmployee_EmployeeIdAndStatus(String employeeId, String status);
+    List<Claim> findByEmployee_EmployeeIdAndStatus(String employeeId, ClaimStatus status);
 
     // Existing: Get all claims assigned to a specific HR
     List<Claim> findByAssignedHrId(Long hrId);
 
     // -------------------- New: count pending claims for a specific HR --------------------
-    int countByAssignedHrAndStatus(Hr hr, String status);
+    int countByAssignedHrAndStatus(Hr hr, ClaimStatus status);
+
+    // Claim count per assigned HR for one status, as [hrId, count] rows (builds the HR workload index)
+    @Query("select c.assignedHr.id, count(c) from Claim c where c.status = :status and c.assignedHr is not null "
+            + "group by c.assignedHr.id")
+    List<Object[]> countByAssignedHrGroupedForStatus(@Param("status") ClaimStatus status);
+
+    // -------------------- Bulk decisions (HR) --------------------
+    // Set-based: one UPDATE per chunk of ids, guarded so only the caller's pending claims change
+
+    @Modifying
+    @Transactional
+    @Query("update Claim c set c.status = :status, c.remarks = :remarks, c.updatedAt = :decidedAt, c.version = c.version + 1 "
+            + "where c.id in :ids and c.status = :pending and c.assignedHr.id = :hrId")
+    int decidePending(@Param("ids") Collection<Long> ids, @Param("hrId") Long hrId,
+                      @Param("pending") ClaimStatus pending, @Param("status") ClaimStatus status,
+                      @Param("remarks") String remarks, @Param("decidedAt") LocalDateTime decidedAt);
+
+    // [id, status, assignedHrId, updatedAt, employeeId, policyId, amount] rows, read back after a bulk
+    // decision to classify each id and move the coverage of the claims it changed
+    @Query("select c.id, c.status, c.assignedHr.id, c.updatedAt, c.employee.id, c.policy.id, c.amount "
+            + "from Claim c where c.id in :ids")
+    List<Object[]> findDecisionStateByIds(@Param("ids") Collection<Long> ids);
+
+    // -------------------- Coverage ledger --------------------
+
+    // Rows of (employee id, policy id, status, total amount) over the claims that use coverage
+    @Query("select c.employee.id, c.policy.id, c.status, sum(c.amount) from Claim c "
+            + "where c.status in :statuses group by c.employee.id, c.policy.id, c.status")
+    List<Object[]> sumAmountsByEmployeePolicyAndStatus(@Param("statuses") Collection<ClaimStatus> statuses);
+
+    // Rows of (status, total amount) for one employee's claims on one policy
+    @Query("select c.status, sum(c.amount) from Claim c where c.employee.id = :employeeId "
+            + "and c.policy.id = :policyId and c.status in :statuses group by c.status")
+    List<Object[]> sumAmountsByStatus(@Param("employeeId") Long employeeId, @Param("policyId") Long policyId,
+                                      @Param("statuses") Collection<ClaimStatus> statuses);
+
+    // -------------------- Duplicate detection index --------------------
+
+    // Newest claims first, as rows of (id, employee id, policy id, amount, claim date, document fingerprint, created at)
+    @Query("select c.id, c.employee.id, c.policy.id, c.amount, c.claimDate, c.documentFingerprint, c.createdAt "
+            + "from Claim c where c.createdAt >= :since order by c.createdAt desc, c.id desc")
+    List<Object[]> findDuplicateKeysCreatedSince(@Param("since") LocalDateTime since, Limit limit);
+
+    // -------------------- Auto-adjudication sweeps --------------------
+
+    // Pending claims in id order, flattened to what the rules need; afterId is the last id of the previous page.
+    // Suspected duplicates are left to HR, as at submission
+    @Query("select new com.insurai.insurai_backend.model.ClaimFacts(c.id, p.policyType, p.policyStatus, c.amount, "
+            + "p.coverageAmount, size(c.documents), c.claimDate, e.active, c.assignedHr.id) "
+            + "from Claim c join c.policy p join c.employee e "
+            + "where c.status = :status and c.id > :afterId and c.duplicateOfClaimId is null order by c.id")
+    List<ClaimFacts> findFactsPage(@Param("status") ClaimStatus status, @Param("afterId") Long afterId, Limit limit);
+
+    // Like decidePending, for any HR: claims decided meanwhile by a reviewer are left alone
+    @Modifying
+    @Transactional
+    @Query("update Claim c set c.status = :status, c.remarks = :remarks, c.updatedAt = :decidedAt, c.version = c.version + 1 "
+            + "where c.id in :ids and c.status = :pending")
+    int decideAllPending(@Param("ids") Collection<Long> ids, @Param("pending") ClaimStatus pending,
+                         @Param("status") ClaimStatus status, @Param("remarks") String remarks,
+                         @Param("decidedAt") LocalDateTime decidedAt);
+
+    // -------------------- SLA timers --------------------
+    // Pending claims with a deadline in (deadline, id) order, walked in keyset pages over idx_claims_status_sla;
+    // rows of (id, sla deadline)
+
+    @Query("select c.id, c.slaDeadline from Claim c where c.status = :status and c.slaDeadline is not null "
+            + "and (c.slaDeadline > :deadline or (c.slaDeadline = :deadline and c.id > :afterId)) "
+            + "order by c.slaDeadline, c.id")
+    List<Object[]> findSlaDeadlinesAfter(@Param("status") ClaimStatus status, @Param("deadline") LocalDateTime deadline,
+                                         @Param("afterId") Long afterId, Limit limit);
+
+    // -------------------- Status transitions --------------------
+    // One conditional UPDATE per transition: it changes the row only if the claim is still in one of
+    // the allowed source statuses, so of several concurrent attempts exactly one gets a count of 1
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("update Claim c set c.status = :to, c.remarks = :remarks, c.updatedAt = :now, c.version = c.version + 1 "
+            + "where c.id = :id and c.status in :from")
+    int transition(@Param("id") Long id, @Param("from") Collection<ClaimStatus> from, @Param("to") ClaimStatus to,
+                   @Param("remarks") String remarks, @Param("now") LocalDateTime now);
+
+    @Query("select c.status from Claim c where c.id = :id")
+    Optional<ClaimStatus> findStatusById(@Param("id") Long id);
+
+    // -------------------- ClaimDTO projections (no entity, no lazy loads) --------------------
+    // employee.id and assignedHr.id read the foreign key columns; only policy needs a join, for its name
+
+    String CLAIM_DTO = "select new com.insurai.insurai_backend.model.ClaimDTO("
+            + "c.id, c.title, c.description, c.amount, c.status, c.remarks, c.claimDate, c.createdAt, c.updatedAt, "
+            + "c.employee.id, p.id, p.policyName, c.assignedHr.id, c.duplicateOfClaimId, "
+            + "c.slaDeadline, c.escalationLevel) "
+            + "from Claim c left join c.policy p ";
+    String NEWEST_FIRST = " order by c.createdAt desc, c.id desc";
+    String AFTER_CURSOR = "(c.createdAt < :createdAt or (c.createdAt = :createdAt and c.id < :id))";
+
+    @Query(CLAIM_DTO + NEWEST_FIRST)
+    List<ClaimDTO> findAllDtos();
+
+    @Query(CLAIM_DTO + "where c.employee.id = :employeeId" + NEWEST_FIRST)
+    List<ClaimDTO> findDtosByEmployeeId(@Param("employeeId") Long employeeId);
+
+    @Query(CLAIM_DTO + "where c.assignedHr.id = :hrId" + NEWEST_FIRST)
+    List<ClaimDTO> findDtosByAssignedHrId(@Param("hrId") Long hrId);
+
+    @Query(CLAIM_DTO + "where c.id = :claimId and c.assignedHr.id = :hrId")
+    Optional<ClaimDTO> findDtoByIdAndAssignedHrId(@Param("claimId") Long claimId, @Param("hrId") Long hrId);
+
+    // Documents for a batch of claims in one statement: rows of (claim id, document path)
+    @Query("select c.id, d from Claim c join c.documents d where c.id in :claimIds")
+    List<Object[]> findDocumentsByClaimIds(@Param("claimIds") Collection<Long> claimIds);
+
+    // The same, with each document's processing state (null columns until the pipeline has recorded it):
+    // rows of (claim id, path, status, content type, size, page count, preview path, error)
+    @Query("select c.id, d, p.status, p.contentType, p.sizeBytes, p.pageCount, p.previewPath, p.error "
+            + "from Claim c join c.documents d left join DocumentProcessing p on p.claimId = c.id and p.path = d "
+            + "where c.id in :claimIds")
+    List<Object[]> findDocumentStatesByClaimIds(@Param("claimIds") Collection<Long> claimIds);
+
+    // Who may read one of a claim's documents: a row of (employee id, assigned HR id), none when the claim does not list the path
+    @Query("select c.employee.id, h.id from Claim c left join c.assignedHr h join c.documents d "
+            + "where c.id = :claimId and d = :path")
+    List<Object[]> findDocumentAccess(@Param("claimId") Long claimId, @Param("path") String path);
+
+    // -------------------- Export: a forward-only stream, fetched from the server in chunks --------------------
+    // With useCursorFetch=true on the MySQL URL the fetch size makes the driver pull EXPORT_FETCH_SIZE rows at a
+    // time instead of buffering the whole result. The caller must close the stream inside a transaction.
+
+    String EXPORT_FETCH_SIZE = "500";
+
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query(CLAIM_DTO + "where (:status is null or c.status = :status) "
+            + "and (:from is null or c.createdAt >= :from) "
+            + "and (:to is null or c.createdAt < :to) "
+            + "and (:hrId is null or c.assignedHr.id = :hrId) "
+            + "order by c.id")
+    Stream<ClaimDTO> streamForExport(@Param("status") ClaimStatus status,
+                                     @Param("from") LocalDateTime from,
+                                     @Param("to") LocalDateTime to,
+                                     @Param("hrId") Long hrId);
+
+    // -------------------- Keyset pages, newest first: (createdAt, id) desc --------------------
+    // Each has a first-page and an "after cursor" form; both are served by the (…, createdAt, id) indexes on Claim
+
+    @Query(CLAIM_DTO + NEWEST_FIRST)
+    List<ClaimDTO> findPage(Limit limit);
+
+    @Query(CLAIM_DTO + "where " + AFTER_CURSOR + NEWEST_FIRST)
+    List<ClaimDTO> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    @Query(CLAIM_DTO + "where c.employee.id = :employeeId" + NEWEST_FIRST)
+    List<ClaimDTO> findPageByEmployeeId(@Param("employeeId") Long employeeId, Limit limit);
+
+    @Query(CLAIM_DTO + "where c.employee.id = :employeeId and " + AFTER_CURSOR + NEWEST_FIRST)
+    List<ClaimDTO> findPageByEmployeeIdAfter(@Param("employeeId") Long employeeId,
+                                             @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("id") Long id,
+                                             Limit limit);
+
+    @Query(CLAIM_DTO + "where c.assignedHr.id = :hrId" + NEWEST_FIRST)
+    List<ClaimDTO> findPageByAssignedHrId(@Param("hrId") Long hrId, Limit limit);
+
+    @Query(CLAIM_DTO + "where c.assignedHr.id = :hrId and " + AFTER_CURSOR + NEWEST_FIRST)
+    List<ClaimDTO> findPageByAssignedHrIdAfter(@Param("hrId") Long hrId,
+                                               @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") Long id,
+                                               Limit limit);
 
     // -------------------- New: fetch all claims assigned to HR with HR details --------------------
     // This will allow Admin to fetch all claims along with assigned HR info
@@ -0,0 +1,41 @@
+package com.insurai.insurai_backend.repository;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.insurai.insurai_backend.model.CoverageLedgerEntry;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface CoverageLedgerRepository extends JpaRepository<CoverageLedgerEntry, Long> {
+
+    // Charge only if the total stays within limit; the check and the write are one statement,
+    // so concurrent submissions cannot both squeeze into the last of the coverage
+    @Modifying(flushAutomatically = true)
+    @Query("update CoverageLedgerEntry l set l.reserved = l.reserved + :reserved, l.approved = l.approved + :approved "
+            + "where l.employeeId = :employeeId and l.policyId = :policyId "
+            + "and l.reserved + l.approved + :reserved + :approved <= :limit")
+    int charge(@Param("employeeId") Long employeeId, @Param("policyId") Long policyId,
+               @Param("reserved") BigDecimal reserved, @Param("approved") BigDecimal approved,
+               @Param("limit") BigDecimal limit);
+
+    // Unconditional: decisions and releases never use more coverage than was already charged
+    @Modifying(flushAutomatically = true)
+    @Query("update CoverageLedgerEntry l set l.reserved = l.reserved + :reserved, l.approved = l.approved + :approved "
+            + "where l.employeeId = :employeeId and l.policyId = :policyId")
+    int move(@Param("employeeId") Long employeeId, @Param("policyId") Long policyId,
+             @Param("reserved") BigDecimal reserved, @Param("approved") BigDecimal approved);
+
+    // The account's row, locked until the transaction ends: charges and moves on it wait
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l from CoverageLedgerEntry l where l.employeeId = :employeeId and l.policyId = :policyId")
+    Optional<CoverageLedgerEntry> lockAccount(@Param("employeeId") Long employeeId, @Param("policyId") Long policyId);
+}
@@ -0,0 +1,42 @@
+package com.insurai.insurai_backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.insurai.insurai_backend.model.DocumentBlob;
+
+@Repository
+public interface DocumentBlobRepository extends JpaRepository<DocumentBlob, String> {
+
+    // 0 when there is no such blob yet
+    @Modifying
+    @Transactional
+    @Query("update DocumentBlob b set b.refCount = b.refCount + 1, b.releasedAt = null where b.sha256 = :sha256")
+    int acquire(@Param("sha256") String sha256);
+
+    @Modifying
+    @Transactional
+    @Query("update DocumentBlob b set b.refCount = b.refCount - 1, b.releasedAt = :now where b.sha256 = :sha256 and b.refCount > 0")
+    int release(@Param("sha256") String sha256, @Param("now") LocalDateTime now);
+
+    @Query("select b.sha256 from DocumentBlob b where b.refCount = 0 and b.releasedAt < :before")
+    List<String> findUnreferenced(@Param("before") LocalDateTime before, Limit limit);
+
+    // Only while still unreferenced: 0 if it was taken again meanwhile
+    @Modifying
+    @Transactional
+    @Query("delete from DocumentBlob b where b.sha256 = :sha256 and b.refCount = 0 and b.releasedAt < :before")
+    int deleteUnreferenced(@Param("sha256") String sha256, @Param("before") LocalDateTime before);
+
+    // [blobs, bytes stored, bytes referenced]: what is on disk against what would be without deduplication
+    @Query("select count(b), coalesce(sum(b.sizeBytes), 0), coalesce(sum(b.sizeBytes * b.refCount), 0) from DocumentBlob b")
+    List<Object[]> summarize();
+}
@@ -0,0 +1,39 @@
+package com.insurai.insurai_backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.insurai.insurai_backend.model.DocumentProcessing;
+
+@Repository
+public interface DocumentProcessingRepository extends JpaRepository<DocumentProcessing, Long> {
+
+    @Query("select d.path from DocumentProcessing d where d.claimId = :claimId")
+    List<String> findPathsByClaimId(@Param("claimId") Long claimId);
+
+    // Oldest first, so a backlog drains in upload order
+    @Query("select d.id from DocumentProcessing d where d.status = com.insurai.insurai_backend.model.DocumentProcessing.Status.PENDING order by d.id")
+    List<Long> findPendingIds(Limit limit);
+
+    // Taken by whoever flips it first: one worker per document, across instances
+    @Modifying
+    @Transactional
+    @Query("update DocumentProcessing d set d.status = com.insurai.insurai_backend.model.DocumentProcessing.Status.PROCESSING, "
+            + "d.startedAt = :now where d.id = :id and d.status = com.insurai.insurai_backend.model.DocumentProcessing.Status.PENDING")
+    int start(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Left in progress by an instance that stopped
+    @Modifying
+    @Transactional
+    @Query("update DocumentProcessing d set d.status = com.insurai.insurai_backend.model.DocumentProcessing.Status.PENDING "
+            + "where d.status = com.insurai.insurai_backend.model.DocumentProcessing.Status.PROCESSING and d.startedAt < :before")
+    int resetStuck(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,38 @@
+package com.insurai.insurai_backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.insurai.insurai_backend.model.DocumentReference;
+
+@Repository
+public interface DocumentReferenceRepository extends JpaRepository<DocumentReference, Long> {
+
+    Optional<DocumentReference> findByPath(String path);
+
+    // 0 when it was already removed, so its blob is released once
+    @Modifying
+    @Query("delete from DocumentReference r where r.id = :id")
+    int remove(@Param("id") Long id);
+
+    // Marks the references older than before that a claim lists, so later collections skip them
+    @Modifying
+    @Transactional
+    @Query("update DocumentReference r set r.confirmed = true where r.confirmed = false and r.createdAt < :before "
+            + "and exists (select 1 from Claim c join c.documents d where d = r.path)")
+    int confirmClaimed(@Param("before") LocalDateTime before);
+
+    // Stored for a request that never produced a claim, and old enough to be sure; confirmed ones are not looked at
+    @Query("select r from DocumentReference r where r.confirmed = false and r.createdAt < :before "
+            + "and not exists (select 1 from Claim c join c.documents d where d = r.path)")
+    List<DocumentReference> findOrphans(@Param("before") LocalDateTime before, Limit limit);
+}
@@ -1,8 +1,10 @@
 package com.insurai.insurai_backend.repository;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import com.insurai.insurai_backend.model.Hr;
 
@@ -10,6 +12,10 @@ public interface HrRepository extends JpaRepository<Hr, Long> {
     // Find HR by email (used for login/validation)
     Optional<Hr> findByEmail(String email);
 
+    // Ids only, for the workload index; avoids loading password hashes of every HR
+    @Query("select h.id from Hr h")
+    List<Long> findAllIds();
+
     // Optionally, you could add a method to filter active HRs if you later add an "active" field
     // List<Hr> findByActiveTrue();
 }
@@ -0,0 +1,50 @@
+package com.insurai.insurai_backend.repository;
+
+import java.time.Instant;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.insurai.insurai_backend.model.IdempotencyRecord;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // A plain INSERT (save() would merge into a row another instance just wrote); fails if the key is taken
+    @Modifying
+    @Transactional
+    @Query("insert into IdempotencyRecord (id, requestHash, responseStatus, createdAt, expiresAt) "
+            + "values (:id, :requestHash, 0, :now, :expiresAt)")
+    int claim(@Param("id") String id, @Param("requestHash") String requestHash,
+              @Param("now") Instant now, @Param("expiresAt") Instant expiresAt);
+
+    // Take over a key whose first request was abandoned (its instance stopped) while in progress
+    @Modifying
+    @Transactional
+    @Query("update IdempotencyRecord r set r.createdAt = :now, r.requestHash = :requestHash "
+            + "where r.id = :id and r.responseStatus = 0 and r.createdAt < :abandonedBefore")
+    int takeOver(@Param("id") String id, @Param("requestHash") String requestHash,
+                 @Param("now") Instant now, @Param("abandonedBefore") Instant abandonedBefore);
+
+    @Modifying
+    @Transactional
+    @Query("update IdempotencyRecord r set r.responseStatus = :status, r.responseBody = :body, r.expiresAt = :expiresAt "
+            + "where r.id = :id")
+    int complete(@Param("id") String id, @Param("status") int status, @Param("body") String body,
+                 @Param("expiresAt") Instant expiresAt);
+
+    // The first request failed: let a retry run it again
+    @Modifying
+    @Transactional
+    @Query("delete from IdempotencyRecord r where r.id = :id and r.responseStatus = 0")
+    int release(@Param("id") String id);
+
+    @Modifying
+    @Transactional
+    @Query("delete from IdempotencyRecord r where r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,30 @@
+package com.insurai.insurai_backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.insurai.insurai_backend.model.OutboxEvent;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // The next batch after an offset: a primary key range, oldest first
+    List<OutboxEvent> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    @Query("select coalesce(max(e.id), 0) from OutboxEvent e")
+    long findMaxId();
+
+    // Events every subscriber has handled, once they are older than the retention
+    @Modifying
+    @Transactional
+    @Query("delete from OutboxEvent e where e.id <= :upToId and e.createdAt < :before")
+    int deleteDelivered(@Param("upToId") long upToId, @Param("before") LocalDateTime before);
+}
@@ -0,0 +1,23 @@
+package com.insurai.insurai_backend.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.insurai.insurai_backend.model.OutboxOffset;
+
+@Repository
+public interface OutboxOffsetRepository extends JpaRepository<OutboxOffset, String> {
+
+    // One statement per delivered batch; offsets only move forward
+    @Modifying
+    @Transactional
+    @Query("update OutboxOffset o set o.lastEventId = :eventId, o.updatedAt = :now "
+            + "where o.subscriber = :subscriber and o.lastEventId < :eventId")
+    int advance(@Param("subscriber") String subscriber, @Param("eventId") long eventId, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,24 @@
+package com.insurai.insurai_backend.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.insurai.insurai_backend.model.SessionRevocation;
+
+@Repository
+public interface SessionRevocationRepository extends JpaRepository<SessionRevocation, String> {
+
+    List<SessionRevocation> findByExpiresAtAfter(Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("delete from SessionRevocation s where s.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -4,6 +4,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import com.insurai.insurai_backend.config.AgentPrincipalCache;
 import com.insurai.insurai_backend.config.JwtUtil;
 import com.insurai.insurai_backend.model.Agent;
 import com.insurai.insurai_backend.model.Hr;
@@ -29,6 +30,12 @@ public class AdminService {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private AgentPrincipalCache agentPrincipalCache;
+
+    @Autowired
+    private HrWorkloadIndex hrWorkloadIndex;
+
     // -------------------- Admin login --------------------
     public boolean validateAdmin(String email, String password) {
         return ADMIN_EMAIL.equals(email) && ADMIN_PASSWORD.equals(password);
@@ -56,8 +63,7 @@ public class AdminService {
 
         String token = authHeader.substring(7).trim(); // Remove "Bearer " prefix
         try {
-            String role = jwtUtil.extractRole(token);
-            return "ADMIN".equalsIgnoreCase(role);
+            return jwtUtil.parse(token).hasRole("ADMIN");
         } catch (Exception e) {
             System.out.println("[AdminService] Invalid JWT token: " + e.getMessage());
             return false;
@@ -71,6 +77,7 @@ public class AdminService {
         agent.setEmail(request.getEmail());
         agent.setPassword(passwordEncoder.encode(request.getPassword()));
         agentRepository.save(agent);
+        agentPrincipalCache.invalidate(agent.getEmail());
     }
 
     // -------------------- Register HR --------------------
@@ -82,5 +89,6 @@ public class AdminService {
         hr.setHrId(request.getHrId());
         hr.setPassword(passwordEncoder.encode(request.getPassword()));
         hrRepository.save(hr);
+        hrWorkloadIndex.addHr(hr.getId());
     }
 }
@@ -5,6 +5,7 @@ import java.util.Optional;
 
 import org.springframework.stereotype.Service;
 
+import com.insurai.insurai_backend.config.AgentPrincipalCache;
 import com.insurai.insurai_backend.model.Agent;
 import com.insurai.insurai_backend.repository.AgentRepository;
 
@@ -15,6 +16,7 @@ import lombok.RequiredArgsConstructor;
 public class AgentService {
 
     private final AgentRepository agentRepository;
+    private final AgentPrincipalCache agentPrincipalCache;
 
     // Get all agents
     public List<Agent> getAllAgents() {
@@ -23,7 +25,17 @@ public class AgentService {
 
     // Register new agent
     public Agent registerAgent(Agent agent) {
-        return agentRepository.save(agent);
+        Agent saved = agentRepository.save(agent);
+        agentPrincipalCache.invalidate(saved.getEmail());
+        return saved;
+    }
+
+    // Store a rehashed password (login upgrades the BCrypt work factor)
+    public Agent updatePassword(Agent agent, String encodedPassword) {
+        agent.setPassword(encodedPassword);
+        Agent saved = agentRepository.save(agent);
+        agentPrincipalCache.invalidate(saved.getEmail());
+        return saved;
     }
 
     // Find by email
@@ -40,6 +52,7 @@ public class AgentService {
             Agent agent = optionalAgent.get();
             agent.setAvailable(available);   // make sure Agent.java has: private boolean available;
             agentRepository.save(agent);
+            agentPrincipalCache.invalidate(agent.getEmail());
             return agent.isAvailable();
         } else {
             throw new RuntimeException("Agent not found with ID: " + agentId);
@@ -1,5 +1,496 @@
 package com.insurai.insurai_backend.service;
 
-public class ClaimAutomationService {
-    
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insurai.insurai_backend.model.AdjudicationRule;
+import com.insurai.insurai_backend.model.ClaimFacts;
+import com.insurai.insurai_backend.model.ClaimStatus;
+import com.insurai.insurai_backend.repository.ClaimRepository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Auto-adjudication: decides routine claims from rules so they never reach an HR queue.
+ *
+ * The rules file (insurai.automation.rules-location) is compiled once into, per policy
+ * type, an array of rules whose conditions are already folded into a single predicate;
+ * wildcard ("*") rules are merged into every type's array in file order. Evaluating a
+ * claim is one map lookup and a scan of that short array, with no I/O, so it runs inline
+ * at submission. A claim no rule matches is left for manual review.
+ *
+ * The file is re-read when it changes (or on demand); a file that fails to parse or
+ * validate is refused and the previous rules stay in force.
+ *
+ * {@link #sweepPending()} applies the current rules to the pending backlog: pages of
+ * claims are read in id order and split into batches, each evaluated and written on its
+ * own virtual thread with one guarded UPDATE per matching rule, plus the coverage ledger
+ * moves for the claims it decided, in one transaction. Claims flagged as suspected
+ * duplicates are skipped, as they are at submission.
+ */
+@Service
+public class ClaimAutomationService implements MeterBinder {
+
+    public record Decision(ClaimStatus status, String ruleId, String remarks) {}
+
+    public record SweepResult(int examined, int decided, Map<String, Integer> byRule) {}
+
+    private record CompiledRule(String id, ClaimStatus decision, String remarks,
+                                BiPredicate<ClaimFacts, LocalDateTime> matches) {}
+
+    private record RuleSet(Map<String, CompiledRule[]> byPolicyType, CompiledRule[] anyType, int size) {
+        CompiledRule[] rulesFor(String policyType) {
+            if (policyType == null) {
+                return anyType;
+            }
+            return byPolicyType.getOrDefault(policyType.toLowerCase(Locale.ROOT), anyType);
+        }
+    }
+
+    private static final String ANY_TYPE = "*";
+
+    private final ClaimRepository claimRepository;
+    private final HrWorkloadIndex hrWorkloadIndex;
+    private final CoverageLedgerService coverageLedgerService;
+    private final ClaimSlaService claimSlaService;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transaction;
+    private final ObjectMapper objectMapper;
+    private final ResourceLoader resourceLoader;
+    private final String rulesLocation;
+    private final boolean enabled;
+    private final int sweepPageSize;
+    private final int sweepBatchSize;
+    private final boolean sweepScheduled;
+
+    private volatile RuleSet rules = new RuleSet(Map.of(), new CompiledRule[0], 0);
+    private volatile long rulesLastModified;
+
+    // Hit counts survive reloads so the metrics stay monotonic; "manual" counts claims no rule took
+    private final Map<String, LongAdder> hits = new ConcurrentHashMap<>();
+    private final LongAdder manual = new LongAdder();
+    private volatile MeterRegistry meterRegistry;
+    private volatile Timer evaluationTimer;
+
+    public ClaimAutomationService(ClaimRepository claimRepository,
+                                  HrWorkloadIndex hrWorkloadIndex,
+                                  CoverageLedgerService coverageLedgerService,
+                                  ClaimSlaService claimSlaService,
+                                  OutboxService outboxService,
+                                  PlatformTransactionManager transactionManager,
+                                  ObjectMapper objectMapper,
+                                  ResourceLoader resourceLoader,
+                                  @Value("${insurai.automation.rules-location:classpath:automation-rules.json}") String rulesLocation,
+                                  @Value("${insurai.automation.enabled:true}") boolean enabled,
+                                  @Value("${insurai.automation.sweep.page-size:1000}") int sweepPageSize,
+                                  @Value("${insurai.automation.sweep.batch-size:250}") int sweepBatchSize,
+                                  @Value("${insurai.automation.sweep.scheduled:false}") boolean sweepScheduled) {
+        this.claimRepository = claimRepository;
+        this.hrWorkloadIndex = hrWorkloadIndex;
+        this.coverageLedgerService = coverageLedgerService;
+        this.claimSlaService = claimSlaService;
+        this.outboxService = outboxService;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.resourceLoader = resourceLoader;
+        this.rulesLocation = rulesLocation;
+        this.enabled = enabled;
+        this.sweepPageSize = sweepPageSize;
+        this.sweepBatchSize = sweepBatchSize;
+        this.sweepScheduled = sweepScheduled;
+    }
+
+    @PostConstruct
+    public void load() {
+        // A broken rules file at startup is a configuration error, not something to run without
+        reload();
+    }
+
+    // -------------------- Evaluation --------------------
+
+    /**
+     * Decide a claim from the rules, or return null to leave it for an HR.
+     */
+    public Decision evaluate(ClaimFacts facts) {
+        return evaluate(facts, LocalDateTime.now());
+    }
+
+    public Decision evaluate(ClaimFacts facts, LocalDateTime now) {
+        if (!enabled) {
+            return null;
+        }
+        long started = System.nanoTime();
+        CompiledRule rule = match(rules, facts, now);
+        Timer timer = evaluationTimer;
+        if (timer != null) {
+            timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        if (rule == null) {
+            manual.increment();
+            return null;
+        }
+        hits.computeIfAbsent(rule.id(), id -> new LongAdder()).increment();
+        return new Decision(rule.decision(), rule.id(), rule.remarks());
+    }
+
+    // now is the evaluation time that claim age is measured against
+    private static CompiledRule match(RuleSet ruleSet, ClaimFacts facts, LocalDateTime now) {
+        for (CompiledRule rule : ruleSet.rulesFor(facts.policyType())) {
+            if (rule.matches().test(facts, now)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    // -------------------- Rules: load, validate, compile --------------------
+
+    public int ruleCount() {
+        return rules.size();
+    }
+
+    /**
+     * Re-read and recompile the rules file. Throws IllegalArgumentException (keeping the
+     * current rules) if it cannot be read or a rule is invalid.
+     */
+    public synchronized int reload() {
+        Resource resource = resourceLoader.getResource(rulesLocation);
+        List<AdjudicationRule> definitions;
+        try (InputStream in = resource.getInputStream()) {
+            definitions = objectMapper.readerFor(new TypeReference<List<AdjudicationRule>>() {})
+                    .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                    .readValue(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read automation rules from " + rulesLocation + ": " + e.getMessage(), e);
+        }
+        RuleSet compiled = compile(definitions);
+        rules = compiled;
+        rulesLastModified = lastModified(resource);
+        registerRuleMeters();
+        return compiled.size();
+    }
+
+    /**
+     * Hot reload: pick up an edited rules file without a restart. Resources without a
+     * modification time (inside a jar) are only reloaded on demand.
+     */
+    @Scheduled(fixedDelayString = "${insurai.automation.rules.reload-check-ms:10000}")
+    public void reloadIfChanged() {
+        long modified = lastModified(resourceLoader.getResource(rulesLocation));
+        if (modified > 0 && modified != rulesLastModified) {
+            try {
+                reload();
+            } catch (IllegalArgumentException e) {
+                // Keep serving the previous rules; remember the bad version so it is not retried every tick
+                rulesLastModified = modified;
+            }
+        }
+    }
+
+    private static long lastModified(Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static RuleSet compile(List<AdjudicationRule> definitions) {
+        if (definitions == null) {
+            throw new IllegalArgumentException("Automation rules file is empty");
+        }
+        Set<String> ids = new HashSet<>();
+        List<String> types = new ArrayList<>();
+        List<AdjudicationRule> ordered = new ArrayList<>();
+        for (AdjudicationRule rule : definitions) {
+            validate(rule);
+            if (!ids.add(rule.getId())) {
+                throw new IllegalArgumentException("Duplicate automation rule id: " + rule.getId());
+            }
+            String type = typeKey(rule.getPolicyType());
+            if (!type.equals(ANY_TYPE) && !types.contains(type)) {
+                types.add(type);
+            }
+            ordered.add(rule);
+        }
+
+        // Each type sees its own rules and the wildcard ones, interleaved in file order
+        Map<String, CompiledRule[]> byPolicyType = new LinkedHashMap<>();
+        for (String type : types) {
+            byPolicyType.put(type, ordered.stream()
+                    .filter(rule -> typeKey(rule.getPolicyType()).equals(type) || typeKey(rule.getPolicyType()).equals(ANY_TYPE))
+                    .map(ClaimAutomationService::compileRule)
+                    .toArray(CompiledRule[]::new));
+        }
+        CompiledRule[] anyType = ordered.stream()
+                .filter(rule -> typeKey(rule.getPolicyType()).equals(ANY_TYPE))
+                .map(ClaimAutomationService::compileRule)
+                .toArray(CompiledRule[]::new);
+        return new RuleSet(Map.copyOf(byPolicyType), anyType, ordered.size());
+    }
+
+    private static void validate(AdjudicationRule rule) {
+        if (rule == null || rule.getId() == null || rule.getId().isBlank()) {
+            throw new IllegalArgumentException("Every automation rule needs an id");
+        }
+        decisionOf(rule);
+        if (rule.getMinAmount() != null && rule.getMaxAmount() != null && rule.getMinAmount() > rule.getMaxAmount()) {
+            throw new IllegalArgumentException("Rule " + rule.getId() + ": minAmount is above maxAmount");
+        }
+        if (rule.getMinClaimAgeDays() != null && rule.getMaxClaimAgeDays() != null
+                && rule.getMinClaimAgeDays() > rule.getMaxClaimAgeDays()) {
+            throw new IllegalArgumentException("Rule " + rule.getId() + ": minClaimAgeDays is above maxClaimAgeDays");
+        }
+        if (rule.getMaxCoverageRatio() != null && rule.getMaxCoverageRatio() < 0) {
+            throw new IllegalArgumentException("Rule " + rule.getId() + ": maxCoverageRatio must not be negative");
+        }
+    }
+
+    private static ClaimStatus decisionOf(AdjudicationRule rule) {
+        if ("APPROVE".equalsIgnoreCase(rule.getDecision())) {
+            return ClaimStatus.APPROVED;
+        }
+        if ("REJECT".equalsIgnoreCase(rule.getDecision())) {
+            return ClaimStatus.REJECTED;
+        }
+        throw new IllegalArgumentException("Rule " + rule.getId() + ": decision must be APPROVE or REJECT");
+    }
+
+    private static String typeKey(String policyType) {
+        return policyType == null || policyType.isBlank() ? ANY_TYPE : policyType.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Only the conditions a rule sets become part of its predicate
+    private static CompiledRule compileRule(AdjudicationRule rule) {
+        BiPredicate<ClaimFacts, LocalDateTime> matches = (facts, now) -> true;
+
+        if (rule.getMinAmount() != null) {
+            double min = rule.getMinAmount();
+            matches = matches.and((f, now) -> f.amount() != null && f.amount() >= min);
+        }
+        if (rule.getMaxAmount() != null) {
+            double max = rule.getMaxAmount();
+            matches = matches.and((f, now) -> f.amount() != null && f.amount() <= max);
+        }
+        if (rule.getMaxCoverageRatio() != null) {
+            double ratio = rule.getMaxCoverageRatio();
+            matches = matches.and((f, now) -> f.amount() != null && f.coverageAmount() != null && f.coverageAmount() > 0
+                    && f.amount() <= f.coverageAmount() * ratio);
+        }
+        if (rule.getMinDocuments() != null) {
+            int min = rule.getMinDocuments();
+            matches = matches.and((f, now) -> f.documentCount() != null && f.documentCount() >= min);
+        }
+        if (rule.getMinClaimAgeDays() != null) {
+            long min = rule.getMinClaimAgeDays();
+            matches = matches.and((f, now) -> f.claimDate() != null
+                    && ChronoUnit.DAYS.between(f.claimDate(), now) >= min);
+        }
+        if (rule.getMaxClaimAgeDays() != null) {
+            long max = rule.getMaxClaimAgeDays();
+            matches = matches.and((f, now) -> f.claimDate() != null
+                    && ChronoUnit.DAYS.between(f.claimDate(), now) <= max);
+        }
+        if (rule.getPolicyStatus() != null) {
+            String status = rule.getPolicyStatus();
+            matches = matches.and((f, now) -> status.equalsIgnoreCase(f.policyStatus()));
+        }
+        if (rule.getEmployeeActive() != null) {
+            boolean active = rule.getEmployeeActive();
+            matches = matches.and((f, now) -> f.employeeActive() != null && f.employeeActive() == active);
+        }
+
+        ClaimStatus decision = decisionOf(rule);
+        String remarks = rule.getRemarks() != null && !rule.getRemarks().isBlank()
+                ? rule.getRemarks()
+                : (decision == ClaimStatus.APPROVED ? "Auto-approved" : "Auto-rejected") + " by rule " + rule.getId();
+        return new CompiledRule(rule.getId(), decision, remarks, matches);
+    }
+
+    // -------------------- Batch sweep of the pending backlog --------------------
+
+    /**
+     * Apply the current rules to every pending claim. Returns how many were looked at and
+     * decided, per rule. Safe to run while reviewers work: the UPDATEs only touch claims
+     * that are still pending.
+     */
+    public SweepResult sweepPending() throws InterruptedException {
+        RuleSet snapshot = rules;
+        // Truncated to what a DATETIME(6) column stores, so the read-back can match it exactly
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        Map<String, Integer> byRule = new ConcurrentHashMap<>();
+        int examined = 0;
+        int decided = 0;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            long afterId = 0;
+            while (true) {
+                List<ClaimFacts> page = claimRepository.findFactsPage(ClaimStatus.PENDING, afterId, Limit.of(sweepPageSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                afterId = page.get(page.size() - 1).claimId();
+                examined += page.size();
+
+                // At most pageSize / batchSize batches (and DB connections) in flight at once
+                List<Future<Integer>> batches = new ArrayList<>();
+                for (int from = 0; from < page.size(); from += sweepBatchSize) {
+                    List<ClaimFacts> batch = page.subList(from, Math.min(from + sweepBatchSize, page.size()));
+                    batches.add(executor.submit(() -> decideBatch(snapshot, batch, now, byRule)));
+                }
+                for (Future<Integer> batch : batches) {
+                    decided += join(batch);
+                }
+                if (page.size() < sweepPageSize) {
+                    break;
+                }
+            }
+        }
+
+        if (decided > 0) {
+            // Decided claims left HR queues in bulk; one GROUP BY is cheaper than tracking each HR here
+            hrWorkloadIndex.reconcile();
+        }
+        return new SweepResult(examined, decided, Map.copyOf(byRule));
+    }
+
+    private int decideBatch(RuleSet ruleSet, List<ClaimFacts> batch, LocalDateTime now, Map<String, Integer> byRule) {
+        Map<CompiledRule, List<Long>> matched = new LinkedHashMap<>();
+        for (ClaimFacts facts : batch) {
+            long started = System.nanoTime();
+            CompiledRule rule = match(ruleSet, facts, now);
+            Timer timer = evaluationTimer;
+            if (timer != null) {
+                timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+            if (rule != null) {
+                matched.computeIfAbsent(rule, r -> new ArrayList<>()).add(facts.claimId());
+            }
+        }
+
+        if (matched.isEmpty()) {
+            return 0;
+        }
+        // Per batch, the UPDATEs and the coverage they move commit together
+        List<Long> decidedIds = new ArrayList<>();
+        int decidedCount = transaction.execute(tx -> {
+            int decided = 0;
+            for (Map.Entry<CompiledRule, List<Long>> entry : matched.entrySet()) {
+                CompiledRule rule = entry.getKey();
+                int updated = claimRepository.decideAllPending(entry.getValue(), ClaimStatus.PENDING,
+                        rule.decision(), rule.remarks(), now);
+                if (updated > 0) {
+                    // Claims a reviewer decided in the meantime carry another status or timestamp
+                    List<CoverageLedgerService.ClaimAmount> moved = new ArrayList<>(updated);
+                    List<Long> ruleDecided = new ArrayList<>(updated);
+                    Map<Long, List<Long>> ruleDecidedByHr = new LinkedHashMap<>();
+                    for (Object[] row : claimRepository.findDecisionStateByIds(entry.getValue())) {
+                        if (row[1] == rule.decision() && now.equals(row[3])) {
+                            ruleDecided.add((Long) row[0]);
+                            ruleDecidedByHr.computeIfAbsent((Long) row[2], hr -> new ArrayList<>()).add((Long) row[0]);
+                            moved.add(new CoverageLedgerService.ClaimAmount((Long) row[4], (Long) row[5], (Double) row[6]));
+                        }
+                    }
+                    coverageLedgerService.moveAll(moved, ClaimStatus.PENDING, rule.decision());
+                    if (!ruleDecided.isEmpty()) {
+                        outboxService.record("claims.decided", OutboxService.CLAIM, null,
+                                ClaimService.decisionEvent(rule.decision(), rule.remarks(), "rule", rule.id(), ruleDecidedByHr));
+                    }
+                    decidedIds.addAll(ruleDecided);
+                }
+                hits.computeIfAbsent(rule.id(), id -> new LongAdder()).add(updated);
+                byRule.merge(rule.id(), updated, Integer::sum);
+                decided += updated;
+            }
+            return decided;
+        });
+        claimSlaService.cancelAll(decidedIds);
+        return decidedCount;
+    }
+
+    private static int join(Future<Integer> batch) throws InterruptedException {
+        try {
+            return batch.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${insurai.automation.sweep.interval-ms:3600000}",
+               initialDelayString = "${insurai.automation.sweep.interval-ms:3600000}")
+    public void scheduledSweep() throws InterruptedException {
+        if (enabled && sweepScheduled) {
+            sweepPending();
+        }
+    }
+
+    // -------------------- Metrics --------------------
+
+    private void registerRuleMeters() {
+        MeterRegistry registry = meterRegistry;
+        if (registry == null) {
+            return;
+        }
+        for (CompiledRule rule : rules.anyType()) {
+            registerRuleCounter(registry, rule.id());
+        }
+        for (CompiledRule[] typeRules : rules.byPolicyType().values()) {
+            for (CompiledRule rule : typeRules) {
+                registerRuleCounter(registry, rule.id());
+            }
+        }
+    }
+
+    private void registerRuleCounter(MeterRegistry registry, String ruleId) {
+        LongAdder counter = hits.computeIfAbsent(ruleId, id -> new LongAdder());
+        FunctionCounter.builder("insurai.automation.rule.hits", counter, LongAdder::sum)
+                .description("Claims decided by an auto-adjudication rule")
+                .tag("rule", ruleId)
+                .register(registry);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.meterRegistry = registry;
+        this.evaluationTimer = Timer.builder("insurai.automation.evaluation")
+                .description("Time to evaluate the rules against one claim")
+                .register(registry);
+        FunctionCounter.builder("insurai.automation.manual", manual, LongAdder::sum)
+                .description("Claims evaluated at submission that no rule decided")
+                .register(registry);
+        registerRuleMeters();
+    }
 }
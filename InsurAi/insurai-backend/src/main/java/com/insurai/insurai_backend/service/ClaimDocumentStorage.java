@@ -0,0 +1,227 @@
+package com.insurai.insurai_backend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.insurai.insurai_backend.util.MultipartStream;
+
+/**
+ * Stores claim documents in the {@link DocumentBlobStore} and hashes them on the way in, so
+ * duplicate detection can compare document content without reading the files back, and the
+ * same content uploaded again is kept once.
+ *
+ * Documents come either as MultipartFiles (buffered whole by the servlet container first) or
+ * streamed: {@link #readForm} parses the request body as it arrives and each document is
+ * written to disk through one fixed-size buffer, with the size limit and the hash
+ * applied on the way. Either way, a request that fails has its documents deleted again.
+ */
+@Service
+public class ClaimDocumentStorage {
+
+    public record StoredDocument(String path, String sha256) {}
+
+    /**
+     * Documents still to be stored. Adds each one to stored as soon as it is written, so that
+     * the caller can delete them all if anything fails part way.
+     */
+    @FunctionalInterface
+    public interface Upload {
+        void storeInto(List<StoredDocument> stored) throws IOException;
+    }
+
+    /**
+     * The form fields of a streamed request, read up to the first document; the documents are
+     * still unread in the request body
+     */
+    public record StreamedForm(Map<String, String> fields, Upload documents) {}
+
+    private static final int MAX_FIELDS = 32;
+
+    private final DocumentBlobStore blobStore;
+    private final int bufferSize;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final int maxFieldBytes;
+
+    public ClaimDocumentStorage(DocumentBlobStore blobStore,
+                                @Value("${insurai.uploads.streaming.buffer-size:16384}") int bufferSize,
+                                @Value("${insurai.uploads.streaming.max-file-size:20MB}") DataSize maxFileSize,
+                                @Value("${insurai.uploads.streaming.max-files:20}") int maxFiles,
+                                @Value("${insurai.uploads.streaming.max-field-bytes:65536}") int maxFieldBytes) {
+        this.blobStore = blobStore;
+        this.bufferSize = bufferSize;
+        this.maxFileBytes = maxFileSize.toBytes();
+        this.maxFiles = maxFiles;
+        this.maxFieldBytes = maxFieldBytes;
+    }
+
+    /**
+     * Store the upload; the SHA-256 is computed in the same pass as the copy
+     */
+    public StoredDocument store(MultipartFile file) {
+        try {
+            Path temp = blobStore.tempFile();
+            MessageDigest digest = sha256();
+            long size;
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                size = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            return new StoredDocument(blobStore.add(baseName(file.getOriginalFilename()), temp, sha256, size), sha256);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store file " + file.getOriginalFilename(), e);
+        }
+    }
+
+    public Upload upload(List<MultipartFile> files) {
+        return stored -> {
+            if (files != null) {
+                for (MultipartFile file : files) {
+                    stored.add(store(file));
+                }
+            }
+        };
+    }
+
+    /**
+     * Store a streamed document; memory use is one buffer whatever the size.
+     * Fails with MaxUploadSizeExceededException past max-file-size, leaving no file behind.
+     */
+    public StoredDocument store(String originalFilename, InputStream in) throws IOException {
+        Path temp = blobStore.tempFile();
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[bufferSize];
+        long size = 0;
+        boolean written = false;
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                size += n;
+                if (size > maxFileBytes) {
+                    throw new MaxUploadSizeExceededException(maxFileBytes);
+                }
+                digest.update(buffer, 0, n);
+                out.write(buffer, 0, n);
+            }
+            written = true;
+        } finally {
+            if (!written) {
+                Files.deleteIfExists(temp);
+            }
+        }
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        return new StoredDocument(blobStore.add(baseName(originalFilename), temp, sha256, size), sha256);
+    }
+
+    /**
+     * Read a multipart/form-data body up to its first document. Fields must come before the
+     * documents; the documents are stored when {@link StreamedForm#documents()} is run.
+     */
+    public StreamedForm readForm(String contentType, InputStream body) throws IOException {
+        String boundary = MultipartStream.boundary(contentType);
+        if (boundary == null) {
+            throw new IOException("Not a multipart request");
+        }
+        MultipartStream multipart = new MultipartStream(body, boundary, bufferSize);
+        Map<String, String> fields = new HashMap<>();
+        MultipartStream.Part part;
+        while ((part = multipart.next()) != null && !part.isFile()) {
+            if (fields.size() >= MAX_FIELDS) {
+                throw new IOException("Too many form fields");
+            }
+            fields.put(part.name(), part.value(maxFieldBytes));
+        }
+        MultipartStream.Part first = part;
+        return new StreamedForm(fields, stored -> {
+            int files = 0;
+            for (MultipartStream.Part document = first; document != null; document = multipart.next()) {
+                if (!document.isFile()) {
+                    throw new IOException("Form field " + document.name() + " comes after the documents");
+                }
+                if (document.filename().isEmpty()) {
+                    // A file input left empty
+                    continue;
+                }
+                if (++files > maxFiles) {
+                    throw new IOException("At most " + maxFiles + " documents per request");
+                }
+                stored.add(store(document.filename(), document.body()));
+            }
+        });
+    }
+
+    /**
+     * Remove documents stored for a request that then failed; content other claims share stays
+     */
+    public void delete(Collection<StoredDocument> documents) {
+        blobStore.release(documents.stream().map(StoredDocument::path).toList());
+    }
+
+    /**
+     * The file behind a stored path such as /uploads/&lt;uuid&gt;_scan.pdf
+     */
+    public Path resolve(String path) {
+        return blobStore.resolve(path);
+    }
+
+    /**
+     * Where the preview image of a stored document goes; {@link #resolve} places it in the
+     * store's fan-out, and it is served like the documents
+     */
+    public String previewPath(String path) {
+        return DocumentBlobStore.PREVIEW_PREFIX + path.substring(path.lastIndexOf('/') + 1) + ".png";
+    }
+
+    // The name without any directory a client put in it
+    private static String baseName(String filename) {
+        if (filename == null) {
+            return "document";
+        }
+        return filename.substring(Math.max(filename.lastIndexOf('/'), filename.lastIndexOf('\\')) + 1);
+    }
+
+    /**
+     * One fingerprint for a set of documents, independent of their order and file names.
+     * Null when there are none.
+     */
+    public static String fingerprint(Collection<StoredDocument> documents) {
+        if (documents == null || documents.isEmpty()) {
+            return null;
+        }
+        MessageDigest digest = sha256();
+        documents.stream().map(StoredDocument::sha256).sorted()
+                .forEach(hash -> digest.update((hash + "\n").getBytes(StandardCharsets.US_ASCII)));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
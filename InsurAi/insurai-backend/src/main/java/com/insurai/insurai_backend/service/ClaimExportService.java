@@ -0,0 +1,152 @@
+package com.insurai.insurai_backend.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insurai.insurai_backend.model.ClaimDTO;
+import com.insurai.insurai_backend.model.ClaimStatus;
+import com.insurai.insurai_backend.repository.ClaimRepository;
+
+/**
+ * Writes claims to an output stream as NDJSON or CSV while they are read from the database.
+ *
+ * Rows come from a forward-only projection stream (no managed entities, so nothing builds
+ * up in the persistence context) and are written in batches: each batch gets its documents
+ * from one query, is written and flushed, and is then dropped. Memory use depends on the
+ * batch size, not on how many claims match.
+ */
+@Service
+public class ClaimExportService {
+
+    public enum Format { NDJSON, CSV }
+
+    // Filters are all optional; from/to are inclusive dates on createdAt
+    public record ExportFilter(ClaimStatus status, LocalDate from, LocalDate to, Long hrId) {}
+
+    private static final String CSV_HEADER = "id,title,description,amount,status,remarks,claimDate,createdAt,updatedAt,"
+            + "employeeId,policyId,policyName,assignedHrId,documents\n";
+
+    private final ClaimRepository claimRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int batchSize;
+
+    public ClaimExportService(ClaimRepository claimRepository,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${insurai.claims.export.batch-size:500}") int batchSize) {
+        this.claimRepository = claimRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Stream every matching claim to out; returns the number of rows written.
+     * out is flushed after every batch but not closed.
+     */
+    public long export(ExportFilter filter, Format format, OutputStream out) {
+        Long written = readOnlyTransaction.execute(status -> {
+            OutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+            try (Stream<ClaimDTO> rows = claimRepository.streamForExport(
+                    filter.status(),
+                    filter.from() != null ? filter.from().atStartOfDay() : null,
+                    filter.to() != null ? filter.to().plusDays(1).atStartOfDay() : null,
+                    filter.hrId())) {
+
+                if (format == Format.CSV) {
+                    buffered.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+                }
+
+                long count = 0;
+                List<ClaimDTO> batch = new ArrayList<>(batchSize);
+                Iterator<ClaimDTO> it = rows.iterator();
+                while (it.hasNext()) {
+                    batch.add(it.next());
+                    if (batch.size() == batchSize || !it.hasNext()) {
+                        count += writeBatch(batch, format, buffered);
+                        batch.clear();
+                    }
+                }
+                buffered.flush();
+                return count;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return written != null ? written : 0;
+    }
+
+    private int writeBatch(List<ClaimDTO> batch, Format format, OutputStream out) throws IOException {
+        Map<Long, List<String>> documents = new HashMap<>();
+        List<Long> ids = batch.stream().map(ClaimDTO::getId).toList();
+        for (Object[] row : claimRepository.findDocumentsByClaimIds(ids)) {
+            documents.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+
+        for (ClaimDTO claim : batch) {
+            claim.setDocuments(documents.getOrDefault(claim.getId(), List.of()));
+            if (format == Format.NDJSON) {
+                out.write(objectMapper.writeValueAsBytes(claim));
+                out.write('\n');
+            } else {
+                out.write(toCsvLine(claim).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        // Push the batch to the client so the response never waits on the whole export
+        out.flush();
+        return batch.size();
+    }
+
+    private static String toCsvLine(ClaimDTO c) {
+        StringBuilder line = new StringBuilder(256);
+        appendCsv(line, c.getId()).append(',');
+        appendCsv(line, c.getTitle()).append(',');
+        appendCsv(line, c.getDescription()).append(',');
+        appendCsv(line, c.getAmount()).append(',');
+        appendCsv(line, c.getStatus()).append(',');
+        appendCsv(line, c.getRemarks()).append(',');
+        appendCsv(line, c.getClaimDate()).append(',');
+        appendCsv(line, c.getCreatedAt()).append(',');
+        appendCsv(line, c.getUpdatedAt()).append(',');
+        appendCsv(line, c.getEmployeeId()).append(',');
+        appendCsv(line, c.getPolicyId()).append(',');
+        appendCsv(line, c.getPolicyName()).append(',');
+        appendCsv(line, c.getAssignedHrId()).append(',');
+        appendCsv(line, String.join(";", c.getDocuments()));
+        return line.append('\n').toString();
+    }
+
+    // RFC 4180: quote fields containing a comma, quote or line break, doubling inner quotes.
+    // Free text that a spreadsheet would read as a formula gets a leading apostrophe.
+    private static StringBuilder appendCsv(StringBuilder line, Object value) {
+        if (value == null) {
+            return line;
+        }
+        String text = value.toString();
+        if (value instanceof String && !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return line.append(text);
+        }
+        return line.append('"').append(text.replace("\"", "\"\"")).append('"');
+    }
+}
@@ -1,16 +1,37 @@
 package com.insurai.insurai_backend.service;
 
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.insurai.insurai_backend.model.BulkDecisionResult;
 import com.insurai.insurai_backend.model.Claim;
+import com.insurai.insurai_backend.model.ClaimDTO;
+import com.insurai.insurai_backend.model.ClaimDocumentState;
+import com.insurai.insurai_backend.model.ClaimFacts;
+import com.insurai.insurai_backend.model.ClaimStatus;
+import com.insurai.insurai_backend.model.CursorPage;
+import com.insurai.insurai_backend.model.DocumentProcessing;
 import com.insurai.insurai_backend.model.Employee;
 import com.insurai.insurai_backend.model.Hr;
+import com.insurai.insurai_backend.model.Policy;
 import com.insurai.insurai_backend.repository.ClaimRepository;
+import com.insurai.insurai_backend.repository.HrRepository;
+import com.insurai.insurai_backend.util.KeysetCursor;
 
 @Service
 public class ClaimService {
@@ -19,10 +40,46 @@ public class ClaimService {
     private ClaimRepository claimRepository;
 
     @Autowired
-    private HrService hrService;
+    private HrRepository hrRepository;
+
+    @Autowired
+    private HrWorkloadIndex hrWorkloadIndex;
+
+    @Autowired
+    private ClaimAutomationService claimAutomationService;
+
+    @Autowired
+    private DuplicateClaimIndex duplicateClaimIndex;
+
+    @Autowired
+    private CoverageLedgerService coverageLedgerService;
+
+    @Autowired
+    private ClaimSlaService claimSlaService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Value("${insurai.claims.duplicates.reject-same-documents:true}")
+    private boolean rejectDuplicateDocuments;
+
+    @Value("${insurai.claims.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${insurai.claims.page.max-size:200}")
+    private int maxPageSize;
+
+    @Value("${insurai.claims.bulk.chunk-size:500}")
+    private int bulkChunkSize;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
     /**
-     * Submit a new claim with automatic HR assignment
+     * Submit a new claim: checked for duplicates, then decided by the automation rules if
+     * one matches, otherwise assigned to the least loaded HR. Refused if, with the employee's
+     * other pending and approved claims on the policy, it would exceed the coverage.
+     * A claim left pending gets a decision deadline from its policy type.
      */
     public Claim submitClaim(Claim claim) throws Exception {
         // Validate claim amount against policy coverage
@@ -30,7 +87,7 @@ public class ClaimService {
             throw new Exception("Claim amount exceeds policy coverage!");
         }
 
-        claim.setStatus("Pending");
+        claim.setStatus(ClaimStatus.PENDING);
         claim.setCreatedAt(LocalDateTime.now());
         claim.setUpdatedAt(LocalDateTime.now());
 
@@ -38,23 +95,103 @@ public class ClaimService {
             claim.setClaimDate(LocalDateTime.now());
         }
 
+        // ---------------- Duplicate detection ----------------
+        // The same documents again are refused (if configured); a near match is kept but flagged for the HR
+        DuplicateClaimIndex.Match duplicate = duplicateClaimIndex.findDuplicate(claim);
+        if (duplicate != null) {
+            if (duplicate.sameDocuments() && rejectDuplicateDocuments) {
+                throw new Exception("The same documents were already submitted with claim #" + duplicate.claimId());
+            }
+            claim.setDuplicateOfClaimId(duplicate.claimId());
+        }
+
+        // ---------------- Auto-adjudication ----------------
+        // Routine claims are decided by rule right away and never enter an HR queue; suspected duplicates always do
+        boolean decided = false;
+        if (duplicate == null) {
+            ClaimAutomationService.Decision decision = claimAutomationService.evaluate(ClaimFacts.of(claim));
+            if (decision != null) {
+                claim.setStatus(decision.status());
+                claim.setRemarks(decision.remarks());
+                decided = true;
+            }
+        }
+
+        // ---------------- Cumulative coverage ----------------
+        // Lock-free look at the ledger first, so a claim that cannot fit is turned away before any write
+        Long employeeId = claim.getEmployee().getId();
+        Policy policy = claim.getPolicy();
+        if (claim.getStatus() != ClaimStatus.REJECTED
+                && CoverageLedgerService.money(claim.getAmount()).compareTo(coverageLedgerService.remaining(employeeId, policy)) > 0) {
+            throw coverageExceeded(employeeId, policy);
+        }
+
         // ---------------- Automatic HR assignment ----------------
-        List<Hr> activeHrs = hrService.getAllActiveHrs();
-        if (!activeHrs.isEmpty()) {
-            Hr selectedHr = activeHrs.stream()
-                    .min(Comparator.comparingInt(hr -> getPendingClaimCount(hr)))
-                    .orElse(null);
-            claim.setAssignedHr(selectedHr);
+        // Least pending claims wins; the index counts the claim as soon as it is handed out
+        Long hrId = decided ? null : hrWorkloadIndex.assignLeastLoaded();
+        if (hrId != null) {
+            claim.setAssignedHr(hrRepository.getReferenceById(hrId));
+        }
+
+        // ---------------- Decision deadline ----------------
+        if (claim.getStatus() == ClaimStatus.PENDING) {
+            claim.setSlaDeadline(claimSlaService.deadlineFor(policy, claim.getCreatedAt()));
         }
 
-        return claimRepository.save(claim);
+        // The ledger charge and the insert commit together; the charge is what finally decides
+        Claim saved;
+        try {
+            saved = new TransactionTemplate(transactionManager).execute(tx -> {
+                if (!coverageLedgerService.charge(employeeId, policy.getId(), claim.getStatus(),
+                        claim.getAmount(), policy.getCoverageAmount())) {
+                    tx.setRollbackOnly();
+                    return null;
+                }
+                Claim inserted = claimRepository.save(claim);
+                outboxService.record("claim.submitted", OutboxService.CLAIM, inserted.getId(), documentsEvent(inserted));
+                return inserted;
+            });
+        } catch (RuntimeException e) {
+            hrWorkloadIndex.release(hrId);
+            throw e;
+        }
+        if (saved == null) {
+            hrWorkloadIndex.release(hrId);
+            throw coverageExceeded(employeeId, policy);
+        }
+        claimSlaService.register(saved);
+        return indexed(saved);
     }
 
-    /**
-     * Get pending claim count for a specific HR
-     */
-    private int getPendingClaimCount(Hr hr) {
-        return claimRepository.countByAssignedHrAndStatus(hr, "Pending");
+    private Exception coverageExceeded(Long employeeId, Policy policy) {
+        return new Exception("Claim amount exceeds the remaining coverage on this policy ("
+                + coverageLedgerService.remaining(employeeId, policy) + " left)");
+    }
+
+    private Claim indexed(Claim saved) {
+        duplicateClaimIndex.add(saved);
+        return saved;
+    }
+
+    // Outbox payload describing a claim as it now stands
+    private static Map<String, Object> claimEvent(Claim claim) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("claimId", claim.getId());
+        event.put("employeeId", claim.getEmployee() != null ? claim.getEmployee().getId() : null);
+        event.put("policyId", claim.getPolicy() != null ? claim.getPolicy().getId() : null);
+        event.put("amount", claim.getAmount());
+        event.put("status", claim.getStatus() != null ? claim.getStatus().getLabel() : null);
+        event.put("assignedHrId", claim.getAssignedHr() != null ? claim.getAssignedHr().getId() : null);
+        event.put("duplicateOfClaimId", claim.getDuplicateOfClaimId());
+        event.put("slaDeadline", claim.getSlaDeadline());
+        return event;
+    }
+
+    // Submitted or updated: also lists the documents, for the document pipeline
+    private static Map<String, Object> documentsEvent(Claim claim) {
+        Map<String, Object> event = claimEvent(claim);
+        event.put("documents", claim.getDocuments() != null ? claim.getDocuments() : List.of());
+        return event;
     }
 
     /**
@@ -78,50 +215,311 @@ public class ClaimService {
         return claimRepository.findAll();
     }
 
+    // -------------------- Claim listings as DTOs --------------------
+    // A page is two statements whatever its size: the projection, then one batched query for the documents
+    // and their processing state
+
+    private static final int DOCUMENT_BATCH_SIZE = 1000;
+
+    /**
+     * All claims, newest first (unpaged)
+     */
+    public List<ClaimDTO> getAllClaimDtos() {
+        return withDocuments(claimRepository.findAllDtos());
+    }
+
+    /**
+     * All claims of an employee, newest first (unpaged)
+     */
+    public List<ClaimDTO> getClaimDtosByEmployee(Long employeeId) {
+        return withDocuments(claimRepository.findDtosByEmployeeId(employeeId));
+    }
+
+    /**
+     * All claims assigned to an HR, newest first (unpaged)
+     */
+    public List<ClaimDTO> getClaimDtosByAssignedHr(Long hrId) {
+        return withDocuments(claimRepository.findDtosByAssignedHrId(hrId));
+    }
+
+    /**
+     * One claim, if it is assigned to this HR: for a claim the inbox stream reports as newly assigned
+     */
+    public Optional<ClaimDTO> getClaimDtoForAssignedHr(Long claimId, Long hrId) {
+        return claimRepository.findDtoByIdAndAssignedHrId(claimId, hrId)
+                .map(claim -> withDocuments(List.of(claim)).get(0));
+    }
+
+    private List<ClaimDTO> withDocuments(List<ClaimDTO> claims) {
+        if (claims.isEmpty()) {
+            return claims;
+        }
+        Map<Long, List<ClaimDocumentState>> documents = new HashMap<>();
+        List<Long> ids = claims.stream().map(ClaimDTO::getId).toList();
+        // Chunked so an unpaged listing does not build one enormous IN list
+        for (int from = 0; from < ids.size(); from += DOCUMENT_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + DOCUMENT_BATCH_SIZE, ids.size()));
+            for (Object[] row : claimRepository.findDocumentStatesByClaimIds(batch)) {
+                String path = (String) row[1];
+                ClaimDocumentState state = row[2] == null
+                        ? ClaimDocumentState.pending(path)
+                        : new ClaimDocumentState(path, ((DocumentProcessing.Status) row[2]).name(), (String) row[3],
+                                (Long) row[4], (Integer) row[5], row[6] == null ? null : previewUrl((Long) row[0], path),
+                                (String) row[7]);
+                documents.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add(state);
+            }
+        }
+        for (ClaimDTO claim : claims) {
+            List<ClaimDocumentState> states = documents.getOrDefault(claim.getId(), List.of());
+            claim.setDocuments(states.stream().map(ClaimDocumentState::path).toList());
+            claim.setDocumentStates(states);
+        }
+        return claims;
+    }
+
+    // Previews are read through the claim, like the documents: /uploads/<name> -> /claims/{id}/documents/<name>/preview
+    private static String previewUrl(Long claimId, String path) {
+        return "/claims/" + claimId + "/documents/" + path.substring(path.lastIndexOf('/') + 1) + "/preview";
+    }
+
+    // -------------------- Keyset-paginated listings --------------------
+
+    /**
+     * One page of all claims, newest first. cursor is the "next" value of the previous
+     * page (null for the first page); size is clamped to the configured maximum.
+     */
+    public CursorPage<ClaimDTO> getClaimsPage(String cursor, Integer size) {
+        int limit = pageSize(size);
+        KeysetCursor after = cursor != null ? KeysetCursor.decode(cursor) : null;
+        List<ClaimDTO> rows = after == null
+                ? claimRepository.findPage(Limit.of(limit + 1))
+                : claimRepository.findPageAfter(after.createdAt(), after.id(), Limit.of(limit + 1));
+        return toPage(withDocuments(rows), limit);
+    }
+
+    /**
+     * One page of an employee's claims, newest first
+     */
+    public CursorPage<ClaimDTO> getClaimsPageByEmployee(Long employeeId, String cursor, Integer size) {
+        int limit = pageSize(size);
+        KeysetCursor after = cursor != null ? KeysetCursor.decode(cursor) : null;
+        List<ClaimDTO> rows = after == null
+                ? claimRepository.findPageByEmployeeId(employeeId, Limit.of(limit + 1))
+                : claimRepository.findPageByEmployeeIdAfter(employeeId, after.createdAt(), after.id(), Limit.of(limit + 1));
+        return toPage(withDocuments(rows), limit);
+    }
+
+    /**
+     * One page of the claims assigned to an HR, newest first
+     */
+    public CursorPage<ClaimDTO> getClaimsPageByAssignedHr(Long hrId, String cursor, Integer size) {
+        int limit = pageSize(size);
+        KeysetCursor after = cursor != null ? KeysetCursor.decode(cursor) : null;
+        List<ClaimDTO> rows = after == null
+                ? claimRepository.findPageByAssignedHrId(hrId, Limit.of(limit + 1))
+                : claimRepository.findPageByAssignedHrIdAfter(hrId, after.createdAt(), after.id(), Limit.of(limit + 1));
+        return toPage(withDocuments(rows), limit);
+    }
+
+    private int pageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return Math.min(defaultPageSize, maxPageSize);
+        }
+        return Math.min(requested, maxPageSize);
+    }
+
+    // rows holds up to limit + 1 claims; the extra one only tells us another page exists
+    private static CursorPage<ClaimDTO> toPage(List<ClaimDTO> rows, int limit) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<ClaimDTO> items = rows.subList(0, limit);
+        ClaimDTO last = items.get(limit - 1);
+        return new CursorPage<>(items, new KeysetCursor(last.getCreatedAt(), last.getId()).encode());
+    }
+
     /**
      * Approve a claim by ID
      */
     public Claim approveClaim(Long claimId, String remarks) throws Exception {
-        Claim claim = claimRepository.findById(claimId)
-                .orElseThrow(() -> new Exception("Claim not found"));
-
-        claim.setStatus("Approved");
-        claim.setRemarks(remarks);
-        claim.setUpdatedAt(LocalDateTime.now());
-        return claimRepository.save(claim);
+        return transition(claimId, ClaimStatus.APPROVED, remarks);
     }
 
     /**
      * Reject a claim by ID
      */
     public Claim rejectClaim(Long claimId, String remarks) throws Exception {
+        return transition(claimId, ClaimStatus.REJECTED, remarks);
+    }
+
+    /**
+     * Move a claim to target if the transition table allows it from the claim's current status.
+     * The check and the write are one conditional UPDATE, so when several reviewers (or a rule)
+     * act on the same claim at once exactly one succeeds; the others get an exception naming the
+     * status the winner left behind.
+     */
+    public Claim transition(Long claimId, ClaimStatus target, String remarks) throws Exception {
+        // The claim's coverage moves in the same transaction (pending reservation -> approved, or released)
+        Set<ClaimStatus> sources = ClaimStatus.sourcesOf(target);
+        Claim claim = new TransactionTemplate(transactionManager).execute(tx -> {
+            if (sources.isEmpty()
+                    || claimRepository.transition(claimId, sources, target, remarks, LocalDateTime.now()) == 0) {
+                return null;
+            }
+            // Every allowed move has one source, so that is the status the claim left
+            ClaimStatus from = sources.iterator().next();
+            Claim decided = claimRepository.findById(claimId).orElseThrow();
+            coverageLedgerService.move(decided.getEmployee().getId(), decided.getPolicy().getId(),
+                    decided.getAmount(), from, target);
+            Map<String, Object> event = claimEvent(decided);
+            event.put("previousStatus", from.getLabel());
+            event.put("remarks", remarks);
+            outboxService.record("claim.status-changed", OutboxService.CLAIM, claimId, event);
+            return decided;
+        });
+        if (claim == null) {
+            ClaimStatus current = claimRepository.findStatusById(claimId)
+                    .orElseThrow(() -> new Exception("Claim not found"));
+            throw new Exception("Claim is already " + current.getLabel() + " and cannot be " + target.getLabel());
+        }
+
+        // Only the winning transition leaves Pending, so the HR's queue shrinks exactly once
+        if (target != ClaimStatus.PENDING) {
+            claimSlaService.cancel(claimId);
+            if (claim.getAssignedHr() != null) {
+                hrWorkloadIndex.release(claim.getAssignedHr().getId());
+            }
+        }
+        return claim;
+    }
+
+    /**
+     * Move a claim to another HR. Only the HR's queue changes; status and remarks are kept.
+     */
+    public Claim reassignClaim(Long claimId, Long hrId) throws Exception {
         Claim claim = claimRepository.findById(claimId)
                 .orElseThrow(() -> new Exception("Claim not found"));
+        Hr hr = hrRepository.findById(hrId)
+                .orElseThrow(() -> new Exception("HR not found"));
 
-        claim.setStatus("Rejected");
-        claim.setRemarks(remarks);
+        Long previousHrId = claim.getAssignedHr() != null ? claim.getAssignedHr().getId() : null;
+        claim.setAssignedHr(hr);
         claim.setUpdatedAt(LocalDateTime.now());
-        return claimRepository.save(claim);
+        Claim saved = new TransactionTemplate(transactionManager).execute(tx -> {
+            Claim reassigned = claimRepository.save(claim);
+            Map<String, Object> event = claimEvent(reassigned);
+            event.put("previousHrId", previousHrId);
+            outboxService.record("claim.reassigned", OutboxService.CLAIM, claimId, event);
+            return reassigned;
+        });
+        if (saved.getStatus() == ClaimStatus.PENDING) {
+            hrWorkloadIndex.reassign(previousHrId, hrId);
+        }
+        return saved;
+    }
+
+    // -------------------- Bulk decisions --------------------
+
+    /**
+     * Approve or reject many claims for one HR. Ids are handled in chunks, each chunk in its own
+     * transaction with one conditional UPDATE and one read-back SELECT, so 10k claims cost a
+     * few dozen statements instead of 10k load-and-save round trips. Only claims that are still
+     * pending and assigned to hrId change; every other id gets an outcome saying why not.
+     */
+    public BulkDecisionResult decideClaims(Long hrId, List<Long> claimIds, ClaimStatus status, String remarks) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(claimIds));
+        Map<Long, BulkDecisionResult.Outcome> outcomes = new HashMap<>();
+        List<Long> decidedIds = new ArrayList<>();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        for (int from = 0; from < ids.size(); from += bulkChunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + bulkChunkSize, ids.size()));
+            // Truncated to what a DATETIME(6) column stores, so the read-back can match it exactly
+            LocalDateTime decidedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+            int updated = transaction.execute(tx -> {
+                int count = claimRepository.decidePending(chunk, hrId, ClaimStatus.PENDING, status, remarks, decidedAt);
+                List<CoverageLedgerService.ClaimAmount> decided = new ArrayList<>(count);
+                List<Long> chunkDecided = new ArrayList<>(count);
+                for (Object[] row : claimRepository.findDecisionStateByIds(chunk)) {
+                    BulkDecisionResult.Outcome outcome = classify(row, hrId, status, decidedAt);
+                    outcomes.put((Long) row[0], outcome);
+                    if (outcome == BulkDecisionResult.Outcome.UPDATED) {
+                        chunkDecided.add((Long) row[0]);
+                        decided.add(new CoverageLedgerService.ClaimAmount((Long) row[4], (Long) row[5], (Double) row[6]));
+                    }
+                }
+                coverageLedgerService.moveAll(decided, ClaimStatus.PENDING, status);
+                if (!chunkDecided.isEmpty()) {
+                    outboxService.record("claims.decided", OutboxService.CLAIM, null,
+                            decisionEvent(status, remarks, "bulk", hrId, Map.of(hrId, chunkDecided)));
+                }
+                decidedIds.addAll(chunkDecided);
+                return count;
+            });
+            hrWorkloadIndex.release(hrId, updated);
+        }
+        claimSlaService.cancelAll(decidedIds);
+
+        List<BulkDecisionResult.Item> results = new ArrayList<>(ids.size());
+        int updated = 0;
+        for (Long id : ids) {
+            BulkDecisionResult.Outcome outcome = outcomes.getOrDefault(id, BulkDecisionResult.Outcome.NOT_FOUND);
+            if (outcome == BulkDecisionResult.Outcome.UPDATED) {
+                updated++;
+            }
+            results.add(new BulkDecisionResult.Item(id, outcome));
+        }
+        return new BulkDecisionResult(status, ids.size(), updated, results);
+    }
+
+    // Outbox payload for many claims decided at once: one event per chunk instead of one per claim.
+    // claimIdsByHr groups them by the HR they were assigned to (unassigned claims are left out of it)
+    static Map<String, Object> decisionEvent(ClaimStatus status, String remarks, String source, Object decidedBy,
+                                             Map<Long, List<Long>> claimIdsByHr) {
+        List<Long> claimIds = new ArrayList<>();
+        claimIdsByHr.values().forEach(claimIds::addAll);
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("status", status.getLabel());
+        event.put("remarks", remarks);
+        event.put("source", source);
+        event.put("decidedBy", decidedBy);
+        event.put("claimIds", claimIds);
+        Map<Long, List<Long>> assigned = new LinkedHashMap<>(claimIdsByHr);
+        assigned.remove(null);
+        event.put("claimIdsByHr", assigned);
+        return event;
+    }
+
+    // row is [id, status, assignedHrId, updatedAt, ...] as read after this chunk's UPDATE
+    private static BulkDecisionResult.Outcome classify(Object[] row, Long hrId, ClaimStatus status, LocalDateTime decidedAt) {
+        if (!hrId.equals(row[2])) {
+            return BulkDecisionResult.Outcome.NOT_ASSIGNED;
+        }
+        if (status == row[1] && decidedAt.equals(row[3])) {
+            return BulkDecisionResult.Outcome.UPDATED;
+        }
+        return BulkDecisionResult.Outcome.ALREADY_DECIDED;
     }
 
     /**
      * Get claims by status
      */
-    public List<Claim> getClaimsByStatus(String status) {
+    public List<Claim> getClaimsByStatus(ClaimStatus status) {
         return claimRepository.findByStatus(status);
     }
 
     /**
      * Get claims by employee and status
      */
-    public List<Claim> getClaimsByEmployeeAndStatus(Employee employee, String status) {
+    public List<Claim> getClaimsByEmployeeAndStatus(Employee employee, ClaimStatus status) {
         return claimRepository.findByEmployeeAndStatus(employee, status);
     }
 
     /**
      * Get claims by employee ID and status
      */
-    public List<Claim> getClaimsByEmployeeIdAndStatus(String employeeId, String status) {
+    public List<Claim> getClaimsByEmployeeIdAndStatus(String employeeId, ClaimStatus status) {
         return claimRepository.findByEmployee_EmployeeIdAndStatus(employeeId, status);
     }
 
@@ -148,12 +546,30 @@ public class ClaimService {
         }
 
         claim.setUpdatedAt(LocalDateTime.now());
-        return claimRepository.save(claim);
+
+        // A changed amount or policy moves the claim's coverage; an increase must still fit
+        Long employeeId = claim.getEmployee().getId();
+        Policy policy = claim.getPolicy();
+        Claim saved = new TransactionTemplate(transactionManager).execute(tx -> {
+            if (!coverageLedgerService.rebook(employeeId, claim.getStatus(), claim.getPersistedPolicyId(),
+                    claim.getPersistedAmount(), policy.getId(), claim.getAmount(), policy.getCoverageAmount())) {
+                tx.setRollbackOnly();
+                return null;
+            }
+            Claim updated = claimRepository.save(claim);
+            outboxService.record("claim.updated", OutboxService.CLAIM, updated.getId(), documentsEvent(updated));
+            return updated;
+        });
+        if (saved == null) {
+            throw coverageExceeded(employeeId, policy);
+        }
+        return indexed(saved);
     }
 
     /**
      * -------------------- New: Admin support --------------------
-     * Get all claims with full details for Admin dashboard
+     * Get all claims with full details for Admin dashboard.
+     * Unbounded; listing endpoints use {@link #getClaimsPage} unless unpaged=true is asked for.
      */
     public List<Claim> getAllClaimsForAdmin() {
         // Simply returns all claims from the repository
@@ -0,0 +1,360 @@
+package com.insurai.insurai_backend.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.insurai.insurai_backend.model.Claim;
+import com.insurai.insurai_backend.model.ClaimSlaBreachedEvent;
+import com.insurai.insurai_backend.model.ClaimStatus;
+import com.insurai.insurai_backend.model.Policy;
+import com.insurai.insurai_backend.repository.ClaimRepository;
+import com.insurai.insurai_backend.repository.HrRepository;
+import com.insurai.insurai_backend.util.TimingWheel;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Decision deadlines for pending claims, tracked without polling the claims table.
+ *
+ * A submitted claim gets a deadline from its policy type (insurai.sla.deadlines, falling
+ * back to default-deadline), stored on the claim and registered in an in-memory
+ * {@link TimingWheel}; deciding the claim cancels the timer. When a timer fires and the claim
+ * is still pending it is escalated: its escalation level (its priority) goes up, it moves to
+ * the least loaded other HR (if reassign is on), a claim.escalated outbox event carrying a
+ * {@link ClaimSlaBreachedEvent} is recorded with the change, and it gets a new deadline re-escalate-after later, up to max-escalations.
+ *
+ * On startup the wheel is filled from the pending claims' deadlines, walked in keyset pages
+ * over the (status, slaDeadline) index. At most max-timers are held; deadlines that do not
+ * fit stay in the database and are paged in as the wheel drains.
+ */
+@Service
+public class ClaimSlaService implements MeterBinder {
+
+    // Keyset start for the recovery walk: before any deadline
+    private static final LocalDateTime BEFORE_ANY = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    // A failed escalation is tried again this much later
+    private static final Duration RETRY_AFTER = Duration.ofMinutes(1);
+
+    private final ClaimRepository claimRepository;
+    private final HrRepository hrRepository;
+    private final HrWorkloadIndex hrWorkloadIndex;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transaction;
+    private final boolean enabled;
+    private final Duration defaultDeadline;
+    private final Map<String, Duration> deadlinesByType;
+    private final Duration reEscalateAfter;
+    private final int maxEscalations;
+    private final boolean reassign;
+    private final int recoveryPageSize;
+
+    // Guarded by wheel, as is the rest of the state below
+    private final TimingWheel wheel;
+    private boolean recovered;
+    // Keyset position (deadline, id) from which pending claims may be missing from the wheel; null if none are
+    private LocalDateTime spilledFrom;
+    private long spilledAfterId;
+
+    private final LongAdder escalations = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public ClaimSlaService(ClaimRepository claimRepository,
+                           HrRepository hrRepository,
+                           HrWorkloadIndex hrWorkloadIndex,
+                           OutboxService outboxService,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${insurai.sla.enabled:true}") boolean enabled,
+                           @Value("${insurai.sla.default-deadline:72h}") String defaultDeadline,
+                           @Value("${insurai.sla.deadlines:}") String deadlines,
+                           @Value("${insurai.sla.re-escalate-after:24h}") String reEscalateAfter,
+                           @Value("${insurai.sla.max-escalations:3}") int maxEscalations,
+                           @Value("${insurai.sla.reassign:true}") boolean reassign,
+                           @Value("${insurai.sla.tick-ms:1000}") long tickMillis,
+                           @Value("${insurai.sla.max-timers:1000000}") int maxTimers,
+                           @Value("${insurai.sla.recovery-page-size:10000}") int recoveryPageSize) {
+        this.claimRepository = claimRepository;
+        this.hrRepository = hrRepository;
+        this.hrWorkloadIndex = hrWorkloadIndex;
+        this.outboxService = outboxService;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.defaultDeadline = DurationStyle.detectAndParse(defaultDeadline);
+        this.deadlinesByType = parseDeadlines(deadlines);
+        this.reEscalateAfter = DurationStyle.detectAndParse(reEscalateAfter);
+        this.maxEscalations = maxEscalations;
+        this.reassign = reassign;
+        this.recoveryPageSize = recoveryPageSize;
+        // 256 slots x 4 levels reach 2^32 ticks ahead, far beyond any decision deadline
+        this.wheel = new TimingWheel(tickMillis, 8, 4, maxTimers, System.currentTimeMillis());
+    }
+
+    // "Health=72h, Accident=2d"; policy types match case-insensitively
+    private static Map<String, Duration> parseDeadlines(String deadlines) {
+        Map<String, Duration> byType = new HashMap<>();
+        for (String entry : deadlines.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("SLA deadline must look like PolicyType=72h: " + entry.trim());
+            }
+            byType.put(entry.substring(0, separator).trim().toLowerCase(Locale.ROOT),
+                    DurationStyle.detectAndParse(entry.substring(separator + 1).trim()));
+        }
+        return byType;
+    }
+
+    // -------------------- Registration --------------------
+
+    /**
+     * When a claim on this policy submitted at submittedAt must be decided; null when SLAs are off
+     */
+    public LocalDateTime deadlineFor(Policy policy, LocalDateTime submittedAt) {
+        if (!enabled) {
+            return null;
+        }
+        String type = policy.getPolicyType() != null ? policy.getPolicyType().toLowerCase(Locale.ROOT) : "";
+        return submittedAt.plus(deadlinesByType.getOrDefault(type, defaultDeadline));
+    }
+
+    /**
+     * Start the timer of a saved claim that is pending and has a deadline
+     */
+    public void register(Claim claim) {
+        if (enabled && claim.getId() != null && claim.getStatus() == ClaimStatus.PENDING && claim.getSlaDeadline() != null) {
+            schedule(claim.getId(), claim.getSlaDeadline());
+        }
+    }
+
+    /**
+     * The claim was decided; its deadline no longer matters
+     */
+    public void cancel(Long claimId) {
+        synchronized (wheel) {
+            wheel.cancel(claimId);
+        }
+    }
+
+    public void cancelAll(Collection<Long> claimIds) {
+        if (claimIds.isEmpty()) {
+            return;
+        }
+        synchronized (wheel) {
+            claimIds.forEach(wheel::cancel);
+        }
+    }
+
+    public int timers() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    private void schedule(long claimId, LocalDateTime deadline) {
+        synchronized (wheel) {
+            if (!wheel.schedule(claimId, millis(deadline))) {
+                spilled.increment();
+                // Paged back in from here once there is room
+                if (spilledFrom == null || deadline.isBefore(spilledFrom)
+                        || (deadline.equals(spilledFrom) && claimId <= spilledAfterId)) {
+                    spilledFrom = deadline;
+                    spilledAfterId = claimId - 1;
+                }
+            }
+        }
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // -------------------- Escalation --------------------
+
+    /**
+     * Fire the timers that came due and escalate their claims. The wheel only hands out claims
+     * whose deadline passed, so nothing here looks at claims that are on time.
+     */
+    @Scheduled(fixedDelayString = "${insurai.sla.check-interval-ms:1000}")
+    public void tick() {
+        tick(System.currentTimeMillis());
+    }
+
+    void tick(long nowMillis) {
+        if (!enabled) {
+            return;
+        }
+        boolean needsRecovery;
+        synchronized (wheel) {
+            needsRecovery = !recovered;
+        }
+        if (needsRecovery) {
+            recover();
+        }
+        List<Long> due = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advance(nowMillis, due::add);
+        }
+        for (Long claimId : due) {
+            escalate(claimId);
+        }
+        refill();
+    }
+
+    private void escalate(Long claimId) {
+        LocalDateTime now = LocalDateTime.now();
+        Long[] newHrId = {null};
+        ClaimSlaBreachedEvent breach;
+        try {
+            breach = transaction.execute(tx -> {
+                Claim claim = claimRepository.findById(claimId).orElse(null);
+                if (claim == null || claim.getStatus() != ClaimStatus.PENDING || claim.getSlaDeadline() == null) {
+                    return null;
+                }
+                if (claim.getSlaDeadline().isAfter(now)) {
+                    // The deadline was moved after this timer was set
+                    schedule(claimId, claim.getSlaDeadline());
+                    return null;
+                }
+                Long previousHrId = claim.getAssignedHr() != null ? claim.getAssignedHr().getId() : null;
+                newHrId[0] = reassign ? hrWorkloadIndex.assignLeastLoadedExcept(previousHrId) : null;
+                if (newHrId[0] != null) {
+                    claim.setAssignedHr(hrRepository.getReferenceById(newHrId[0]));
+                }
+                int level = claim.getEscalationLevel() + 1;
+                LocalDateTime deadline = claim.getSlaDeadline();
+                LocalDateTime next = level < maxEscalations ? now.plus(reEscalateAfter) : null;
+                claim.setEscalationLevel(level);
+                claim.setSlaDeadline(next);
+                claim.setUpdatedAt(now);
+                // Version-checked: a reviewer deciding the claim meanwhile makes this fail instead of undoing it
+                claimRepository.saveAndFlush(claim);
+                ClaimSlaBreachedEvent event = new ClaimSlaBreachedEvent(claimId, level, deadline, previousHrId,
+                        newHrId[0] != null ? newHrId[0] : previousHrId, next);
+                outboxService.record("claim.escalated", OutboxService.CLAIM, claimId, event);
+                return event;
+            });
+        } catch (RuntimeException e) {
+            // Decided or edited concurrently, or the database is unavailable: look again shortly
+            hrWorkloadIndex.release(newHrId[0]);
+            failures.increment();
+            schedule(claimId, now.plus(RETRY_AFTER));
+            return;
+        }
+        if (breach == null) {
+            return;
+        }
+        if (newHrId[0] != null) {
+            // The new HR was counted when picked; the claim left the previous HR's queue
+            hrWorkloadIndex.release(breach.previousHrId());
+        }
+        escalations.increment();
+        if (breach.nextDeadline() != null) {
+            schedule(claimId, breach.nextDeadline());
+        }
+    }
+
+    // -------------------- Recovery --------------------
+
+    /**
+     * Refill the wheel from the database: every pending claim with a deadline, earliest first
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        synchronized (wheel) {
+            wheel.clear();
+            spilledFrom = BEFORE_ANY;
+            spilledAfterId = 0;
+            recovered = true;
+        }
+        refill();
+    }
+
+    // Page in spilled deadlines while the wheel has room; skipped until a useful amount is free
+    private void refill() {
+        while (true) {
+            LocalDateTime from;
+            long afterId;
+            int limit;
+            synchronized (wheel) {
+                int room = wheel.maxTimers() - wheel.size();
+                if (spilledFrom == null || room < Math.min(recoveryPageSize, Math.max(1, wheel.maxTimers() / 2))) {
+                    return;
+                }
+                from = spilledFrom;
+                afterId = spilledAfterId;
+                limit = Math.min(recoveryPageSize, room);
+            }
+
+            List<Object[]> rows = claimRepository.findSlaDeadlinesAfter(ClaimStatus.PENDING, from, afterId, Limit.of(limit));
+
+            synchronized (wheel) {
+                LocalDateTime lastDeadline = from;
+                long lastId = afterId;
+                boolean full = false;
+                for (Object[] row : rows) {
+                    LocalDateTime deadline = (LocalDateTime) row[1];
+                    if (!wheel.schedule((Long) row[0], millis(deadline))) {
+                        full = true;
+                        break;
+                    }
+                    lastDeadline = deadline;
+                    lastId = (Long) row[0];
+                }
+                // A claim that spilled meanwhile may sit before this page; then the cursor stays where it is
+                if (from.equals(spilledFrom) && afterId == spilledAfterId) {
+                    if (!full && rows.size() < limit) {
+                        spilledFrom = null;
+                    } else {
+                        spilledFrom = lastDeadline;
+                        spilledAfterId = lastId;
+                    }
+                }
+                if (full || rows.size() < limit) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // -------------------- Metrics --------------------
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("insurai.sla.timers", this, ClaimSlaService::timers)
+                .description("Pending claims with a decision deadline held in the timing wheel")
+                .register(registry);
+        FunctionCounter.builder("insurai.sla.escalations", escalations, LongAdder::sum)
+                .description("Pending claims escalated for missing their decision deadline")
+                .register(registry);
+        FunctionCounter.builder("insurai.sla.spilled", spilled, LongAdder::sum)
+                .description("Deadlines left in the database because the timing wheel was full")
+                .register(registry);
+        FunctionCounter.builder("insurai.sla.failures", failures, LongAdder::sum)
+                .description("Escalations that failed and were retried")
+                .register(registry);
+    }
+}
@@ -0,0 +1,336 @@
+package com.insurai.insurai_backend.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.insurai.insurai_backend.model.ClaimStatus;
+import com.insurai.insurai_backend.model.CoverageLedgerEntry;
+import com.insurai.insurai_backend.model.CoverageSummary;
+import com.insurai.insurai_backend.model.Policy;
+import com.insurai.insurai_backend.repository.ClaimRepository;
+import com.insurai.insurai_backend.repository.CoverageLedgerRepository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Cumulative coverage per (employee, policy), so the coverage check on a new claim is one
+ * row instead of a sum over the employee's claims.
+ *
+ * The coverage_ledger table is the authority: a pending claim reserves its amount, an
+ * approved claim consumes it, a rejected claim gives it back. Charges are conditional
+ * UPDATEs that only succeed while the total stays within the policy's coverage, and run
+ * in the same transaction as the claim write they belong to.
+ *
+ * Committed totals are mirrored in a ConcurrentHashMap for lock-free reads (the
+ * remaining-coverage figure, and a pre-check that turns most over-limit claims away
+ * before any write). The mirror is only changed after the transaction commits. On
+ * startup the table is checked against one aggregate query over the claims, and the
+ * mirror loaded from it.
+ */
+@Service
+public class CoverageLedgerService implements MeterBinder {
+
+    public record ClaimAmount(Long employeeId, Long policyId, Double amount) {}
+
+    private record Account(long employeeId, long policyId) {}
+
+    private record Usage(BigDecimal reserved, BigDecimal approved) {
+        static final Usage NONE = new Usage(BigDecimal.ZERO.setScale(2), BigDecimal.ZERO.setScale(2));
+
+        BigDecimal used() {
+            return reserved.add(approved);
+        }
+
+        Usage plus(Usage other) {
+            return new Usage(reserved.add(other.reserved), approved.add(other.approved));
+        }
+    }
+
+    private static final List<ClaimStatus> COVERAGE_STATUSES = List.of(ClaimStatus.PENDING, ClaimStatus.APPROVED);
+
+    private final ClaimRepository claimRepository;
+    private final CoverageLedgerRepository ledgerRepository;
+    private final TransactionTemplate newTransaction;
+
+    private final ConcurrentHashMap<Account, Usage> committed = new ConcurrentHashMap<>();
+    // Accounts known to have a ledger row
+    private final Set<Account> opened = ConcurrentHashMap.newKeySet();
+    private final LongAdder refused = new LongAdder();
+
+    public CoverageLedgerService(ClaimRepository claimRepository,
+                                 CoverageLedgerRepository ledgerRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.claimRepository = claimRepository;
+        this.ledgerRepository = ledgerRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // -------------------- Reads (lock-free) --------------------
+
+    /**
+     * What a new claim on this policy may still ask for, from committed totals
+     */
+    public BigDecimal remaining(Long employeeId, Policy policy) {
+        BigDecimal left = money(policy.getCoverageAmount()).subtract(usage(employeeId, policy.getId()).used());
+        return left.signum() > 0 ? left : BigDecimal.ZERO.setScale(2);
+    }
+
+    public CoverageSummary summary(Long employeeId, Policy policy) {
+        Usage usage = usage(employeeId, policy.getId());
+        return new CoverageSummary(policy.getId(), policy.getPolicyName(), money(policy.getCoverageAmount()),
+                usage.reserved(), usage.approved(), remaining(employeeId, policy));
+    }
+
+    private Usage usage(Long employeeId, Long policyId) {
+        return committed.getOrDefault(new Account(employeeId, policyId), Usage.NONE);
+    }
+
+    // -------------------- Writes (in the caller's transaction) --------------------
+
+    /**
+     * Book a new claim in status against the coverage. Returns false, changing nothing, if
+     * it does not fit in what is left. Rejected claims use no coverage and always fit.
+     */
+    @Transactional
+    public boolean charge(Long employeeId, Long policyId, ClaimStatus status, Double amount, Double coverageAmount) {
+        if (!usesCoverage(status)) {
+            return true;
+        }
+        Usage delta = delta(status, money(amount));
+        BigDecimal limit = money(coverageAmount);
+        Account account = new Account(employeeId, policyId);
+        // Cheap refusal from the mirror; the conditional UPDATE below is the real check
+        if (usage(employeeId, policyId).used().add(delta.used()).compareTo(limit) > 0) {
+            refused.increment();
+            return false;
+        }
+        openAccount(account);
+        if (ledgerRepository.charge(employeeId, policyId, delta.reserved(), delta.approved(), limit) == 0) {
+            refused.increment();
+            return false;
+        }
+        afterCommit(account, delta);
+        return true;
+    }
+
+    /**
+     * A claim changed status (approved or rejected): move its amount between the buckets
+     */
+    @Transactional
+    public void move(Long employeeId, Long policyId, Double amount, ClaimStatus from, ClaimStatus to) {
+        BigDecimal value = money(amount);
+        Usage delta = negate(delta(from, value)).plus(delta(to, value));
+        if (delta.reserved().signum() == 0 && delta.approved().signum() == 0) {
+            return;
+        }
+        if (ledgerRepository.move(employeeId, policyId, delta.reserved(), delta.approved()) > 0) {
+            afterCommit(new Account(employeeId, policyId), delta);
+        }
+    }
+
+    /**
+     * A claim was edited: take its old amount off the old policy and charge the new amount to
+     * the new one. Returns false, changing nothing, if the new amount does not fit.
+     */
+    @Transactional
+    public boolean rebook(Long employeeId, ClaimStatus status, Long previousPolicyId, Double previousAmount,
+                          Long policyId, Double amount, Double coverageAmount) {
+        if (!usesCoverage(status)) {
+            return true;
+        }
+        if (previousPolicyId == null || previousAmount == null) {
+            return charge(employeeId, policyId, status, amount, coverageAmount);
+        }
+        if (!previousPolicyId.equals(policyId)) {
+            if (!charge(employeeId, policyId, status, amount, coverageAmount)) {
+                return false;
+            }
+            move(employeeId, previousPolicyId, previousAmount, status, ClaimStatus.REJECTED);
+            return true;
+        }
+        BigDecimal difference = money(amount).subtract(money(previousAmount));
+        if (difference.signum() > 0) {
+            return charge(employeeId, policyId, status, difference.doubleValue(), coverageAmount);
+        }
+        if (difference.signum() < 0) {
+            move(employeeId, policyId, difference.negate().doubleValue(), status, ClaimStatus.REJECTED);
+        }
+        return true;
+    }
+
+    /**
+     * Many claims were decided at once (bulk decision, rule sweep): one UPDATE per account
+     */
+    @Transactional
+    public void moveAll(Collection<ClaimAmount> claims, ClaimStatus from, ClaimStatus to) {
+        Map<Account, BigDecimal> totals = new HashMap<>();
+        for (ClaimAmount claim : claims) {
+            totals.merge(new Account(claim.employeeId(), claim.policyId()), money(claim.amount()), BigDecimal::add);
+        }
+        totals.forEach((account, total) -> move(account.employeeId(), account.policyId(), total.doubleValue(), from, to));
+    }
+
+    private void openAccount(Account account) {
+        if (opened.contains(account)) {
+            return;
+        }
+        // In its own transaction: a concurrent first claim may insert the same row, and losing
+        // that race must not poison the caller's transaction
+        try {
+            newTransaction.executeWithoutResult(tx ->
+                    ledgerRepository.save(new CoverageLedgerEntry(account.employeeId(), account.policyId())));
+        } catch (DataIntegrityViolationException alreadyOpened) {
+            // Someone else created it; charging it is all that is left to do
+        }
+        opened.add(account);
+    }
+
+    private void afterCommit(Account account, Usage delta) {
+        Runnable apply = () -> committed.merge(account, delta, Usage::plus);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    // -------------------- Rebuild --------------------
+
+    /**
+     * Check every account against the claims, correct the rows that disagree and reload the
+     * mirror. Runs before the application takes requests, but other instances may be charging
+     * meanwhile: missing rows are only inserted, rows that match are left alone, and a row that
+     * does not is recomputed and written while it is locked, so no charge on it is lost.
+     */
+    @PostConstruct
+    public synchronized void rebuild() {
+        Map<Account, Usage> fresh = new HashMap<>();
+        for (Object[] row : claimRepository.sumAmountsByEmployeePolicyAndStatus(COVERAGE_STATUSES)) {
+            Account account = new Account((Long) row[0], (Long) row[1]);
+            fresh.merge(account, delta((ClaimStatus) row[2], money(((Number) row[3]).doubleValue())), Usage::plus);
+        }
+        Map<Account, Usage> stored = storedUsage();
+
+        // First start, or rows left behind by writes that bypassed the ledger
+        opened.clear();
+        opened.addAll(stored.keySet());
+        Set<Account> suspect = new HashSet<>();
+        fresh.forEach((account, usage) -> {
+            if (!stored.containsKey(account)) {
+                openAccount(account);
+                suspect.add(account);
+            }
+        });
+        stored.forEach((account, usage) -> {
+            if (!same(usage, fresh.getOrDefault(account, Usage.NONE))) {
+                suspect.add(account);
+            }
+        });
+        // A charge that committed between the two reads looks like a mismatch too; the locked recount settles it
+        for (Account account : suspect) {
+            newTransaction.executeWithoutResult(tx -> ledgerRepository.lockAccount(account.employeeId(), account.policyId())
+                    .ifPresent(entry -> store(entry, countClaims(account))));
+        }
+
+        committed.clear();
+        storedUsage().forEach((account, usage) -> {
+            if (usage.used().signum() != 0) {
+                committed.put(account, usage);
+            }
+        });
+    }
+
+    private Map<Account, Usage> storedUsage() {
+        Map<Account, Usage> stored = new HashMap<>();
+        for (CoverageLedgerEntry entry : ledgerRepository.findAll()) {
+            stored.put(new Account(entry.getEmployeeId(), entry.getPolicyId()),
+                    new Usage(entry.getReserved().setScale(2), entry.getApproved().setScale(2)));
+        }
+        return stored;
+    }
+
+    // Read while the account's row is locked: every claim charged to it has committed
+    private Usage countClaims(Account account) {
+        Usage usage = Usage.NONE;
+        for (Object[] row : claimRepository.sumAmountsByStatus(account.employeeId(), account.policyId(), COVERAGE_STATUSES)) {
+            usage = usage.plus(delta((ClaimStatus) row[0], money(((Number) row[1]).doubleValue())));
+        }
+        return usage;
+    }
+
+    private void store(CoverageLedgerEntry entry, Usage usage) {
+        if (same(new Usage(entry.getReserved(), entry.getApproved()), usage)) {
+            return;
+        }
+        entry.setReserved(usage.reserved());
+        entry.setApproved(usage.approved());
+        ledgerRepository.save(entry);
+    }
+
+    private static boolean same(Usage a, Usage b) {
+        return a.reserved().compareTo(b.reserved()) == 0 && a.approved().compareTo(b.approved()) == 0;
+    }
+
+    // -------------------- Amounts --------------------
+
+    public static BigDecimal money(Double amount) {
+        return BigDecimal.valueOf(amount != null ? amount : 0).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static boolean usesCoverage(ClaimStatus status) {
+        return status == ClaimStatus.PENDING || status == ClaimStatus.APPROVED;
+    }
+
+    private static Usage delta(ClaimStatus status, BigDecimal amount) {
+        if (status == ClaimStatus.PENDING) {
+            return new Usage(amount, BigDecimal.ZERO);
+        }
+        if (status == ClaimStatus.APPROVED) {
+            return new Usage(BigDecimal.ZERO, amount);
+        }
+        return Usage.NONE;
+    }
+
+    private static Usage negate(Usage usage) {
+        return new Usage(usage.reserved().negate(), usage.approved().negate());
+    }
+
+    // -------------------- Metrics --------------------
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("insurai.coverage.accounts", committed, Map::size)
+                .description("(employee, policy) pairs with coverage in use")
+                .register(registry);
+        FunctionCounter.builder("insurai.coverage.refused", refused, LongAdder::sum)
+                .description("Claims refused because they exceed the remaining coverage")
+                .register(registry);
+    }
+}
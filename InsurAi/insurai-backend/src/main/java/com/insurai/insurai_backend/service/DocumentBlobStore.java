@@ -0,0 +1,446 @@
+package com.insurai.insurai_backend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.insurai.insurai_backend.model.DocumentBlob;
+import com.insurai.insurai_backend.model.DocumentReference;
+import com.insurai.insurai_backend.repository.DocumentBlobRepository;
+import com.insurai.insurai_backend.repository.DocumentReferenceRepository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Content-addressed store for claim documents: each distinct content is one file under
+ * blobs/, named by its SHA-256, however many claims it was uploaded with. The files fan out
+ * over two levels of directories named by the first two pairs of hex digits
+ * (blobs/3f/a2/3fa2...), so no directory grows past a few thousand entries even at millions of
+ * documents; {@link #fanOut} is the one place that layout is decided. Every upload still
+ * gets its own path (/uploads/&lt;uuid&gt;_&lt;name&gt;, as listed in Claim.documents), recorded as a
+ * DocumentReference to the blob; the blob counts its references.
+ *
+ * An upload is written to tmp/ while it is hashed, then either moved into place or, when the
+ * content is already stored, dropped. References whose path no claim lists once grace-hours
+ * have passed (the request failed, or the claim is gone) are released, and blobs left without
+ * references for grace-hours are deleted. The reference count and the file change together
+ * under a per-content lock, so a blob being deleted is never handed out again half way; the
+ * store assumes the uploads directory belongs to this instance.
+ *
+ * Previews (/uploads/previews/&lt;name&gt;) fan out the same way under previews/, by the SHA-256 of
+ * their name. Paths without a reference (uploads from before the store) are plain files under
+ * the uploads directory; {@link DocumentLayoutMigration} takes them in, and moves previews
+ * written before the fan-out into it.
+ */
+@Service
+public class DocumentBlobStore implements MeterBinder {
+
+    public static final String URL_PREFIX = "/uploads/";
+    public static final String PREVIEW_PREFIX = URL_PREFIX + "previews/";
+    private static final int LOCK_STRIPES = 64;
+
+    private final DocumentBlobRepository blobRepository;
+    private final DocumentReferenceRepository referenceRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Path root;
+    private final Path blobs;
+    private final Path tmp;
+    private final Path previews;
+    private final long graceHours;
+    private final int gcBatchSize;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private final LongAdder uploadedBytes = new LongAdder();
+    private final LongAdder deduplicatedBytes = new LongAdder();
+    // [blobs, bytes stored, bytes referenced], as of the last collection; read from the table on first use
+    private volatile long[] summary;
+
+    public DocumentBlobStore(DocumentBlobRepository blobRepository,
+                             DocumentReferenceRepository referenceRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${insurai.uploads.dir:C:/Users/Jeevan/Documents/InsurAi/insurai-backend/uploads/}") String uploadDir,
+                             @Value("${insurai.uploads.store.grace-hours:24}") long graceHours,
+                             @Value("${insurai.uploads.store.gc-batch-size:500}") int gcBatchSize) {
+        this.blobRepository = blobRepository;
+        this.referenceRepository = referenceRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.root = Paths.get(uploadDir);
+        this.blobs = root.resolve("blobs");
+        this.tmp = root.resolve("tmp");
+        this.previews = root.resolve("previews");
+        this.graceHours = graceHours;
+        this.gcBatchSize = gcBatchSize;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public Path root() {
+        return root;
+    }
+
+    /**
+     * A new file to write an upload into before {@link #add}
+     */
+    public Path tempFile() throws IOException {
+        Files.createDirectories(tmp);
+        return Files.createTempFile(tmp, "upload-", ".part");
+    }
+
+    /**
+     * Store a written and hashed upload under a new path; temp is moved or deleted. Returns
+     * the path, /uploads/&lt;uuid&gt;_&lt;filename&gt;.
+     */
+    public String add(String filename, Path temp, String sha256, long sizeBytes) throws IOException {
+        String path = URL_PREFIX + UUID.randomUUID() + "_" + filename;
+        Path blob = blobFile(sha256);
+        synchronized (lock(sha256)) {
+            boolean created;
+            try {
+                created = Boolean.TRUE.equals(transactionTemplate.execute(tx -> {
+                    referenceRepository.save(new DocumentReference(path, sha256));
+                    if (blobRepository.acquire(sha256) == 1) {
+                        return false;
+                    }
+                    blobRepository.save(new DocumentBlob(sha256, sizeBytes));
+                    return true;
+                }));
+            } catch (RuntimeException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            uploadedBytes.add(sizeBytes);
+            if (created || !Files.exists(blob)) {
+                Files.createDirectories(blob.getParent());
+                Files.move(temp, blob, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } else {
+                Files.deleteIfExists(temp);
+                deduplicatedBytes.add(sizeBytes);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Drop paths stored for a request that then failed
+     */
+    public void release(Collection<String> paths) {
+        for (String path : paths) {
+            referenceRepository.findByPath(path).ifPresent(this::release);
+        }
+    }
+
+    private void release(DocumentReference reference) {
+        synchronized (lock(reference.getSha256())) {
+            transactionTemplate.executeWithoutResult(tx -> {
+                if (referenceRepository.remove(reference.getId()) == 1) {
+                    blobRepository.release(reference.getSha256(), LocalDateTime.now());
+                }
+            });
+        }
+    }
+
+    /**
+     * A path's file and, when it is in the store, the SHA-256 of its content (else null)
+     */
+    public record Located(Path file, String sha256) {}
+
+    /**
+     * The file behind a path such as /uploads/&lt;uuid&gt;_scan.pdf
+     */
+    public Path resolve(String path) {
+        return locate(path).file();
+    }
+
+    public Located locate(String path) {
+        String preview = previewName(path);
+        if (preview != null) {
+            return new Located(findPreview(preview), null);
+        }
+        String sha256 = sha256(path);
+        return sha256 != null
+                ? new Located(findBlob(sha256), sha256)
+                : new Located(root.resolve(path.substring(URL_PREFIX.length())), null);
+    }
+
+    /**
+     * The file the store keeps behind a path, a blob or a preview, or null when it is not in the
+     * store (an older upload)
+     */
+    public Path resolveStored(String path) {
+        String preview = previewName(path);
+        if (preview != null) {
+            return findPreview(preview);
+        }
+        String sha256 = sha256(path);
+        return sha256 != null ? findBlob(sha256) : null;
+    }
+
+    // The file name of a preview path, or null for any other path
+    private static String previewName(String path) {
+        if (path == null || !path.startsWith(PREVIEW_PREFIX)) {
+            return null;
+        }
+        String name = path.substring(PREVIEW_PREFIX.length());
+        return name.isEmpty() || name.contains("/") || name.contains("..") ? null : name;
+    }
+
+    private String sha256(String path) {
+        if (path == null || !path.startsWith(URL_PREFIX) || path.contains("..")) {
+            throw new IllegalArgumentException("Not a stored document: " + path);
+        }
+        return referenceRepository.findByPath(path).map(DocumentReference::getSha256).orElse(null);
+    }
+
+    // Where the content goes: blobs/<first two hex digits>/<next two>/<sha256>
+    Path blobFile(String sha256) {
+        return fanOut(blobs, sha256).resolve(sha256);
+    }
+
+    // Where a preview goes: previews/<first two hex digits>/<next two>/<name>, by the SHA-256 of its name
+    Path previewFile(String name) {
+        String sha256 = HexFormat.of().formatHex(sha256Digest().digest(name.getBytes(StandardCharsets.UTF_8)));
+        return fanOut(previews, sha256).resolve(name);
+    }
+
+    private static Path fanOut(Path directory, String sha256) {
+        return directory.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4));
+    }
+
+    // Where the content is: in the fan-out, or directly under blobs/ while DocumentLayoutMigration has yet to move it
+    private Path findBlob(String sha256) {
+        Path file = blobFile(sha256);
+        if (!Files.exists(file)) {
+            Path flat = blobs.resolve(sha256);
+            if (Files.exists(flat)) {
+                return flat;
+            }
+        }
+        return file;
+    }
+
+    // Where a preview is: in the fan-out, or directly under previews/ while DocumentLayoutMigration has yet to move it
+    private Path findPreview(String name) {
+        Path file = previewFile(name);
+        if (!Files.exists(file)) {
+            Path flat = previews.resolve(name);
+            if (Files.exists(flat)) {
+                return flat;
+            }
+        }
+        return file;
+    }
+
+    private Object lock(String sha256) {
+        return locks[Math.floorMod(sha256.hashCode(), LOCK_STRIPES)];
+    }
+
+    // -------------------- Garbage collection --------------------
+
+    /**
+     * Release orphaned references, delete blobs unreferenced for grace-hours and abandoned
+     * temp files, then refresh the deduplication figures. A reference is checked against the
+     * claims until one is found listing it, then confirmed and left alone.
+     */
+    @Scheduled(fixedDelayString = "${insurai.uploads.store.gc-interval-ms:3600000}",
+            initialDelayString = "${insurai.uploads.store.gc-interval-ms:3600000}")
+    public void collect() throws IOException {
+        LocalDateTime before = LocalDateTime.now().minusHours(graceHours);
+        referenceRepository.confirmClaimed(before);
+        List<DocumentReference> orphans;
+        do {
+            orphans = referenceRepository.findOrphans(before, Limit.of(gcBatchSize));
+            orphans.forEach(this::release);
+        } while (orphans.size() == gcBatchSize);
+
+        List<String> unreferenced;
+        do {
+            unreferenced = blobRepository.findUnreferenced(before, Limit.of(gcBatchSize));
+            for (String sha256 : unreferenced) {
+                synchronized (lock(sha256)) {
+                    // Taken again since it was listed: kept
+                    if (blobRepository.deleteUnreferenced(sha256, before) == 1) {
+                        Files.deleteIfExists(blobFile(sha256));
+                        Files.deleteIfExists(blobs.resolve(sha256));
+                    }
+                }
+            }
+        } while (unreferenced.size() == gcBatchSize);
+
+        if (Files.isDirectory(tmp)) {
+            long cutoff = System.currentTimeMillis() - graceHours * 3_600_000;
+            try (DirectoryStream<Path> partials = Files.newDirectoryStream(tmp)) {
+                for (Path partial : partials) {
+                    if (Files.getLastModifiedTime(partial).toMillis() < cutoff) {
+                        Files.deleteIfExists(partial);
+                    }
+                }
+            }
+        }
+        refreshSummary();
+    }
+
+    // -------------------- Moving files from older layouts, see DocumentLayoutMigration --------------------
+
+    Path blobsDirectory() {
+        return blobs;
+    }
+
+    Path previewsDirectory() {
+        return previews;
+    }
+
+    /**
+     * Move a blob stored directly under blobs/, from before the fan-out, into its place. A rename,
+     * so the content is at one of the two places findBlob looks at any moment.
+     */
+    void moveIntoFanOut(String sha256) throws IOException {
+        Path flat = blobs.resolve(sha256);
+        Path file = blobFile(sha256);
+        synchronized (lock(sha256)) {
+            if (Files.exists(file)) {
+                // Uploaded again since, and stored in the fan-out then
+                Files.deleteIfExists(flat);
+                return;
+            }
+            Files.createDirectories(file.getParent());
+            Files.move(flat, file, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Move a preview written directly under previews/, from before the fan-out, into its place.
+     * A preview only depends on its document, so one written in the fan-out since is the same
+     * picture and the older copy is dropped.
+     */
+    void movePreviewIntoFanOut(String name) throws IOException {
+        Path flat = previews.resolve(name);
+        Path file = previewFile(name);
+        if (Files.exists(file)) {
+            Files.deleteIfExists(flat);
+            return;
+        }
+        Files.createDirectories(file.getParent());
+        Files.move(flat, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Take a document saved directly under the uploads directory, from before the store, into it
+     * under the path claims already list. The content is in place in blobs/ before the reference
+     * commits, and the old file goes only after, so the path resolves throughout. Safe to run
+     * again on a file a stopped run had taken in already.
+     */
+    void adopt(Path file) throws IOException {
+        String path = URL_PREFIX + file.getFileName();
+        if (referenceRepository.findByPath(path).isPresent()) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        MessageDigest digest = sha256Digest();
+        long size;
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            size = in.transferTo(OutputStream.nullOutputStream());
+        }
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        Path blob = blobFile(sha256);
+        synchronized (lock(sha256)) {
+            if (!Files.exists(findBlob(sha256))) {
+                Files.createDirectories(blob.getParent());
+                try {
+                    // Same directory tree, so usually the same file system: no copy
+                    Files.createLink(blob, file);
+                } catch (UnsupportedOperationException | IOException e) {
+                    Path temp = tempFile();
+                    Files.copy(file, temp, StandardCopyOption.REPLACE_EXISTING);
+                    Files.move(temp, blob, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            transactionTemplate.executeWithoutResult(tx -> {
+                referenceRepository.save(new DocumentReference(path, sha256));
+                if (blobRepository.acquire(sha256) == 0) {
+                    blobRepository.save(new DocumentBlob(sha256, size));
+                }
+            });
+        }
+        Files.delete(file);
+    }
+
+    private static MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    long[] refreshSummary() {
+        Object[] row = blobRepository.summarize().get(0);
+        long[] current = {((Number) row[0]).longValue(), ((Number) row[1]).longValue(), ((Number) row[2]).longValue()};
+        summary = current;
+        return current;
+    }
+
+    private long[] summary() {
+        long[] current = summary;
+        return current != null ? current : refreshSummary();
+    }
+
+    // Bytes the documents would take without deduplication, per byte actually stored
+    double dedupRatio() {
+        long[] current = summary();
+        return current[1] == 0 ? 1.0 : (double) current[2] / current[1];
+    }
+
+    long bytesSaved() {
+        long[] current = summary();
+        return current[2] - current[1];
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("insurai.uploads.store.blobs", this, store -> store.summary()[0])
+                .description("Distinct document contents stored")
+                .register(registry);
+        Gauge.builder("insurai.uploads.store.stored.bytes", this, store -> store.summary()[1])
+                .description("Bytes of document content on disk")
+                .register(registry);
+        Gauge.builder("insurai.uploads.store.dedup.ratio", this, DocumentBlobStore::dedupRatio)
+                .description("Bytes referenced by claim documents per byte stored")
+                .register(registry);
+        Gauge.builder("insurai.uploads.store.saved.bytes", this, DocumentBlobStore::bytesSaved)
+                .description("Bytes not stored because the content was already there")
+                .register(registry);
+        FunctionCounter.builder("insurai.uploads.store.uploaded.bytes", uploadedBytes, LongAdder::sum)
+                .description("Bytes of documents uploaded")
+                .register(registry);
+        FunctionCounter.builder("insurai.uploads.store.deduplicated.bytes", deduplicatedBytes, LongAdder::sum)
+                .description("Bytes of uploads dropped because their content was already stored")
+                .register(registry);
+    }
+}
@@ -0,0 +1,45 @@
+package com.insurai.insurai_backend.service;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.insurai.insurai_backend.model.DocumentProcessing;
+
+/**
+ * Records the SHA-256 of the stored file. When the document has been through before (a retry),
+ * the file must still have the hash recorded then.
+ */
+@Component
+@Order(20)
+public class DocumentChecksumStage implements DocumentStage {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Override
+    public String name() {
+        return "checksum";
+    }
+
+    @Override
+    public void process(DocumentProcessing document, Path file) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        if (document.getSha256() != null && !document.getSha256().equals(sha256)) {
+            throw new Rejected("Document changed after upload");
+        }
+        document.setSha256(sha256);
+    }
+}
@@ -0,0 +1,118 @@
+package com.insurai.insurai_backend.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.insurai.insurai_backend.repository.ClaimRepository;
+import com.insurai.insurai_backend.util.FileDownload;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Serves claim documents to the people allowed to read them: the employee who filed the claim,
+ * the HR it is assigned to, and admins.
+ *
+ * A stored path never changes content, so responses are cacheable for max-age-seconds and
+ * marked immutable; they are private, being personal documents behind a token. The ETag is the
+ * SHA-256 of the content for documents in the {@link DocumentBlobStore}, and a weak size and
+ * modification time tag for files from before it. See {@link FileDownload} for ranges,
+ * conditional requests and the zero-copy transfer.
+ */
+@Service
+public class DocumentDownloadService implements MeterBinder {
+
+    private final ClaimRepository claimRepository;
+    private final DocumentBlobStore blobStore;
+    private final String cacheControl;
+    private final long sendfileMinBytes;
+
+    private final Map<FileDownload.Outcome, LongAdder> responses = new EnumMap<>(FileDownload.Outcome.class);
+    private final LongAdder sendfileBytes = new LongAdder();
+    private final LongAdder channelBytes = new LongAdder();
+
+    public DocumentDownloadService(ClaimRepository claimRepository,
+                                   DocumentBlobStore blobStore,
+                                   @Value("${insurai.documents.download.max-age-seconds:31536000}") long maxAgeSeconds,
+                                   @Value("${insurai.documents.download.sendfile-min-bytes:49152}") long sendfileMinBytes) {
+        this.claimRepository = claimRepository;
+        this.blobStore = blobStore;
+        this.cacheControl = "private, max-age=" + maxAgeSeconds + ", immutable";
+        this.sendfileMinBytes = sendfileMinBytes;
+        for (FileDownload.Outcome outcome : FileDownload.Outcome.values()) {
+            responses.put(outcome, new LongAdder());
+        }
+    }
+
+    /**
+     * Whether the caller may read path as a document of the claim; false too when the claim
+     * does not list it. employeeId and hrId are the caller's, or null.
+     */
+    public boolean canRead(Long claimId, String path, Long employeeId, Long hrId, boolean admin) {
+        List<Object[]> rows = claimRepository.findDocumentAccess(claimId, path);
+        if (rows.isEmpty()) {
+            return false;
+        }
+        Object[] row = rows.get(0);
+        return admin
+                || (employeeId != null && employeeId.equals(row[0]))
+                || (hrId != null && hrId.equals(row[1]));
+    }
+
+    /**
+     * Write the document at path as the response. Fails with NoSuchFileException when its file
+     * is gone.
+     */
+    public FileDownload.Sent send(String path, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        DocumentBlobStore.Located located = blobStore.locate(path);
+        String etag;
+        if (located.sha256() != null) {
+            etag = "\"" + located.sha256() + "\"";
+        } else {
+            BasicFileAttributes attributes = Files.readAttributes(located.file(), BasicFileAttributes.class);
+            etag = "W/\"" + Long.toHexString(attributes.size()) + "-"
+                    + Long.toHexString(attributes.lastModifiedTime().toMillis()) + "\"";
+        }
+        FileDownload.Sent sent = FileDownload.write(request, response, located.file(), filename(path),
+                etag, cacheControl, sendfileMinBytes);
+        responses.get(sent.outcome()).increment();
+        (sent.sendfile() ? sendfileBytes : channelBytes).add(sent.bytes());
+        return sent;
+    }
+
+    // The name it was uploaded as: the last segment without its <uuid>_ prefix
+    static String filename(String path) {
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        int prefix = name.indexOf('_');
+        return prefix >= 0 && prefix < name.length() - 1 ? name.substring(prefix + 1) : name;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Map.Entry<FileDownload.Outcome, LongAdder> outcome : responses.entrySet()) {
+            FunctionCounter.builder("insurai.documents.download.responses", outcome.getValue(), LongAdder::sum)
+                    .description("Document downloads answered, by outcome")
+                    .tag("outcome", outcome.getKey().name().toLowerCase())
+                    .register(registry);
+        }
+        FunctionCounter.builder("insurai.documents.download.bytes", sendfileBytes, LongAdder::sum)
+                .description("Document bytes sent, by how they were copied to the socket")
+                .tag("transfer", "sendfile")
+                .register(registry);
+        FunctionCounter.builder("insurai.documents.download.bytes", channelBytes, LongAdder::sum)
+                .description("Document bytes sent, by how they were copied to the socket")
+                .tag("transfer", "channel")
+                .register(registry);
+    }
+}
@@ -0,0 +1,162 @@
+package com.insurai.insurai_backend.service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Moves the uploads directory into the {@link DocumentBlobStore}'s fan-out layout while the
+ * application serves it: blobs stored directly under blobs/ and previews directly under
+ * previews/ go down into their fan-out directories, and documents saved directly under the
+ * uploads directory before the store (&lt;uuid&gt;_&lt;name&gt;) are taken into it under the paths
+ * claims already list. Every path in Claim.documents, and every preview path, resolves before,
+ * during and after a file's move.
+ *
+ * Nothing records how far a run got: the files still at the top of these directories are the
+ * work left, so a run that stopped (or failed on some files) is resumed by starting another.
+ * workers files are moved at a time, and the directories are read as a stream, so a run over
+ * millions of files holds a few of them in memory at once. Other files there are left alone.
+ */
+@Service
+public class DocumentLayoutMigration implements MeterBinder {
+
+    private static final Pattern BLOB = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern DOCUMENT = Pattern.compile(
+            "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}_.+");
+    // Not the .part files a preview is written to first
+    private static final Pattern PREVIEW = Pattern.compile(".+\\.png");
+
+    // Counts are since the application started, over every run
+    public record Progress(boolean running, long blobsMoved, long documentsAdopted, long previewsMoved, long failed,
+                           LocalDateTime startedAt, LocalDateTime finishedAt, String lastError) {}
+
+    private final DocumentBlobStore blobStore;
+    private final int workers;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final LongAdder blobsMoved = new LongAdder();
+    private final LongAdder documentsAdopted = new LongAdder();
+    private final LongAdder previewsMoved = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String lastError;
+
+    public DocumentLayoutMigration(DocumentBlobStore blobStore,
+                                   @Value("${insurai.uploads.migration.workers:4}") int workers) {
+        this.blobStore = blobStore;
+        this.workers = workers;
+    }
+
+    /**
+     * Start a run on its own thread, unless one is going already; returns the progress either way
+     */
+    public Progress start() {
+        if (running.compareAndSet(false, true)) {
+            Thread thread = new Thread(() -> {
+                try {
+                    run();
+                } catch (Exception e) {
+                    lastError = e.getClass().getSimpleName() + ": " + e.getMessage();
+                }
+            }, "uploads-migration");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return progress();
+    }
+
+    public Progress progress() {
+        return new Progress(running.get(), blobsMoved.sum(), documentsAdopted.sum(), previewsMoved.sum(), failed.sum(),
+                startedAt, finishedAt, lastError);
+    }
+
+    // The run itself, on the calling thread; running must have been set by the caller
+    void run() throws IOException, InterruptedException {
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        lastError = null;
+        try {
+            migrate(blobStore.blobsDirectory(), BLOB, file -> {
+                blobStore.moveIntoFanOut(file.getFileName().toString());
+                blobsMoved.increment();
+            });
+            migrate(blobStore.root(), DOCUMENT, file -> {
+                blobStore.adopt(file);
+                documentsAdopted.increment();
+            });
+            migrate(blobStore.previewsDirectory(), PREVIEW, file -> {
+                blobStore.movePreviewIntoFanOut(file.getFileName().toString());
+                previewsMoved.increment();
+            });
+        } finally {
+            finishedAt = LocalDateTime.now();
+            running.set(false);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Move {
+        void apply(Path file) throws IOException;
+    }
+
+    private void migrate(Path directory, Pattern names, Move move) throws IOException, InterruptedException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        // One file per worker in flight: the listing waits for a free worker
+        Semaphore inFlight = new Semaphore(workers);
+        AtomicInteger threadNumber = new AtomicInteger();
+        try (ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+                 Thread thread = new Thread(runnable, "uploads-migration-" + threadNumber.incrementAndGet());
+                 thread.setDaemon(true);
+                 return thread;
+             });
+             DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                     file -> names.matcher(file.getFileName().toString()).matches() && Files.isRegularFile(file))) {
+            for (Path file : files) {
+                inFlight.acquire();
+                executor.execute(() -> {
+                    try {
+                        move.apply(file);
+                    } catch (Exception e) {
+                        // Still where it was: the next run tries it again
+                        failed.increment();
+                        lastError = file.getFileName() + ": " + e.getClass().getSimpleName() + ": " + e.getMessage();
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Map.Entry<String, LongAdder> outcome : Map.of(
+                "blob-moved", blobsMoved, "document-adopted", documentsAdopted, "preview-moved", previewsMoved,
+                "failed", failed).entrySet()) {
+            FunctionCounter.builder("insurai.uploads.migration.files", outcome.getValue(), LongAdder::sum)
+                    .description("Files moved into the fan-out layout, by outcome")
+                    .tag("outcome", outcome.getKey())
+                    .register(registry);
+        }
+    }
+}
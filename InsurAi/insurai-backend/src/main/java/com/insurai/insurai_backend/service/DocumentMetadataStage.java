@@ -0,0 +1,91 @@
+package com.insurai.insurai_backend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.insurai.insurai_backend.model.DocumentProcessing;
+
+/**
+ * Image dimensions, read from the header without decoding the image, and the page count of
+ * PDFs. There is no PDF library here: pages are counted from their page objects, which a PDF
+ * keeping its objects in compressed streams does not show; the count is then left empty.
+ */
+@Component
+@Order(30)
+public class DocumentMetadataStage implements DocumentStage {
+
+    // A page object, not the /Pages tree nodes
+    private static final Pattern PAGE_OBJECT = Pattern.compile("/Type\\s{0,8}/Page(?![A-Za-z])");
+    // Longer than any match, so a page object cut by a chunk boundary is found in the next chunk
+    private static final int OVERLAP = 32;
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    @Override
+    public String name() {
+        return "metadata";
+    }
+
+    @Override
+    public void process(DocumentProcessing document, Path file) throws Exception {
+        String contentType = document.getContentType();
+        if ("application/pdf".equals(contentType)) {
+            int pages = countPages(file);
+            document.setPageCount(pages > 0 ? pages : null);
+        } else if (contentType != null && contentType.startsWith("image/")) {
+            try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+                Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+                if (!readers.hasNext()) {
+                    // A type the JRE cannot read (webp): accepted, without dimensions
+                    return;
+                }
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(in, true, true);
+                    document.setWidth(reader.getWidth(0));
+                    document.setHeight(reader.getHeight(0));
+                } catch (IOException e) {
+                    throw new Rejected("Image cannot be read: " + e.getMessage());
+                } finally {
+                    reader.dispose();
+                }
+            }
+        }
+    }
+
+    static int countPages(Path file) throws IOException {
+        int pages = 0;
+        byte[] chunk = new byte[CHUNK_SIZE];
+        String carry = "";
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.readNBytes(chunk, 0, chunk.length)) > 0) {
+                // Latin-1 maps every byte to one char, so binary content cannot shift positions
+                String text = carry + new String(chunk, 0, n, StandardCharsets.ISO_8859_1);
+                int settled = text.length() - OVERLAP;
+                Matcher matcher = PAGE_OBJECT.matcher(text);
+                while (matcher.find() && matcher.start() < settled) {
+                    pages++;
+                }
+                carry = text.substring(Math.max(0, settled));
+            }
+        }
+        Matcher matcher = PAGE_OBJECT.matcher(carry);
+        while (matcher.find()) {
+            pages++;
+        }
+        return pages;
+    }
+}
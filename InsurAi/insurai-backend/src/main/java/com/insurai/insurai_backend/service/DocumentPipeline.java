@@ -0,0 +1,241 @@
+package com.insurai.insurai_backend.service;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insurai.insurai_backend.model.DocumentProcessing;
+import com.insurai.insurai_backend.model.OutboxEvent;
+import com.insurai.insurai_backend.repository.DocumentProcessingRepository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Processes claim documents in the background once the claim is committed, so submitting a
+ * claim only waits for the bytes to be on disk. Each document goes through the
+ * {@link DocumentStage}s in order (validation, checksum, metadata, preview) and ends READY,
+ * REJECTED, or FAILED after max-attempts; its state is listed with the claim.
+ *
+ * New documents come from the claim.submitted and claim.updated outbox events: a state row is
+ * recorded for each, then handed to a pool of workers through a queue of queue-capacity.
+ * The table, not the queue, is what is owed: a document that finds the queue full, fails an
+ * attempt, or was in progress on an instance that stopped is picked up again by the sweep
+ * every sweep-interval-ms. A worker takes a document by flipping it to PROCESSING, so it is
+ * processed once even with several instances.
+ */
+@Service
+public class DocumentPipeline implements OutboxSubscriber, MeterBinder {
+
+    private final DocumentProcessingRepository repository;
+    private final ClaimDocumentStorage storage;
+    private final ObjectMapper objectMapper;
+    private final List<DocumentStage> stages;
+    private final int maxAttempts;
+    private final long stuckAfterMillis;
+    private final ThreadPoolExecutor executor;
+    // Queued or running here, so the sweep does not queue them twice
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder ready = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+    private volatile Map<String, Timer> stageTimers = Map.of();
+
+    public DocumentPipeline(DocumentProcessingRepository repository,
+                            ClaimDocumentStorage storage,
+                            ObjectMapper objectMapper,
+                            ObjectProvider<DocumentStage> stages,
+                            @Value("${insurai.documents.pipeline.workers:2}") int workers,
+                            @Value("${insurai.documents.pipeline.queue-capacity:500}") int queueCapacity,
+                            @Value("${insurai.documents.pipeline.max-attempts:3}") int maxAttempts,
+                            @Value("${insurai.documents.pipeline.stuck-after-ms:600000}") long stuckAfterMillis) {
+        this.repository = repository;
+        this.storage = storage;
+        this.objectMapper = objectMapper;
+        this.stages = stages.orderedStream().toList();
+        this.maxAttempts = maxAttempts;
+        this.stuckAfterMillis = stuckAfterMillis;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "document-pipeline-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // -------------------- New documents, from the outbox --------------------
+
+    @Override
+    public String name() {
+        return "document-pipeline";
+    }
+
+    @Override
+    public void handle(OutboxEvent event) throws Exception {
+        if (!event.getType().equals("claim.submitted") && !event.getType().equals("claim.updated")) {
+            return;
+        }
+        JsonNode payload = objectMapper.readTree(event.getPayload());
+        long claimId = payload.path("claimId").asLong();
+        // An update lists every document of the claim; only the new ones are recorded. Seen again after a retry: nothing new
+        Set<String> known = new HashSet<>(repository.findPathsByClaimId(claimId));
+        for (JsonNode document : payload.path("documents")) {
+            String path = document.asText();
+            if (known.add(path)) {
+                enqueue(repository.save(new DocumentProcessing(claimId, path)).getId());
+            }
+        }
+    }
+
+    // -------------------- Workers --------------------
+
+    private void enqueue(Long id) {
+        if (!queued.add(id)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    process(id);
+                } finally {
+                    queued.remove(id);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Queue full: left PENDING for the sweep
+            queued.remove(id);
+            deferred.increment();
+        }
+    }
+
+    void process(Long id) {
+        if (repository.start(id, LocalDateTime.now()) == 0) {
+            // Taken by another instance, or no longer pending
+            return;
+        }
+        DocumentProcessing document = repository.findById(id).orElse(null);
+        if (document == null) {
+            return;
+        }
+        document.setAttempts(document.getAttempts() + 1);
+        try {
+            Path file;
+            try {
+                file = storage.resolve(document.getPath());
+            } catch (IllegalArgumentException e) {
+                throw new DocumentStage.Rejected(e.getMessage());
+            }
+            for (DocumentStage stage : stages) {
+                long started = System.nanoTime();
+                try {
+                    stage.process(document, file);
+                } finally {
+                    Timer timer = stageTimers.get(stage.name());
+                    if (timer != null) {
+                        timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                    }
+                }
+            }
+            document.setStatus(DocumentProcessing.Status.READY);
+            document.setError(null);
+            ready.increment();
+        } catch (DocumentStage.Rejected e) {
+            document.setStatus(DocumentProcessing.Status.REJECTED);
+            document.setError(truncate(e.getMessage()));
+            rejected.increment();
+        } catch (Exception e) {
+            // What the stages found so far is kept; the checksum in particular must hold on the next attempt
+            boolean last = document.getAttempts() >= maxAttempts;
+            document.setStatus(last ? DocumentProcessing.Status.FAILED : DocumentProcessing.Status.PENDING);
+            document.setError(truncate(e.getClass().getSimpleName() + ": " + e.getMessage()));
+            (last ? failed : retried).increment();
+        }
+        document.setCompletedAt(LocalDateTime.now());
+        repository.save(document);
+    }
+
+    private static String truncate(String message) {
+        return message != null && message.length() > 500 ? message.substring(0, 500) : message;
+    }
+
+    /**
+     * Queue what is still owed: documents the queue had no room for, failed attempts, and
+     * documents left in progress by an instance that stopped. Fills the free queue space only.
+     */
+    @Scheduled(fixedDelayString = "${insurai.documents.pipeline.sweep-interval-ms:30000}")
+    public void sweep() {
+        repository.resetStuck(LocalDateTime.now().minus(stuckAfterMillis, ChronoUnit.MILLIS));
+        int room = executor.getQueue().remainingCapacity();
+        if (room == 0) {
+            return;
+        }
+        for (Long id : repository.findPendingIds(Limit.of(room))) {
+            enqueue(id);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Documents in progress are picked up again after stuck-after-ms
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("insurai.documents.queue.depth", executor, e -> e.getQueue().size())
+                .description("Documents waiting for a pipeline worker")
+                .register(registry);
+        Gauge.builder("insurai.documents.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Documents being processed now")
+                .register(registry);
+        for (Map.Entry<String, LongAdder> outcome : Map.of(
+                "ready", ready, "rejected", rejected, "failed", failed, "retried", retried).entrySet()) {
+            FunctionCounter.builder("insurai.documents.processed", outcome.getValue(), LongAdder::sum)
+                    .description("Documents processed, by outcome")
+                    .tag("outcome", outcome.getKey())
+                    .register(registry);
+        }
+        FunctionCounter.builder("insurai.documents.deferred", deferred, LongAdder::sum)
+                .description("Documents left to the sweep because the queue was full")
+                .register(registry);
+        Map<String, Timer> timers = new ConcurrentHashMap<>();
+        for (DocumentStage stage : stages) {
+            timers.put(stage.name(), Timer.builder("insurai.documents.stage")
+                    .description("Time spent in one document pipeline stage")
+                    .tag("stage", stage.name())
+                    .register(registry));
+        }
+        stageTimers = timers;
+    }
+}
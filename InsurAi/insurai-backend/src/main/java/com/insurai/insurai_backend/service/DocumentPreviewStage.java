@@ -0,0 +1,91 @@
+package com.insurai.insurai_backend.service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.insurai.insurai_backend.model.DocumentProcessing;
+
+/**
+ * A PNG thumbnail of image documents, at most preview-size pixels on its longer side, for the
+ * claim review screens. The image is decoded subsampled, so a large photo never takes more
+ * memory than a few thumbnails. PDFs get no preview (rendering them needs a PDF library).
+ */
+@Component
+@Order(40)
+public class DocumentPreviewStage implements DocumentStage {
+
+    private final ClaimDocumentStorage storage;
+    private final int previewSize;
+
+    public DocumentPreviewStage(ClaimDocumentStorage storage,
+                                @Value("${insurai.documents.preview-size:256}") int previewSize) {
+        this.storage = storage;
+        this.previewSize = previewSize;
+    }
+
+    @Override
+    public String name() {
+        return "preview";
+    }
+
+    @Override
+    public void process(DocumentProcessing document, Path file) throws Exception {
+        if (document.getWidth() == null || document.getHeight() == null) {
+            // Not an image, or one the metadata stage could not read
+            return;
+        }
+        BufferedImage source;
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                // Every step-th pixel: still at least twice the preview, for a smooth downscale
+                int step = Math.max(1, Math.max(document.getWidth(), document.getHeight()) / (2 * previewSize));
+                param.setSourceSubsampling(step, step, 0, 0);
+                source = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        double scale = Math.min(1.0, (double) previewSize / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        BufferedImage preview = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = preview.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        // Written aside and moved into place, so a half-written preview is never served
+        String previewPath = storage.previewPath(document.getPath());
+        Path target = storage.resolve(previewPath);
+        Files.createDirectories(target.getParent());
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        ImageIO.write(preview, "png", partial.toFile());
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        document.setPreviewPath(previewPath);
+    }
+}
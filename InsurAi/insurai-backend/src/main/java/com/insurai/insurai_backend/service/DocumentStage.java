@@ -0,0 +1,33 @@
+package com.insurai.insurai_backend.service;
+
+import java.nio.file.Path;
+
+import com.insurai.insurai_backend.model.DocumentProcessing;
+
+/**
+ * One step of the {@link DocumentPipeline}. Every Spring bean implementing this is run on each
+ * document, in @Order order; a stage records what it finds on the DocumentProcessing, which is
+ * saved once all stages are done.
+ *
+ * Throwing {@link Rejected} ends processing for good (the document is not acceptable); any
+ * other exception is a failure and the document is tried again later. Stages may run more than
+ * once on a document, so they must not depend on having run before.
+ */
+public interface DocumentStage {
+
+    /**
+     * Name used in the metrics
+     */
+    String name();
+
+    void process(DocumentProcessing document, Path file) throws Exception;
+
+    /**
+     * The document is not acceptable; retrying will not change that
+     */
+    class Rejected extends Exception {
+        public Rejected(String reason) {
+            super(reason);
+        }
+    }
+}
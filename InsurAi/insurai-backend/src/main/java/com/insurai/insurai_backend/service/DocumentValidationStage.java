@@ -0,0 +1,83 @@
+package com.insurai.insurai_backend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.insurai.insurai_backend.model.DocumentProcessing;
+
+/**
+ * First stage: the file must be there, not empty, and of an accepted type. The type comes from
+ * the file's leading bytes, whatever the name or the Content-Type the client sent.
+ */
+@Component
+@Order(10)
+public class DocumentValidationStage implements DocumentStage {
+
+    private record Signature(String contentType, int offset, byte[] magic) {}
+
+    private static final List<Signature> SIGNATURES = List.of(
+            new Signature("application/pdf", 0, "%PDF-".getBytes()),
+            new Signature("image/png", 0, new byte[] {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'}),
+            new Signature("image/jpeg", 0, new byte[] {(byte) 0xff, (byte) 0xd8, (byte) 0xff}),
+            new Signature("image/gif", 0, "GIF8".getBytes()),
+            new Signature("image/webp", 8, "WEBP".getBytes()),
+            new Signature("image/tiff", 0, new byte[] {'I', 'I', 42, 0}),
+            new Signature("image/tiff", 0, new byte[] {'M', 'M', 0, 42}));
+
+    private static final int SNIFF_BYTES = 16;
+
+    private final Set<String> allowedTypes;
+
+    public DocumentValidationStage(
+            @Value("${insurai.documents.allowed-types:application/pdf,image/png,image/jpeg,image/gif}") String allowedTypes) {
+        this.allowedTypes = new HashSet<>(Arrays.asList(allowedTypes.split("\\s*,\\s*")));
+    }
+
+    @Override
+    public String name() {
+        return "validation";
+    }
+
+    @Override
+    public void process(DocumentProcessing document, Path file) throws Exception {
+        if (!Files.isRegularFile(file)) {
+            throw new Rejected("Document file is missing");
+        }
+        long size = Files.size(file);
+        if (size == 0) {
+            throw new Rejected("Document is empty");
+        }
+        String contentType = sniff(file);
+        if (contentType == null || !allowedTypes.contains(contentType)) {
+            throw new Rejected("Unsupported document type" + (contentType != null ? " " + contentType : ""));
+        }
+        document.setSizeBytes(size);
+        document.setContentType(contentType);
+    }
+
+    // The content type its leading bytes show, null if none is known
+    static String sniff(Path file) throws IOException {
+        byte[] head;
+        try (InputStream in = Files.newInputStream(file)) {
+            head = in.readNBytes(SNIFF_BYTES);
+        }
+        for (Signature signature : SIGNATURES) {
+            if (head.length >= signature.offset() + signature.magic().length
+                    && Arrays.equals(head, signature.offset(), signature.offset() + signature.magic().length,
+                            signature.magic(), 0, signature.magic().length)) {
+                return signature.contentType();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,330 @@
+package com.insurai.insurai_backend.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.insurai.insurai_backend.model.Claim;
+import com.insurai.insurai_backend.repository.ClaimRepository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Recent claims, indexed in memory so a resubmitted claim is spotted at submission
+ * without scanning the employee's claim history.
+ *
+ * Two hash lookups per check:
+ * - documents: (employee, document fingerprint). The same files submitted again by the
+ *   same employee, under any policy.
+ * - attributes: (employee, policy, amount bucket, claim-date bucket). Amounts within
+ *   insurai.claims.duplicates.amount-tolerance and claim dates within window-days of an
+ *   earlier claim. Buckets are as wide as the tolerance, so only the 3 x 3 neighbouring
+ *   buckets need looking at.
+ *
+ * Memory is bounded: only claims created in the last horizon-days are kept, at most
+ * max-entries of them, oldest dropped first. The index is warmed with the newest claims
+ * once the application is up. The warm-up query runs without the index's lock: checks
+ * meanwhile see the entries already held, and claims added meanwhile are kept aside and
+ * indexed over the query's rows, whether or not the query saw them.
+ */
+@Component
+public class DuplicateClaimIndex implements MeterBinder {
+
+    public record Match(Long claimId, boolean sameDocuments) {}
+
+    private record Entry(long claimId, long employeeId, long policyId, double amount, long day,
+                         String fingerprint, LocalDateTime createdAt) {}
+
+    private record AttributeKey(long employeeId, long policyId, long amountBucket, long dayBucket) {}
+
+    private record DocumentKey(long employeeId, String fingerprint) {}
+
+    private final ClaimRepository claimRepository;
+    private final double amountTolerance;
+    private final int windowDays;
+    private final int horizonDays;
+    private final int maxEntries;
+
+    // Guarded by this; order holds claim ids oldest first, for eviction
+    private final Map<Long, Entry> byClaim = new HashMap<>();
+    private final Map<AttributeKey, List<Entry>> byAttributes = new HashMap<>();
+    private final Map<DocumentKey, Long> byDocuments = new HashMap<>();
+    private final ArrayDeque<Long> order = new ArrayDeque<>();
+    // Claims added since the warm-up query started, replayed over its rows; null when no warm-up is going
+    private List<Entry> addedWhileWarming = new ArrayList<>();
+    private volatile boolean loaded;
+    // Held for a whole warm-up, query included, so only one runs at a time; never while holding this
+    private final Object warming = new Object();
+    private long checked;
+    private long sameDocuments;
+    private long sameAttributes;
+
+    public DuplicateClaimIndex(ClaimRepository claimRepository,
+                               @Value("${insurai.claims.duplicates.amount-tolerance:1.0}") double amountTolerance,
+                               @Value("${insurai.claims.duplicates.window-days:7}") int windowDays,
+                               @Value("${insurai.claims.duplicates.horizon-days:365}") int horizonDays,
+                               @Value("${insurai.claims.duplicates.max-entries:100000}") int maxEntries) {
+        if (amountTolerance <= 0 || windowDays <= 0) {
+            throw new IllegalArgumentException("Duplicate amount tolerance and window must be positive");
+        }
+        this.claimRepository = claimRepository;
+        this.amountTolerance = amountTolerance;
+        this.windowDays = windowDays;
+        this.horizonDays = horizonDays;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * The earlier claim this one most likely repeats, or null. Identical documents win over
+     * matching attributes. The claim itself is never reported, so this also works for edits.
+     */
+    public Match findDuplicate(Claim claim) {
+        ensureLoaded();
+        synchronized (this) {
+            return check(claim);
+        }
+    }
+
+    private Match check(Claim claim) {
+        checked++;
+        Entry probe = entryOf(claim);
+        if (probe == null) {
+            return null;
+        }
+
+        if (probe.fingerprint() != null) {
+            Long earlier = byDocuments.get(new DocumentKey(probe.employeeId(), probe.fingerprint()));
+            if (earlier != null && earlier != probe.claimId()) {
+                sameDocuments++;
+                return new Match(earlier, true);
+            }
+        }
+
+        long amountBucket = amountBucket(probe.amount());
+        long dayBucket = Math.floorDiv(probe.day(), windowDays);
+        for (long a = amountBucket - 1; a <= amountBucket + 1; a++) {
+            for (long d = dayBucket - 1; d <= dayBucket + 1; d++) {
+                List<Entry> candidates = byAttributes.get(new AttributeKey(probe.employeeId(), probe.policyId(), a, d));
+                if (candidates == null) {
+                    continue;
+                }
+                for (Entry candidate : candidates) {
+                    if (candidate.claimId() != probe.claimId()
+                            && Math.abs(candidate.amount() - probe.amount()) <= amountTolerance
+                            && Math.abs(candidate.day() - probe.day()) <= windowDays) {
+                        sameAttributes++;
+                        return new Match(candidate.claimId(), false);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Index a saved claim, or re-index it after an edit
+     */
+    public synchronized void add(Claim claim) {
+        Entry entry = entryOf(claim);
+        if (entry == null) {
+            return;
+        }
+        if (addedWhileWarming != null) {
+            // The query may have read past it already
+            addedWhileWarming.add(entry);
+        }
+        index(entry);
+    }
+
+    private void index(Entry entry) {
+        Entry previous = byClaim.get(entry.claimId());
+        if (previous != null) {
+            unlink(previous);
+            entry = new Entry(entry.claimId(), entry.employeeId(), entry.policyId(), entry.amount(), entry.day(),
+                    entry.fingerprint(), previous.createdAt());
+        } else {
+            order.addLast(entry.claimId());
+        }
+        link(entry);
+        evictOverflow();
+    }
+
+    public synchronized int size() {
+        return byClaim.size();
+    }
+
+    /**
+     * Rebuild from the newest claims in the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        synchronized (warming) {
+            synchronized (this) {
+                if (addedWhileWarming == null) {
+                    addedWhileWarming = new ArrayList<>();
+                }
+            }
+            // The query runs outside the lock; submissions meanwhile check against the old entries
+            List<Object[]> rows = claimRepository.findDuplicateKeysCreatedSince(
+                    LocalDateTime.now().minusDays(horizonDays), Limit.of(maxEntries));
+            synchronized (this) {
+                clear();
+                // Rows are newest first; insert oldest first so eviction order is right
+                for (int i = rows.size() - 1; i >= 0; i--) {
+                    Object[] row = rows.get(i);
+                    Entry entry = new Entry((Long) row[0], (Long) row[1], (Long) row[2], (Double) row[3],
+                            ((LocalDateTime) row[4]).toLocalDate().toEpochDay(), (String) row[5], (LocalDateTime) row[6]);
+                    order.addLast(entry.claimId());
+                    link(entry);
+                }
+                for (Entry entry : addedWhileWarming) {
+                    index(entry);
+                }
+                addedWhileWarming = null;
+                loaded = true;
+            }
+        }
+    }
+
+    /**
+     * Drop claims that fell out of the horizon
+     */
+    @Scheduled(fixedDelayString = "${insurai.claims.duplicates.prune-interval-ms:3600000}")
+    public synchronized void prune() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(horizonDays);
+        while (!order.isEmpty()) {
+            Entry oldest = byClaim.get(order.peekFirst());
+            if (oldest != null && !oldest.createdAt().isBefore(cutoff)) {
+                break;
+            }
+            order.pollFirst();
+            if (oldest != null) {
+                unlink(oldest);
+            }
+        }
+    }
+
+    // A check before the application is ready waits for the warm-up, without holding the index's lock
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (warming) {
+                if (!loaded) {
+                    warm();
+                }
+            }
+        }
+    }
+
+    private Entry entryOf(Claim claim) {
+        if (claim.getEmployee() == null || claim.getPolicy() == null || claim.getAmount() == null
+                || claim.getClaimDate() == null) {
+            return null;
+        }
+        // Unsaved claims get an id no real claim has
+        long claimId = claim.getId() != null ? claim.getId() : -1;
+        return new Entry(claimId, claim.getEmployee().getId(), claim.getPolicy().getId(), claim.getAmount(),
+                claim.getClaimDate().toLocalDate().toEpochDay(), claim.getDocumentFingerprint(),
+                claim.getCreatedAt() != null ? claim.getCreatedAt() : LocalDateTime.now());
+    }
+
+    private long amountBucket(double amount) {
+        return (long) Math.floor(amount / amountTolerance);
+    }
+
+    private AttributeKey attributeKey(Entry entry) {
+        return new AttributeKey(entry.employeeId(), entry.policyId(), amountBucket(entry.amount()),
+                Math.floorDiv(entry.day(), windowDays));
+    }
+
+    private void link(Entry entry) {
+        byClaim.put(entry.claimId(), entry);
+        byAttributes.computeIfAbsent(attributeKey(entry), key -> new ArrayList<>(1)).add(entry);
+        if (entry.fingerprint() != null) {
+            // The earliest claim with these documents stays the one reported
+            byDocuments.putIfAbsent(new DocumentKey(entry.employeeId(), entry.fingerprint()), entry.claimId());
+        }
+    }
+
+    private void unlink(Entry entry) {
+        byClaim.remove(entry.claimId());
+        AttributeKey key = attributeKey(entry);
+        List<Entry> bucket = byAttributes.get(key);
+        if (bucket != null) {
+            bucket.remove(entry);
+            if (bucket.isEmpty()) {
+                byAttributes.remove(key);
+            }
+        }
+        if (entry.fingerprint() != null) {
+            byDocuments.remove(new DocumentKey(entry.employeeId(), entry.fingerprint()), entry.claimId());
+        }
+    }
+
+    private void evictOverflow() {
+        while (byClaim.size() > maxEntries && !order.isEmpty()) {
+            Entry oldest = byClaim.get(order.pollFirst());
+            if (oldest != null) {
+                unlink(oldest);
+            }
+        }
+    }
+
+    private void clear() {
+        byClaim.clear();
+        byAttributes.clear();
+        byDocuments.clear();
+        order.clear();
+    }
+
+    // -------------------- Metrics --------------------
+
+    private synchronized double duplicateRate() {
+        return checked == 0 ? 0 : (double) (sameDocuments + sameAttributes) / checked;
+    }
+
+    private synchronized long checked() {
+        return checked;
+    }
+
+    private synchronized long sameDocuments() {
+        return sameDocuments;
+    }
+
+    private synchronized long sameAttributes() {
+        return sameAttributes;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("insurai.claims.duplicates.indexed", this, DuplicateClaimIndex::size)
+                .description("Recent claims held by the duplicate detection index")
+                .register(registry);
+        Gauge.builder("insurai.claims.duplicates.rate", this, DuplicateClaimIndex::duplicateRate)
+                .description("Share of submitted claims flagged as likely duplicates since startup")
+                .register(registry);
+        FunctionCounter.builder("insurai.claims.duplicates.checked", this, DuplicateClaimIndex::checked)
+                .description("Submitted claims checked for duplicates")
+                .register(registry);
+        FunctionCounter.builder("insurai.claims.duplicates.found", this, DuplicateClaimIndex::sameDocuments)
+                .description("Likely duplicate claims found")
+                .tag("match", "documents")
+                .register(registry);
+        FunctionCounter.builder("insurai.claims.duplicates.found", this, DuplicateClaimIndex::sameAttributes)
+                .description("Likely duplicate claims found")
+                .tag("match", "attributes")
+                .register(registry);
+    }
+}
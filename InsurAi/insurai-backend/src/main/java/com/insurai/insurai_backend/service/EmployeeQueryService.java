@@ -1,10 +1,13 @@
 package com.insurai.insurai_backend.service;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.insurai.insurai_backend.model.Agent;
 import com.insurai.insurai_backend.model.Employee;
@@ -25,7 +28,11 @@ public class EmployeeQueryService {
     @Autowired
     private AgentRepository agentRepository;
 
+    @Autowired
+    private OutboxService outboxService;
+
     // -------------------- Submit a new query --------------------
+    @Transactional(rollbackFor = Exception.class)
     public EmployeeQuery submitQuery(Long employeeId, Long agentId, String queryText) throws Exception {
         Employee employee = employeeRepository.findById(employeeId)
                 .orElseThrow(() -> new Exception("Employee not found"));
@@ -43,10 +50,11 @@ public class EmployeeQueryService {
         query.setQueryText(queryText);
         query.setStatus("pending");
 
-        return queryRepository.save(query);
+        return recorded("query.submitted", queryRepository.save(query));
     }
 
     // -------------------- Respond to a query (requires agentId) --------------------
+    @Transactional(rollbackFor = Exception.class)
     public EmployeeQuery respondToQuery(Long agentId, Long queryId, String response) throws Exception {
         EmployeeQuery query = queryRepository.findById(queryId)
                 .orElseThrow(() -> new Exception("Query not found"));
@@ -58,16 +66,29 @@ public class EmployeeQueryService {
         query.setResponse(response);
         query.setStatus("Resolved"); // consistent with frontend
         query.setUpdatedAt(java.time.LocalDateTime.now()); // update timestamp
-        return queryRepository.save(query);
+        return recorded("query.resolved", queryRepository.save(query));
     }
 
     // -------------------- Respond to a query without agentId --------------------
+    // The caller has checked the agent (the agent endpoint reads it from the token)
+    @Transactional(rollbackFor = Exception.class)
     public EmployeeQuery respondToQuery(EmployeeQuery query, String response) throws Exception {
         if (query == null) throw new Exception("Query cannot be null");
         query.setResponse(response);
-        query.setStatus("Resolved");
+        query.setStatus("resolved");
         query.setUpdatedAt(java.time.LocalDateTime.now()); // update timestamp
-        return queryRepository.save(query);
+        return recorded("query.resolved", queryRepository.save(query));
+    }
+
+    // Lifecycle event in the same transaction as the change; side effects run later from the outbox
+    private EmployeeQuery recorded(String type, EmployeeQuery query) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("queryId", query.getId());
+        event.put("employeeId", query.getEmployee() != null ? query.getEmployee().getId() : null);
+        event.put("agentId", query.getAgent() != null ? query.getAgent().getId() : null);
+        event.put("status", query.getStatus());
+        outboxService.record(type, OutboxService.QUERY, query.getId(), event);
+        return query;
     }
 
     // -------------------- Fetch queries --------------------
@@ -18,6 +18,7 @@ public class HrService {
 
     private final HrRepository hrRepository;
     private final PasswordEncoder passwordEncoder;
+    private final HrWorkloadIndex hrWorkloadIndex;
 
     // -------------------- Register HR --------------------
     public Hr registerHR(RegisterRequest request) {
@@ -28,7 +29,9 @@ public class HrService {
         hr.setHrId(request.getHrId());
         hr.setPassword(passwordEncoder.encode(request.getPassword()));
 
-        return hrRepository.save(hr);
+        Hr saved = hrRepository.save(hr);
+        hrWorkloadIndex.addHr(saved.getId());
+        return saved;
     }
 
     // -------------------- Find HR by email --------------------
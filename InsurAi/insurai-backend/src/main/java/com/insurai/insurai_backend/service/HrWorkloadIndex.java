@@ -0,0 +1,241 @@
+package com.insurai.insurai_backend.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.insurai.insurai_backend.model.ClaimStatus;
+import com.insurai.insurai_backend.repository.ClaimRepository;
+import com.insurai.insurai_backend.repository.HrRepository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Pending-claim count per HR, kept in memory so claim assignment does not have to count
+ * every HR's queue on each submission.
+ *
+ * HRs are ordered by (pending count, id); picking the least loaded HR and bumping its
+ * count happen under one lock, so concurrent submissions spread out instead of all
+ * landing on the HR that looked idlest a moment ago. Each step is O(log n) in the number
+ * of HRs.
+ *
+ * The index is built from one GROUP BY query once the application is up, and updated as
+ * claims are submitted, decided and reassigned. It is reconciled with the database on a
+ * schedule to repair any drift, for example after a write that failed or bypassed
+ * ClaimService. The query runs outside the lock, so reconciliation applies only what the
+ * database says changed since the query started; moves made meanwhile are kept.
+ */
+@Component
+public class HrWorkloadIndex implements MeterBinder {
+
+    private record Load(int pending, long hrId) implements Comparable<Load> {
+        @Override
+        public int compareTo(Load other) {
+            int byPending = Integer.compare(pending, other.pending);
+            return byPending != 0 ? byPending : Long.compare(hrId, other.hrId);
+        }
+    }
+
+    private final ClaimRepository claimRepository;
+    private final HrRepository hrRepository;
+
+    // Guarded by this
+    private final Map<Long, Load> byHr = new HashMap<>();
+    private final TreeSet<Load> byLoad = new TreeSet<>();
+    private boolean loaded;
+    // Held for a whole reconciliation, queries included; never while holding this
+    private final Object reconciling = new Object();
+    private long corrections;
+
+    public HrWorkloadIndex(ClaimRepository claimRepository, HrRepository hrRepository) {
+        this.claimRepository = claimRepository;
+        this.hrRepository = hrRepository;
+    }
+
+    /**
+     * Pick the HR with the fewest pending claims and count one more claim against them.
+     * Returns null when there are no HRs. Call {@link #release(Long)} if the claim is not saved.
+     */
+    public synchronized Long assignLeastLoaded() {
+        if (byLoad.isEmpty()) {
+            return null;
+        }
+        Load least = byLoad.first();
+        adjust(least.hrId(), 1);
+        return least.hrId();
+    }
+
+    /**
+     * Like {@link #assignLeastLoaded()}, but never picks excludedHrId (an escalated claim moves
+     * away from its current HR). Returns null when no other HR exists.
+     */
+    public synchronized Long assignLeastLoadedExcept(Long excludedHrId) {
+        for (Load load : byLoad) {
+            if (excludedHrId == null || load.hrId() != excludedHrId) {
+                adjust(load.hrId(), 1);
+                return load.hrId();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A claim assigned to hrId stopped being pending (approved, rejected, or undone)
+     */
+    public synchronized void release(Long hrId) {
+        release(hrId, 1);
+    }
+
+    /**
+     * Several of hrId's claims were decided at once (bulk approve/reject)
+     */
+    public synchronized void release(Long hrId, int claims) {
+        if (hrId != null && loaded && claims > 0) {
+            adjust(hrId, -claims);
+        }
+    }
+
+    /**
+     * A pending claim moved from one HR to another; either side may be null
+     */
+    public synchronized void reassign(Long fromHrId, Long toHrId) {
+        if (!loaded || (fromHrId != null && fromHrId.equals(toHrId))) {
+            return;
+        }
+        if (fromHrId != null) {
+            adjust(fromHrId, -1);
+        }
+        if (toHrId != null) {
+            adjust(toHrId, 1);
+        }
+    }
+
+    /**
+     * A newly registered HR starts with an empty queue and is eligible straight away
+     */
+    public synchronized void addHr(Long hrId) {
+        if (hrId != null && loaded && !byHr.containsKey(hrId)) {
+            put(new Load(0, hrId));
+        }
+    }
+
+    public synchronized int pendingCount(Long hrId) {
+        Load load = byHr.get(hrId);
+        return load != null ? load.pending() : 0;
+    }
+
+    /**
+     * Bring every count in line with the database and count the HRs whose in-memory value had
+     * drifted. The first run, once the application is ready, loads the index; until then
+     * claims are left unassigned.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${insurai.hr.workload.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        // One run at a time: two would both apply the same drift
+        synchronized (reconciling) {
+            Map<Long, Integer> snapshot;
+            synchronized (this) {
+                snapshot = loaded ? counts() : null;
+            }
+            // Queries run outside the lock; submissions keep being served and counted meanwhile
+            Map<Long, Integer> fresh = loadFromDatabase();
+            synchronized (this) {
+                if (snapshot == null) {
+                    replace(fresh);
+                    return;
+                }
+                for (Long hrId : List.copyOf(byHr.keySet())) {
+                    if (!fresh.containsKey(hrId)) {
+                        byLoad.remove(byHr.remove(hrId));
+                        corrections++;
+                    }
+                }
+                // The database against the counts as they were when the query started
+                fresh.forEach((hrId, pending) -> {
+                    if (!byHr.containsKey(hrId)) {
+                        put(new Load(pending, hrId));
+                        corrections++;
+                        return;
+                    }
+                    int drift = pending - snapshot.getOrDefault(hrId, 0);
+                    if (drift != 0) {
+                        adjust(hrId, drift);
+                        corrections++;
+                    }
+                });
+            }
+        }
+    }
+
+    private Map<Long, Integer> counts() {
+        Map<Long, Integer> counts = new HashMap<>();
+        byHr.forEach((hrId, load) -> counts.put(hrId, load.pending()));
+        return counts;
+    }
+
+    private Map<Long, Integer> loadFromDatabase() {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (Long hrId : hrRepository.findAllIds()) {
+            counts.put(hrId, 0);
+        }
+        for (Object[] row : claimRepository.countByAssignedHrGroupedForStatus(ClaimStatus.PENDING)) {
+            Long hrId = (Long) row[0];
+            // Claims may still point at an HR that has since been removed; only known HRs are candidates
+            if (counts.containsKey(hrId)) {
+                counts.put(hrId, ((Number) row[1]).intValue());
+            }
+        }
+        return counts;
+    }
+
+    private void replace(Map<Long, Integer> counts) {
+        byHr.clear();
+        byLoad.clear();
+        counts.forEach((hrId, pending) -> put(new Load(pending, hrId)));
+        loaded = true;
+    }
+
+    private void adjust(Long hrId, int delta) {
+        Load current = byHr.get(hrId);
+        if (current == null) {
+            return;
+        }
+        byLoad.remove(current);
+        put(new Load(Math.max(0, current.pending() + delta), hrId));
+    }
+
+    private void put(Load load) {
+        byHr.put(load.hrId(), load);
+        byLoad.add(load);
+    }
+
+    // -------------------- Metrics --------------------
+
+    private synchronized int size() {
+        return byHr.size();
+    }
+
+    private synchronized long corrections() {
+        return corrections;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("insurai.hr.workload.hrs", this, HrWorkloadIndex::size)
+                .description("HRs eligible for claim assignment")
+                .register(registry);
+        FunctionCounter.builder("insurai.hr.workload.corrections", this, HrWorkloadIndex::corrections)
+                .description("HR pending counts corrected by reconciliation with the database")
+                .register(registry);
+    }
+}
@@ -0,0 +1,259 @@
+package com.insurai.insurai_backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insurai.insurai_backend.model.IdempotencyRecord;
+import com.insurai.insurai_backend.repository.IdempotencyRecordRepository;
+import com.insurai.insurai_backend.util.BoundedExpiringCache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Idempotency-Key support for requests a client may send twice (a retry after a timeout).
+ *
+ * The first request with a key runs; its successful response is stored for ttl-hours and
+ * returned to every later request with the same key, operation and caller, without running
+ * anything again (no second claim, no second copy of the documents). Reusing a key with other
+ * parameters is refused with 422. Failed responses are not kept, so the client can retry.
+ *
+ * A duplicate arriving while the first is still running waits for it (up to wait-ms) on this
+ * instance; on another instance it gets 409 and retries, because the key is written to the
+ * table before the request runs. A key left in progress by a stopped instance is taken over
+ * after abandon-after-ms. Completed outcomes are also held in memory, so a replay normally
+ * costs no query.
+ */
+@Service
+public class IdempotencyService implements MeterBinder {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    // body is the stored JSON
+    private record Outcome(String requestHash, int status, String body) {}
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final long waitMillis;
+    private final long abandonAfterMillis;
+    private final BoundedExpiringCache<String, Outcome> completed;
+    // Completed with the outcome, or with null when there is none to replay (failed, or running elsewhere)
+    private final Map<String, CompletableFuture<Outcome>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder replays = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              ObjectMapper objectMapper,
+                              @Value("${insurai.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${insurai.idempotency.wait-ms:30000}") long waitMillis,
+                              @Value("${insurai.idempotency.abandon-after-ms:120000}") long abandonAfterMillis,
+                              @Value("${insurai.idempotency.max-entries:10000}") int maxEntries) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.waitMillis = waitMillis;
+        this.abandonAfterMillis = abandonAfterMillis;
+        this.completed = new BoundedExpiringCache<>(maxEntries);
+    }
+
+    /**
+     * Run request once per key. key is the Idempotency-Key header (no header: just run it);
+     * requestHash is the {@link #fingerprint} of the request's parameters.
+     */
+    public ResponseEntity<?> execute(String operation, Long callerId, String key, String requestHash,
+                                     Supplier<ResponseEntity<?>> request) {
+        if (key == null || key.isBlank()) {
+            return request.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(HEADER + " is longer than " + MAX_KEY_LENGTH + " characters");
+        }
+        String id = sha256(operation + "\n" + callerId + "\n" + key);
+
+        Outcome done = completed.get(id);
+        if (done != null) {
+            return replay(done, requestHash);
+        }
+
+        CompletableFuture<Outcome> mine = new CompletableFuture<>();
+        CompletableFuture<Outcome> first = inFlight.putIfAbsent(id, mine);
+        if (first != null) {
+            return await(first, operation, callerId, key, requestHash, request);
+        }
+        try {
+            return run(id, requestHash, request, mine);
+        } finally {
+            inFlight.remove(id, mine);
+            mine.complete(null);
+        }
+    }
+
+    private ResponseEntity<?> run(String id, String requestHash, Supplier<ResponseEntity<?>> request,
+                                  CompletableFuture<Outcome> mine) {
+        Instant now = Instant.now();
+        // Sent before to another instance, or before a restart
+        IdempotencyRecord stored = repository.findById(id).orElse(null);
+        if (stored != null && stored.getExpiresAt().isAfter(now)) {
+            if (stored.getResponseStatus() != 0) {
+                Outcome outcome = new Outcome(stored.getRequestHash(), stored.getResponseStatus(), stored.getResponseBody());
+                completed.put(id, outcome, stored.getExpiresAt().toEpochMilli());
+                mine.complete(outcome);
+                return replay(outcome, requestHash);
+            }
+            if (repository.takeOver(id, requestHash, now, now.minusMillis(abandonAfterMillis)) == 0) {
+                return inProgress();
+            }
+        } else {
+            if (stored != null) {
+                repository.delete(stored);
+            }
+            try {
+                repository.claim(id, requestHash, now, now.plus(ttl));
+            } catch (DataIntegrityViolationException e) {
+                // Another instance got there first
+                return inProgress();
+            }
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = request.get();
+        } catch (RuntimeException e) {
+            repository.release(id);
+            throw e;
+        }
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            // Not kept: the client may correct the request, or try again later
+            repository.release(id);
+            return response;
+        }
+        Outcome outcome = new Outcome(requestHash, response.getStatusCode().value(), json(response.getBody()));
+        Instant expiresAt = Instant.now().plus(ttl);
+        repository.complete(id, outcome.status(), outcome.body(), expiresAt);
+        completed.put(id, outcome, expiresAt.toEpochMilli());
+        mine.complete(outcome);
+        return response;
+    }
+
+    private ResponseEntity<?> await(CompletableFuture<Outcome> first, String operation, Long callerId, String key,
+                                    String requestHash, Supplier<ResponseEntity<?>> request) {
+        Outcome outcome;
+        try {
+            outcome = first.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return inProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return inProgress();
+        }
+        // The first one left nothing to replay: this one is the retry
+        return outcome != null ? replay(outcome, requestHash) : execute(operation, callerId, key, requestHash, request);
+    }
+
+    private ResponseEntity<?> replay(Outcome outcome, String requestHash) {
+        if (!outcome.requestHash().equals(requestHash)) {
+            conflicts.increment();
+            return ResponseEntity.status(422).body(HEADER + " was already used for a different request");
+        }
+        replays.increment();
+        return ResponseEntity.status(outcome.status())
+                .header(REPLAYED_HEADER, "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(outcome.body());
+    }
+
+    private ResponseEntity<?> inProgress() {
+        conflicts.increment();
+        return ResponseEntity.status(409)
+                .header("Retry-After", "1")
+                .body("A request with this " + HEADER + " is still in progress");
+    }
+
+    private String json(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response is not serializable", e);
+        }
+    }
+
+    /**
+     * Hash of a request's parameters. Uploaded files count by name and size; their content is
+     * not read again.
+     */
+    public static String fingerprint(Object... parts) {
+        StringBuilder text = new StringBuilder();
+        for (Object part : parts) {
+            append(text, part);
+            text.append('\u0000');
+        }
+        return sha256(text.toString());
+    }
+
+    private static void append(StringBuilder text, Object part) {
+        if (part instanceof MultipartFile file) {
+            text.append(file.getOriginalFilename()).append(':').append(file.getSize());
+        } else if (part instanceof Collection<?> items) {
+            items.forEach(item -> append(text.append('['), item));
+        } else {
+            text.append(part);
+        }
+    }
+
+    private static String sha256(String text) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${insurai.idempotency.purge-interval-ms:3600000}")
+    public void purge() {
+        repository.deleteExpired(Instant.now());
+        completed.purgeExpired();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("insurai.idempotency.in-flight", inFlight, Map::size)
+                .description("Requests with an Idempotency-Key running now")
+                .register(registry);
+        FunctionCounter.builder("insurai.idempotency.replays", replays, LongAdder::sum)
+                .description("Responses replayed instead of running a request again")
+                .register(registry);
+        FunctionCounter.builder("insurai.idempotency.conflicts", conflicts, LongAdder::sum)
+                .description("Requests refused: key still in progress or used for a different request")
+                .register(registry);
+    }
+}
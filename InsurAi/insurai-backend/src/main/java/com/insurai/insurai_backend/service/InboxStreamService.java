@@ -0,0 +1,390 @@
+package com.insurai.insurai_backend.service;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.insurai.insurai_backend.model.OutboxEvent;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pushes inbox changes to HRs and agents over Server-Sent Events, so the dashboards need not
+ * poll their full lists. Fed from the outbox: a claim assigned to, moved away from, decided or
+ * escalated for an HR, and a query assigned to or resolved for an agent, become deltas in that
+ * person's inbox. The SSE event id is the outbox event id. Streams authenticate like every
+ * other call, with the bearer token; the dashboards read them with fetch (inboxStream.js),
+ * since EventSource cannot send that header.
+ *
+ * Each inbox keeps its last replay-size deltas. A client reconnecting with Last-Event-ID gets
+ * what it missed from there, or a reset event (reload the list) when the gap is no longer
+ * covered: too old, or from before this process started. An outbox event that commits late
+ * (see {@link OutboxRelay}) resets the inboxes it touches, open streams included. A new stream
+ * starts with a ready event carrying the current id; load the list after it to miss nothing.
+ *
+ * Idle streams hold no thread (async request processing). Deltas go to a bounded per-stream
+ * queue drained on a virtual thread; a client too slow to keep up with send-buffer deltas is
+ * disconnected and resumes with Last-Event-ID. A comment line every heartbeat-ms keeps proxies
+ * from closing idle streams.
+ */
+@Service
+public class InboxStreamService implements OutboxSubscriber, MeterBinder {
+
+    public static final String HR = "hr";
+    public static final String AGENT = "agent";
+
+    private record Delta(long id, String name, String data) {}
+
+    // One HR's or agent's recent deltas and open streams, guarded by itself
+    private static final class Inbox {
+        final ArrayDeque<Delta> replay = new ArrayDeque<>();
+        // Every delta after this id is still in replay
+        long evictedUpTo;
+        final List<Stream> streams = new ArrayList<>();
+    }
+
+    private static final class Stream {
+        final Inbox inbox;
+        final SseEmitter emitter;
+        final ArrayBlockingQueue<SseEmitter.SseEventBuilder> queue;
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile boolean overflowed;
+        volatile boolean closed;
+
+        Stream(Inbox inbox, SseEmitter emitter, int capacity) {
+            this.inbox = inbox;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final int replaySize;
+    private final int sendBuffer;
+    private final long timeoutMillis;
+    private final int maxStreams;
+    private final Map<String, Inbox> inboxes = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Outbox ids: deltas are complete from coveredFrom on; lastHandled is the newest seen
+    private volatile long coveredFrom = Long.MAX_VALUE;
+    private volatile long lastHandled = -1;
+
+    private final AtomicInteger open = new AtomicInteger();
+    private final LongAdder pushed = new LongAdder();
+    private final LongAdder overflows = new LongAdder();
+    private final LongAdder resets = new LongAdder();
+
+    public InboxStreamService(ObjectMapper objectMapper,
+                              @Value("${insurai.inbox.replay-size:64}") int replaySize,
+                              @Value("${insurai.inbox.send-buffer:256}") int sendBuffer,
+                              @Value("${insurai.inbox.timeout-ms:1800000}") long timeoutMillis,
+                              @Value("${insurai.inbox.max-streams:10000}") int maxStreams) {
+        this.objectMapper = objectMapper;
+        this.replaySize = replaySize;
+        this.sendBuffer = sendBuffer;
+        this.timeoutMillis = timeoutMillis;
+        this.maxStreams = maxStreams;
+    }
+
+    // -------------------- Streams --------------------
+
+    /**
+     * Open a stream on an HR's or agent's inbox. lastEventId is the client's Last-Event-ID
+     * header, null on a first connect.
+     */
+    public SseEmitter open(String kind, Long recipientId, String lastEventId) {
+        return open(kind, recipientId, lastEventId, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter open(String kind, Long recipientId, String lastEventId, SseEmitter emitter) {
+        if (open.incrementAndGet() > maxStreams) {
+            open.decrementAndGet();
+            throw new IllegalStateException("Too many open streams");
+        }
+        Inbox inbox = inboxes.computeIfAbsent(kind + ":" + recipientId, key -> new Inbox());
+        Stream stream = new Stream(inbox, emitter, sendBuffer);
+        emitter.onCompletion(() -> close(stream));
+        emitter.onTimeout(() -> close(stream));
+        emitter.onError(e -> close(stream));
+
+        Long resumeFrom = parseId(lastEventId);
+        synchronized (inbox) {
+            long current = lastHandled;
+            if (resumeFrom == null) {
+                stream.queue.offer(marker("ready", current));
+            } else if (resumeFrom >= Math.max(coveredFrom, inbox.evictedUpTo)
+                    && missed(inbox, resumeFrom) <= sendBuffer) {
+                for (Delta delta : inbox.replay) {
+                    if (delta.id() > resumeFrom) {
+                        stream.queue.offer(event(delta));
+                    }
+                }
+            } else {
+                resets.increment();
+                stream.queue.offer(marker("reset", current));
+            }
+            // Registered under the same lock as the replay: nothing in between is lost or doubled
+            inbox.streams.add(stream);
+        }
+        schedule(stream);
+        return emitter;
+    }
+
+    private static long missed(Inbox inbox, long resumeFrom) {
+        return inbox.replay.stream().filter(delta -> delta.id() > resumeFrom).count();
+    }
+
+    private static Long parseId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            // Not one of ours: treat as too old to resume
+            return -1L;
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder marker(String name, long current) {
+        SseEmitter.SseEventBuilder event = SseEmitter.event();
+        if (current >= 0) {
+            event.id(Long.toString(current));
+        }
+        return event.name(name).data("{\"lastEventId\":" + current + "}");
+    }
+
+    private static SseEmitter.SseEventBuilder event(Delta delta) {
+        return SseEmitter.event().id(Long.toString(delta.id())).name(delta.name()).data(delta.data());
+    }
+
+    private void close(Stream stream) {
+        if (stream.closed) {
+            return;
+        }
+        synchronized (stream.inbox) {
+            if (stream.closed) {
+                return;
+            }
+            stream.closed = true;
+            stream.inbox.streams.remove(stream);
+        }
+        stream.queue.clear();
+        open.decrementAndGet();
+    }
+
+    // At most one sender per stream; sends happen in queue order
+    private void schedule(Stream stream) {
+        if (stream.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(stream));
+        }
+    }
+
+    private void drain(Stream stream) {
+        while (true) {
+            SseEmitter.SseEventBuilder event;
+            while (!stream.closed && !stream.overflowed && (event = stream.queue.poll()) != null) {
+                try {
+                    stream.emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    // The client is gone; the container reports it too
+                    close(stream);
+                }
+            }
+            if (stream.overflowed && !stream.closed) {
+                close(stream);
+                stream.emitter.complete();
+            }
+            stream.draining.set(false);
+            if (stream.closed || stream.queue.isEmpty() || !stream.draining.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${insurai.inbox.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Inbox inbox : inboxes.values()) {
+            List<Stream> streams;
+            synchronized (inbox) {
+                streams = List.copyOf(inbox.streams);
+            }
+            for (Stream stream : streams) {
+                // A stream with something queued is about to write anyway
+                if (stream.queue.isEmpty() && stream.queue.offer(SseEmitter.event().comment("ping"))) {
+                    schedule(stream);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Inbox inbox : inboxes.values()) {
+            List<Stream> streams;
+            synchronized (inbox) {
+                streams = List.copyOf(inbox.streams);
+            }
+            streams.forEach(stream -> stream.emitter.complete());
+        }
+        senders.shutdownNow();
+    }
+
+    // -------------------- Outbox --------------------
+
+    @Override
+    public String name() {
+        return "inbox-stream";
+    }
+
+    @Override
+    public synchronized void start(long offset) {
+        // Events up to the offset were handled before this process, if at all: a client cannot resume across them
+        if (offset > lastHandled) {
+            coveredFrom = offset;
+            lastHandled = offset;
+        }
+    }
+
+    @Override
+    public synchronized void handle(OutboxEvent event) throws IOException {
+        long id = event.getId();
+        if (id <= lastHandled) {
+            return;
+        }
+        route(event, id, false);
+        lastHandled = id;
+    }
+
+    // Deltas go out in outbox id order and clients resume by id, so one that comes late cannot be slotted in:
+    // the inboxes it touches are told to reload instead
+    @Override
+    public synchronized void handleLate(OutboxEvent event) throws IOException {
+        route(event, lastHandled, true);
+    }
+
+    private void route(OutboxEvent event, long id, boolean late) throws IOException {
+        JsonNode payload = objectMapper.readTree(event.getPayload());
+        switch (event.getType()) {
+            case "claim.submitted" -> push(HR, payload.path("assignedHrId"), id, "claim.assigned", payload, late);
+            case "claim.status-changed", "claim.updated" ->
+                    push(HR, payload.path("assignedHrId"), id, event.getType(), payload, late);
+            case "claim.reassigned", "claim.escalated" -> {
+                JsonNode previous = payload.path("previousHrId");
+                JsonNode assigned = payload.path("assignedHrId");
+                if (!previous.equals(assigned)) {
+                    ObjectNode moved = objectMapper.createObjectNode();
+                    moved.set("claimId", payload.path("claimId"));
+                    moved.set("assignedHrId", assigned);
+                    push(HR, previous, id, "claim.unassigned", moved, late);
+                }
+                push(HR, assigned, id, event.getType().equals("claim.escalated") ? "claim.escalated" : "claim.assigned",
+                        payload, late);
+            }
+            case "claims.decided" -> payload.path("claimIdsByHr").properties().forEach(entry -> {
+                ObjectNode decided = objectMapper.createObjectNode();
+                decided.set("status", payload.path("status"));
+                decided.set("remarks", payload.path("remarks"));
+                decided.set("source", payload.path("source"));
+                decided.set("claimIds", entry.getValue());
+                push(HR, Long.parseLong(entry.getKey()), id, "claims.decided", decided, late);
+            });
+            case "query.submitted" -> push(AGENT, payload.path("agentId"), id, "query.assigned", payload, late);
+            case "query.resolved" -> push(AGENT, payload.path("agentId"), id, "query.resolved", payload, late);
+            default -> {
+                // Not an inbox change
+            }
+        }
+    }
+
+    private void push(String kind, JsonNode recipientId, long id, String name, JsonNode data, boolean late) {
+        if (recipientId.canConvertToLong()) {
+            push(kind, recipientId.asLong(), id, name, data, late);
+        }
+    }
+
+    private void push(String kind, long recipientId, long id, String name, JsonNode data, boolean late) {
+        if (late) {
+            reset(kind, recipientId);
+            return;
+        }
+        Delta delta = new Delta(id, name, data.toString());
+        Inbox inbox = inboxes.computeIfAbsent(kind + ":" + recipientId, key -> new Inbox());
+        List<Stream> streams;
+        synchronized (inbox) {
+            inbox.replay.addLast(delta);
+            while (inbox.replay.size() > replaySize) {
+                inbox.evictedUpTo = Math.max(inbox.evictedUpTo, inbox.replay.removeFirst().id());
+            }
+            streams = List.copyOf(inbox.streams);
+        }
+        pushed.increment();
+        for (Stream stream : streams) {
+            // Never wait on a slow client: it is dropped, and catches up when it reconnects
+            if (!stream.queue.offer(event(delta))) {
+                stream.overflowed = true;
+                overflows.increment();
+            }
+            schedule(stream);
+        }
+    }
+
+    // Open streams reload now; a client resuming from before this point reloads too
+    private void reset(String kind, long recipientId) {
+        Inbox inbox = inboxes.computeIfAbsent(kind + ":" + recipientId, key -> new Inbox());
+        long current = lastHandled;
+        List<Stream> streams;
+        synchronized (inbox) {
+            inbox.evictedUpTo = Math.max(inbox.evictedUpTo, current + 1);
+            streams = List.copyOf(inbox.streams);
+        }
+        for (Stream stream : streams) {
+            resets.increment();
+            if (!stream.queue.offer(marker("reset", current))) {
+                stream.overflowed = true;
+                overflows.increment();
+            }
+            schedule(stream);
+        }
+    }
+
+    // -------------------- Metrics --------------------
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("insurai.inbox.streams", open, AtomicInteger::get)
+                .description("Open HR and agent inbox streams")
+                .register(registry);
+        FunctionCounter.builder("insurai.inbox.deltas", pushed, LongAdder::sum)
+                .description("Inbox deltas pushed")
+                .register(registry);
+        FunctionCounter.builder("insurai.inbox.overflows", overflows, LongAdder::sum)
+                .description("Streams dropped for falling send-buffer deltas behind")
+                .register(registry);
+        FunctionCounter.builder("insurai.inbox.resets", resets, LongAdder::sum)
+                .description("Reconnects that could not be resumed and were told to reload")
+                .register(registry);
+    }
+}
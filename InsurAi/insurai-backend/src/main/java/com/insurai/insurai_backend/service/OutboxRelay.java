@@ -0,0 +1,426 @@
+package com.insurai.insurai_backend.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.insurai.insurai_backend.model.OutboxEvent;
+import com.insurai.insurai_backend.model.OutboxOffset;
+import com.insurai.insurai_backend.repository.OutboxEventRepository;
+import com.insurai.insurai_backend.repository.OutboxOffsetRepository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Delivers outbox events to the {@link OutboxSubscriber}s, in the background.
+ *
+ * Each run reads batch-size events after the lowest offset among the subscribers that are
+ * ready (one primary key range query) and hands every subscriber the events past its own
+ * offset. A subscriber's offset is stored after each batch, so delivery is at-least-once:
+ * a crash between handling and storing means the tail of a batch is seen again.
+ *
+ * Ids are handed out when an event is inserted, not when it commits, so a transaction that
+ * got id N can commit after the one that got N+1. A missing id is therefore a gap that may
+ * still fill: delivery stops in front of it until it does, or until gap-grace-ms have passed
+ * (the transaction rolled back and the id is never used). Events stay in id order for every
+ * subscriber, except one committed more than gap-grace-ms after a later one: the ids moved past
+ * are looked up again every gap-grace-ms for late-commit-window-ms, and an event that turns up
+ * is handed to the subscribers already past it with {@link OutboxSubscriber#handleLate}. Those
+ * ids are kept in memory, at most MAX_RECHECKED_IDS of them; a restart forgets them.
+ *
+ * A subscriber that throws is retried from the failed event after a back-off that doubles
+ * up to max-backoff-ms; the others carry on. When there is nothing to deliver the relay polls
+ * every idle-poll-ms, and sooner once an event is committed in this process.
+ *
+ * Delivered events are deleted after retention-hours.
+ */
+@Component
+public class OutboxRelay implements MeterBinder {
+
+    // Per subscriber, guarded by the relay
+    private static final class Cursor {
+        final OutboxSubscriber subscriber;
+        long offset;
+        int failures;
+        long retryAt;
+        final LongAdder delivered = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        volatile Timer delay;
+
+        Cursor(OutboxSubscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+    }
+
+    // An id delivery moved past while it was missing. Once its event turns up, owed holds the subscribers
+    // that were past it then and have not handled it yet
+    private static final class Skipped {
+        final long skippedAt;
+        OutboxEvent event;
+        Set<Cursor> owed;
+
+        Skipped(long skippedAt) {
+            this.skippedAt = skippedAt;
+        }
+    }
+
+    // Bounds the memory a burst of rolled-back ids can take; the oldest are given up first
+    private static final int MAX_RECHECKED_IDS = 10_000;
+
+    private final OutboxEventRepository eventRepository;
+    private final OutboxOffsetRepository offsetRepository;
+    private final List<Cursor> cursors = new ArrayList<>();
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long idlePollMillis;
+    private final long retentionHours;
+    private final long gapGraceMillis;
+    private final long lateCommitWindowMillis;
+
+    private boolean loaded;
+    private long nextIdlePollAt;
+    private volatile boolean signalled;
+    // The first missing id delivery is held at, and when it was first seen missing; 0 when none
+    private long gapId;
+    private long gapSeenAt;
+    // Missing ids up to here were given up on already, for a subscriber that comes back from a back-off behind them
+    private long skippedThrough;
+    private final LongAdder gapsSkipped = new LongAdder();
+    // Ids moved past, looked up again every gap-grace-ms in case they commit late
+    private final TreeMap<Long, Skipped> skipped = new TreeMap<>();
+    private long nextLateCheckAt;
+    private final LongAdder lateDelivered = new LongAdder();
+    // Highest event id known to exist, for the lag gauges
+    private final AtomicLong latestEventId = new AtomicLong();
+
+    public OutboxRelay(OutboxEventRepository eventRepository,
+                       OutboxOffsetRepository offsetRepository,
+                       ObjectProvider<OutboxSubscriber> subscribers,
+                       @Value("${insurai.outbox.batch-size:200}") int batchSize,
+                       @Value("${insurai.outbox.max-batches-per-run:50}") int maxBatchesPerRun,
+                       @Value("${insurai.outbox.initial-backoff-ms:1000}") long initialBackoffMillis,
+                       @Value("${insurai.outbox.max-backoff-ms:60000}") long maxBackoffMillis,
+                       @Value("${insurai.outbox.idle-poll-ms:2000}") long idlePollMillis,
+                       @Value("${insurai.outbox.retention-hours:72}") long retentionHours,
+                       @Value("${insurai.outbox.gap-grace-ms:10000}") long gapGraceMillis,
+                       @Value("${insurai.outbox.late-commit-window-ms:3600000}") long lateCommitWindowMillis) {
+        this.eventRepository = eventRepository;
+        this.offsetRepository = offsetRepository;
+        subscribers.orderedStream().forEach(subscriber -> cursors.add(new Cursor(subscriber)));
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.idlePollMillis = idlePollMillis;
+        this.retentionHours = retentionHours;
+        this.gapGraceMillis = gapGraceMillis;
+        this.lateCommitWindowMillis = lateCommitWindowMillis;
+    }
+
+    /**
+     * An event up to eventId was committed; deliver on the next run instead of the next idle poll
+     */
+    public void signal(long eventId) {
+        latestEventId.accumulateAndGet(eventId, Math::max);
+        signalled = true;
+    }
+
+    @Scheduled(fixedDelayString = "${insurai.outbox.poll-interval-ms:100}")
+    public void relay() {
+        relay(System.currentTimeMillis());
+    }
+
+    /**
+     * Deliver what is there, up to max-batches-per-run batches. Returns the number of deliveries.
+     */
+    synchronized int relay(long nowMillis) {
+        ensureLoaded();
+        if (cursors.isEmpty() || (!signalled && nowMillis < nextIdlePollAt)) {
+            return 0;
+        }
+        signalled = false;
+
+        int delivered = 0;
+        if (!skipped.isEmpty() && nowMillis >= nextLateCheckAt) {
+            delivered += deliverLate(nowMillis);
+            nextLateCheckAt = nowMillis + gapGraceMillis;
+        }
+        boolean more = false;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            long from = Long.MAX_VALUE;
+            for (Cursor cursor : cursors) {
+                if (cursor.retryAt <= nowMillis) {
+                    from = Math.min(from, cursor.offset);
+                }
+            }
+            if (from == Long.MAX_VALUE) {
+                break;
+            }
+            List<OutboxEvent> read = eventRepository.findByIdGreaterThanOrderByIdAsc(from, Limit.of(batchSize));
+            if (read.isEmpty()) {
+                break;
+            }
+            latestEventId.accumulateAndGet(read.get(read.size() - 1).getId(), Math::max);
+            List<OutboxEvent> events = upToOpenGap(from, read, nowMillis);
+            for (Cursor cursor : cursors) {
+                if (cursor.retryAt <= nowMillis) {
+                    delivered += deliver(cursor, events, nowMillis);
+                }
+            }
+            // Short of a batch: the end of the table, or held at a gap
+            more = events.size() == batchSize;
+            if (!more) {
+                break;
+            }
+        }
+        // A full last batch means a backlog: come back on the next run rather than after the idle poll.
+        // Idle or not, a subscriber's retry is not made to wait for the poll.
+        long next = delivered > 0 || more ? 0 : nowMillis + idlePollMillis;
+        for (Cursor cursor : cursors) {
+            if (cursor.retryAt > nowMillis) {
+                next = Math.min(next, cursor.retryAt);
+            }
+        }
+        if (gapId != 0) {
+            next = Math.min(next, gapSeenAt + gapGraceMillis);
+        }
+        if (!skipped.isEmpty()) {
+            next = Math.min(next, nextLateCheckAt);
+        }
+        nextIdlePollAt = next;
+        return delivered;
+    }
+
+    /**
+     * The events read after from, cut at the first missing id that may still be committed.
+     * Missing ids older than gap-grace-ms are skipped, and remembered for deliverLate.
+     */
+    private List<OutboxEvent> upToOpenGap(long from, List<OutboxEvent> events, long nowMillis) {
+        long expected = from + 1;
+        for (int i = 0; i < events.size(); i++) {
+            long id = events.get(i).getId();
+            long missing = Math.max(expected, skippedThrough + 1);
+            if (id > missing) {
+                if (gapId != missing) {
+                    gapId = missing;
+                    gapSeenAt = nowMillis;
+                }
+                if (nowMillis - gapSeenAt < gapGraceMillis) {
+                    return events.subList(0, i);
+                }
+                // Rolled back, or its transaction ran past the grace period
+                gapsSkipped.add(id - missing);
+                for (long skippedId = Math.max(missing, id - MAX_RECHECKED_IDS); skippedId < id; skippedId++) {
+                    skipped.putIfAbsent(skippedId, new Skipped(nowMillis));
+                }
+                while (skipped.size() > MAX_RECHECKED_IDS) {
+                    skipped.pollFirstEntry();
+                }
+                if (nextLateCheckAt <= nowMillis) {
+                    nextLateCheckAt = nowMillis + gapGraceMillis;
+                }
+                skippedThrough = id - 1;
+                gapId = 0;
+            }
+            expected = id + 1;
+        }
+        if (gapId != 0 && gapId < expected) {
+            // Filled
+            gapId = 0;
+        }
+        return events;
+    }
+
+    /**
+     * Look the skipped ids up again and hand the events that have turned up to the subscribers
+     * already past them; a subscriber still behind reads them in order as usual. A failing
+     * subscriber backs off and is offered the event again on a later check. Ids still missing
+     * after late-commit-window-ms are given up on: rolled back.
+     */
+    private int deliverLate(long nowMillis) {
+        List<Long> lookUp = new ArrayList<>();
+        for (Iterator<Map.Entry<Long, Skipped>> it = skipped.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, Skipped> entry = it.next();
+            if (entry.getValue().event == null) {
+                if (nowMillis - entry.getValue().skippedAt >= lateCommitWindowMillis) {
+                    it.remove();
+                } else {
+                    lookUp.add(entry.getKey());
+                }
+            }
+        }
+        for (int from = 0; from < lookUp.size(); from += batchSize) {
+            for (OutboxEvent event : eventRepository.findAllById(lookUp.subList(from, Math.min(from + batchSize, lookUp.size())))) {
+                Skipped late = skipped.get(event.getId());
+                late.event = event;
+                late.owed = new LinkedHashSet<>();
+                for (Cursor cursor : cursors) {
+                    if (cursor.offset >= event.getId()) {
+                        late.owed.add(cursor);
+                    }
+                }
+            }
+        }
+
+        int delivered = 0;
+        for (Iterator<Skipped> it = skipped.values().iterator(); it.hasNext(); ) {
+            Skipped late = it.next();
+            if (late.event == null) {
+                continue;
+            }
+            for (Iterator<Cursor> owed = late.owed.iterator(); owed.hasNext(); ) {
+                Cursor cursor = owed.next();
+                if (cursor.retryAt > nowMillis) {
+                    continue;
+                }
+                try {
+                    cursor.subscriber.handleLate(late.event);
+                } catch (Exception e) {
+                    cursor.failed.increment();
+                    cursor.failures++;
+                    long backoff = initialBackoffMillis << Math.min(cursor.failures - 1, 20);
+                    cursor.retryAt = nowMillis + Math.min(backoff, maxBackoffMillis);
+                    continue;
+                }
+                owed.remove();
+                cursor.failures = 0;
+                cursor.delivered.increment();
+                lateDelivered.increment();
+                delivered++;
+            }
+            if (late.owed.isEmpty()) {
+                it.remove();
+            }
+        }
+        return delivered;
+    }
+
+    private int deliver(Cursor cursor, List<OutboxEvent> events, long nowMillis) {
+        long start = cursor.offset;
+        int delivered = 0;
+        for (OutboxEvent event : events) {
+            if (event.getId() <= cursor.offset) {
+                continue;
+            }
+            try {
+                cursor.subscriber.handle(event);
+            } catch (Exception e) {
+                cursor.failed.increment();
+                cursor.failures++;
+                long backoff = initialBackoffMillis << Math.min(cursor.failures - 1, 20);
+                cursor.retryAt = nowMillis + Math.min(backoff, maxBackoffMillis);
+                break;
+            }
+            cursor.offset = event.getId();
+            cursor.failures = 0;
+            cursor.retryAt = 0;
+            cursor.delivered.increment();
+            delivered++;
+            Timer delay = cursor.delay;
+            if (delay != null) {
+                delay.record(Duration.between(event.getCreatedAt(), LocalDateTime.now()).toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+        if (cursor.offset > start) {
+            offsetRepository.advance(cursor.subscriber.name(), cursor.offset, LocalDateTime.now());
+        }
+        return delivered;
+    }
+
+    /**
+     * Read the stored offsets. A subscriber seen for the first time starts after the newest
+     * event, it does not replay history.
+     */
+    synchronized void reload() {
+        long latest = eventRepository.findMaxId();
+        latestEventId.accumulateAndGet(latest, Math::max);
+        for (Cursor cursor : cursors) {
+            String name = cursor.subscriber.name();
+            OutboxOffset offset = offsetRepository.findById(name)
+                    .orElseGet(() -> offsetRepository.save(new OutboxOffset(name, latest)));
+            cursor.offset = offset.getLastEventId();
+            cursor.failures = 0;
+            cursor.retryAt = 0;
+            cursor.subscriber.start(cursor.offset);
+        }
+        loaded = true;
+        nextIdlePollAt = 0;
+        gapId = 0;
+        skipped.clear();
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            reload();
+        }
+    }
+
+    /**
+     * Delete events every subscriber is past and that are older than the retention
+     */
+    @Scheduled(fixedDelayString = "${insurai.outbox.purge-interval-ms:3600000}")
+    public void purge() {
+        long upTo;
+        synchronized (this) {
+            ensureLoaded();
+            upTo = cursors.stream().mapToLong(cursor -> cursor.offset).min().orElse(latestEventId.get());
+        }
+        eventRepository.deleteDelivered(upTo, LocalDateTime.now().minusHours(retentionHours));
+    }
+
+    // -------------------- Metrics --------------------
+
+    private synchronized long offset(Cursor cursor) {
+        return cursor.offset;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("insurai.outbox.gaps.skipped", gapsSkipped, LongAdder::sum)
+                .description("Event ids moved past after gap-grace-ms: rolled back, or committed late")
+                .register(registry);
+        FunctionCounter.builder("insurai.outbox.gaps.late", lateDelivered, LongAdder::sum)
+                .description("Skipped events that committed late, handed to a subscriber after the ones that follow them")
+                .register(registry);
+        for (Cursor cursor : cursors) {
+            String name = cursor.subscriber.name();
+            Gauge.builder("insurai.outbox.lag", this, relay -> Math.max(0, latestEventId.get() - relay.offset(cursor)))
+                    .description("Outbox events not yet delivered to the subscriber")
+                    .tag("subscriber", name)
+                    .register(registry);
+            FunctionCounter.builder("insurai.outbox.delivered", cursor.delivered, LongAdder::sum)
+                    .description("Outbox events delivered")
+                    .tag("subscriber", name)
+                    .register(registry);
+            FunctionCounter.builder("insurai.outbox.failures", cursor.failed, LongAdder::sum)
+                    .description("Outbox deliveries that failed and were retried after a back-off")
+                    .tag("subscriber", name)
+                    .register(registry);
+            cursor.delay = Timer.builder("insurai.outbox.delivery.delay")
+                    .description("Time from recording an outbox event to delivering it")
+                    .tag("subscriber", name)
+                    .register(registry);
+        }
+    }
+}
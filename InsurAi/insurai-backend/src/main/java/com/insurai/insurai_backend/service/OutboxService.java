@@ -0,0 +1,58 @@
+package com.insurai.insurai_backend.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insurai.insurai_backend.model.OutboxEvent;
+import com.insurai.insurai_backend.repository.OutboxEventRepository;
+
+/**
+ * Writes lifecycle events to the outbox table. Always inside the caller's transaction, so an
+ * event exists exactly when the change it describes was committed; side effects run later,
+ * off the request, through the {@link OutboxRelay}.
+ */
+@Service
+public class OutboxService {
+
+    public static final String CLAIM = "claim";
+    public static final String QUERY = "query";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxRelay relay;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository, OutboxRelay relay, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.relay = relay;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Record an event; payload is stored as JSON. Fails without a surrounding transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OutboxEvent record(String type, String aggregateType, Long aggregateId, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload for " + type + " is not serializable", e);
+        }
+        OutboxEvent event = outboxEventRepository.save(new OutboxEvent(type, aggregateType, aggregateId, json));
+
+        // Once committed, the relay need not wait for its next idle poll
+        long eventId = event.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                relay.signal(eventId);
+            }
+        });
+        return event;
+    }
+}
@@ -0,0 +1,36 @@
+package com.insurai.insurai_backend.service;
+
+import com.insurai.insurai_backend.model.OutboxEvent;
+
+/**
+ * An in-process consumer of outbox events. Every Spring bean implementing this is picked up
+ * by the {@link OutboxRelay} and gets each event at least once, in id order except for late
+ * commits (see {@link #handleLate}): an event may come again after a failure or a restart, so
+ * handling must be idempotent.
+ *
+ * Throwing stops delivery to this subscriber; the same event is retried after a back-off.
+ * Other subscribers are not held up.
+ */
+public interface OutboxSubscriber {
+
+    /**
+     * Stable name; the subscriber's offset is stored under it
+     */
+    String name();
+
+    void handle(OutboxEvent event) throws Exception;
+
+    /**
+     * An event whose transaction committed more than gap-grace-ms after a later event's, handed
+     * over after the events that follow it. Handled like any other unless order matters.
+     */
+    default void handleLate(OutboxEvent event) throws Exception {
+        handle(event);
+    }
+
+    /**
+     * Called when the relay (re)loads the stored offset: the next event handled comes after it
+     */
+    default void start(long offset) {
+    }
+}
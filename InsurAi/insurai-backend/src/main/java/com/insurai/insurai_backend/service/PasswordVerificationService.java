@@ -0,0 +1,142 @@
+package com.insurai.insurai_backend.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs BCrypt password checks for the login endpoints on a small dedicated pool, so a
+ * burst of logins queues here instead of pinning every Tomcat worker that claim traffic
+ * needs. When the queue is full the check is refused straight away and the controller
+ * answers 503 with Retry-After.
+ *
+ * A successful check also reports a fresh hash when the stored one was made with a
+ * different work factor than insurai.password.bcrypt-strength; callers save it.
+ */
+@Service
+public class PasswordVerificationService implements MeterBinder {
+
+    public enum Outcome { MATCH, MISMATCH, REJECTED }
+
+    public record PasswordCheck(Outcome outcome, String rehashed) {
+        public boolean matches() {
+            return outcome == Outcome.MATCH;
+        }
+
+        public boolean rejected() {
+            return outcome == Outcome.REJECTED;
+        }
+    }
+
+    private static final PasswordCheck REJECTED = new PasswordCheck(Outcome.REJECTED, null);
+    private static final PasswordCheck MISMATCH = new PasswordCheck(Outcome.MISMATCH, null);
+
+    // $2a$10$..., $2b$12$..., $2y$...
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d{2})\\$");
+
+    private final PasswordEncoder passwordEncoder;
+    private final int targetStrength;
+    private final long retryAfterSeconds;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder rehashes = new LongAdder();
+
+    public PasswordVerificationService(PasswordEncoder passwordEncoder,
+                                       @Value("${insurai.password.bcrypt-strength:10}") int targetStrength,
+                                       @Value("${insurai.login.threads:4}") int threads,
+                                       @Value("${insurai.login.queue-capacity:64}") int queueCapacity,
+                                       @Value("${insurai.login.retry-after-seconds:2}") long retryAfterSeconds) {
+        this.passwordEncoder = passwordEncoder;
+        this.targetStrength = targetStrength;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "login-verify-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Check the raw password against the stored hash on the login pool. The future
+     * completes with {@link Outcome#REJECTED} at once when the pool is saturated.
+     */
+    public CompletableFuture<PasswordCheck> verify(String rawPassword, String storedHash) {
+        if (rawPassword == null || storedHash == null) {
+            return CompletableFuture.completedFuture(MISMATCH);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> check(rawPassword, storedHash), executor);
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            return CompletableFuture.completedFuture(REJECTED);
+        }
+    }
+
+    // Fast refusal for callers turned away at admission
+    public ResponseEntity<String> overloadedResponse() {
+        return ResponseEntity.status(503)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body("Too many concurrent logins, please retry shortly");
+    }
+
+    private PasswordCheck check(String rawPassword, String storedHash) {
+        if (!passwordEncoder.matches(rawPassword, storedHash)) {
+            return MISMATCH;
+        }
+        if (!needsRehash(storedHash)) {
+            return new PasswordCheck(Outcome.MATCH, null);
+        }
+        rehashes.increment();
+        return new PasswordCheck(Outcome.MATCH, passwordEncoder.encode(rawPassword));
+    }
+
+    boolean needsRehash(String storedHash) {
+        Matcher matcher = BCRYPT_COST.matcher(storedHash);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != targetStrength;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("insurai.login.queue.depth", executor, e -> e.getQueue().size())
+                .description("Password checks waiting for a login thread")
+                .register(registry);
+        Gauge.builder("insurai.login.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password checks currently running")
+                .register(registry);
+        FunctionCounter.builder("insurai.login.rejected", rejections, LongAdder::sum)
+                .description("Logins refused with 503 because the queue was full")
+                .register(registry);
+        FunctionCounter.builder("insurai.login.rehashed", rehashes, LongAdder::sum)
+                .description("Stored hashes upgraded to the configured work factor")
+                .register(registry);
+    }
+}
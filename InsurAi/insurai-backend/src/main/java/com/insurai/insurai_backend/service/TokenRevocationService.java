@@ -0,0 +1,152 @@
+package com.insurai.insurai_backend.service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.insurai.insurai_backend.config.JwtPrincipal;
+import com.insurai.insurai_backend.config.JwtUtil;
+import com.insurai.insurai_backend.model.RevokedToken;
+import com.insurai.insurai_backend.model.SessionRevocation;
+import com.insurai.insurai_backend.repository.RevokedTokenRepository;
+import com.insurai.insurai_backend.repository.SessionRevocationRepository;
+import com.insurai.insurai_backend.util.BloomFilter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Token revocation (logout, and "revoke all sessions" for a user).
+ *
+ * Revocations are persisted, and mirrored in memory so the JWT filter can check every
+ * request without I/O: a bloom filter answers "definitely not revoked" for almost all
+ * tokens, and only a bloom hit falls through to the exact jti map. Per-user cutoffs are a
+ * separate map from subject to a whole second; tokens issued before it are rejected.
+ *
+ * Entries are dropped once the tokens they cover have expired. The periodic refresh
+ * also reloads rows written by other instances.
+ */
+@Service
+public class TokenRevocationService implements MeterBinder {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final SessionRevocationRepository sessionRevocationRepository;
+    private final JwtUtil jwtUtil;
+    private final int expectedRevocations;
+    private final double falsePositiveRate;
+
+    // jti -> token expiry (epoch millis)
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    // subject -> tokens issued before this second are revoked
+    private final Map<String, Instant> sessionCutoffs = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloom;
+
+    // Writers (revoke, rebuild) serialise on this; readers never lock
+    private final Object writeLock = new Object();
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  SessionRevocationRepository sessionRevocationRepository,
+                                  JwtUtil jwtUtil,
+                                  @Value("${insurai.jwt.revocation.expected-entries:10000}") int expectedRevocations,
+                                  @Value("${insurai.jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.sessionRevocationRepository = sessionRevocationRepository;
+        this.jwtUtil = jwtUtil;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.bloom = new BloomFilter(expectedRevocations, falsePositiveRate);
+    }
+
+    @PostConstruct
+    public void load() {
+        refresh();
+    }
+
+    // Called by the JWT filter on every authenticated request: memory only
+    public boolean isRevoked(JwtPrincipal principal) {
+        String tokenId = principal.tokenId();
+        if (tokenId != null && bloom.mightContain(tokenId) && revokedTokens.containsKey(tokenId)) {
+            return true;
+        }
+        if (sessionCutoffs.isEmpty() || principal.subject() == null) {
+            return false;
+        }
+        Instant cutoff = sessionCutoffs.get(principal.subject());
+        // iat has second precision: a login in the same second as the cutoff must still get a working token
+        return cutoff != null && (principal.issuedAt() == null || principal.issuedAt().isBefore(cutoff));
+    }
+
+    /**
+     * Revoke one token. Tokens issued before jti was added cannot be told apart, so for
+     * those every session of the subject is revoked instead.
+     */
+    public void revoke(JwtPrincipal principal) {
+        if (principal.tokenId() == null) {
+            revokeAllSessions(principal.subject());
+            return;
+        }
+        Instant expiresAt = principal.expiresAt() != null
+                ? principal.expiresAt()
+                : Instant.now().plusMillis(jwtUtil.getExpirationTime());
+        revokedTokenRepository.save(new RevokedToken(principal.tokenId(), principal.subject(), expiresAt, Instant.now()));
+        synchronized (writeLock) {
+            revokedTokens.put(principal.tokenId(), expiresAt.toEpochMilli());
+            bloom.put(principal.tokenId());
+        }
+    }
+
+    // Reject every token issued to this subject in earlier seconds; logging in again issues a fresh one
+    public void revokeAllSessions(String subject) {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        sessionRevocationRepository.save(
+                new SessionRevocation(subject, now, now.plusMillis(jwtUtil.getExpirationTime())));
+        sessionCutoffs.merge(subject, now, (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    /**
+     * Purge expired rows, pick up revocations written by other instances and rebuild the
+     * bloom filter, which is the only way to drop values from it.
+     */
+    @Scheduled(fixedDelayString = "${insurai.jwt.revocation.refresh-interval-ms:60000}",
+               initialDelayString = "${insurai.jwt.revocation.refresh-interval-ms:60000}")
+    public void refresh() {
+        Instant now = Instant.now();
+        revokedTokenRepository.deleteExpired(now);
+        sessionRevocationRepository.deleteExpired(now);
+
+        synchronized (writeLock) {
+            for (RevokedToken token : revokedTokenRepository.findByExpiresAtAfter(now)) {
+                revokedTokens.putIfAbsent(token.getTokenId(), token.getExpiresAt().toEpochMilli());
+            }
+            long nowMillis = now.toEpochMilli();
+            revokedTokens.values().removeIf(expiresAt -> expiresAt <= nowMillis);
+
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, revokedTokens.size() * 2), falsePositiveRate);
+            revokedTokens.keySet().forEach(rebuilt::put);
+            bloom = rebuilt;
+        }
+
+        for (SessionRevocation revocation : sessionRevocationRepository.findByExpiresAtAfter(now)) {
+            sessionCutoffs.merge(revocation.getSubject(), revocation.getRevokedBefore(), (a, b) -> a.isAfter(b) ? a : b);
+        }
+        long lifetime = jwtUtil.getExpirationTime();
+        sessionCutoffs.values().removeIf(cutoff -> !cutoff.plusMillis(lifetime).isAfter(now));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("insurai.jwt.revoked.tokens", revokedTokens, Map::size)
+                .description("Revoked tokens that have not expired yet")
+                .register(registry);
+        Gauge.builder("insurai.jwt.revoked.sessions", sessionCutoffs, Map::size)
+                .description("Users with a revoke-all-sessions cutoff still in force")
+                .register(registry);
+    }
+}
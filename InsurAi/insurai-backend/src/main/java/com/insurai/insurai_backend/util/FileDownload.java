@@ -0,0 +1,166 @@
+package com.insurai.insurai_backend.util;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Writes a file as the response to a GET or HEAD, without copying it through the heap.
+ *
+ * Conditional and partial requests are answered here: If-None-Match matching the ETag gets a
+ * 304, a single satisfiable Range a 206 (honoured only while If-Range still matches), an
+ * unsatisfiable one a 416. Several ranges, or a malformed Range, get the whole file, as the
+ * HTTP spec allows.
+ *
+ * On Tomcat the body is left to the connector's sendfile, so the kernel copies the file to the
+ * socket after the servlet returns; elsewhere, and for bodies under sendfileMinBytes, it goes
+ * through FileChannel.transferTo.
+ */
+public class FileDownload {
+
+    // Tomcat's request attributes for sendfile (org.apache.tomcat.util.net.Constants / Globals)
+    static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    public enum Outcome { FULL, PARTIAL, NOT_MODIFIED, UNSATISFIABLE }
+
+    // bytes is what the response body carries; sendfile tells whether the connector sends it
+    public record Sent(Outcome outcome, long bytes, boolean sendfile) {}
+
+    private FileDownload() {
+    }
+
+    /**
+     * Answer the request with file, sent as filename. etag is a quoted entity tag, W/ prefixed
+     * when weak; cacheControl goes on every response, 304s included.
+     */
+    public static Sent write(HttpServletRequest request, HttpServletResponse response, Path file,
+                             String filename, String etag, String cacheControl, long sendfileMinBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+            if (matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return new Sent(Outcome.NOT_MODIFIED, 0, false);
+            }
+
+            response.setContentType(MediaTypeFactory.getMediaType(filename)
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+            // filename*= only when the name needs it
+            ContentDisposition.Builder disposition = ContentDisposition.inline();
+            if (StandardCharsets.US_ASCII.newEncoder().canEncode(filename)) {
+                disposition.filename(filename);
+            } else {
+                disposition.filename(filename, StandardCharsets.UTF_8);
+            }
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition.build().toString());
+            response.setHeader("X-Content-Type-Options", "nosniff");
+
+            long start = 0;
+            long end = size - 1;
+            Outcome outcome = Outcome.FULL;
+            HttpRange range = range(request, etag);
+            if (range != null) {
+                try {
+                    start = range.getRangeStart(size);
+                    end = range.getRangeEnd(size);
+                    if (end < start) {
+                        // bytes=-0, or any range of an empty file
+                        throw new IllegalArgumentException("Empty range");
+                    }
+                } catch (IllegalArgumentException e) {
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    response.setContentLengthLong(0);
+                    return new Sent(Outcome.UNSATISFIABLE, 0, false);
+                }
+                outcome = Outcome.PARTIAL;
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+            long length = end - start + 1;
+            response.setContentLengthLong(length);
+            if ("HEAD".equals(request.getMethod()) || length == 0) {
+                return new Sent(outcome, length, false);
+            }
+
+            if (length >= sendfileMinBytes && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+                request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, end + 1);
+                return new Sent(outcome, length, true);
+            }
+
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long n = channel.transferTo(position, remaining, out);
+                if (n <= 0) {
+                    // The file shrank under us; the client sees a short body against the Content-Length
+                    throw new IOException("File ended at " + position + " of " + (end + 1) + " bytes");
+                }
+                position += n;
+                remaining -= n;
+            }
+            return new Sent(outcome, length, false);
+        }
+    }
+
+    // The one range to send, or null for the whole file
+    private static HttpRange range(HttpServletRequest request, String etag) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        // If-Range needs a strong match; a date is never one here, there is no Last-Modified
+        if (ifRange != null && (etag.startsWith("W/") || !ifRange.trim().equals(etag))) {
+            return null;
+        }
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(header);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return ranges.size() == 1 ? ranges.get(0) : null;
+    }
+
+    // Weak comparison, as If-None-Match uses
+    static boolean matchesAny(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if ((tag.startsWith("W/") ? tag.substring(2) : tag).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,309 @@
+package com.insurai.insurai_backend.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Pull parser for a multipart/form-data body, read from the stream as it arrives through one
+ * fixed-size buffer: memory use does not depend on the size of the parts.
+ *
+ * {@link #next()} returns each part in turn with its headers; its body is read from
+ * {@link Part#body()} and must be consumed before the next part (next() skips whatever is
+ * left). Part headers must fit in the buffer. Anything that is not a well-formed body
+ * (missing boundary, truncated part) fails with an IOException.
+ */
+public class MultipartStream {
+
+    public static final class Part {
+        private final String name;
+        private final String filename;
+        private final String contentType;
+        private final InputStream body;
+
+        private Part(String name, String filename, String contentType, InputStream body) {
+            this.name = name;
+            this.filename = filename;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        // The form field name
+        public String name() {
+            return name;
+        }
+
+        // Null for a plain field; may be empty for a file input left empty
+        public String filename() {
+            return filename;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public boolean isFile() {
+            return filename != null;
+        }
+
+        public InputStream body() {
+            return body;
+        }
+
+        // The body as UTF-8 text, for plain fields
+        public String value(int maxBytes) throws IOException {
+            ByteArrayOutputStream value = new ByteArrayOutputStream();
+            byte[] chunk = new byte[256];
+            int n;
+            while ((n = body.read(chunk)) > 0) {
+                if (value.size() + n > maxBytes) {
+                    throw new IOException("Field " + name + " is longer than " + maxBytes + " bytes");
+                }
+                value.write(chunk, 0, n);
+            }
+            return value.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final byte[] HEADER_END = {'\r', '\n', '\r', '\n'};
+
+    private final InputStream in;
+    // CRLF "--" boundary: every boundary line but the first, which the buffer is primed to look like
+    private final byte[] delimiter;
+    private final byte[] buf;
+    private final byte[] single = new byte[1];
+    private final byte[] skip = new byte[256];
+    private int pos;
+    private int limit;
+
+    private boolean finished;
+    // The preamble before the first boundary is read like a part, and skipped
+    private boolean partEnded;
+
+    public MultipartStream(InputStream in, String boundary, int bufferSize) {
+        if (boundary == null || boundary.isEmpty() || boundary.length() > 70) {
+            throw new IllegalArgumentException("Invalid multipart boundary");
+        }
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.US_ASCII);
+        if (bufferSize < 4 * delimiter.length) {
+            throw new IllegalArgumentException("Buffer of " + bufferSize + " bytes is too small for the boundary");
+        }
+        this.buf = new byte[bufferSize];
+        buf[0] = '\r';
+        buf[1] = '\n';
+        limit = 2;
+    }
+
+    /**
+     * The boundary parameter of a multipart Content-Type header, null if there is none
+     */
+    public static String boundary(String contentType) {
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/")) {
+            return null;
+        }
+        return parameter(contentType, "boundary");
+    }
+
+    /**
+     * The next part, or null after the closing boundary
+     */
+    public Part next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        while (readBody(skip, 0, skip.length) >= 0) {
+            // discard the rest of the previous part
+        }
+
+        if (!ensure(2)) {
+            throw new IOException("Multipart body ends after a boundary");
+        }
+        if (buf[pos] == '-' && buf[pos + 1] == '-') {
+            finished = true;
+            return null;
+        }
+        // Transport padding after the boundary is allowed, then CRLF
+        while (buf[pos] == ' ' || buf[pos] == '\t') {
+            pos++;
+            if (!ensure(2)) {
+                throw new IOException("Multipart body ends after a boundary");
+            }
+        }
+        if (buf[pos] != '\r' || buf[pos + 1] != '\n') {
+            throw new IOException("Malformed multipart boundary line");
+        }
+        pos += 2;
+
+        String headers = readHeaders();
+        String name = null;
+        String filename = null;
+        String contentType = null;
+        for (String line : headers.split("\r\n")) {
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String header = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+            if (header.equals("content-disposition")) {
+                name = parameter(value, "name");
+                filename = parameter(value, "filename");
+            } else if (header.equals("content-type")) {
+                contentType = value;
+            }
+        }
+        partEnded = false;
+        return new Part(name, filename, contentType, new InputStream() {
+            @Override
+            public int read() throws IOException {
+                return readBody(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return readBody(b, off, len);
+            }
+        });
+    }
+
+    private String readHeaders() throws IOException {
+        if (ensure(2) && buf[pos] == '\r' && buf[pos + 1] == '\n') {
+            // A part without headers
+            pos += 2;
+            return "";
+        }
+        int searched = pos;
+        while (true) {
+            int end = indexOf(HEADER_END, searched);
+            if (end >= 0) {
+                String headers = new String(buf, pos, end - pos, StandardCharsets.UTF_8);
+                pos = end + HEADER_END.length;
+                return headers;
+            }
+            searched = Math.max(pos, limit - HEADER_END.length + 1);
+            if (pos == 0 && limit == buf.length) {
+                throw new IOException("Multipart part headers are longer than " + buf.length + " bytes");
+            }
+            int before = pos;
+            compact();
+            searched -= before;
+            if (fill() < 0) {
+                throw new IOException("Multipart body ends inside part headers");
+            }
+        }
+    }
+
+    // Copies body bytes of the current part; -1 once its closing boundary has been consumed
+    private int readBody(byte[] b, int off, int len) throws IOException {
+        if (partEnded) {
+            return -1;
+        }
+        if (len == 0) {
+            return 0;
+        }
+        while (true) {
+            int boundaryAt = indexOf(delimiter, pos);
+            if (boundaryAt == pos) {
+                pos += delimiter.length;
+                partEnded = true;
+                return -1;
+            }
+            // Bytes that cannot be the start of a boundary are body
+            int safe = boundaryAt >= 0 ? boundaryAt : Math.max(pos, limit - delimiter.length + 1);
+            if (safe > pos) {
+                int n = Math.min(len, safe - pos);
+                System.arraycopy(buf, pos, b, off, n);
+                pos += n;
+                return n;
+            }
+            compact();
+            if (fill() < 0) {
+                throw new IOException("Multipart body ends inside a part");
+            }
+        }
+    }
+
+    private int indexOf(byte[] pattern, int from) {
+        byte first = pattern[0];
+        int last = limit - pattern.length;
+        outer:
+        for (int i = from; i <= last; i++) {
+            if (buf[i] != first) {
+                continue;
+            }
+            for (int j = 1; j < pattern.length; j++) {
+                if (buf[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private boolean ensure(int bytes) throws IOException {
+        while (limit - pos < bytes) {
+            compact();
+            if (fill() < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void compact() {
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+    }
+
+    private int fill() throws IOException {
+        int n = in.read(buf, limit, buf.length - limit);
+        if (n > 0) {
+            limit += n;
+        }
+        return n;
+    }
+
+    // A parameter of a header value such as: form-data; name="field"; filename="a;b.pdf"
+    private static String parameter(String header, String name) {
+        int i = header.indexOf(';');
+        while (i >= 0 && i < header.length()) {
+            i++;
+            while (i < header.length() && header.charAt(i) == ' ') {
+                i++;
+            }
+            int equals = header.indexOf('=', i);
+            if (equals < 0) {
+                return null;
+            }
+            String key = header.substring(i, equals).trim();
+            StringBuilder value = new StringBuilder();
+            int j = equals + 1;
+            if (j < header.length() && header.charAt(j) == '"') {
+                for (j++; j < header.length() && header.charAt(j) != '"'; j++) {
+                    char c = header.charAt(j);
+                    if (c == '\\' && j + 1 < header.length()) {
+                        c = header.charAt(++j);
+                    }
+                    value.append(c);
+                }
+                j = header.indexOf(';', j);
+            } else {
+                int end = header.indexOf(';', j);
+                value.append(header, j, end < 0 ? header.length() : end);
+                j = end;
+            }
+            if (key.equalsIgnoreCase(name)) {
+                return value.toString().trim();
+            }
+            i = j;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,312 @@
+package com.insurai.insurai_backend.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Hierarchical timing wheel: timers keyed by a long (a claim id), each firing once when the
+ * clock passes its deadline. Scheduling, cancelling and firing are O(1); advancing the clock
+ * costs one step per elapsed tick plus an occasional cascade of a higher level's slot into
+ * the levels below it.
+ *
+ * levels wheels of 2^bits slots each; a slot at level l spans 2^(bits * l) ticks, so the
+ * wheel reaches 2^(bits * levels) ticks ahead (8 bits x 4 levels of 1s ticks is over a
+ * century). Deadlines further out are held at the horizon and fire there.
+ *
+ * Timers live in parallel primitive arrays linked into per-slot lists, with an open-addressing
+ * table from key to timer for cancellation: about 36 bytes per timer and no object per timer.
+ * The arrays grow on demand up to maxTimers; beyond that {@link #schedule} refuses.
+ *
+ * Not thread-safe; callers serialize access.
+ */
+public class TimingWheel {
+
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final long tickMillis;
+    private final int bits;
+    private final int levels;
+    private final int mask;
+    private final long horizonTicks;
+    private final int maxTimers;
+
+    // Head timer of each slot's list, level by level
+    private final int[] heads;
+
+    // Per timer: key, deadline, its slot and list neighbours; free timers are chained through next
+    private long[] keys;
+    private long[] deadlines;
+    private int[] slots;
+    private int[] next;
+    private int[] prev;
+    private int free = NONE;
+    private int used;
+    private int size;
+
+    // Key -> timer + 1 (0 is empty), linear probing
+    private int[] table;
+
+    // Ticks before this one have been processed
+    private long currentTick;
+
+    public TimingWheel(long tickMillis, int bits, int levels, int maxTimers, long nowMillis) {
+        if (tickMillis <= 0 || bits <= 0 || levels <= 0 || bits * levels > 62 || maxTimers <= 0) {
+            throw new IllegalArgumentException("Invalid timing wheel dimensions");
+        }
+        this.tickMillis = tickMillis;
+        this.bits = bits;
+        this.levels = levels;
+        this.mask = (1 << bits) - 1;
+        this.horizonTicks = 1L << (bits * levels);
+        this.maxTimers = maxTimers;
+        this.heads = new int[levels << bits];
+        Arrays.fill(heads, NONE);
+        allocate(Math.min(INITIAL_CAPACITY, maxTimers));
+        this.currentTick = Math.floorDiv(nowMillis, tickMillis);
+    }
+
+    /**
+     * Set key to fire at deadlineMillis, replacing any timer it already has. A deadline in the
+     * past fires on the next {@link #advance}. Returns false if the wheel is full.
+     */
+    public boolean schedule(long key, long deadlineMillis) {
+        int timer = find(key);
+        if (timer != NONE) {
+            unlink(timer);
+        } else {
+            if (size == maxTimers) {
+                return false;
+            }
+            timer = take(key);
+        }
+        deadlines[timer] = deadlineMillis;
+        place(timer);
+        return true;
+    }
+
+    /**
+     * Remove key's timer; false if it had none
+     */
+    public boolean cancel(long key) {
+        int timer = find(key);
+        if (timer == NONE) {
+            return false;
+        }
+        unlink(timer);
+        release(timer);
+        return true;
+    }
+
+    public boolean contains(long key) {
+        return find(key) != NONE;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int maxTimers() {
+        return maxTimers;
+    }
+
+    /**
+     * Move the clock to nowMillis and hand every timer that came due to fired, removed before
+     * the call (so fired may schedule the key again). Returns the number fired.
+     */
+    public int advance(long nowMillis, LongConsumer fired) {
+        long target = Math.floorDiv(nowMillis, tickMillis);
+        int count = 0;
+        while (currentTick <= target) {
+            if (size == 0) {
+                // Nothing to cascade or fire on the way
+                currentTick = target + 1;
+                break;
+            }
+            for (int level = levels - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (bits * level)) - 1)) == 0) {
+                    cascade(level, (int) (currentTick >>> (bits * level)) & mask);
+                }
+            }
+            count += fire((int) currentTick & mask, fired);
+            currentTick++;
+        }
+        return count;
+    }
+
+    public void clear() {
+        Arrays.fill(heads, NONE);
+        allocate(Math.min(INITIAL_CAPACITY, maxTimers));
+    }
+
+    // -------------------- Slots --------------------
+
+    // Lowest level whose slots still tell the deadline apart from the current tick
+    private void place(int timer) {
+        long tick = Math.max(ceilDiv(deadlines[timer], tickMillis), currentTick);
+        tick = Math.min(tick, currentTick + horizonTicks - 1);
+        int level = 0;
+        while (level < levels - 1 && (tick >>> (bits * (level + 1))) != (currentTick >>> (bits * (level + 1)))) {
+            level++;
+        }
+        int slot = (level << bits) | ((int) (tick >>> (bits * level)) & mask);
+        slots[timer] = slot;
+        prev[timer] = NONE;
+        next[timer] = heads[slot];
+        if (heads[slot] != NONE) {
+            prev[heads[slot]] = timer;
+        }
+        heads[slot] = timer;
+    }
+
+    private void unlink(int timer) {
+        int slot = slots[timer];
+        if (prev[timer] != NONE) {
+            next[prev[timer]] = next[timer];
+        } else {
+            heads[slot] = next[timer];
+        }
+        if (next[timer] != NONE) {
+            prev[next[timer]] = prev[timer];
+        }
+    }
+
+    // The current tick entered this slot's span: spread its timers over the levels below
+    private void cascade(int level, int index) {
+        int slot = (level << bits) | index;
+        int timer = heads[slot];
+        heads[slot] = NONE;
+        while (timer != NONE) {
+            int following = next[timer];
+            place(timer);
+            timer = following;
+        }
+    }
+
+    private int fire(int index, LongConsumer fired) {
+        int count = 0;
+        // Timers fired may schedule new ones into this very tick; keep going until the slot stays empty
+        while (heads[index] != NONE) {
+            int timer = heads[index];
+            heads[index] = NONE;
+            while (timer != NONE) {
+                int following = next[timer];
+                long key = keys[timer];
+                release(timer);
+                fired.accept(key);
+                count++;
+                timer = following;
+            }
+        }
+        return count;
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+
+    // -------------------- Timer storage --------------------
+
+    private int take(long key) {
+        if (free == NONE && used == keys.length) {
+            grow();
+        }
+        int timer;
+        if (free != NONE) {
+            timer = free;
+            free = next[timer];
+        } else {
+            timer = used++;
+        }
+        keys[timer] = key;
+        insert(timer);
+        size++;
+        return timer;
+    }
+
+    private void release(int timer) {
+        remove(keys[timer]);
+        slots[timer] = NONE;
+        next[timer] = free;
+        free = timer;
+        size--;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        deadlines = new long[capacity];
+        slots = new int[capacity];
+        next = new int[capacity];
+        prev = new int[capacity];
+        table = new int[tableSize(capacity)];
+        free = NONE;
+        used = 0;
+        size = 0;
+    }
+
+    private void grow() {
+        int capacity = (int) Math.min((long) keys.length * 2, maxTimers);
+        keys = Arrays.copyOf(keys, capacity);
+        deadlines = Arrays.copyOf(deadlines, capacity);
+        slots = Arrays.copyOf(slots, capacity);
+        next = Arrays.copyOf(next, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        table = new int[tableSize(capacity)];
+        for (int timer = 0; timer < used; timer++) {
+            if (slots[timer] != NONE) {
+                insert(timer);
+            }
+        }
+    }
+
+    // At most half full
+    private static int tableSize(int capacity) {
+        return Integer.highestOneBit(Math.max(capacity, 2) - 1) << 2;
+    }
+
+    // -------------------- Key table --------------------
+
+    private int bucket(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (table.length - 1);
+    }
+
+    private int find(long key) {
+        for (int i = bucket(key); table[i] != 0; i = (i + 1) & (table.length - 1)) {
+            if (keys[table[i] - 1] == key) {
+                return table[i] - 1;
+            }
+        }
+        return NONE;
+    }
+
+    private void insert(int timer) {
+        int i = bucket(keys[timer]);
+        while (table[i] != 0) {
+            i = (i + 1) & (table.length - 1);
+        }
+        table[i] = timer + 1;
+    }
+
+    // Backward-shift deletion keeps probe chains intact without tombstones
+    private void remove(long key) {
+        int tableMask = table.length - 1;
+        int i = bucket(key);
+        while (table[i] != 0 && keys[table[i] - 1] != key) {
+            i = (i + 1) & tableMask;
+        }
+        if (table[i] == 0) {
+            return;
+        }
+        int hole = i;
+        for (int j = (hole + 1) & tableMask; table[j] != 0; j = (j + 1) & tableMask) {
+            int home = bucket(keys[table[j] - 1]);
+            // Move j into the hole unless its home lies cyclically in (hole, j]
+            if (((j - home) & tableMask) >= ((j - hole) & tableMask)) {
+                table[hole] = table[j];
+                hole = j;
+            }
+        }
+        table[hole] = 0;
+    }
+}
@@ -0,0 +1,148 @@
+package com.insurai.insurai_backend.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.security.Key;
+import java.time.Instant;
+import java.util.Date;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+class JwtUtilTests {
+
+    // The key JwtUtil signs with, for tokens it did not issue itself
+    private static final String SECRET = "insuraiSecretKey1234567890insuraiSecretKey1234567890";
+
+    private final JwtUtil jwtUtil = new JwtUtil(new VerifiedTokenCache(false, 1));
+
+    @Test
+    void parseReturnsTheClaimsOfTheToken() {
+        String token = jwtUtil.generateToken("a@insurai.com", "EMPLOYEE", "EMPLOYEE", 5L);
+
+        JwtPrincipal principal = jwtUtil.parse(token);
+
+        assertEquals("a@insurai.com", principal.subject());
+        assertEquals("EMPLOYEE", principal.role());
+        assertEquals("EMPLOYEE", principal.accountType());
+        assertEquals(5L, principal.accountId());
+        assertNotNull(principal.tokenId());
+        assertEquals(0, principal.issuedAt().getNano());
+        assertEquals(jwtUtil.getExpirationTime(),
+                principal.expiresAt().toEpochMilli() - principal.issuedAt().toEpochMilli(), 1000);
+        assertEquals("a@insurai.com", jwtUtil.extractEmail(token));
+        assertEquals("EMPLOYEE", jwtUtil.extractRole(token));
+        assertTrue(jwtUtil.validateToken(token, "a@insurai.com"));
+        assertFalse(jwtUtil.validateToken(token, "b@insurai.com"));
+    }
+
+    @Test
+    void tokensWithoutIdsOrJtiStillParse() {
+        // Issued before ids and jti were embedded
+        String token = Jwts.builder()
+                .setSubject("admin@insurai.com")
+                .claim("role", "ADMIN")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+
+        JwtPrincipal principal = jwtUtil.parse(token);
+
+        assertEquals("ADMIN", principal.role());
+        assertNull(principal.accountType());
+        assertNull(principal.accountId());
+        assertNull(principal.tokenId());
+    }
+
+    @Test
+    void tamperedForeignAndExpiredTokensAreRejected() {
+        String token = jwtUtil.generateToken("a@insurai.com", "EMPLOYEE");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        String foreign = Jwts.builder()
+                .setSubject("a@insurai.com")
+                .claim("role", "ADMIN")
+                .signWith(Keys.hmacShaKeyFor("someoneElsesSecretKey1234567890someoneElsesSecret".getBytes()),
+                        SignatureAlgorithm.HS256)
+                .compact();
+        String expired = Jwts.builder()
+                .setSubject("a@insurai.com")
+                .setExpiration(new Date(System.currentTimeMillis() - 1000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThrows(JwtException.class, () -> jwtUtil.parse(tampered));
+        assertThrows(JwtException.class, () -> jwtUtil.parse(foreign));
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.parse(expired));
+        assertThrows(JwtException.class, () -> jwtUtil.parse("not-a-jwt"));
+        assertFalse(jwtUtil.validateToken(expired, "a@insurai.com"));
+    }
+
+    @Test
+    void principalComparesRolesAndAccountsTheWayControllersDo() {
+        Instant expiresAt = Instant.parse("2025-01-01T10:00:00Z");
+        JwtPrincipal principal = new JwtPrincipal("hr@insurai.com", "HR", "HR", 3L, expiresAt, null, "jti");
+
+        assertEquals("hr@insurai.com", principal.getName());
+        assertTrue(principal.hasRole("hr"));
+        assertFalse(principal.hasRole("ADMIN"));
+        assertEquals(3L, principal.accountIdFor("HR"));
+        assertNull(principal.accountIdFor("EMPLOYEE"));
+        assertFalse(principal.isExpired(expiresAt.minusMillis(1)));
+        assertTrue(principal.isExpired(expiresAt));
+        assertFalse(new JwtPrincipal("x", null, null, null, null, null, null).isExpired(expiresAt));
+        assertFalse(new JwtPrincipal("x", null, null, null, null, null, null).hasRole("ADMIN"));
+    }
+
+    /**
+     * parse with the key and parser built once, against building both on every call as
+     * extractEmail/extractRole did before; the verified-token cache is off for both. Time per
+     * call goes to the test report.
+     */
+    @Test
+    @Tag("benchmark")
+    void parseAgainstRebuildingTheKeyAndParserPerCall(TestReporter reporter) {
+        String token = jwtUtil.generateToken("a@insurai.com", "EMPLOYEE", "EMPLOYEE", 5L);
+        int calls = 50_000;
+
+        // Warm up both, then measure each
+        timePerCall(() -> jwtUtil.parse(token).subject(), calls);
+        timePerCall(() -> rebuiltPerCall(token), calls);
+        double rebuilt = timePerCall(() -> rebuiltPerCall(token), calls);
+        double reused = timePerCall(() -> jwtUtil.parse(token).subject(), calls);
+
+        assertTrue(reused < rebuilt, "reused " + reused + " ns, rebuilt " + rebuilt + " ns");
+        reporter.publishEntry("rebuiltPerCallNanos", String.format("%.0f", rebuilt));
+        reporter.publishEntry("parseNanos", String.format("%.0f", reused));
+    }
+
+    private static String rebuiltPerCall(String token) {
+        Key key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody().getSubject();
+    }
+
+    // Mean nanoseconds per call; the results are summed so the calls are not optimised away
+    private static double timePerCall(Supplier<String> call, int calls) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            sink += call.get().length();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(sink > 0);
+        return (double) elapsed / calls;
+    }
+}
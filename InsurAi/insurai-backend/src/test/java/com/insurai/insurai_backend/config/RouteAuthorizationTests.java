@@ -0,0 +1,217 @@
+package com.insurai.insurai_backend.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.request;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.insurai.insurai_backend.model.Agent;
+import com.insurai.insurai_backend.repository.AgentAvailabilityRepository;
+import com.insurai.insurai_backend.repository.AgentRepository;
+import com.insurai.insurai_backend.repository.EmployeeRepository;
+import com.insurai.insurai_backend.repository.HrRepository;
+import com.insurai.insurai_backend.repository.PolicyRepository;
+import com.insurai.insurai_backend.service.AdminService;
+import com.insurai.insurai_backend.service.AgentAvailabilityService;
+import com.insurai.insurai_backend.service.AgentService;
+import com.insurai.insurai_backend.service.ClaimAutomationService;
+import com.insurai.insurai_backend.service.ClaimDocumentStorage;
+import com.insurai.insurai_backend.service.ClaimExportService;
+import com.insurai.insurai_backend.service.ClaimService;
+import com.insurai.insurai_backend.service.DocumentBlobStore;
+import com.insurai.insurai_backend.service.DocumentDownloadService;
+import com.insurai.insurai_backend.service.DocumentLayoutMigration;
+import com.insurai.insurai_backend.service.CoverageLedgerService;
+import com.insurai.insurai_backend.service.EmployeeQueryService;
+import com.insurai.insurai_backend.service.EmployeeService;
+import com.insurai.insurai_backend.service.HrService;
+import com.insurai.insurai_backend.service.IdempotencyService;
+import com.insurai.insurai_backend.service.InboxStreamService;
+import com.insurai.insurai_backend.service.PasswordVerificationService;
+import com.insurai.insurai_backend.service.TokenRevocationService;
+import com.insurai.insurai_backend.service.PolicyService;
+
+@WebMvcTest
+@Import({SecurityConfig.class, JwtUtil.class, VerifiedTokenCache.class, AgentPrincipalCache.class})
+class RouteAuthorizationTests {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private JwtUtil jwtUtil;
+    @Autowired private AgentPrincipalCache agentPrincipalCache;
+
+    @MockitoBean private ClaimService claimService;
+    @MockitoBean private ClaimExportService claimExportService;
+    @MockitoBean private ClaimAutomationService claimAutomationService;
+    @MockitoBean private ClaimDocumentStorage claimDocumentStorage;
+    @MockitoBean private DocumentBlobStore documentBlobStore;
+    @MockitoBean private DocumentDownloadService documentDownloadService;
+    @MockitoBean private DocumentLayoutMigration documentLayoutMigration;
+    @MockitoBean private CoverageLedgerService coverageLedgerService;
+    @MockitoBean private PolicyService policyService;
+    @MockitoBean private AdminService adminService;
+    @MockitoBean private AgentService agentService;
+    @MockitoBean private AgentAvailabilityService agentAvailabilityService;
+    @MockitoBean private EmployeeQueryService employeeQueryService;
+    @MockitoBean private InboxStreamService inboxStreamService;
+    @MockitoBean private IdempotencyService idempotencyService;
+    @MockitoBean private EmployeeService employeeService;
+    @MockitoBean private HrService hrService;
+    @MockitoBean private PasswordVerificationService passwordVerificationService;
+    @MockitoBean private TokenRevocationService tokenRevocationService;
+    @MockitoBean private PolicyRepository policyRepository;
+    @MockitoBean private EmployeeRepository employeeRepository;
+    @MockitoBean private HrRepository hrRepository;
+    @MockitoBean private AgentRepository agentRepository;
+    @MockitoBean private AgentAvailabilityRepository agentAvailabilityRepository;
+    @MockitoBean private PasswordEncoder passwordEncoder;
+
+    // Callers, in column order of the table below
+    static final String[] CALLERS = {"NONE", "EMPLOYEE", "HR", "ADMIN", "AGENT", "INVALID"};
+
+    // PASS = reached the controller, DENY = rejected by Spring Security, 401 = rejected by the JWT filter.
+    // Captured from the three per-role filters before they were merged; the only intended difference
+    // is that login/register endpoints no longer reject a stale token.
+    static Stream<Arguments> routes() {
+        return Stream.of(
+                route("POST", "/auth/register", "PASS", "PASS", "PASS", "PASS", "PASS", "PASS"),
+                route("POST", "/auth/login", "PASS", "PASS", "PASS", "PASS", "PASS", "PASS"),
+                route("GET", "/auth/employees", "PASS", "PASS", "PASS", "PASS", "PASS", "401"),
+                route("POST", "/employee/claims", "DENY", "PASS", "DENY", "DENY", "DENY", "401"),
+                route("POST", "/employee/claims/update", "DENY", "PASS", "DENY", "DENY", "DENY", "401"),
+                route("GET", "/employee/claims", "DENY", "PASS", "DENY", "DENY", "DENY", "401"),
+                route("GET", "/employee/claims/all", "DENY", "PASS", "DENY", "DENY", "DENY", "401"),
+                route("GET", "/claims/1/documents/a_scan.pdf", "DENY", "PASS", "PASS", "PASS", "DENY", "401"),
+                route("GET", "/claims/1/documents/a_scan.pdf/preview", "DENY", "PASS", "PASS", "PASS", "DENY", "401"),
+                route("GET", "/uploads/a_scan.pdf", "DENY", "DENY", "DENY", "DENY", "DENY", "401"),
+                route("GET", "/uploads/previews/a_scan.pdf.png", "DENY", "DENY", "DENY", "DENY", "DENY", "401"),
+                route("GET", "/employee/policies", "PASS", "PASS", "PASS", "PASS", "PASS", "401"),
+                route("POST", "/employee/queries", "DENY", "PASS", "DENY", "DENY", "DENY", "401"),
+                route("GET", "/employee/queries", "DENY", "PASS", "DENY", "DENY", "DENY", "401"),
+                route("GET", "/agent", "PASS", "PASS", "PASS", "PASS", "PASS", "401"),
+                route("POST", "/agent/register", "PASS", "PASS", "PASS", "PASS", "PASS", "PASS"),
+                route("POST", "/agent/login", "PASS", "PASS", "PASS", "PASS", "PASS", "PASS"),
+                route("POST", "/agent/availability", "PASS", "PASS", "PASS", "PASS", "PASS", "401"),
+                route("GET", "/agent/1/availability", "PASS", "PASS", "PASS", "PASS", "PASS", "401"),
+                route("GET", "/agent/availability/all", "PASS", "PASS", "PASS", "PASS", "PASS", "401"),
+                route("GET", "/agent/available", "PASS", "PASS", "PASS", "PASS", "PASS", "401"),
+                route("GET", "/agent/queries/pending/1", "PASS", "PASS", "PASS", "PASS", "PASS", "401"),
+                route("PUT", "/agent/queries/respond/1", "PASS", "PASS", "PASS", "PASS", "PASS", "401"),
+                route("GET", "/agent/queries/all/1", "PASS", "PASS", "PASS", "PASS", "PASS", "401"),
+                route("GET", "/agent/queries/stream", "DENY", "DENY", "DENY", "DENY", "PASS", "401"),
+                route("POST", "/hr/login", "PASS", "PASS", "PASS", "PASS", "PASS", "PASS"),
+                route("GET", "/hr", "PASS", "PASS", "PASS", "PASS", "PASS", "401"),
+                route("GET", "/hr/claims", "DENY", "DENY", "PASS", "DENY", "DENY", "401"),
+                route("GET", "/hr/claims/stream", "DENY", "DENY", "PASS", "DENY", "DENY", "401"),
+                route("GET", "/hr/claims/1", "DENY", "DENY", "PASS", "DENY", "DENY", "401"),
+                route("POST", "/hr/claims/approve/1", "PASS", "PASS", "PASS", "PASS", "PASS", "401"),
+                route("POST", "/hr/claims/reject/1", "PASS", "PASS", "PASS", "PASS", "PASS", "401"),
+                route("POST", "/admin/login", "PASS", "PASS", "PASS", "PASS", "PASS", "PASS"),
+                route("POST", "/admin/agent/register", "PASS", "PASS", "PASS", "PASS", "PASS", "401"),
+                route("POST", "/admin/hr/register", "PASS", "PASS", "PASS", "PASS", "PASS", "401"),
+                route("GET", "/admin/claims", "DENY", "DENY", "DENY", "PASS", "DENY", "401"),
+                route("POST", "/admin/uploads/migration", "PASS", "PASS", "PASS", "PASS", "PASS", "401"),
+                route("POST", "/admin/policies", "PASS", "PASS", "PASS", "PASS", "PASS", "401"),
+                route("GET", "/admin/policies", "PASS", "PASS", "PASS", "PASS", "PASS", "401"),
+                route("GET", "/admin/policies/active", "PASS", "PASS", "PASS", "PASS", "PASS", "401"),
+                route("GET", "/admin/policies/1", "PASS", "PASS", "PASS", "PASS", "PASS", "401"),
+                route("DELETE", "/admin/policies/1", "PASS", "PASS", "PASS", "PASS", "PASS", "401")
+        );
+    }
+
+    private static Arguments route(String method, String path, String... expected) {
+        return Arguments.of(method, path, expected);
+    }
+
+    @BeforeEach
+    void agentExists() {
+        Agent agent = new Agent();
+        agent.setId(1L);
+        agent.setEmail("agent@insurai.com");
+        Mockito.when(agentRepository.findByEmail("agent@insurai.com")).thenReturn(Optional.of(agent));
+    }
+
+    @ParameterizedTest(name = "{0} {1}")
+    @MethodSource("routes")
+    void authorizationIsUnchanged(String method, String path, String[] expected) throws Exception {
+        for (int i = 0; i < CALLERS.length; i++) {
+            assertEquals(expected[i], outcome(method, path, CALLERS[i]), method + " " + path + " as " + CALLERS[i]);
+        }
+    }
+
+    @Test
+    void agentTokenIsOnlyAuthenticatedWhileTheAgentExists() throws Exception {
+        // /hello falls through to anyRequest().authenticated()
+        assertEquals("PASS", outcome("GET", "/hello", "AGENT"));
+
+        String token = jwtUtil.generateToken("removed-agent@insurai.com", "AGENT");
+        MvcResult result = mockMvc.perform(request(HttpMethod.GET, "/hello")
+                .header("Authorization", "Bearer " + token)).andReturn();
+        assertEquals(403, result.getResponse().getStatus());
+    }
+
+    @Test
+    void revokedTokenIsRejectedEverywhereExceptLogin() throws Exception {
+        Mockito.when(tokenRevocationService.isRevoked(Mockito.any())).thenReturn(true);
+
+        assertEquals("401", outcome("GET", "/hello", "EMPLOYEE"));
+        assertEquals("401", outcome("GET", "/admin/claims", "ADMIN"));
+        assertEquals("PASS", outcome("POST", "/auth/login", "EMPLOYEE"));
+    }
+
+    @Test
+    void agentLookupIsCachedUntilInvalidated() throws Exception {
+        agentPrincipalCache.invalidateAll();
+        for (int i = 0; i < 3; i++) {
+            assertEquals("PASS", outcome("GET", "/hello", "AGENT"));
+        }
+        Mockito.verify(agentRepository, Mockito.times(1)).findByEmail("agent@insurai.com");
+
+        agentPrincipalCache.invalidate("agent@insurai.com");
+        assertEquals("PASS", outcome("GET", "/hello", "AGENT"));
+        Mockito.verify(agentRepository, Mockito.times(2)).findByEmail("agent@insurai.com");
+    }
+
+    private String outcome(String method, String path, String caller) throws Exception {
+        var builder = request(HttpMethod.valueOf(method), path);
+        String token = switch (caller) {
+            case "NONE" -> null;
+            case "INVALID" -> "not-a-jwt";
+            case "AGENT" -> jwtUtil.generateToken("agent@insurai.com", "AGENT");
+            default -> jwtUtil.generateToken(caller.toLowerCase() + "@insurai.com", caller);
+        };
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        MvcResult result;
+        try {
+            result = mockMvc.perform(builder).andReturn();
+        } catch (Exception e) {
+            // The exception came out of a controller, so security let the request through
+            return "PASS";
+        }
+        int status = result.getResponse().getStatus();
+        if (status == 401) {
+            return "401";
+        }
+        if (status == 403 && result.getResponse().getErrorMessage() != null) {
+            return "DENY";
+        }
+        return "PASS";
+    }
+}
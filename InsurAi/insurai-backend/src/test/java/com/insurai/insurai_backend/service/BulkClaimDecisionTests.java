@@ -0,0 +1,119 @@
+package com.insurai.insurai_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import com.insurai.insurai_backend.model.BulkDecisionResult;
+import com.insurai.insurai_backend.model.BulkDecisionResult.Outcome;
+import com.insurai.insurai_backend.model.Claim;
+import com.insurai.insurai_backend.model.ClaimStatus;
+import com.insurai.insurai_backend.model.Employee;
+import com.insurai.insurai_backend.model.Hr;
+import com.insurai.insurai_backend.model.Policy;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@DataJpaTest
+@Import(ClaimService.class)
+@MockClaimSideEffects
+@MockClaimIndexes
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=500",
+        "insurai.claims.bulk.chunk-size=500"
+})
+class BulkClaimDecisionTests {
+
+    @Autowired private ClaimService claimService;
+    @Autowired private TestEntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private Employee employee;
+    private Policy policy;
+    private Hr me;
+    private Hr other;
+
+    @BeforeEach
+    void setUp() {
+        employee = entityManager.persist(TestFixtures.employee("E1"));
+        policy = entityManager.persist(TestFixtures.policy());
+        me = entityManager.persist(TestFixtures.hr("H1"));
+        other = entityManager.persist(TestFixtures.hr("H2"));
+    }
+
+    @Test
+    void everyIdGetsAnOutcome() {
+        Claim pending = claim(me, ClaimStatus.PENDING);
+        Claim decided = claim(me, ClaimStatus.REJECTED);
+        Claim someoneElses = claim(other, ClaimStatus.PENDING);
+        entityManager.flush();
+        entityManager.clear();
+
+        BulkDecisionResult result = claimService.decideClaims(me.getId(),
+                List.of(pending.getId(), decided.getId(), someoneElses.getId(), -1L, pending.getId()),
+                ClaimStatus.APPROVED, "Routine");
+
+        Map<Long, Outcome> outcomes = result.results().stream()
+                .collect(Collectors.toMap(BulkDecisionResult.Item::claimId, BulkDecisionResult.Item::outcome));
+        // The duplicate id is reported once
+        assertEquals(4, result.requested());
+        assertEquals(1, result.updated());
+        assertEquals(Outcome.UPDATED, outcomes.get(pending.getId()));
+        assertEquals(Outcome.ALREADY_DECIDED, outcomes.get(decided.getId()));
+        assertEquals(Outcome.NOT_ASSIGNED, outcomes.get(someoneElses.getId()));
+        assertEquals(Outcome.NOT_FOUND, outcomes.get(-1L));
+
+        entityManager.clear();
+        Claim approved = entityManager.find(Claim.class, pending.getId());
+        assertEquals(ClaimStatus.APPROVED, approved.getStatus());
+        assertEquals("Routine", approved.getRemarks());
+        assertEquals(ClaimStatus.PENDING, entityManager.find(Claim.class, someoneElses.getId()).getStatus());
+        assertEquals(ClaimStatus.REJECTED, entityManager.find(Claim.class, decided.getId()).getStatus());
+    }
+
+    @Test
+    void tenThousandClaimsTakeTwoStatementsPerChunk() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(claim(me, ClaimStatus.PENDING).getId());
+            if (i % 500 == 499) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        long started = System.nanoTime();
+        BulkDecisionResult result = claimService.decideClaims(me.getId(), ids, ClaimStatus.APPROVED, "Routine");
+        long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+
+        assertEquals(10_000, result.updated());
+        // 20 chunks of 500: one UPDATE and one read-back SELECT each
+        assertEquals(40, statistics.getPrepareStatementCount());
+        assertTrue(elapsedMillis < 30_000, "10k decisions took " + elapsedMillis + " ms");
+    }
+
+    private Claim claim(Hr hr, ClaimStatus status) {
+        Claim claim = new Claim("Claim", "", 10.0, LocalDateTime.of(2025, 1, 1, 9, 0), employee, policy, hr, List.of());
+        claim.setStatus(status);
+        return entityManager.persist(claim);
+    }
+}
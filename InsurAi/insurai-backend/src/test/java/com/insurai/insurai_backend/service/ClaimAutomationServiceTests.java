@@ -0,0 +1,231 @@
+package com.insurai.insurai_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.insurai.insurai_backend.model.Claim;
+import com.insurai.insurai_backend.model.ClaimFacts;
+import com.insurai.insurai_backend.model.ClaimStatus;
+import com.insurai.insurai_backend.model.Employee;
+import com.insurai.insurai_backend.model.Policy;
+import com.insurai.insurai_backend.repository.ClaimRepository;
+import com.insurai.insurai_backend.repository.EmployeeRepository;
+import com.insurai.insurai_backend.repository.PolicyRepository;
+
+/**
+ * Rules come from a temp file so the tests can rewrite it; the sweep runs without the test
+ * transaction because its batches commit on their own threads.
+ */
+@DataJpaTest
+@Import({ClaimAutomationService.class, CoverageLedgerService.class, JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "insurai.automation.sweep.page-size=40",
+        "insurai.automation.sweep.batch-size=10"
+})
+class ClaimAutomationServiceTests {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 1, 12, 0);
+
+    private static final String RULES = """
+            [
+              {"id": "stale", "policyType": "*", "decision": "REJECT", "minClaimAgeDays": 365},
+              {"id": "health-small", "policyType": "Health", "decision": "APPROVE",
+               "maxAmount": 5000, "maxCoverageRatio": 0.1, "minDocuments": 1},
+              {"id": "inactive-employee", "policyType": "*", "decision": "REJECT",
+               "remarks": "Employee no longer active", "employeeActive": false}
+            ]
+            """;
+
+    @TempDir
+    static Path rulesDir;
+
+    @DynamicPropertySource
+    static void rulesLocation(DynamicPropertyRegistry registry) throws IOException {
+        Path rules = rulesDir.resolve("rules.json");
+        Files.writeString(rules, RULES);
+        registry.add("insurai.automation.rules-location", () -> rules.toUri().toString());
+    }
+
+    @Autowired private ClaimAutomationService automation;
+    @Autowired private ClaimRepository claimRepository;
+    @Autowired private EmployeeRepository employeeRepository;
+    @Autowired private PolicyRepository policyRepository;
+    @MockitoBean private HrWorkloadIndex hrWorkloadIndex;
+    @MockitoBean private ClaimSlaService claimSlaService;
+    @MockitoBean private OutboxService outboxService;
+
+    private Employee employee;
+    private Employee leaver;
+    private Policy health;
+    private Policy accident;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.writeString(rulesDir.resolve("rules.json"), RULES);
+        automation.reload();
+
+        employee = employee("E1", true);
+        leaver = employee("E2", false);
+        health = policy("P-1", "Health");
+        accident = policy("P-2", "Accident");
+    }
+
+    @AfterEach
+    void tearDown() {
+        claimRepository.deleteAll();
+        policyRepository.deleteAll();
+        employeeRepository.deleteAll();
+    }
+
+    @Test
+    void firstMatchingRuleWinsWithWildcardsInFileOrder() {
+        ClaimFacts small = facts("Health", 1_000.0, 1, NOW.minusDays(3));
+        assertEquals("health-small", automation.evaluate(small, NOW).ruleId());
+        assertEquals(ClaimStatus.APPROVED, automation.evaluate(small, NOW).status());
+        assertEquals("Auto-approved by rule health-small", automation.evaluate(small, NOW).remarks());
+
+        // The wildcard rule comes first in the file, so it beats the type rule
+        ClaimFacts staleSmall = facts("health", 1_000.0, 1, NOW.minusDays(400));
+        assertEquals("stale", automation.evaluate(staleSmall, NOW).ruleId());
+
+        // Other types only see the wildcard rules
+        assertEquals("stale", automation.evaluate(facts("Accident", 1_000.0, 1, NOW.minusDays(400)), NOW).ruleId());
+        assertNull(automation.evaluate(facts("Accident", 1_000.0, 1, NOW.minusDays(3)), NOW));
+
+        // Every condition must hold: undocumented, too large, above the coverage ratio
+        assertNull(automation.evaluate(facts("Health", 1_000.0, 0, NOW.minusDays(3)), NOW));
+        assertNull(automation.evaluate(facts("Health", 6_000.0, 1, NOW.minusDays(3)), NOW));
+        assertNull(automation.evaluate(new ClaimFacts(1L, "Health", "Active", 1_000.0, 5_000.0, 1,
+                NOW.minusDays(3), null, null), NOW));
+    }
+
+    @Test
+    void editedRulesAreReloadedAndInvalidOnesRefused() throws IOException {
+        ClaimFacts accidentClaim = facts("Accident", 100.0, 0, NOW.minusDays(3));
+        assertNull(automation.evaluate(accidentClaim, NOW));
+
+        Path rules = rulesDir.resolve("rules.json");
+        Files.writeString(rules, """
+                [{"id": "accident-tiny", "policyType": "Accident", "decision": "APPROVE", "maxAmount": 500}]
+                """);
+        Files.setLastModifiedTime(rules, FileTime.from(Instant.now().plusSeconds(60)));
+        automation.reloadIfChanged();
+        assertEquals(1, automation.ruleCount());
+        assertEquals("accident-tiny", automation.evaluate(accidentClaim, NOW).ruleId());
+
+        // Unknown field, bad decision, duplicate id: each refused, the working rules stay
+        for (String invalid : List.of(
+                "[{\"id\": \"x\", \"decision\": \"APPROVE\", \"maxAmmount\": 5}]",
+                "[{\"id\": \"x\", \"decision\": \"ESCALATE\"}]",
+                "[{\"id\": \"x\", \"decision\": \"APPROVE\"}, {\"id\": \"x\", \"decision\": \"REJECT\"}]")) {
+            Files.writeString(rules, invalid);
+            assertThrows(IllegalArgumentException.class, automation::reload);
+            assertEquals("accident-tiny", automation.evaluate(accidentClaim, NOW).ruleId());
+        }
+    }
+
+    @Test
+    void sweepDecidesMatchingPendingClaimsAcrossPagesAndBatches() throws Exception {
+        LocalDateTime recent = LocalDateTime.now().minusDays(3);
+        List<Long> approvable = new ArrayList<>();
+        List<Long> manual = new ArrayList<>();
+        List<Long> leavers = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            approvable.add(claim(employee, health, 1_000.0, 1, recent, ClaimStatus.PENDING).getId());
+            manual.add(claim(employee, accident, 1_000.0, 1, recent, ClaimStatus.PENDING).getId());
+        }
+        for (int i = 0; i < 5; i++) {
+            leavers.add(claim(leaver, accident, 1_000.0, 1, recent, ClaimStatus.PENDING).getId());
+        }
+        Long alreadyRejected = claim(employee, health, 1_000.0, 1, recent, ClaimStatus.REJECTED).getId();
+
+        ClaimAutomationService.SweepResult result = automation.sweepPending();
+
+        assertEquals(125, result.examined());
+        assertEquals(65, result.decided());
+        assertEquals(60, result.byRule().get("health-small"));
+        assertEquals(5, result.byRule().get("inactive-employee"));
+        for (Long id : approvable) {
+            Claim claim = claimRepository.findById(id).orElseThrow();
+            assertEquals(ClaimStatus.APPROVED, claim.getStatus());
+            assertEquals(1, claim.getVersion());
+        }
+        for (Long id : leavers) {
+            assertEquals("Employee no longer active", claimRepository.findById(id).orElseThrow().getRemarks());
+        }
+        for (Long id : manual) {
+            assertEquals(ClaimStatus.PENDING, claimRepository.findById(id).orElseThrow().getStatus());
+        }
+        assertEquals(ClaimStatus.REJECTED, claimRepository.findById(alreadyRejected).orElseThrow().getStatus());
+        verify(hrWorkloadIndex).reconcile();
+
+        // Nothing left to decide on a second pass
+        assertEquals(0, automation.sweepPending().decided());
+    }
+
+    @Test
+    void sweepLeavesSuspectedDuplicatesToHr() throws Exception {
+        LocalDateTime recent = LocalDateTime.now().minusDays(3);
+        Claim original = claim(employee, health, 1_000.0, 1, recent, ClaimStatus.PENDING);
+        Claim duplicate = claim(employee, health, 1_000.0, 1, recent, ClaimStatus.PENDING);
+        duplicate.setDuplicateOfClaimId(original.getId());
+        claimRepository.save(duplicate);
+
+        ClaimAutomationService.SweepResult result = automation.sweepPending();
+
+        assertEquals(1, result.examined());
+        assertEquals(ClaimStatus.APPROVED, claimRepository.findById(original.getId()).orElseThrow().getStatus());
+        assertEquals(ClaimStatus.PENDING, claimRepository.findById(duplicate.getId()).orElseThrow().getStatus());
+    }
+
+    private static ClaimFacts facts(String policyType, Double amount, int documents, LocalDateTime claimDate) {
+        return new ClaimFacts(1L, policyType, "Active", amount, 100_000.0, documents, claimDate, null, null);
+    }
+
+    private Employee employee(String employeeId, boolean active) {
+        Employee employee = TestFixtures.employee(employeeId);
+        employee.setActive(active);
+        return employeeRepository.save(employee);
+    }
+
+    private Policy policy(String number, String type) {
+        return policyRepository.save(TestFixtures.policy(number, type));
+    }
+
+    private Claim claim(Employee owner, Policy policy, Double amount, int documents, LocalDateTime claimDate,
+                        ClaimStatus status) {
+        List<String> paths = IntStream.range(0, documents).mapToObj(i -> "uploads/doc" + i).toList();
+        Claim claim = new Claim("Claim", "", amount, claimDate, owner, policy, null, new ArrayList<>(paths));
+        claim.setStatus(status);
+        return claimRepository.save(claim);
+    }
+}
@@ -0,0 +1,130 @@
+package com.insurai.insurai_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import com.insurai.insurai_backend.model.Claim;
+import com.insurai.insurai_backend.model.ClaimStatus;
+import com.insurai.insurai_backend.model.Employee;
+import com.insurai.insurai_backend.model.Hr;
+import com.insurai.insurai_backend.model.Policy;
+import com.insurai.insurai_backend.service.ClaimExportService.ExportFilter;
+import com.insurai.insurai_backend.service.ClaimExportService.Format;
+
+@DataJpaTest
+@Import(ClaimExportService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "insurai.claims.export.batch-size=100"
+})
+class ClaimExportServiceTests {
+
+    private static final int CLAIMS = 1_000;
+
+    @Autowired private ClaimExportService exportService;
+    @Autowired private TestEntityManager entityManager;
+
+    private Hr hr;
+
+    @BeforeEach
+    void setUp() {
+        Employee employee = entityManager.persist(TestFixtures.employee("E1"));
+        hr = entityManager.persist(TestFixtures.hr("H1"));
+        Policy policy = entityManager.persist(TestFixtures.policy());
+
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 9, 0);
+        for (int i = 0; i < CLAIMS; i++) {
+            Claim claim = new Claim(i == 0 ? "=HYPERLINK(\"x\"), \"quoted\"" : "Claim " + i, "", 100.0, base,
+                    employee, policy, i % 4 == 0 ? hr : null, List.of("/uploads/" + i + ".pdf"));
+            claim.setCreatedAt(base.plusDays(i % 10));
+            claim.setStatus(i % 2 == 0 ? ClaimStatus.PENDING : ClaimStatus.APPROVED);
+            entityManager.persist(claim);
+            if (i % 200 == 199) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void exportIsWrittenBatchByBatchWithoutLoadingEntities() {
+        FlushCountingStream out = new FlushCountingStream();
+
+        long rows = exportService.export(new ExportFilter(null, null, null, null), Format.NDJSON, out);
+
+        assertEquals(CLAIMS, rows);
+        assertEquals(CLAIMS, out.lines());
+        // One flush per batch of 100: the response grows while the query is still being read
+        assertTrue(out.flushes >= CLAIMS / 100, "flushes: " + out.flushes);
+        // Projection rows only: nothing accumulates in the persistence context however large the export
+        Session session = entityManager.getEntityManager().unwrap(Session.class);
+        assertEquals(0, session.getStatistics().getEntityCount());
+        assertTrue(out.text().startsWith("{\"id\":"));
+    }
+
+    @Test
+    void filtersNarrowTheExport() {
+        FlushCountingStream out = new FlushCountingStream();
+        ExportFilter filter = new ExportFilter(ClaimStatus.PENDING, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 5), hr.getId());
+
+        long rows = exportService.export(filter, Format.NDJSON, out);
+
+        // Pending (even i), assigned to the HR (i % 4 == 0), created on days 0..4 (i % 10 < 5)
+        long expected = 0;
+        for (int i = 0; i < CLAIMS; i++) {
+            if (i % 4 == 0 && i % 10 < 5) expected++;
+        }
+        assertEquals(expected, rows);
+    }
+
+    @Test
+    void csvIsEscapedAndGuardedAgainstFormulas() {
+        FlushCountingStream out = new FlushCountingStream();
+
+        exportService.export(new ExportFilter(null, null, null, null), Format.CSV, out);
+
+        String[] lines = out.text().split("\n");
+        assertEquals(CLAIMS + 1, lines.length);
+        assertTrue(lines[0].startsWith("id,title,"));
+        assertTrue(lines[1].contains(",\"'=HYPERLINK(\"\"x\"\"), \"\"quoted\"\"\","), lines[1]);
+    }
+
+    private static final class FlushCountingStream extends OutputStream {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int flushes;
+
+        @Override public void write(int b) { bytes.write(b); }
+        @Override public void write(byte[] b, int off, int len) { bytes.write(b, off, len); }
+        @Override public void flush() throws IOException { flushes++; }
+
+        String text() {
+            return bytes.toString(StandardCharsets.UTF_8);
+        }
+
+        long lines() {
+            return text().lines().count();
+        }
+    }
+}
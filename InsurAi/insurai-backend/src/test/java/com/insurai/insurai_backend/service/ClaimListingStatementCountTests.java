@@ -0,0 +1,120 @@
+package com.insurai.insurai_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import com.insurai.insurai_backend.model.Claim;
+import com.insurai.insurai_backend.model.ClaimDTO;
+import com.insurai.insurai_backend.model.CursorPage;
+import com.insurai.insurai_backend.model.Employee;
+import com.insurai.insurai_backend.model.Hr;
+import com.insurai.insurai_backend.model.Policy;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Every claim listing must cost the same number of statements however many claims it
+ * returns: one projection query plus one batched documents query.
+ */
+@DataJpaTest
+@Import(ClaimService.class)
+@MockClaimSideEffects
+@MockClaimIndexes
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ClaimListingStatementCountTests {
+
+    private static final int CLAIMS = 25;
+
+    @Autowired private ClaimService claimService;
+    @Autowired private TestEntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private Employee employee;
+    private Hr hr;
+
+    @BeforeEach
+    void setUp() {
+        employee = entityManager.persist(TestFixtures.employee("E1"));
+        hr = entityManager.persist(TestFixtures.hr("H1"));
+
+        Policy policy = TestFixtures.policy();
+        policy.setPolicyName("Health Gold");
+        policy = entityManager.persist(policy);
+
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 9, 0);
+        for (int i = 0; i < CLAIMS; i++) {
+            // Half the claims are unassigned, so a null HR must not drop rows
+            Claim claim = new Claim("Claim " + i, "", 100.0, base, employee, policy, i % 2 == 0 ? hr : null,
+                    List.of("/uploads/" + i + "-a.pdf", "/uploads/" + i + "-b.pdf"));
+            claim.setCreatedAt(base.plusMinutes(i));
+            entityManager.persist(claim);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void adminListingsUseTwoStatements() {
+        List<ClaimDTO> all = countingStatements(2, () -> claimService.getAllClaimDtos());
+        assertEquals(CLAIMS, all.size());
+        assertFullyMapped(all.get(0));
+
+        CursorPage<ClaimDTO> page = countingStatements(2, () -> claimService.getClaimsPage(null, 10));
+        assertEquals(10, page.items().size());
+    }
+
+    @Test
+    void employeeListingsUseTwoStatements() {
+        List<ClaimDTO> all = countingStatements(2, () -> claimService.getClaimDtosByEmployee(employee.getId()));
+        assertEquals(CLAIMS, all.size());
+
+        CursorPage<ClaimDTO> page = countingStatements(2, () -> claimService.getClaimsPageByEmployee(employee.getId(), null, 10));
+        assertEquals(10, page.items().size());
+    }
+
+    @Test
+    void hrListingsUseTwoStatements() {
+        List<ClaimDTO> all = countingStatements(2, () -> claimService.getClaimDtosByAssignedHr(hr.getId()));
+        assertEquals((CLAIMS + 1) / 2, all.size());
+        all.forEach(c -> assertEquals(hr.getId(), c.getAssignedHrId()));
+
+        CursorPage<ClaimDTO> page = countingStatements(2, () -> claimService.getClaimsPageByAssignedHr(hr.getId(), null, 5));
+        assertEquals(5, page.items().size());
+    }
+
+    private void assertFullyMapped(ClaimDTO claim) {
+        assertEquals("Claim " + (CLAIMS - 1), claim.getTitle());
+        assertEquals("Health Gold", claim.getPolicyName());
+        assertEquals(employee.getId(), claim.getEmployeeId());
+        assertEquals(hr.getId(), claim.getAssignedHrId());
+        assertEquals(2, claim.getDocuments().size());
+        ClaimDTO unassigned = claimService.getAllClaimDtos().get(1);
+        assertNull(unassigned.getAssignedHrId());
+    }
+
+    private <T> T countingStatements(long expected, Supplier<T> listing) {
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        T result = listing.get();
+        assertEquals(expected, statistics.getPrepareStatementCount(), "SQL statements for one listing");
+        return result;
+    }
+}
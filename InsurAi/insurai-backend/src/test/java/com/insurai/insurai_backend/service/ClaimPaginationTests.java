@@ -0,0 +1,125 @@
+package com.insurai.insurai_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import com.insurai.insurai_backend.model.Claim;
+import com.insurai.insurai_backend.model.ClaimDTO;
+import com.insurai.insurai_backend.model.CursorPage;
+import com.insurai.insurai_backend.model.Employee;
+import com.insurai.insurai_backend.model.Hr;
+import com.insurai.insurai_backend.model.Policy;
+
+@DataJpaTest
+@Import(ClaimService.class)
+@MockClaimSideEffects
+@MockClaimIndexes
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "insurai.claims.page.max-size=3"
+})
+class ClaimPaginationTests {
+
+    @Autowired private ClaimService claimService;
+    @Autowired private TestEntityManager entityManager;
+
+    private Employee alice;
+    private Employee bob;
+    private final List<Claim> claims = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        alice = employee("E1", "alice@insurai.com");
+        bob = employee("E2", "bob@insurai.com");
+        Policy policy = entityManager.persist(TestFixtures.policy());
+
+        // Several claims share a timestamp so the id tie-break is exercised
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 9, 0);
+        for (int i = 0; i < 8; i++) {
+            Claim claim = new Claim("Claim " + i, "", 100.0, base, i % 2 == 0 ? alice : bob, policy, null, List.of());
+            claim.setCreatedAt(base.plusMinutes(i / 3));
+            claims.add(entityManager.persist(claim));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void pagesWalkEveryClaimNewestFirstWithoutRepeats() {
+        List<Long> expected = claims.stream()
+                .sorted(Comparator.comparing(Claim::getCreatedAt).thenComparing(Claim::getId).reversed())
+                .map(Claim::getId)
+                .toList();
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            // Asking for more than the cap still returns at most max-size rows
+            CursorPage<ClaimDTO> page = claimService.getClaimsPage(cursor, 50);
+            assertTrue(page.items().size() <= 3);
+            page.items().forEach(c -> seen.add(c.getId()));
+            cursor = page.next();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(expected, seen);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void employeePagesOnlyContainThatEmployeesClaims() {
+        CursorPage<ClaimDTO> first = claimService.getClaimsPageByEmployee(alice.getId(), null, 2);
+        CursorPage<ClaimDTO> second = claimService.getClaimsPageByEmployee(alice.getId(), first.next(), 2);
+
+        // Alice has exactly four claims, so the second page is the last one
+        assertEquals(2, first.items().size());
+        assertEquals(2, second.items().size());
+        assertNull(second.next());
+        first.items().forEach(c -> assertEquals(alice.getId(), c.getEmployeeId()));
+        second.items().forEach(c -> assertEquals(alice.getId(), c.getEmployeeId()));
+    }
+
+    @Test
+    void singleClaimIsOnlyReturnedToItsAssignedHr() {
+        Hr assigned = entityManager.persist(TestFixtures.hr("H1"));
+        Hr other = entityManager.persist(TestFixtures.hr("H2"));
+        Claim claim = entityManager.find(Claim.class, claims.get(0).getId());
+        claim.setAssignedHr(assigned);
+        entityManager.flush();
+        entityManager.clear();
+
+        ClaimDTO found = claimService.getClaimDtoForAssignedHr(claim.getId(), assigned.getId()).orElseThrow();
+        assertEquals("Claim 0", found.getTitle());
+        assertEquals(assigned.getId(), found.getAssignedHrId());
+        assertFalse(claimService.getClaimDtoForAssignedHr(claim.getId(), other.getId()).isPresent());
+    }
+
+    @Test
+    void tamperedCursorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> claimService.getClaimsPage("not-a-cursor", 10));
+    }
+
+    private Employee employee(String employeeId, String email) {
+        Employee employee = TestFixtures.employee(employeeId);
+        employee.setEmail(email);
+        employee.setName(email);
+        return entityManager.persist(employee);
+    }
+}
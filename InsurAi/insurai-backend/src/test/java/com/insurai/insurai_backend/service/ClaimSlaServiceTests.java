@@ -0,0 +1,158 @@
+package com.insurai.insurai_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.insurai.insurai_backend.model.Claim;
+import com.insurai.insurai_backend.model.ClaimStatus;
+import com.insurai.insurai_backend.model.Employee;
+import com.insurai.insurai_backend.model.Hr;
+import com.insurai.insurai_backend.model.OutboxEvent;
+import com.insurai.insurai_backend.model.Policy;
+import com.insurai.insurai_backend.repository.OutboxEventRepository;
+
+@DataJpaTest
+@Import({ClaimService.class, ClaimSlaService.class, HrWorkloadIndex.class, CoverageLedgerService.class,
+        OutboxService.class, OutboxRelay.class, JacksonAutoConfiguration.class})
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        // Health claims are overdue as soon as they are submitted
+        "insurai.sla.deadlines=Health=0s,Accident=48h",
+        "insurai.sla.re-escalate-after=1h",
+        "insurai.sla.max-escalations=2",
+        // The tests advance the wheel themselves
+        "insurai.sla.check-interval-ms=3600000"
+})
+class ClaimSlaServiceTests {
+
+    @Autowired private ClaimService claimService;
+    @Autowired private ClaimSlaService slaService;
+    @Autowired private HrWorkloadIndex hrWorkloadIndex;
+    @Autowired private TestEntityManager entityManager;
+    @Autowired private OutboxEventRepository outboxEventRepository;
+    @MockitoBean private ClaimAutomationService claimAutomationService;
+    @MockitoBean private DuplicateClaimIndex duplicateClaimIndex;
+
+    private Employee employee;
+    private Policy health;
+    private Policy accident;
+    private Hr first;
+    private Hr second;
+
+    @BeforeEach
+    void setUp() {
+        employee = entityManager.persist(TestFixtures.employee("E1"));
+        health = policy("P-1", "Health");
+        accident = policy("P-2", "Accident");
+        first = hr("H1");
+        second = hr("H2");
+        entityManager.flush();
+
+        // Both are singletons shared by every test in the context; start from this test's rows
+        hrWorkloadIndex.reconcile();
+        slaService.recover();
+    }
+
+    @Test
+    void overdueClaimIsEscalatedToAnotherHrAndDecidedClaimsAreForgotten() throws Exception {
+        LocalDateTime before = LocalDateTime.now();
+        Claim overdue = claimService.submitClaim(claim(health));
+        Claim onTime = claimService.submitClaim(claim(accident));
+        assertEquals(first.getId(), overdue.getAssignedHr().getId());
+        assertTrue(!onTime.getSlaDeadline().isBefore(before.plusHours(48)));
+        assertEquals(2, slaService.timers());
+
+        slaService.tick(nextTick());
+
+        Claim escalated = entityManager.find(Claim.class, overdue.getId());
+        assertEquals(1, escalated.getEscalationLevel());
+        assertEquals(second.getId(), escalated.getAssignedHr().getId());
+        assertTrue(escalated.getSlaDeadline().isAfter(before.plusMinutes(59)));
+        assertEquals(0, entityManager.find(Claim.class, onTime.getId()).getEscalationLevel());
+
+        // Recorded with the change, next to the two submissions
+        List<OutboxEvent> escalations = outboxEventRepository.findAll().stream()
+                .filter(event -> event.getType().equals("claim.escalated")).toList();
+        assertEquals(1, escalations.size());
+        assertEquals(overdue.getId(), escalations.get(0).getAggregateId());
+        assertTrue(escalations.get(0).getPayload().contains("\"previousHrId\":" + first.getId()));
+        assertTrue(escalations.get(0).getPayload().contains("\"assignedHrId\":" + second.getId()));
+
+        // The on-time claim went to the second HR at submission; now both are there
+        assertEquals(0, hrWorkloadIndex.pendingCount(first.getId()));
+        assertEquals(2, hrWorkloadIndex.pendingCount(second.getId()));
+
+        // Deciding a claim cancels its timer; the escalated one waits for its next deadline
+        claimService.approveClaim(onTime.getId(), "ok");
+        claimService.approveClaim(overdue.getId(), "ok");
+        assertEquals(0, slaService.timers());
+    }
+
+    @Test
+    void recoveredFromThePendingClaimsDeadlines() {
+        Claim pending = claim(accident);
+        pending.setSlaDeadline(LocalDateTime.now().minusMinutes(5));
+        entityManager.persist(pending);
+        Claim decided = claim(accident);
+        decided.setStatus(ClaimStatus.APPROVED);
+        decided.setSlaDeadline(LocalDateTime.now().minusMinutes(5));
+        entityManager.persist(decided);
+        // Submitted before deadlines existed
+        entityManager.persist(claim(accident));
+        entityManager.flush();
+
+        slaService.recover();
+        assertEquals(1, slaService.timers());
+
+        slaService.tick(nextTick());
+        assertEquals(1, entityManager.find(Claim.class, pending.getId()).getEscalationLevel());
+        assertEquals(0, entityManager.find(Claim.class, decided.getId()).getEscalationLevel());
+
+        // max-escalations=2: the second escalation is the last one
+        Claim escalated = entityManager.find(Claim.class, pending.getId());
+        escalated.setSlaDeadline(LocalDateTime.now().minusMinutes(1));
+        entityManager.flush();
+        slaService.recover();
+        slaService.tick(nextTick());
+        escalated = entityManager.find(Claim.class, pending.getId());
+        assertEquals(2, escalated.getEscalationLevel());
+        assertNull(escalated.getSlaDeadline());
+        assertEquals(0, slaService.timers());
+    }
+
+    // The wheel's clock, a tick (1s by default) further on each call: overdue timers fire on the
+    // tick after the one they were found in. Shared because the service outlives each test.
+    private static long clock;
+
+    private static long nextTick() {
+        clock = Math.max(clock, System.currentTimeMillis()) + 1_000;
+        return clock;
+    }
+
+    private Claim claim(Policy policy) {
+        return new Claim("Claim", "", 100.0, LocalDateTime.of(2025, 3, 1, 0, 0), employee, policy, null, new ArrayList<>());
+    }
+
+    private Policy policy(String number, String type) {
+        return entityManager.persist(TestFixtures.policy(number, type));
+    }
+
+    private Hr hr(String hrId) {
+        return entityManager.persist(TestFixtures.hr(hrId));
+    }
+}
@@ -0,0 +1,157 @@
+package com.insurai.insurai_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.insurai.insurai_backend.model.Claim;
+import com.insurai.insurai_backend.model.ClaimStatus;
+import com.insurai.insurai_backend.model.Employee;
+import com.insurai.insurai_backend.model.Hr;
+import com.insurai.insurai_backend.model.Policy;
+import com.insurai.insurai_backend.repository.ClaimRepository;
+import com.insurai.insurai_backend.repository.EmployeeRepository;
+import com.insurai.insurai_backend.repository.HrRepository;
+import com.insurai.insurai_backend.repository.PolicyRepository;
+
+/**
+ * Racing reviewers against the same claims: every claim must be decided exactly once,
+ * whatever the interleaving. Runs without the test transaction so each thread commits.
+ */
+@DataJpaTest
+@Import(ClaimService.class)
+@MockClaimSideEffects
+@MockClaimIndexes
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class ClaimStatusTransitionTests {
+
+    private static final int CLAIMS = 25;
+    private static final int REVIEWERS = 8;
+
+    @Autowired private ClaimService claimService;
+    @Autowired private ClaimRepository claimRepository;
+    @Autowired private EmployeeRepository employeeRepository;
+    @Autowired private PolicyRepository policyRepository;
+    @Autowired private HrRepository hrRepository;
+    // Mocked by @MockClaimIndexes
+    @Autowired private HrWorkloadIndex hrWorkloadIndex;
+
+    private final List<Long> claimIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Employee employee = employeeRepository.save(TestFixtures.employee("E1"));
+        Hr hr = hrRepository.save(TestFixtures.hr("H1"));
+        Policy policy = policyRepository.save(TestFixtures.policy());
+
+        for (int i = 0; i < CLAIMS; i++) {
+            Claim claim = new Claim("Claim " + i, "", 10.0, LocalDateTime.of(2025, 1, 1, 9, 0), employee, policy, hr, List.of());
+            claimIds.add(claimRepository.save(claim).getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        claimRepository.deleteAll();
+        policyRepository.deleteAll();
+        hrRepository.deleteAll();
+        employeeRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentDecisionsWinExactlyOnce() throws Exception {
+        Map<Long, ClaimStatus> winners = new ConcurrentHashMap<>();
+        AtomicInteger wins = new AtomicInteger();
+        AtomicInteger losses = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(REVIEWERS);
+
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int reviewer = 0; reviewer < REVIEWERS; reviewer++) {
+            ClaimStatus decision = reviewer % 2 == 0 ? ClaimStatus.APPROVED : ClaimStatus.REJECTED;
+            tasks.add(pool.submit(() -> {
+                start.await();
+                for (Long claimId : claimIds) {
+                    try {
+                        claimService.transition(claimId, decision, "by " + decision);
+                        wins.incrementAndGet();
+                        // A second winner for the same claim would overwrite and fail the check below
+                        assertTrue(winners.putIfAbsent(claimId, decision) == null, "claim " + claimId + " won twice");
+                    } catch (Exception lost) {
+                        losses.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> task : tasks) {
+            task.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(CLAIMS, wins.get());
+        assertEquals(CLAIMS * (REVIEWERS - 1), losses.get());
+        for (Long claimId : claimIds) {
+            Claim claim = claimRepository.findById(claimId).orElseThrow();
+            assertEquals(winners.get(claimId), claim.getStatus());
+            assertEquals("by " + winners.get(claimId), claim.getRemarks());
+            // One successful UPDATE bumped the version once
+            assertEquals(1, claim.getVersion());
+        }
+        // The HR's queue shrank once per claim, not once per attempt
+        verify(hrWorkloadIndex, times(CLAIMS)).release(anyLong());
+    }
+
+    @Test
+    void decisionsAreFinal() throws Exception {
+        Long claimId = claimIds.get(0);
+        claimService.approveClaim(claimId, "ok");
+
+        Exception refused = assertThrows(Exception.class, () -> claimService.rejectClaim(claimId, "no"));
+        assertEquals("Claim is already Approved and cannot be Rejected", refused.getMessage());
+        assertThrows(Exception.class, () -> claimService.approveClaim(-1L, "missing"));
+    }
+
+    @Test
+    void transitionTable() {
+        assertEquals(ClaimStatus.PENDING, ClaimStatus.fromLabel("pending"));
+        assertEquals(ClaimStatus.APPROVED, ClaimStatus.fromLabel("APPROVED"));
+        assertTrue(ClaimStatus.PENDING.canTransitionTo(ClaimStatus.REJECTED));
+        assertFalse(ClaimStatus.REJECTED.canTransitionTo(ClaimStatus.APPROVED));
+        assertFalse(ClaimStatus.PENDING.canTransitionTo(ClaimStatus.PENDING));
+        assertEquals(List.of(ClaimStatus.PENDING), List.copyOf(ClaimStatus.sourcesOf(ClaimStatus.APPROVED)));
+        // ClaimService.transition relies on a single source per target
+        for (ClaimStatus target : ClaimStatus.values()) {
+            assertTrue(ClaimStatus.sourcesOf(target).size() <= 1, target.name());
+        }
+        assertThrows(IllegalArgumentException.class, () -> ClaimStatus.fromLabel("Resolved"));
+    }
+}
@@ -0,0 +1,214 @@
+package com.insurai.insurai_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.insurai.insurai_backend.model.Claim;
+import com.insurai.insurai_backend.model.ClaimStatus;
+import com.insurai.insurai_backend.model.CoverageLedgerEntry;
+import com.insurai.insurai_backend.model.CoverageSummary;
+import com.insurai.insurai_backend.model.Employee;
+import com.insurai.insurai_backend.model.Policy;
+import com.insurai.insurai_backend.repository.ClaimRepository;
+import com.insurai.insurai_backend.repository.CoverageLedgerRepository;
+import com.insurai.insurai_backend.repository.EmployeeRepository;
+import com.insurai.insurai_backend.repository.PolicyRepository;
+
+/**
+ * Runs without the test transaction: the in-memory totals only move when a write commits.
+ */
+@DataJpaTest
+@Import({ClaimService.class, CoverageLedgerService.class, HrWorkloadIndex.class})
+@MockClaimSideEffects
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class CoverageLedgerTests {
+
+    @Autowired private ClaimService claimService;
+    @Autowired private CoverageLedgerService ledger;
+    @Autowired private ClaimRepository claimRepository;
+    @Autowired private CoverageLedgerRepository ledgerRepository;
+    @Autowired private EmployeeRepository employeeRepository;
+    @Autowired private PolicyRepository policyRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @MockitoBean private DuplicateClaimIndex duplicateClaimIndex;
+
+    private Employee employee;
+    private Policy policy;
+
+    @BeforeEach
+    void setUp() {
+        employee = employeeRepository.save(TestFixtures.employee("E1"));
+
+        policy = TestFixtures.policy();
+        policy.setCoverageAmount(1_000.0);
+        policy = policyRepository.save(policy);
+    }
+
+    @AfterEach
+    void tearDown() {
+        claimRepository.deleteAll();
+        ledgerRepository.deleteAll();
+        policyRepository.deleteAll();
+        employeeRepository.deleteAll();
+        ledger.rebuild();
+    }
+
+    @Test
+    void claimsTogetherCannotExceedTheCoverage() throws Exception {
+        Claim first = submit(400.0);
+        Claim second = submit(400.0);
+
+        Exception refused = assertThrows(Exception.class, () -> submit(300.0));
+        assertEquals("Claim amount exceeds the remaining coverage on this policy (200.00 left)", refused.getMessage());
+        assertEquals(2, claimRepository.count());
+
+        // A rejection gives the reservation back; an approval turns it into used coverage
+        claimService.rejectClaim(first.getId(), "no");
+        claimService.approveClaim(second.getId(), "ok");
+        assertSummary(0, 400, 600);
+        Claim third = submit(300.0);
+        assertSummary(300, 400, 300);
+
+        // Edits move the claim's reservation by the difference, and an increase must still fit
+        assertThrows(Exception.class, () -> claimService.updateClaim(edit(third.getId(), 700.0)));
+        claimService.updateClaim(edit(third.getId(), 150.0));
+        assertSummary(150, 400, 450);
+        assertStored(150, 400);
+    }
+
+    @Test
+    void concurrentSubmissionsNeverOverbook() throws Exception {
+        int threads = 20;
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            tasks.add(pool.submit(() -> {
+                start.await();
+                try {
+                    submit(100.0);
+                    accepted.incrementAndGet();
+                } catch (Exception refused) {
+                    // over the limit
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> task : tasks) {
+            task.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(10, accepted.get());
+        assertEquals(10, claimRepository.count());
+        assertSummary(1_000, 0, 0);
+        assertStored(1_000, 0);
+    }
+
+    @Test
+    void rebuiltFromTheClaims() {
+        // Written behind the ledger's back
+        claimRepository.save(claim(250.0, ClaimStatus.PENDING));
+        claimRepository.save(claim(100.0, ClaimStatus.APPROVED));
+        claimRepository.save(claim(600.0, ClaimStatus.REJECTED));
+        assertSummary(0, 0, 1_000);
+
+        ledger.rebuild();
+
+        assertSummary(250, 100, 650);
+        assertStored(250, 100);
+    }
+
+    @Test
+    void correctionWaitsForAChargeInFlight() throws Exception {
+        submit(100.0);
+        // Written behind the ledger's back: the row is 250 short
+        claimRepository.save(claim(250.0, ClaimStatus.PENDING));
+
+        // Another instance charging the same account, not committed yet
+        CountDownLatch charged = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        Thread other = new Thread(() -> new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            try {
+                submit(50.0);
+                charged.countDown();
+                commit.await();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        other.start();
+        charged.await();
+
+        Thread rebuild = new Thread(ledger::rebuild);
+        rebuild.start();
+        // The rebuild waits on the account's row until the charge commits, then counts its claim
+        rebuild.join(200);
+        commit.countDown();
+        other.join();
+        rebuild.join();
+
+        assertStored(400, 0);
+        assertSummary(400, 0, 600);
+    }
+
+    private Claim submit(double amount) throws Exception {
+        return claimService.submitClaim(claim(amount, ClaimStatus.PENDING));
+    }
+
+    // As the update endpoint does it: the stored claim with the form's values set on it
+    private Claim edit(Long claimId, double amount) {
+        Claim claim = claimRepository.findById(claimId).orElseThrow();
+        claim.setPolicy(policy);
+        claim.setAmount(amount);
+        return claim;
+    }
+
+    private Claim claim(double amount, ClaimStatus status) {
+        Claim claim = new Claim("Claim", "", amount, LocalDateTime.of(2025, 3, 1, 0, 0), employee, policy, null, new ArrayList<>());
+        claim.setStatus(status);
+        return claim;
+    }
+
+    private void assertSummary(double reserved, double approved, double remaining) {
+        CoverageSummary summary = ledger.summary(employee.getId(), policy);
+        assertEquals(CoverageLedgerService.money(reserved), summary.reserved().setScale(2));
+        assertEquals(CoverageLedgerService.money(approved), summary.approved().setScale(2));
+        assertEquals(CoverageLedgerService.money(remaining), summary.remaining());
+    }
+
+    private void assertStored(double reserved, double approved) {
+        CoverageLedgerEntry entry = ledgerRepository.findAll().stream()
+                .filter(e -> e.getEmployeeId().equals(employee.getId()) && e.getPolicyId().equals(policy.getId()))
+                .findFirst().orElseThrow();
+        assertEquals(0, entry.getReserved().compareTo(BigDecimal.valueOf(reserved)));
+        assertEquals(0, entry.getApproved().compareTo(BigDecimal.valueOf(approved)));
+    }
+}
@@ -0,0 +1,173 @@
+package com.insurai.insurai_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.insurai.insurai_backend.model.Claim;
+import com.insurai.insurai_backend.model.Employee;
+import com.insurai.insurai_backend.model.Policy;
+import com.insurai.insurai_backend.repository.ClaimRepository;
+import com.insurai.insurai_backend.repository.DocumentBlobRepository;
+import com.insurai.insurai_backend.repository.DocumentReferenceRepository;
+import com.insurai.insurai_backend.repository.EmployeeRepository;
+import com.insurai.insurai_backend.repository.PolicyRepository;
+
+/**
+ * Runs without the test transaction: the store commits the reference and the count before it
+ * touches the file.
+ */
+@DataJpaTest
+@Import(DocumentBlobStore.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "insurai.uploads.store.grace-hours=0",
+        "insurai.uploads.store.gc-interval-ms=3600000"
+})
+class DocumentBlobStoreTests {
+
+    private static Path uploads;
+
+    @DynamicPropertySource
+    static void uploadDir(DynamicPropertyRegistry registry) throws IOException {
+        uploads = Files.createTempDirectory("uploads");
+        registry.add("insurai.uploads.dir", uploads::toString);
+    }
+
+    @Autowired private DocumentBlobStore store;
+    @Autowired private DocumentBlobRepository blobRepository;
+    @Autowired private DocumentReferenceRepository referenceRepository;
+    @Autowired private ClaimRepository claimRepository;
+    @Autowired private EmployeeRepository employeeRepository;
+    @Autowired private PolicyRepository policyRepository;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        claimRepository.deleteAll();
+        policyRepository.deleteAll();
+        employeeRepository.deleteAll();
+        referenceRepository.deleteAll();
+        blobRepository.deleteAll();
+        try (Stream<Path> files = Files.walk(uploads)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void identicalContentIsStoredOnceAndCollectedWhenNoClaimHoldsIt() throws Exception {
+        String card = "policy card ".repeat(1_000);
+        String cardPath = add("card.pdf", card);
+        String againPath = add("card (1).pdf", card);
+        String letterPath = add("letter.pdf", "hospital letter");
+        String scanPath = add("scan.pdf", "a scan for a request that failed");
+
+        // Each upload keeps its own path and name; the card's bytes are on disk once
+        assertNotEquals(cardPath, againPath);
+        assertTrue(againPath.endsWith("_card (1).pdf"));
+        assertEquals(store.resolve(cardPath), store.resolve(againPath));
+        assertEquals(uploads.resolve("blobs").resolve(sha256(card).substring(0, 2)).resolve(sha256(card).substring(2, 4))
+                .resolve(sha256(card)), store.resolve(cardPath));
+        assertEquals(card, Files.readString(store.resolve(againPath)));
+        assertEquals(3, blobFiles());
+        assertEquals(2, blobRepository.findById(sha256(card)).orElseThrow().getRefCount());
+        assertEquals(0, tempFiles());
+
+        store.refreshSummary();
+        assertEquals(card.length(), store.bytesSaved());
+        assertTrue(store.dedupRatio() > 1.9, "ratio " + store.dedupRatio());
+
+        // Only the card and the letter made it into a claim
+        claim(cardPath, letterPath);
+        Path scan = store.resolve(scanPath);
+        store.collect();
+        assertEquals(1, blobRepository.findById(sha256(card)).orElseThrow().getRefCount());
+        assertEquals(0, blobRepository.findById(sha256("a scan for a request that failed")).orElseThrow().getRefCount());
+        assertNull(store.resolveStored(scanPath));
+        // Found in a claim once: confirmed, and not looked at again
+        assertTrue(referenceRepository.findByPath(cardPath).orElseThrow().isConfirmed());
+        assertTrue(referenceRepository.findByPath(letterPath).orElseThrow().isConfirmed());
+        assertTrue(referenceRepository.findByPath(againPath).isEmpty());
+        // Unreferenced content goes on the next collection after the grace period
+        store.collect();
+        assertFalse(Files.exists(scan));
+        assertEquals(2, blobFiles());
+        assertEquals("hospital letter", Files.readString(store.resolve(letterPath)));
+        assertEquals(0, store.bytesSaved());
+    }
+
+    @Test
+    void contentUploadedAgainAfterItsLastReleaseIsStoredAgain() throws Exception {
+        String path = add("bill.pdf", "bill");
+        store.release(List.of(path));
+        store.release(List.of(path));
+        assertEquals(0, blobRepository.findById(sha256("bill")).orElseThrow().getRefCount());
+
+        String again = add("bill.pdf", "bill");
+        claim(again);
+        store.collect();
+        store.collect();
+        assertEquals("bill", Files.readString(store.resolve(again)));
+
+        // Abandoned partial uploads are removed too
+        Path partial = store.tempFile();
+        Files.setLastModifiedTime(partial, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        store.collect();
+        assertEquals(0, tempFiles());
+    }
+
+    private String add(String filename, String content) throws Exception {
+        Path temp = store.tempFile();
+        Files.writeString(temp, content);
+        return store.add(filename, temp, sha256(content), content.length());
+    }
+
+    private void claim(String... documents) {
+        Employee employee = employeeRepository.save(TestFixtures.employee("E1"));
+        Policy policy = policyRepository.save(TestFixtures.policy());
+
+        claimRepository.save(new Claim("Claim", "", 10.0, LocalDateTime.now(), employee, policy, null, List.of(documents)));
+    }
+
+    private static long blobFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(uploads.resolve("blobs"))) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private static long tempFiles() throws IOException {
+        try (Stream<Path> files = Files.list(uploads.resolve("tmp"))) {
+            return files.count();
+        }
+    }
+
+    private static String sha256(String content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
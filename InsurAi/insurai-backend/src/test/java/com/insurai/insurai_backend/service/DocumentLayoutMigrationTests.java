@@ -0,0 +1,175 @@
+package com.insurai.insurai_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.insurai.insurai_backend.model.Claim;
+import com.insurai.insurai_backend.model.DocumentBlob;
+import com.insurai.insurai_backend.model.DocumentReference;
+import com.insurai.insurai_backend.model.Employee;
+import com.insurai.insurai_backend.model.Policy;
+import com.insurai.insurai_backend.repository.ClaimRepository;
+import com.insurai.insurai_backend.repository.DocumentBlobRepository;
+import com.insurai.insurai_backend.repository.DocumentReferenceRepository;
+import com.insurai.insurai_backend.repository.EmployeeRepository;
+import com.insurai.insurai_backend.repository.PolicyRepository;
+
+@DataJpaTest
+@Import({DocumentBlobStore.class, DocumentLayoutMigration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "insurai.uploads.store.gc-interval-ms=3600000",
+        "insurai.uploads.migration.workers=2"
+})
+class DocumentLayoutMigrationTests {
+
+    private static Path uploads;
+
+    @DynamicPropertySource
+    static void uploadDir(DynamicPropertyRegistry registry) throws IOException {
+        uploads = Files.createTempDirectory("uploads");
+        registry.add("insurai.uploads.dir", uploads::toString);
+    }
+
+    @Autowired private DocumentLayoutMigration migration;
+    @Autowired private DocumentBlobStore store;
+    @Autowired private DocumentBlobRepository blobRepository;
+    @Autowired private DocumentReferenceRepository referenceRepository;
+    @Autowired private ClaimRepository claimRepository;
+    @Autowired private EmployeeRepository employeeRepository;
+    @Autowired private PolicyRepository policyRepository;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        claimRepository.deleteAll();
+        policyRepository.deleteAll();
+        employeeRepository.deleteAll();
+        referenceRepository.deleteAll();
+        blobRepository.deleteAll();
+        try (Stream<Path> files = Files.walk(uploads)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void olderLayoutsAreMovedIntoTheFanOutAndEveryPathStillResolves() throws Exception {
+        // Stored by content before the fan-out: directly under blobs/
+        String card = "policy card";
+        String cardPath = "/uploads/" + UUID.randomUUID() + "_card.pdf";
+        Files.createDirectories(uploads.resolve("blobs"));
+        Files.writeString(uploads.resolve("blobs").resolve(sha256(card)), card);
+        blobRepository.save(new DocumentBlob(sha256(card), card.length()));
+        referenceRepository.save(new DocumentReference(cardPath, sha256(card)));
+
+        // Saved before the store, one of them the same content as the card
+        String billPath = legacy("bill.pdf", "hospital bill");
+        String copyPath = legacy("card copy.pdf", card);
+        Files.writeString(uploads.resolve("notes.txt"), "not a document");
+        claim(cardPath, billPath, copyPath);
+        assertEquals(uploads.resolve(billPath.substring("/uploads/".length())), store.resolve(billPath));
+
+        migration.run();
+
+        for (String path : List.of(cardPath, billPath, copyPath)) {
+            assertTrue(store.resolve(path).startsWith(uploads.resolve("blobs")), path);
+        }
+        assertEquals(fanOut(sha256(card)), store.resolve(cardPath));
+        assertEquals(fanOut(sha256(card)), store.resolve(copyPath));
+        assertEquals("hospital bill", Files.readString(store.resolve(billPath)));
+        assertEquals(2, blobRepository.findById(sha256(card)).orElseThrow().getRefCount());
+        // Only the file that is not a document is left at the top
+        assertEquals(List.of(uploads.resolve("notes.txt")), topLevelFiles(uploads));
+        assertEquals(List.of(), topLevelFiles(uploads.resolve("blobs")));
+        assertEquals(1, migration.progress().blobsMoved());
+        assertEquals(2, migration.progress().documentsAdopted());
+        assertEquals(0, migration.progress().failed());
+        assertFalse(migration.progress().running());
+
+        // A run stopped after taking a document in but before removing it; the next one finishes the job
+        Files.writeString(uploads.resolve(billPath.substring("/uploads/".length())), "hospital bill");
+        migration.run();
+        assertEquals(List.of(uploads.resolve("notes.txt")), topLevelFiles(uploads));
+        assertEquals(1, blobRepository.findById(sha256("hospital bill")).orElseThrow().getRefCount());
+        assertEquals("hospital bill", Files.readString(store.resolve(billPath)));
+    }
+
+    @Test
+    void previewsAreMovedIntoTheFanOutAndNewOnesWrittenThere() throws Exception {
+        // Written flat before the fan-out; a half-written one is left alone
+        String oldPath = "/uploads/previews/" + UUID.randomUUID() + "_photo.png.png";
+        Path flat = uploads.resolve(oldPath.substring("/uploads/".length()));
+        Files.createDirectories(flat.getParent());
+        Files.writeString(flat, "old preview");
+        Files.writeString(flat.resolveSibling("other.png.png.part"), "partial");
+        assertEquals(flat, store.resolve(oldPath));
+
+        // Not written yet: its place is in the fan-out
+        String newPath = "/uploads/previews/" + UUID.randomUUID() + "_scan.png.png";
+        Path fanned = store.resolve(newPath);
+        assertTrue(fanned.startsWith(uploads.resolve("previews")));
+        assertEquals(3, uploads.resolve("previews").relativize(fanned).getNameCount());
+
+        migration.run();
+
+        Path moved = store.resolve(oldPath);
+        assertEquals(3, uploads.resolve("previews").relativize(moved).getNameCount());
+        assertEquals("old preview", Files.readString(moved));
+        assertEquals(moved, store.resolveStored(oldPath));
+        assertEquals(List.of(flat.resolveSibling("other.png.png.part")), topLevelFiles(uploads.resolve("previews")));
+        assertEquals(1, migration.progress().previewsMoved());
+        assertEquals(0, migration.progress().failed());
+    }
+
+    private String legacy(String filename, String content) throws IOException {
+        String name = UUID.randomUUID() + "_" + filename;
+        Files.writeString(uploads.resolve(name), content);
+        return "/uploads/" + name;
+    }
+
+    private void claim(String... documents) {
+        Employee employee = employeeRepository.save(TestFixtures.employee("E1"));
+        Policy policy = policyRepository.save(TestFixtures.policy());
+
+        claimRepository.save(new Claim("Claim", "", 10.0, LocalDateTime.now(), employee, policy, null, List.of(documents)));
+    }
+
+    private static Path fanOut(String sha256) {
+        return uploads.resolve("blobs").resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    private static List<Path> topLevelFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(Files::isRegularFile).toList();
+        }
+    }
+
+    private static String sha256(String content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,175 @@
+package com.insurai.insurai_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.awt.image.BufferedImage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insurai.insurai_backend.model.DocumentProcessing;
+import com.insurai.insurai_backend.model.DocumentProcessing.Status;
+import com.insurai.insurai_backend.model.OutboxEvent;
+import com.insurai.insurai_backend.repository.DocumentProcessingRepository;
+
+/**
+ * Runs without the test transaction: the workers read and write the rows on their own threads.
+ */
+@DataJpaTest
+@Import({DocumentPipeline.class, DocumentValidationStage.class, DocumentChecksumStage.class,
+        DocumentMetadataStage.class, DocumentPreviewStage.class, JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "insurai.documents.pipeline.max-attempts=2",
+        "insurai.documents.pipeline.sweep-interval-ms=3600000"
+})
+class DocumentPipelineTests {
+
+    @Autowired private DocumentPipeline pipeline;
+    @Autowired private DocumentProcessingRepository repository;
+    @Autowired private ObjectMapper objectMapper;
+    @MockitoBean private ClaimDocumentStorage storage;
+
+    @TempDir Path uploads;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        when(storage.resolve(anyString())).thenAnswer(call -> uploads.resolve(call.<String>getArgument(0).substring("/uploads/".length())));
+        when(storage.previewPath(anyString())).thenAnswer(call -> "/uploads/previews/" + call.<String>getArgument(0).substring("/uploads/".length()) + ".png");
+    }
+
+    @Test
+    void eachDocumentIsCheckedMeasuredAndPreviewed() throws Exception {
+        BufferedImage photo = new BufferedImage(800, 400, BufferedImage.TYPE_INT_RGB);
+        ImageIO.write(photo, "png", uploads.resolve("photo.png").toFile());
+        // The second page object straddles the 64 KB chunks the page count is read in
+        String padding = "%" + " ".repeat(64 * 1024 - 40) + "\n";
+        Files.writeString(uploads.resolve("bill.pdf"), "%PDF-1.4\n1 0 obj << /Type /Pages /Count 2 >> endobj\n"
+                + "2 0 obj << /Type /Page >> endobj\n" + padding + "3 0 obj << /Type /Page /Parent 1 0 R >> endobj\n%%EOF",
+                StandardCharsets.ISO_8859_1);
+        Files.write(uploads.resolve("setup.pdf"), new byte[] {'M', 'Z', 0, 0, 1, 2, 3});
+        Files.write(uploads.resolve("empty.png"), new byte[0]);
+
+        OutboxEvent submitted = event("claim.submitted", 1L, "/uploads/photo.png", "/uploads/bill.pdf", "/uploads/setup.pdf", "/uploads/empty.png");
+        pipeline.handle(submitted);
+        Map<String, DocumentProcessing> documents = awaitSettled(4);
+
+        DocumentProcessing image = documents.get("/uploads/photo.png");
+        assertEquals(Status.READY, image.getStatus());
+        assertEquals("image/png", image.getContentType());
+        assertEquals(800, image.getWidth());
+        assertEquals(400, image.getHeight());
+        assertEquals(sha256(uploads.resolve("photo.png")), image.getSha256());
+        assertEquals("/uploads/previews/photo.png.png", image.getPreviewPath());
+        BufferedImage preview = ImageIO.read(uploads.resolve("previews/photo.png.png").toFile());
+        assertEquals(256, preview.getWidth());
+        assertEquals(128, preview.getHeight());
+
+        DocumentProcessing pdf = documents.get("/uploads/bill.pdf");
+        assertEquals(Status.READY, pdf.getStatus());
+        assertEquals(2, pdf.getPageCount());
+        assertNull(pdf.getPreviewPath());
+
+        assertEquals(Status.REJECTED, documents.get("/uploads/setup.pdf").getStatus());
+        assertEquals("Unsupported document type", documents.get("/uploads/setup.pdf").getError());
+        assertEquals("Document is empty", documents.get("/uploads/empty.png").getError());
+
+        // Delivered again, then an update adding one document: only the new one is recorded
+        pipeline.handle(submitted);
+        Files.copy(uploads.resolve("photo.png"), uploads.resolve("more.png"));
+        pipeline.handle(event("claim.updated", 1L, "/uploads/photo.png", "/uploads/bill.pdf", "/uploads/setup.pdf",
+                "/uploads/empty.png", "/uploads/more.png"));
+        assertEquals(Status.READY, awaitSettled(5).get("/uploads/more.png").getStatus());
+    }
+
+    @Test
+    void failuresAreRetriedBySweepAndStuckDocumentsResumed() throws Exception {
+        // Its header reads, its pixels do not: fails in the preview stage every time
+        byte[] png = Files.readAllBytes(write("whole.png"));
+        Files.write(uploads.resolve("broken.png"), Arrays.copyOf(png, 60));
+        pipeline.handle(event("claim.submitted", 2L, "/uploads/broken.png"));
+        DocumentProcessing broken = awaitSettled(1).get("/uploads/broken.png");
+        assertEquals(Status.PENDING, broken.getStatus());
+        assertEquals(1, broken.getAttempts());
+
+        // Left in progress an hour ago by an instance that went away
+        write("left.png");
+        DocumentProcessing left = new DocumentProcessing(3L, "/uploads/left.png");
+        left.setStatus(Status.PROCESSING);
+        left.setStartedAt(LocalDateTime.now().minusHours(1));
+        repository.save(left);
+
+        pipeline.sweep();
+        Map<String, DocumentProcessing> documents = await(found -> found.size() == 2
+                && found.get("/uploads/broken.png").getStatus() == Status.FAILED
+                && found.get("/uploads/left.png").getStatus() == Status.READY);
+        assertEquals(Status.FAILED, documents.get("/uploads/broken.png").getStatus());
+        assertEquals(2, documents.get("/uploads/broken.png").getAttempts());
+        assertTrue(documents.get("/uploads/broken.png").getError().contains("IOException"));
+        assertEquals(Status.READY, documents.get("/uploads/left.png").getStatus());
+    }
+
+    private Path write(String name) throws Exception {
+        Path file = uploads.resolve(name);
+        ImageIO.write(new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB), "png", file.toFile());
+        return file;
+    }
+
+    private OutboxEvent event(String type, Long claimId, String... documents) throws Exception {
+        String payload = objectMapper.writeValueAsString(Map.of("claimId", claimId, "documents", List.of(documents)));
+        return new OutboxEvent(type, OutboxService.CLAIM, claimId, payload);
+    }
+
+    // Waits until count documents are recorded and none is queued or running
+    private Map<String, DocumentProcessing> awaitSettled(int count) throws InterruptedException {
+        return await(found -> found.size() == count && found.values().stream().allMatch(document ->
+                document.getStatus() != Status.PROCESSING
+                        && (document.getStatus() != Status.PENDING || document.getCompletedAt() != null)));
+    }
+
+    private Map<String, DocumentProcessing> await(Predicate<Map<String, DocumentProcessing>> done) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            Map<String, DocumentProcessing> documents = repository.findAll().stream()
+                    .collect(Collectors.toMap(DocumentProcessing::getPath, Function.identity()));
+            if (done.test(documents) || System.currentTimeMillis() > deadline) {
+                return documents;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static String sha256(Path file) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file)));
+    }
+}
@@ -0,0 +1,155 @@
+package com.insurai.insurai_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import com.insurai.insurai_backend.model.Claim;
+import com.insurai.insurai_backend.model.Employee;
+import com.insurai.insurai_backend.model.Policy;
+import com.insurai.insurai_backend.repository.ClaimRepository;
+import com.insurai.insurai_backend.service.ClaimDocumentStorage.StoredDocument;
+
+@DataJpaTest
+@Import({ClaimService.class, DuplicateClaimIndex.class, HrWorkloadIndex.class, CoverageLedgerService.class})
+@MockClaimSideEffects
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "insurai.claims.duplicates.amount-tolerance=1.0",
+        "insurai.claims.duplicates.window-days=7",
+        "insurai.claims.duplicates.max-entries=5"
+})
+class DuplicateClaimIndexTests {
+
+    private static final LocalDateTime RECEIPT_DATE = LocalDateTime.of(2025, 3, 10, 0, 0);
+
+    @Autowired private ClaimService claimService;
+    @Autowired private DuplicateClaimIndex index;
+    @Autowired private TestEntityManager entityManager;
+
+    private Employee employee;
+    private Employee colleague;
+    private Policy health;
+    private Policy dental;
+
+    @BeforeEach
+    void setUp() {
+        employee = employee("E1");
+        colleague = employee("E2");
+        health = policy("P-1");
+        dental = policy("P-2");
+        entityManager.flush();
+
+        // The index is a singleton shared by every test in the context; start from this test's rows
+        index.warm();
+    }
+
+    @Test
+    void sameDocumentsAreRefusedAndNearMatchesFlagged() throws Exception {
+        Claim original = claimService.submitClaim(claim(employee, health, 120.00, RECEIPT_DATE, "receipt"));
+        assertNull(original.getDuplicateOfClaimId());
+
+        // Same receipt again, even with a different amount and policy
+        Exception refused = assertThrows(Exception.class,
+                () -> claimService.submitClaim(claim(employee, dental, 80.00, RECEIPT_DATE.plusMonths(2), "receipt")));
+        assertEquals("The same documents were already submitted with claim #" + original.getId(), refused.getMessage());
+
+        // Same policy, amount within the tolerance, date within the window: kept but flagged
+        Claim near = claimService.submitClaim(claim(employee, health, 120.50, RECEIPT_DATE.plusDays(6), "photo"));
+        assertEquals(original.getId(), near.getDuplicateOfClaimId());
+
+        // Outside the window, another policy, another amount, or another employee: not a duplicate
+        assertNull(claimService.submitClaim(claim(employee, health, 120.00, RECEIPT_DATE.plusDays(30), null)).getDuplicateOfClaimId());
+        assertNull(claimService.submitClaim(claim(employee, dental, 120.00, RECEIPT_DATE, null)).getDuplicateOfClaimId());
+        assertNull(claimService.submitClaim(claim(employee, health, 140.00, RECEIPT_DATE, null)).getDuplicateOfClaimId());
+        assertNull(claimService.submitClaim(claim(colleague, health, 120.00, RECEIPT_DATE, "receipt")).getDuplicateOfClaimId());
+    }
+
+    @Test
+    void warmedFromTheNewestClaimsWithinTheBound() {
+        List<Claim> saved = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            Claim claim = claim(employee, health, 100.0 + i * 10, RECEIPT_DATE, null);
+            claim.setCreatedAt(LocalDateTime.now().minusHours(7 - i));
+            saved.add(entityManager.persist(claim));
+        }
+        entityManager.flush();
+
+        index.warm();
+
+        // max-entries=5: the two oldest claims are not held
+        assertEquals(5, index.size());
+        assertNull(index.findDuplicate(claim(employee, health, 100.0, RECEIPT_DATE, null)));
+        assertEquals(saved.get(6).getId(), index.findDuplicate(claim(employee, health, 160.0, RECEIPT_DATE, null)).claimId());
+
+        // A new claim pushes out the oldest one held
+        Claim newest = entityManager.persist(claim(employee, health, 500.0, RECEIPT_DATE, null));
+        index.add(newest);
+        assertEquals(5, index.size());
+        assertNull(index.findDuplicate(claim(employee, health, 120.0, RECEIPT_DATE, null)));
+        assertEquals(newest.getId(), index.findDuplicate(claim(employee, health, 500.0, RECEIPT_DATE, null)).claimId());
+    }
+
+    @Test
+    void claimsSavedDuringTheWarmUpAreIndexed() throws Exception {
+        ClaimRepository repository = mock(ClaimRepository.class);
+        DuplicateClaimIndex warming = new DuplicateClaimIndex(repository, 1.0, 7, 365, 5);
+        Claim saved = entityManager.persist(claim(employee, health, 250.0, RECEIPT_DATE, null));
+        // Saved after the query read its rows; the submission does not wait for the query to finish
+        when(repository.findDuplicateKeysCreatedSince(any(), any())).thenAnswer(invocation -> {
+            Thread submission = new Thread(() -> warming.add(saved));
+            submission.start();
+            submission.join(5_000);
+            assertFalse(submission.isAlive());
+            return List.of();
+        });
+
+        warming.warm();
+
+        assertEquals(1, warming.size());
+        assertEquals(saved.getId(), warming.findDuplicate(claim(employee, health, 250.0, RECEIPT_DATE, null)).claimId());
+    }
+
+    @Test
+    void fingerprintIgnoresOrderAndNames() {
+        String ab = ClaimDocumentStorage.fingerprint(List.of(new StoredDocument("/uploads/a", "aa"), new StoredDocument("/uploads/b", "bb")));
+        String ba = ClaimDocumentStorage.fingerprint(List.of(new StoredDocument("/uploads/y", "bb"), new StoredDocument("/uploads/x", "aa")));
+        assertEquals(ab, ba);
+        assertEquals(64, ab.length());
+        assertTrue(!ab.equals(ClaimDocumentStorage.fingerprint(List.of(new StoredDocument("/uploads/a", "aa")))));
+        assertNull(ClaimDocumentStorage.fingerprint(List.of()));
+    }
+
+    private Claim claim(Employee owner, Policy policy, double amount, LocalDateTime claimDate, String documentHash) {
+        Claim claim = new Claim("Claim", "", amount, claimDate, owner, policy, null, new ArrayList<>());
+        if (documentHash != null) {
+            claim.setDocumentFingerprint(ClaimDocumentStorage.fingerprint(List.of(new StoredDocument("/uploads/x", documentHash))));
+        }
+        return claim;
+    }
+
+    private Employee employee(String employeeId) {
+        return entityManager.persist(TestFixtures.employee(employeeId));
+    }
+
+    private Policy policy(String number) {
+        return entityManager.persist(TestFixtures.policy(number, "Health"));
+    }
+}
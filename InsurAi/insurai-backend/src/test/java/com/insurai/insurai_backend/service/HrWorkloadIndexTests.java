@@ -0,0 +1,164 @@
+package com.insurai.insurai_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.insurai.insurai_backend.model.Claim;
+import com.insurai.insurai_backend.model.ClaimStatus;
+import com.insurai.insurai_backend.model.Employee;
+import com.insurai.insurai_backend.model.Hr;
+import com.insurai.insurai_backend.model.Policy;
+import com.insurai.insurai_backend.repository.ClaimRepository;
+import com.insurai.insurai_backend.repository.HrRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@DataJpaTest
+@Import({ClaimService.class, HrWorkloadIndex.class, CoverageLedgerService.class})
+@MockClaimSideEffects
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class HrWorkloadIndexTests {
+
+    @Autowired private ClaimService claimService;
+    @Autowired private HrWorkloadIndex index;
+    @Autowired private TestEntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @MockitoBean private DuplicateClaimIndex duplicateClaimIndex;
+
+    private Employee employee;
+    private Policy policy;
+    private Hr busy;
+    private Hr quiet;
+
+    @BeforeEach
+    void setUp() {
+        employee = entityManager.persist(TestFixtures.employee("E1"));
+        policy = entityManager.persist(TestFixtures.policy());
+
+        busy = hr("H1");
+        quiet = hr("H2");
+
+        // busy: 3 pending + 1 approved; quiet: 1 pending
+        pendingClaim(busy);
+        pendingClaim(busy);
+        pendingClaim(busy);
+        pendingClaim(quiet);
+        Claim approved = pendingClaim(busy);
+        approved.setStatus(ClaimStatus.APPROVED);
+        entityManager.flush();
+        entityManager.clear();
+
+        // The index is a singleton shared by every test in the context; start from this test's rows
+        index.reconcile();
+    }
+
+    @Test
+    void indexIsBuiltFromPendingCountsOnly() {
+        assertEquals(3, index.pendingCount(busy.getId()));
+        assertEquals(1, index.pendingCount(quiet.getId()));
+    }
+
+    @Test
+    void submissionsGoToTheLeastLoadedHrWithoutCountingQueries() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // quiet catches up with busy (1 -> 3), then ties break on the lower id
+        assertEquals(quiet.getId(), submit().getAssignedHr().getId());
+        assertEquals(quiet.getId(), submit().getAssignedHr().getId());
+        assertEquals(busy.getId(), submit().getAssignedHr().getId());
+
+        assertEquals(0, statistics.getQueryExecutionCount(), "no SELECT per submission");
+        assertEquals(4, index.pendingCount(busy.getId()));
+        assertEquals(3, index.pendingCount(quiet.getId()));
+    }
+
+    @Test
+    void decisionsAndReassignmentsMoveTheCounts() throws Exception {
+        Claim claim = submit();
+        entityManager.flush();
+        assertEquals(quiet.getId(), claim.getAssignedHr().getId());
+        assertEquals(2, index.pendingCount(quiet.getId()));
+
+        claimService.reassignClaim(claim.getId(), busy.getId());
+        assertEquals(1, index.pendingCount(quiet.getId()));
+        assertEquals(4, index.pendingCount(busy.getId()));
+
+        claimService.approveClaim(claim.getId(), "ok");
+        assertEquals(3, index.pendingCount(busy.getId()));
+
+        // Decisions are final: a second one is refused and does not count twice
+        assertThrows(Exception.class, () -> claimService.rejectClaim(claim.getId(), "changed my mind"));
+        assertEquals(3, index.pendingCount(busy.getId()));
+    }
+
+    @Test
+    void reconciliationRepairsDrift() {
+        // Claims written behind the service's back
+        pendingClaim(quiet);
+        pendingClaim(quiet);
+        entityManager.flush();
+        assertEquals(1, index.pendingCount(quiet.getId()));
+
+        index.reconcile();
+        assertEquals(3, index.pendingCount(quiet.getId()));
+    }
+
+    @Test
+    void assignmentsDuringReconciliationAreKept() {
+        ClaimRepository claims = mock(ClaimRepository.class);
+        HrRepository hrs = mock(HrRepository.class);
+        HrWorkloadIndex standalone = new HrWorkloadIndex(claims, hrs);
+        when(hrs.findAllIds()).thenReturn(List.of(1L, 2L));
+        when(claims.countByAssignedHrGroupedForStatus(ClaimStatus.PENDING)).thenReturn(List.<Object[]>of(
+                new Object[] {1L, 2L}, new Object[] {2L, 5L}));
+        standalone.reconcile();
+
+        // A submission while the query runs, which the query did not see; one claim on HR 2 was decided behind our back
+        when(claims.countByAssignedHrGroupedForStatus(ClaimStatus.PENDING)).thenAnswer(invocation -> {
+            Thread submission = new Thread(standalone::assignLeastLoaded);
+            submission.start();
+            submission.join(5_000);
+            assertFalse(submission.isAlive());
+            return List.<Object[]>of(new Object[] {1L, 2L}, new Object[] {2L, 4L});
+        });
+        standalone.reconcile();
+
+        assertEquals(3, standalone.pendingCount(1L));
+        assertEquals(4, standalone.pendingCount(2L));
+    }
+
+    private Claim submit() throws Exception {
+        return claimService.submitClaim(new Claim("New", "", 10.0, null, employee, policy, null, List.of()));
+    }
+
+    private Hr hr(String hrId) {
+        return entityManager.persist(TestFixtures.hr(hrId));
+    }
+
+    private Claim pendingClaim(Hr hr) {
+        Claim claim = new Claim("Claim", "", 10.0, LocalDateTime.of(2025, 1, 1, 9, 0), employee, policy, hr, List.of());
+        claim.setStatus(ClaimStatus.PENDING);
+        return entityManager.persist(claim);
+    }
+}
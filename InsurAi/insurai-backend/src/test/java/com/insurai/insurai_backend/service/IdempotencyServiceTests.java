@@ -0,0 +1,120 @@
+package com.insurai.insurai_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insurai.insurai_backend.repository.IdempotencyRecordRepository;
+
+/**
+ * Runs without the test transaction: the key is claimed and completed in transactions of its own.
+ */
+@DataJpaTest
+@Import({IdempotencyService.class, JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class IdempotencyServiceTests {
+
+    @Autowired private IdempotencyService idempotencyService;
+    @Autowired private IdempotencyRecordRepository repository;
+    @Autowired private ObjectMapper objectMapper;
+
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        runs.set(0);
+    }
+
+    @Test
+    void retryWithTheSameKeyGetsTheFirstResponse() {
+        String hash = IdempotencyService.fingerprint(1L, "Claim", 100.0, List.of());
+        ResponseEntity<?> first = idempotencyService.execute("claim.submit", 7L, "k-1", hash, this::submit);
+        ResponseEntity<?> retry = idempotencyService.execute("claim.submit", 7L, "k-1", hash, this::submit);
+
+        assertEquals(1, runs.get());
+        assertEquals(200, retry.getStatusCode().value());
+        assertEquals("{\"claimId\":1}", retry.getBody());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertNull(first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+
+        // Same key, other parameters
+        String other = IdempotencyService.fingerprint(1L, "Claim", 200.0, List.of());
+        assertEquals(422, idempotencyService.execute("claim.submit", 7L, "k-1", other, this::submit).getStatusCode().value());
+        // Keys are per caller and operation; no key, no deduplication
+        idempotencyService.execute("claim.submit", 8L, "k-1", hash, this::submit);
+        idempotencyService.execute("query.submit", 7L, "k-1", hash, this::submit);
+        idempotencyService.execute("claim.submit", 7L, null, hash, this::submit);
+        assertEquals(4, runs.get());
+    }
+
+    @Test
+    void storedOutcomeOutlivesTheProcessAndFailuresAreNotKept() {
+        String hash = IdempotencyService.fingerprint("query");
+        assertEquals(400, idempotencyService.execute("query.submit", 7L, "k-2", hash,
+                () -> ResponseEntity.badRequest().body("Selected agent is not available")).getStatusCode().value());
+        idempotencyService.execute("query.submit", 7L, "k-2", hash, this::submit);
+        assertEquals(1, runs.get());
+
+        // A fresh instance (a restart, or another node) finds it in the table
+        IdempotencyService restarted = new IdempotencyService(repository, objectMapper, 24, 1_000, 120_000, 100);
+        ResponseEntity<?> replayed = restarted.execute("query.submit", 7L, "k-2", hash, this::submit);
+        assertEquals(1, runs.get());
+        assertEquals("{\"claimId\":1}", replayed.getBody());
+    }
+
+    @Test
+    void concurrentDuplicateWaitsForTheFirst() throws Exception {
+        String hash = IdempotencyService.fingerprint("claim");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<?>> first = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("claim.submit", 7L, "k-3", hash, () -> {
+                    started.countDown();
+                    await(release);
+                    return submit();
+                }));
+        started.await();
+
+        CompletableFuture<ResponseEntity<?>> duplicate = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("claim.submit", 7L, "k-3", hash, this::submit));
+        // Another instance would see the key taken and be told to retry
+        IdempotencyService elsewhere = new IdempotencyService(repository, objectMapper, 24, 1_000, 120_000, 100);
+        assertEquals(409, elsewhere.execute("claim.submit", 7L, "k-3", hash, this::submit).getStatusCode().value());
+
+        release.countDown();
+        assertEquals(200, first.get().getStatusCode().value());
+        assertEquals("{\"claimId\":1}", duplicate.get().getBody());
+        assertEquals(1, runs.get());
+    }
+
+    private ResponseEntity<?> submit() {
+        return ResponseEntity.ok(Map.of("claimId", runs.incrementAndGet()));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.insurai.insurai_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insurai.insurai_backend.model.OutboxEvent;
+
+class InboxStreamServiceTests {
+
+    // Keeps what would have been written to the client, one string per SSE event
+    static class RecordingEmitter extends SseEmitter {
+        final List<String> sent = new CopyOnWriteArrayList<>();
+        final CountDownLatch released;
+        volatile boolean completed;
+
+        RecordingEmitter(CountDownLatch released) {
+            this.released = released;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            StringBuilder text = new StringBuilder();
+            builder.build().forEach(part -> text.append(part.getData()));
+            sent.add(text.toString());
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+
+    private final InboxStreamService service = new InboxStreamService(new ObjectMapper(), 2, 3, 60_000, 100);
+
+    @Test
+    void deltasGoToTheInboxesTheyConcern() throws Exception {
+        service.start(0);
+        RecordingEmitter first = open(InboxStreamService.HR, 1L, null);
+        RecordingEmitter agent = open(InboxStreamService.AGENT, 7L, null);
+
+        service.handle(event(1, "claim.submitted", "{\"claimId\":10,\"assignedHrId\":1,\"status\":\"Pending\"}"));
+        service.handle(event(2, "query.submitted", "{\"queryId\":4,\"agentId\":7,\"status\":\"pending\"}"));
+        service.handle(event(3, "claim.reassigned", "{\"claimId\":10,\"assignedHrId\":2,\"previousHrId\":1}"));
+        service.handle(event(4, "claims.decided",
+                "{\"status\":\"Approved\",\"claimIds\":[11,12],\"claimIdsByHr\":{\"1\":[11],\"2\":[12]}}"));
+        // Delivered again after a restart: already seen
+        service.handle(event(4, "claims.decided",
+                "{\"status\":\"Approved\",\"claimIds\":[11,12],\"claimIdsByHr\":{\"1\":[11],\"2\":[12]}}"));
+
+        await(() -> first.sent.size() == 4 && agent.sent.size() == 2);
+        assertTrue(first.sent.get(0).contains("event:ready"));
+        assertTrue(first.sent.get(1).contains("id:1\nevent:claim.assigned\ndata:{\"claimId\":10"));
+        assertTrue(first.sent.get(2).contains("event:claim.unassigned\ndata:{\"claimId\":10,\"assignedHrId\":2}"));
+        assertTrue(first.sent.get(3).contains("event:claims.decided"));
+        assertTrue(first.sent.get(3).contains("\"claimIds\":[11]"));
+        assertTrue(agent.sent.get(1).contains("id:2\nevent:query.assigned"));
+    }
+
+    @Test
+    void reconnectResumesFromTheReplayOrAsksForAReload() throws Exception {
+        service.start(5);
+        for (long id = 6; id <= 8; id++) {
+            service.handle(event(id, "claim.updated", "{\"claimId\":" + id + ",\"assignedHrId\":1}"));
+        }
+
+        // The last two are kept
+        RecordingEmitter resumed = open(InboxStreamService.HR, 1L, "6");
+        await(() -> resumed.sent.size() == 2);
+        assertTrue(resumed.sent.get(0).contains("id:7\n"));
+        assertTrue(resumed.sent.get(1).contains("id:8\n"));
+
+        RecordingEmitter tooOld = open(InboxStreamService.HR, 1L, "5");
+        // From before this process: nothing to replay it from
+        RecordingEmitter beforeStart = open(InboxStreamService.HR, 2L, "3");
+        await(() -> tooOld.sent.size() == 1 && beforeStart.sent.size() == 1);
+        assertTrue(tooOld.sent.get(0).contains("id:8\nevent:reset"));
+        assertTrue(beforeStart.sent.get(0).contains("event:reset"));
+    }
+
+    @Test
+    void lateEventResetsTheInboxesItTouches() throws Exception {
+        service.start(0);
+        service.handle(event(2, "claim.updated", "{\"claimId\":20,\"assignedHrId\":1}"));
+        RecordingEmitter hr = open(InboxStreamService.HR, 1L, null);
+        RecordingEmitter other = open(InboxStreamService.HR, 2L, null);
+
+        // Committed after event 2 was delivered
+        service.handleLate(event(1, "claim.submitted", "{\"claimId\":10,\"assignedHrId\":1}"));
+
+        await(() -> hr.sent.size() == 2 && other.sent.size() == 1);
+        assertTrue(hr.sent.get(1).contains("id:2\nevent:reset"));
+        // Resuming from before the late event reloads as well
+        RecordingEmitter resumed = open(InboxStreamService.HR, 1L, "2");
+        await(() -> resumed.sent.size() == 1);
+        assertTrue(resumed.sent.get(0).contains("event:reset"));
+    }
+
+    @Test
+    void slowClientIsDisconnectedInsteadOfHoldingUpTheRelay() throws Exception {
+        service.start(0);
+        CountDownLatch stuck = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(stuck);
+        service.open(InboxStreamService.HR, 1L, null, slow);
+
+        // One in flight, three queued, the fifth does not fit
+        for (long id = 1; id <= 5; id++) {
+            service.handle(event(id, "claim.updated", "{\"claimId\":" + id + ",\"assignedHrId\":1}"));
+        }
+        stuck.countDown();
+
+        await(() -> slow.completed);
+        assertTrue(slow.sent.size() < 5);
+        // It comes back from what it got
+        RecordingEmitter again = open(InboxStreamService.HR, 1L, "3");
+        await(() -> again.sent.size() == 2);
+        assertTrue(again.sent.get(1).contains("id:5\n"));
+    }
+
+    @Test
+    void refusesStreamsBeyondTheLimit() {
+        InboxStreamService small = new InboxStreamService(new ObjectMapper(), 2, 3, 60_000, 1);
+        RecordingEmitter first = new RecordingEmitter(new CountDownLatch(0));
+        small.open(InboxStreamService.HR, 1L, null, first);
+        assertThrows(IllegalStateException.class,
+                () -> small.open(InboxStreamService.HR, 2L, null, new RecordingEmitter(new CountDownLatch(0))));
+    }
+
+    private RecordingEmitter open(String kind, Long recipientId, String lastEventId) {
+        RecordingEmitter emitter = new RecordingEmitter(new CountDownLatch(0));
+        service.open(kind, recipientId, lastEventId, emitter);
+        return emitter;
+    }
+
+    private static OutboxEvent event(long id, String type, String payload) {
+        OutboxEvent event = new OutboxEvent(type, OutboxService.CLAIM, null, payload);
+        event.setId(id);
+        return event;
+    }
+
+    // Sends happen on the stream's own thread
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long until = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < until) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,19 @@
+package com.insurai.insurai_backend.service;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+/**
+ * Mocks the in-memory views ClaimService keeps beside the claims table: HR workloads, the
+ * duplicate index and the coverage ledger. For tests of ClaimService itself; a test of one of
+ * them imports it and mocks the others instead.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@MockitoBean(types = {HrWorkloadIndex.class, DuplicateClaimIndex.class, CoverageLedgerService.class})
+@interface MockClaimIndexes {
+}
@@ -0,0 +1,19 @@
+package com.insurai.insurai_backend.service;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+/**
+ * Mocks what ClaimService hands a saved claim on to: the automation rules, the SLA clock and the
+ * outbox. For tests that run ClaimService against the database; a new collaborator of this kind
+ * is added here, not to each of them.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@MockitoBean(types = {ClaimAutomationService.class, ClaimSlaService.class, OutboxService.class})
+@interface MockClaimSideEffects {
+}
@@ -0,0 +1,257 @@
+package com.insurai.insurai_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.insurai.insurai_backend.model.OutboxEvent;
+import com.insurai.insurai_backend.model.OutboxOffset;
+import com.insurai.insurai_backend.repository.OutboxEventRepository;
+import com.insurai.insurai_backend.repository.OutboxOffsetRepository;
+
+/**
+ * Runs without the test transaction: events only exist for the relay once they are committed.
+ */
+@DataJpaTest
+@Import({OutboxService.class, OutboxRelay.class, JacksonAutoConfiguration.class, OutboxRelayTests.Subscribers.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        // The tests run the relay themselves, on their own clock
+        "insurai.outbox.poll-interval-ms=3600000",
+        "insurai.outbox.purge-interval-ms=3600000",
+        "insurai.outbox.initial-backoff-ms=1000",
+        "insurai.outbox.batch-size=2",
+        "insurai.outbox.gap-grace-ms=5000",
+        "insurai.outbox.late-commit-window-ms=60000"
+})
+class OutboxRelayTests {
+
+    // Records what it was handed; fails while failuresLeft > 0
+    static class RecordingSubscriber implements OutboxSubscriber {
+        private final String name;
+        final List<Long> received = new ArrayList<>();
+        int failuresLeft;
+
+        RecordingSubscriber(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public void handle(OutboxEvent event) {
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                throw new IllegalStateException("unavailable");
+            }
+            received.add(event.getId());
+        }
+    }
+
+    @TestConfiguration
+    static class Subscribers {
+        @Bean
+        RecordingSubscriber audit() {
+            return new RecordingSubscriber("audit");
+        }
+
+        @Bean
+        RecordingSubscriber notifications() {
+            return new RecordingSubscriber("notifications");
+        }
+    }
+
+    @Autowired private OutboxService outboxService;
+    @Autowired private OutboxRelay relay;
+    @Autowired private OutboxEventRepository eventRepository;
+    @Autowired private OutboxOffsetRepository offsetRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private RecordingSubscriber audit;
+    @Autowired private RecordingSubscriber notifications;
+
+    @BeforeEach
+    void setUp() {
+        eventRepository.deleteAll();
+        // Ids carry on from the other tests: start every subscriber after the latest one
+        record(1);
+        offsetRepository.deleteAll();
+        audit.received.clear();
+        notifications.received.clear();
+        audit.failuresLeft = 0;
+        notifications.failuresLeft = 0;
+        relay.reload();
+    }
+
+    @Test
+    void committedEventsAreDeliveredInOrderToEverySubscriber() {
+        List<Long> ids = record(5);
+        // Rolled back with the change it belonged to: never delivered
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(tx -> {
+            outboxService.record("claim.submitted", OutboxService.CLAIM, 99L, Map.of("claimId", 99));
+            tx.setRollbackOnly();
+        });
+
+        // Five events in batches of two
+        assertEquals(10, relay.relay(1_000));
+        assertEquals(ids, audit.received);
+        assertEquals(ids, notifications.received);
+        assertEquals(ids.get(4), offsetRepository.findById("audit").orElseThrow().getLastEventId());
+
+        assertEquals(0, relay.relay(2_000));
+
+        // Outside a transaction there is no change to go with the event
+        assertThrows(Exception.class,
+                () -> outboxService.record("claim.submitted", OutboxService.CLAIM, 1L, Map.of()));
+    }
+
+    @Test
+    void failingSubscriberBacksOffWithoutHoldingUpTheOthers() {
+        List<Long> ids = record(2);
+        notifications.failuresLeft = 2;
+
+        relay.relay(10_000);
+        assertEquals(ids, audit.received);
+        assertEquals(List.of(), notifications.received);
+
+        // First retry after 1s, the next after 2s more
+        relay.relay(10_500);
+        assertEquals(List.of(), notifications.received);
+        relay.relay(11_000);
+        assertEquals(List.of(), notifications.received);
+        relay.relay(12_999);
+        assertEquals(List.of(), notifications.received);
+        relay.relay(13_000);
+        assertEquals(ids, notifications.received);
+        assertEquals(ids, audit.received);
+    }
+
+    @Test
+    void restartResumesFromTheStoredOffsets() {
+        List<Long> first = record(3);
+        relay.relay(1_000);
+
+        // A crash after handling but before the offset was stored: the event comes again
+        offsetRepository.save(new OutboxOffset("audit", first.get(1)));
+        List<Long> second = record(1);
+        audit.received.clear();
+        notifications.received.clear();
+        relay.reload();
+        relay.relay(2_000);
+
+        assertEquals(List.of(first.get(2), second.get(0)), audit.received);
+        assertEquals(second, notifications.received);
+    }
+
+    @Test
+    void laterEventIsHeldUntilTheEarlierIdCommits() throws Exception {
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        AtomicLong earlier = new AtomicLong();
+        Thread slow = new Thread(() -> new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            earlier.set(outboxService.record("claim.submitted", OutboxService.CLAIM, 1L, Map.of("claimId", 1)).getId());
+            inserted.countDown();
+            try {
+                commit.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        slow.start();
+        inserted.await();
+        // Took the next id, committed first
+        List<Long> later = record(1);
+
+        assertEquals(0, relay.relay(1_000));
+        assertEquals(List.of(), audit.received);
+
+        commit.countDown();
+        slow.join();
+        assertEquals(4, relay.relay(1_500));
+        assertEquals(List.of(earlier.get(), later.get(0)), audit.received);
+        assertEquals(List.of(earlier.get(), later.get(0)), notifications.received);
+    }
+
+    @Test
+    void eventCommittedAfterTheGracePeriodIsStillDelivered() throws Exception {
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        AtomicLong earlier = new AtomicLong();
+        Thread slow = new Thread(() -> new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            earlier.set(outboxService.record("claim.submitted", OutboxService.CLAIM, 1L, Map.of("claimId", 1)).getId());
+            inserted.countDown();
+            try {
+                commit.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        slow.start();
+        inserted.await();
+        List<Long> later = record(1);
+
+        // Moved past after the grace period
+        assertEquals(0, relay.relay(1_000));
+        assertEquals(2, relay.relay(6_000));
+        assertEquals(later, audit.received);
+
+        commit.countDown();
+        slow.join();
+        // Looked up again a grace period after it was skipped, then handed over out of order
+        assertEquals(0, relay.relay(10_999));
+        assertEquals(2, relay.relay(11_000));
+        assertEquals(List.of(later.get(0), earlier.get()), audit.received);
+        assertEquals(List.of(later.get(0), earlier.get()), notifications.received);
+        assertEquals(0, relay.relay(16_000));
+    }
+
+    @Test
+    void rolledBackIdIsSkippedAfterTheGracePeriod() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(tx -> {
+            outboxService.record("claim.submitted", OutboxService.CLAIM, 99L, Map.of("claimId", 99));
+            tx.setRollbackOnly();
+        });
+        List<Long> ids = record(2);
+
+        assertEquals(0, relay.relay(1_000));
+        assertEquals(0, relay.relay(5_999));
+        assertEquals(4, relay.relay(6_000));
+        assertEquals(ids, audit.received);
+        assertEquals(ids, notifications.received);
+    }
+
+    private List<Long> record(int count) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long claimId = i;
+            ids.add(transaction.execute(tx -> outboxService.record("claim.submitted", OutboxService.CLAIM, claimId,
+                    Map.of("claimId", claimId)).getId()));
+        }
+        return ids;
+    }
+}
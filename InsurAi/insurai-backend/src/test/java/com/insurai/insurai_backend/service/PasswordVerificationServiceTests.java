@@ -0,0 +1,93 @@
+package com.insurai.insurai_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.insurai.insurai_backend.service.PasswordVerificationService.Outcome;
+import com.insurai.insurai_backend.service.PasswordVerificationService.PasswordCheck;
+
+class PasswordVerificationServiceTests {
+
+    @Test
+    void burstBeyondTheQueueIsRefusedWithoutWaiting() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slowEncoder = new BCryptPasswordEncoder(4) {
+            @Override
+            public boolean matches(CharSequence raw, String encoded) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.matches(raw, encoded);
+            }
+        };
+        PasswordVerificationService service = new PasswordVerificationService(slowEncoder, 4, 2, 3, 2);
+        String hash = slowEncoder.encode("secret");
+
+        try {
+            // 2 running + 3 queued are admitted; the rest of the burst is turned away at once
+            List<CompletableFuture<PasswordCheck>> burst = new ArrayList<>();
+            long started = System.nanoTime();
+            for (int i = 0; i < 20; i++) {
+                burst.add(service.verify("secret", hash));
+            }
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+            long rejected = burst.stream()
+                    .filter(f -> f.isDone() && f.join().rejected())
+                    .count();
+            assertEquals(15, rejected);
+            assertTrue(elapsedMillis < 1_000, "admission must not block the caller: " + elapsedMillis + "ms");
+
+            release.countDown();
+            for (CompletableFuture<PasswordCheck> f : burst) {
+                PasswordCheck check = f.get(10, TimeUnit.SECONDS);
+                assertTrue(check.rejected() || check.matches());
+            }
+            assertEquals("2", service.overloadedResponse().getHeaders().getFirst("Retry-After"));
+            assertEquals(503, service.overloadedResponse().getStatusCode().value());
+        } finally {
+            release.countDown();
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void storedHashWithAnotherCostIsRehashedOnLogin() throws Exception {
+        PasswordEncoder encoder = new BCryptPasswordEncoder(4);
+        PasswordVerificationService service = new PasswordVerificationService(encoder, 4, 1, 10, 2);
+        try {
+            String sameCost = encoder.encode("secret");
+            String otherCost = new BCryptPasswordEncoder(5).encode("secret");
+
+            PasswordCheck unchanged = service.verify("secret", sameCost).get(10, TimeUnit.SECONDS);
+            assertTrue(unchanged.matches());
+            assertNull(unchanged.rehashed());
+
+            PasswordCheck upgraded = service.verify("secret", otherCost).get(10, TimeUnit.SECONDS);
+            assertTrue(upgraded.matches());
+            assertTrue(upgraded.rehashed().startsWith("$2a$04$"));
+            assertTrue(encoder.matches("secret", upgraded.rehashed()));
+
+            PasswordCheck wrong = service.verify("wrong", otherCost).get(10, TimeUnit.SECONDS);
+            assertEquals(Outcome.MISMATCH, wrong.outcome());
+            assertNull(wrong.rehashed());
+            assertFalse(service.needsRehash("not-a-bcrypt-hash"));
+        } finally {
+            service.shutdown();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.insurai.insurai_backend.service;
+
+import java.time.LocalDate;
+
+import com.insurai.insurai_backend.model.Employee;
+import com.insurai.insurai_backend.model.Hr;
+import com.insurai.insurai_backend.model.Policy;
+
+/**
+ * Unsaved entities with every column the schema requires filled in. Tests change what they are
+ * about on the returned entity, then save or persist it themselves.
+ */
+final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+    // P-1, a health policy covering 100,000 through 2025
+    static Policy policy() {
+        return policy("P-1", "Health");
+    }
+
+    static Policy policy(String number, String type) {
+        Policy policy = new Policy();
+        policy.setPolicyNumber(number);
+        policy.setPolicyName(type);
+        policy.setPolicyType(type);
+        policy.setProviderName("Provider");
+        policy.setCoverageAmount(100_000.0);
+        policy.setMonthlyPremium(10.0);
+        policy.setStartDate(LocalDate.of(2025, 1, 1));
+        policy.setRenewalDate(LocalDate.of(2026, 1, 1));
+        return policy;
+    }
+
+    // e1@insurai.com for E1
+    static Employee employee(String employeeId) {
+        Employee employee = new Employee();
+        employee.setEmployeeId(employeeId);
+        employee.setEmail(employeeId.toLowerCase() + "@insurai.com");
+        return employee;
+    }
+
+    static Hr hr(String hrId) {
+        Hr hr = new Hr();
+        hr.setName(hrId);
+        hr.setEmail(hrId.toLowerCase() + "@insurai.com");
+        hr.setPhoneNumber("1");
+        hr.setHrId(hrId);
+        hr.setPassword("x");
+        return hr;
+    }
+}
@@ -0,0 +1,112 @@
+package com.insurai.insurai_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.insurai.insurai_backend.config.JwtPrincipal;
+import com.insurai.insurai_backend.config.JwtUtil;
+import com.insurai.insurai_backend.config.VerifiedTokenCache;
+import com.insurai.insurai_backend.model.RevokedToken;
+import com.insurai.insurai_backend.repository.RevokedTokenRepository;
+import com.insurai.insurai_backend.repository.SessionRevocationRepository;
+
+class TokenRevocationServiceTests {
+
+    private final RevokedTokenRepository revokedTokenRepository = Mockito.mock(RevokedTokenRepository.class);
+    private final SessionRevocationRepository sessionRevocationRepository = Mockito.mock(SessionRevocationRepository.class);
+    private final JwtUtil jwtUtil = new JwtUtil(new VerifiedTokenCache(false, 1));
+    private TokenRevocationService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TokenRevocationService(revokedTokenRepository, sessionRevocationRepository, jwtUtil, 100, 0.01);
+        service.load();
+    }
+
+    @Test
+    void logoutRevokesOnlyThatToken() {
+        JwtPrincipal first = jwtUtil.parse(jwtUtil.generateToken("a@insurai.com", "EMPLOYEE"));
+        JwtPrincipal second = jwtUtil.parse(jwtUtil.generateToken("a@insurai.com", "EMPLOYEE"));
+
+        service.revoke(first);
+
+        assertTrue(service.isRevoked(first));
+        assertFalse(service.isRevoked(second));
+        Mockito.verify(revokedTokenRepository).save(Mockito.any(RevokedToken.class));
+    }
+
+    @Test
+    void revokeAllSessionsCoversTokensIssuedBeforeTheCutoffOnly() {
+        Instant issued = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        JwtPrincipal before = principal("b@insurai.com", "jti-1", issued.minusSeconds(60));
+        JwtPrincipal otherUser = principal("c@insurai.com", "jti-2", issued.minusSeconds(60));
+        JwtPrincipal after = principal("b@insurai.com", "jti-3", issued.plusSeconds(60));
+
+        service.revokeAllSessions("b@insurai.com");
+
+        assertTrue(service.isRevoked(before));
+        assertFalse(service.isRevoked(otherUser));
+        assertFalse(service.isRevoked(after));
+    }
+
+    @Test
+    void loginRightAfterRevokeAllSessionsIsAccepted() {
+        JwtPrincipal old = principal("f@insurai.com", "jti-4", Instant.now().minusSeconds(60));
+        service.revokeAllSessions("f@insurai.com");
+
+        // Same second as the cutoff, as iat is truncated to seconds
+        JwtPrincipal fresh = jwtUtil.parse(jwtUtil.generateToken("f@insurai.com", "EMPLOYEE"));
+
+        assertTrue(service.isRevoked(old));
+        assertFalse(service.isRevoked(fresh));
+    }
+
+    @Test
+    void logoutOfATokenWithoutJtiLetsTheNextLoginThrough() {
+        JwtPrincipal legacy = principal("g@insurai.com", null, Instant.now().minusSeconds(60));
+        service.revoke(legacy);
+
+        JwtPrincipal fresh = jwtUtil.parse(jwtUtil.generateToken("g@insurai.com", "EMPLOYEE"));
+
+        assertTrue(service.isRevoked(legacy));
+        assertFalse(service.isRevoked(fresh));
+    }
+
+    @Test
+    void refreshLoadsOtherInstancesAndDropsExpiredEntries() {
+        JwtPrincipal shortLived = principal("d@insurai.com", "jti-short", Instant.now().minusSeconds(60),
+                Instant.now().plusMillis(50));
+        service.revoke(shortLived);
+        Mockito.when(revokedTokenRepository.findByExpiresAtAfter(Mockito.any())).thenReturn(List.of(
+                new RevokedToken("jti-remote", "e@insurai.com", Instant.now().plusSeconds(600), Instant.now())));
+
+        service.refresh();
+        assertTrue(service.isRevoked(principal("e@insurai.com", "jti-remote", Instant.now().minusSeconds(60))));
+
+        Mockito.when(revokedTokenRepository.findByExpiresAtAfter(Mockito.any())).thenReturn(List.of());
+        try {
+            Thread.sleep(60);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        service.refresh();
+        assertFalse(service.isRevoked(shortLived));
+        assertTrue(service.isRevoked(principal("e@insurai.com", "jti-remote", Instant.now().minusSeconds(60))));
+    }
+
+    private static JwtPrincipal principal(String subject, String tokenId, Instant issuedAt) {
+        return principal(subject, tokenId, issuedAt, issuedAt.plusSeconds(3600));
+    }
+
+    private static JwtPrincipal principal(String subject, String tokenId, Instant issuedAt, Instant expiresAt) {
+        return new JwtPrincipal(subject, "EMPLOYEE", null, null, expiresAt, issuedAt, tokenId);
+    }
+}
@@ -0,0 +1,65 @@
+package com.insurai.insurai_backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class BoundedExpiringCacheTests {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @Test
+    void entryIsNotServedAtOrAfterItsExpiry() {
+        BoundedExpiringCache<String, String> cache = new BoundedExpiringCache<>(10, now::get);
+        cache.put("a", "value", 2_000);
+
+        assertEquals("value", cache.get("a"));
+        now.set(2_000);
+        assertNull(cache.get("a"));
+
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(1, cache.evictionCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void alreadyExpiredValuesAreNotStored() {
+        BoundedExpiringCache<String, String> cache = new BoundedExpiringCache<>(10, now::get);
+        cache.put("a", "value", 1_000);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void capIsNeverExceededAndExpiredEntriesGoFirst() {
+        BoundedExpiringCache<Integer, Integer> cache = new BoundedExpiringCache<>(3, now::get);
+        cache.put(1, 1, 1_500);
+        cache.put(2, 2, 5_000);
+        cache.put(3, 3, 5_000);
+
+        now.set(1_600);
+        cache.put(4, 4, 5_000);
+        assertEquals(3, cache.size());
+        assertEquals(2, cache.get(2));
+        assertEquals(3, cache.get(3));
+
+        for (int i = 5; i < 100; i++) {
+            cache.put(i, i, 5_000);
+            assertEquals(3, cache.size());
+        }
+    }
+
+    @Test
+    void purgeRemovesOnlyExpiredEntries() {
+        BoundedExpiringCache<String, String> cache = new BoundedExpiringCache<>(10, now::get);
+        cache.put("old", "x", 1_100);
+        cache.put("new", "y", 9_000);
+        now.set(1_200);
+
+        assertEquals(1, cache.purgeExpired());
+        assertEquals("y", cache.get("new"));
+    }
+}
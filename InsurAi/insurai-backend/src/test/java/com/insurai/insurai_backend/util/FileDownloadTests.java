@@ -0,0 +1,200 @@
+package com.insurai.insurai_backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+class FileDownloadTests {
+
+    private static final String ETAG = "\"0a1b\"";
+    private static final String CACHE = "private, max-age=60, immutable";
+
+    @TempDir Path dir;
+
+    @Test
+    void rangesAndConditionalRequestsAreAnswered() throws Exception {
+        byte[] content = new byte[1000];
+        new Random(7).nextBytes(content);
+        Path file = Files.write(dir.resolve("blob"), content);
+
+        MockHttpServletResponse whole = get(file);
+        assertEquals(200, whole.getStatus());
+        assertArrayEquals(content, whole.getContentAsByteArray());
+        assertEquals(ETAG, whole.getHeader("ETag"));
+        assertEquals(CACHE, whole.getHeader("Cache-Control"));
+        assertEquals("bytes", whole.getHeader("Accept-Ranges"));
+        assertEquals("application/pdf", whole.getContentType());
+        assertEquals("inline; filename=\"scan.pdf\"", whole.getHeader("Content-Disposition"));
+
+        MockHttpServletResponse middle = get(file, "Range", "bytes=100-199");
+        assertEquals(206, middle.getStatus());
+        assertEquals("bytes 100-199/1000", middle.getHeader("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(content, 100, 200), middle.getContentAsByteArray());
+        assertArrayEquals(Arrays.copyOfRange(content, 900, 1000), get(file, "Range", "bytes=-100").getContentAsByteArray());
+        assertArrayEquals(Arrays.copyOfRange(content, 990, 1000), get(file, "Range", "bytes=990-5000").getContentAsByteArray());
+
+        MockHttpServletResponse beyond = get(file, "Range", "bytes=1000-");
+        assertEquals(416, beyond.getStatus());
+        assertEquals("bytes */1000", beyond.getHeader("Content-Range"));
+        assertEquals(416, get(file, "Range", "bytes=-0").getStatus());
+        // Malformed, or several ranges: the whole file
+        assertEquals(200, get(file, "Range", "lines=1-2").getStatus());
+        assertEquals(200, get(file, "Range", "bytes=0-1,5-6").getStatus());
+
+        MockHttpServletResponse cached = get(file, "If-None-Match", "\"other\", W/" + ETAG);
+        assertEquals(304, cached.getStatus());
+        assertEquals(0, cached.getContentAsByteArray().length);
+        assertEquals(CACHE, cached.getHeader("Cache-Control"));
+
+        // A range of a copy the client no longer has is sent whole
+        assertEquals(206, get(file, "Range", "bytes=0-9", "If-Range", ETAG).getStatus());
+        assertEquals(200, get(file, "Range", "bytes=0-9", "If-Range", "\"stale\"").getStatus());
+    }
+
+    @Test
+    void largeBodiesAreLeftToTheConnectorsSendfile() throws Exception {
+        Path file = Files.write(dir.resolve("blob"), new byte[100_000]);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/claims/1/documents/x_scan.pdf");
+        request.setAttribute(FileDownload.SENDFILE_SUPPORTED, Boolean.TRUE);
+        request.addHeader("Range", "bytes=50000-");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        FileDownload.Sent sent = FileDownload.write(request, response, file, "scan.pdf", ETAG, CACHE, 48 * 1024);
+
+        assertTrue(sent.sendfile());
+        assertEquals(50_000, response.getContentLengthLong());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(file.toAbsolutePath().toString(), request.getAttribute(FileDownload.SENDFILE_FILENAME));
+        assertEquals(50_000L, request.getAttribute(FileDownload.SENDFILE_START));
+        assertEquals(100_000L, request.getAttribute(FileDownload.SENDFILE_END));
+    }
+
+    /**
+     * Benchmark: the same file over loopback from an embedded Tomcat, through FileDownload and
+     * through the ResourceHttpRequestHandler that serves /uploads/**. Checks that every response
+     * arrived whole, and that FileDownload handed the large bodies to the connector's sendfile.
+     * The throughput of each goes to the test report.
+     */
+    @Test
+    @Tag("benchmark")
+    void throughputAgainstTheResourceHandler(TestReporter reporter) throws Exception {
+        int size = 16 * 1024 * 1024;
+        byte[] content = new byte[size];
+        new Random(11).nextBytes(content);
+        Files.write(dir.resolve("scan.pdf"), content);
+
+        ResourceHttpRequestHandler resources = new ResourceHttpRequestHandler();
+        resources.setLocations(List.of(new FileSystemResource(dir.toString() + "/")));
+        resources.setCacheSeconds(0);
+        resources.afterPropertiesSet();
+        AtomicInteger sentByConnector = new AtomicInteger();
+
+        TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory(0);
+        WebServer server = factory.getWebServer(context -> {
+            context.addServlet("download", new HttpServlet() {
+                @Override
+                protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                    if (FileDownload.write(request, response, dir.resolve("scan.pdf"), "scan.pdf", ETAG, CACHE, 48 * 1024).sendfile()) {
+                        sentByConnector.incrementAndGet();
+                    }
+                }
+            }).addMapping("/download");
+            context.addServlet("resources", new HttpServlet() {
+                @Override
+                protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                    request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "scan.pdf");
+                    try {
+                        resources.handleRequest(request, response);
+                    } catch (Exception e) {
+                        throw new IOException(e);
+                    }
+                }
+            }).addMapping("/resources");
+        });
+        server.start();
+        try {
+            String base = "http://localhost:" + server.getPort();
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            // Warm up both paths, then measure each
+            download(client, base + "/download", 4, 8, size);
+            download(client, base + "/resources", 4, 8, size);
+            double handler = download(client, base + "/resources", 4, 48, size);
+            double zeroCopy = download(client, base + "/download", 4, 48, size);
+            assertEquals(56, sentByConnector.get());
+            reporter.publishEntry("resourceHandlerMBps", String.format("%.0f", handler));
+            reporter.publishEntry("fileDownloadMBps", String.format("%.0f", zeroCopy));
+        } finally {
+            server.stop();
+        }
+    }
+
+    // MB/s over requests GETs on threads connections; fails unless each body is size bytes
+    private static double download(HttpClient client, String url, int threads, int requests, int size) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).build();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            long started = System.nanoTime();
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                results.add(pool.submit(() -> {
+                    HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                    assertEquals(200, response.statusCode());
+                    try (InputStream body = response.body()) {
+                        return body.transferTo(OutputStream.nullOutputStream());
+                    }
+                }));
+            }
+            for (Future<Long> result : results) {
+                assertEquals(size, result.get());
+            }
+            double seconds = (System.nanoTime() - started) / 1e9;
+            return (double) size * requests / (1024 * 1024) / seconds;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private MockHttpServletResponse get(Path file, String... headers) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/claims/1/documents/x_scan.pdf");
+        for (int i = 0; i < headers.length; i += 2) {
+            request.addHeader(headers[i], headers[i + 1]);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FileDownload.write(request, response, file, "scan.pdf", ETAG, CACHE, 48 * 1024);
+        return response;
+    }
+}
@@ -0,0 +1,207 @@
+package com.insurai.insurai_backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+class MultipartStreamTests {
+
+    private static final String BOUNDARY = "----InsurAiBoundary7MA4YWxk";
+    // Looks like the start of a boundary line without being one
+    private static final byte[] TRICKY = ("\r\n--" + BOUNDARY.substring(0, 12) + "\n").getBytes(StandardCharsets.US_ASCII);
+
+    @Test
+    void fieldsAndFilesAcrossBufferAndReadBoundaries() throws IOException {
+        byte[] document = new byte[5_000];
+        for (int i = 0; i < document.length; i++) {
+            document[i] = TRICKY[i % TRICKY.length];
+        }
+        byte[] body = concat(
+                "preamble to ignore\r\n--" + BOUNDARY + "\r\n"
+                        + "Content-Disposition: form-data; name=\"title\"\r\n\r\n"
+                        + "Broken arm\r\n--" + BOUNDARY + "\r\n"
+                        + "Content-Disposition: form-data; name=\"documents\"; filename=\"C:\\\\scans\\\\x;ray.pdf\"\r\n"
+                        + "Content-Type: application/pdf\r\n\r\n",
+                document,
+                "\r\n--" + BOUNDARY + "\r\n"
+                        + "Content-Disposition: form-data; name=\"documents\"; filename=\"\"\r\n\r\n"
+                        + "\r\n--" + BOUNDARY + "--\r\nepilogue");
+
+        // The smallest buffer the boundary allows, and a client sending a few bytes at a time
+        for (int bufferSize : new int[] {4 * (BOUNDARY.length() + 4), 1_000, 16_384}) {
+            MultipartStream multipart = new MultipartStream(trickle(body), BOUNDARY, bufferSize);
+
+            MultipartStream.Part title = multipart.next();
+            assertEquals("title", title.name());
+            assertNull(title.filename());
+            assertEquals("Broken arm", title.value(100));
+
+            MultipartStream.Part file = multipart.next();
+            assertEquals("C:\\scans\\x;ray.pdf", file.filename());
+            assertEquals("application/pdf", file.contentType());
+            assertArrayEquals(document, file.body().readAllBytes());
+
+            MultipartStream.Part empty = multipart.next();
+            assertTrue(empty.isFile());
+            assertEquals("", empty.filename());
+            // Left unread: skipped by next()
+            assertNull(multipart.next());
+            assertNull(multipart.next());
+        }
+    }
+
+    @Test
+    void malformedBodiesAreRejected() {
+        String part = "--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"a\"\r\n\r\nvalue";
+        // Cut off inside a part, before any boundary, inside the headers
+        assertThrows(IOException.class, () -> readAll(part.getBytes(StandardCharsets.US_ASCII)));
+        assertThrows(IOException.class, () -> readAll("no boundary here".getBytes(StandardCharsets.US_ASCII)));
+        assertThrows(IOException.class, () -> readAll(("--" + BOUNDARY + "\r\nContent-Disp").getBytes(StandardCharsets.US_ASCII)));
+        // Headers that do not fit the buffer
+        String longHeader = "--" + BOUNDARY + "\r\nX-Filler: " + "x".repeat(2_000) + "\r\n\r\nv\r\n--" + BOUNDARY + "--";
+        assertThrows(IOException.class, () -> readAll(longHeader.getBytes(StandardCharsets.US_ASCII)));
+        // A field longer than allowed
+        MultipartStream multipart = new MultipartStream(
+                new ByteArrayInputStream((part + "\r\n--" + BOUNDARY + "--").getBytes(StandardCharsets.US_ASCII)), BOUNDARY, 1_000);
+        assertThrows(IOException.class, () -> multipart.next().value(3));
+
+        assertEquals(BOUNDARY, MultipartStream.boundary("multipart/form-data; boundary=" + BOUNDARY));
+        assertEquals("a b", MultipartStream.boundary("Multipart/Form-Data; charset=utf-8; boundary=\"a b\""));
+        assertNull(MultipartStream.boundary("application/json"));
+    }
+
+    /**
+     * Benchmark: concurrent uploads of 1 MB and 32 MB documents, each parsed and copied out
+     * through fixed buffers as the upload endpoint does. Heap allocated per upload (measured
+     * per thread) stays at the buffers' size, whatever the size of the document; buffering
+     * the request first would allocate at least the document's size.
+     */
+    @Test
+    @Tag("benchmark")
+    void memoryPerConcurrentUploadDoesNotGrowWithFileSize() throws Exception {
+        long small = allocatedPerUpload(1L << 20);
+        long large = allocatedPerUpload(32L << 20);
+
+        assertTrue(large < 256 * 1024, "allocated " + large + " bytes for a 32 MB upload");
+        assertTrue(large < small + 64 * 1024, "1 MB: " + small + " bytes, 32 MB: " + large + " bytes");
+    }
+
+    // The most any of 4 concurrent uploads of this size allocated
+    private static long allocatedPerUpload(long documentBytes) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Long>> uploads = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                uploads.add(executor.submit((Callable<Long>) () -> {
+                    long before = threads.getCurrentThreadAllocatedBytes();
+                    MultipartStream multipart = new MultipartStream(new GeneratedBody(documentBytes), BOUNDARY, 16_384);
+                    MultipartStream.Part part = multipart.next();
+                    byte[] buffer = new byte[16_384];
+                    long copied = 0;
+                    int n;
+                    InputStream in = part.body();
+                    while ((n = in.read(buffer)) >= 0) {
+                        copied += n;
+                    }
+                    assertNull(multipart.next());
+                    long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+                    assertEquals(documentBytes, copied);
+                    return allocated;
+                }));
+            }
+            long most = 0;
+            for (Future<Long> upload : uploads) {
+                most = Math.max(most, upload.get());
+            }
+            return most;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // One document part of the given size, produced as it is read
+    private static final class GeneratedBody extends InputStream {
+        private final byte[] head = ("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"documents\"; "
+                + "filename=\"scan.pdf\"\r\nContent-Type: application/pdf\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        private final byte[] tail = ("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        private final long total;
+        private long position;
+
+        GeneratedBody(long documentBytes) {
+            this.total = head.length + documentBytes + tail.length;
+        }
+
+        @Override
+        public int read() {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position >= total) {
+                return -1;
+            }
+            int n = (int) Math.min(len, total - position);
+            long documentEnd = total - tail.length;
+            for (int i = 0; i < n; i++, position++) {
+                if (position < head.length) {
+                    b[off + i] = head[(int) position];
+                } else if (position < documentEnd) {
+                    b[off + i] = TRICKY[(int) ((position - head.length) % TRICKY.length)];
+                } else {
+                    b[off + i] = tail[(int) (position - documentEnd)];
+                }
+            }
+            return n;
+        }
+    }
+
+    private static void readAll(byte[] body) throws IOException {
+        MultipartStream multipart = new MultipartStream(new ByteArrayInputStream(body), BOUNDARY, 1_000);
+        MultipartStream.Part part;
+        while ((part = multipart.next()) != null) {
+            part.body().readAllBytes();
+        }
+    }
+
+    // Hands out 1 to 7 bytes per read
+    private static InputStream trickle(byte[] body) {
+        return new FilterInputStream(new ByteArrayInputStream(body)) {
+            private int reads;
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 1 + reads++ % 7));
+            }
+        };
+    }
+
+    private static byte[] concat(String head, byte[] middle, String tail) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(head.getBytes(StandardCharsets.UTF_8));
+        out.writeBytes(middle);
+        out.writeBytes(tail.getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,94 @@
+package com.insurai.insurai_backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTests {
+
+    @Test
+    void firesOnceAtTheDeadlineAndNotBefore() {
+        // 4 slots x 3 levels of 10ms ticks: deadlines past 40ms and 160ms cascade down
+        TimingWheel wheel = new TimingWheel(10, 2, 3, 100, 0);
+        wheel.schedule(1, 35);
+        wheel.schedule(2, 150);
+        wheel.schedule(3, 400);
+        List<Long> fired = new ArrayList<>();
+
+        assertEquals(0, wheel.advance(39, fired::add));
+        assertEquals(1, wheel.advance(40, fired::add));
+        assertEquals(0, wheel.advance(149, fired::add));
+        assertEquals(1, wheel.advance(150, fired::add));
+        assertEquals(0, wheel.advance(399, fired::add));
+        assertEquals(1, wheel.advance(10_000, fired::add));
+
+        assertEquals(List.of(1L, 2L, 3L), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelledAndRescheduledTimers() {
+        TimingWheel wheel = new TimingWheel(10, 2, 3, 100, 0);
+        wheel.schedule(1, 50);
+        wheel.schedule(2, 50);
+        assertTrue(wheel.cancel(1));
+        assertFalse(wheel.cancel(1));
+
+        // Scheduling an existing key moves its timer; a past deadline fires on the next advance
+        wheel.schedule(2, 500);
+        wheel.schedule(3, -20);
+        List<Long> fired = new ArrayList<>();
+        wheel.advance(100, fired::add);
+        assertEquals(List.of(3L), fired);
+        assertTrue(wheel.contains(2));
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void refusesTimersBeyondItsBound() {
+        TimingWheel wheel = new TimingWheel(10, 2, 3, 2, 0);
+        assertTrue(wheel.schedule(1, 50));
+        assertTrue(wheel.schedule(2, 50));
+        assertFalse(wheel.schedule(3, 50));
+        // Moving a key already held needs no room
+        assertTrue(wheel.schedule(2, 70));
+
+        wheel.advance(50, key -> {});
+        assertTrue(wheel.schedule(3, 50));
+    }
+
+    @Test
+    void millionTimersAllFireOnTime() {
+        int timers = 1_000_000;
+        long[] deadlines = new long[timers];
+        Random random = new Random(42);
+        TimingWheel wheel = new TimingWheel(1_000, 8, 4, timers, 0);
+        for (int key = 0; key < timers; key++) {
+            deadlines[key] = random.nextLong(1, 30L * 24 * 3600 * 1000);
+            assertTrue(wheel.schedule(key, deadlines[key]));
+        }
+        // Cancel every tenth
+        for (int key = 0; key < timers; key += 10) {
+            wheel.cancel(key);
+        }
+
+        int[] fired = {0};
+        long[] now = {0};
+        boolean[] early = {false};
+        for (now[0] = 0; wheel.size() > 0; now[0] += 3_600_000) {
+            wheel.advance(now[0], key -> {
+                fired[0]++;
+                early[0] |= deadlines[(int) key] > now[0] || key % 10 == 0;
+            });
+        }
+
+        assertEquals(timers - timers / 10, fired[0]);
+        assertFalse(early[0]);
+    }
+}
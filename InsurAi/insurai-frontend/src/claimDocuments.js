@@ -0,0 +1,35 @@
+import API from "./api";
+
+// Claim documents are read through /claims/{id}/documents/{name}, which needs the bearer token
+// that a plain link cannot send. A document path is "/uploads/<name>"; the name is its last segment.
+export function documentUrl(claimId, path) {
+  return `${API.defaults.baseURL}/claims/${claimId}/documents/${encodeURIComponent(path.split("/").pop())}`;
+}
+
+// Opens the document in a new tab: fetched with the token, then shown from a blob URL. The tab is
+// opened before the fetch, while the click still counts as one, so popup blockers let it through.
+export async function openClaimDocument(claimId, path) {
+  const tab = window.open("", "_blank");
+  try {
+    const res = await fetch(documentUrl(claimId, path), {
+      headers: { Authorization: `Bearer ${localStorage.getItem("token")}` },
+    });
+    if (!res.ok) {
+      throw new Error(`Document refused: ${res.status}`);
+    }
+    const url = URL.createObjectURL(await res.blob());
+    if (tab) {
+      tab.location.href = url;
+    } else {
+      window.location.href = url;
+    }
+    // The tab has loaded it by then; the blob is released with it otherwise
+    setTimeout(() => URL.revokeObjectURL(url), 60000);
+  } catch (err) {
+    console.error("Error opening document:", err);
+    if (tab) {
+      tab.close();
+    }
+    alert("Could not open the document");
+  }
+}
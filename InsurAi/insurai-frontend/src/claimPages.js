@@ -0,0 +1,20 @@
+import API from "./api";
+
+// Claim listings come a page at a time as { items, next }: pass next back as the cursor for the
+// following page; it is null after the last one. (?unpaged=true is left to scripts.)
+export async function fetchClaimsPage(path, cursor) {
+  const { data } = await API.get(path, { params: cursor ? { cursor } : {} });
+  return { items: data.items || [], next: data.next };
+}
+
+// Every page in turn, for views that summarise all claims rather than list them
+export async function fetchAllClaimPages(path) {
+  const claims = [];
+  let cursor = null;
+  do {
+    const page = await fetchClaimsPage(path, cursor);
+    claims.push(...page.items);
+    cursor = page.next;
+  } while (cursor);
+  return claims;
+}
@@ -0,0 +1,120 @@
+import API from "./api";
+
+// Server-Sent Events over fetch. EventSource cannot send an Authorization header, so the
+// inbox streams are read with fetch instead, with the same bearer token as every other call.
+//
+// onEvent(name, data) gets each named event with its JSON data. "ready" comes first on a new
+// stream and "reset" when the server can no longer replay what was missed: load the list on
+// either. A dropped connection is retried with Last-Event-ID, so missed deltas are replayed;
+// if the retry itself fails, a "reset" is passed on once so the list is reloaded meanwhile.
+// "unauthorized" means the token was refused and the stream is not retried.
+//
+// Returns a function that closes the stream.
+export function openInboxStream(path, onEvent) {
+  const controller = new AbortController();
+  let closed = false;
+  let lastEventId = null;
+  let retryMs = 1000;
+  let announcedOutage = false;
+
+  const connect = async () => {
+    while (!closed) {
+      try {
+        const headers = {
+          Accept: "text/event-stream",
+          Authorization: `Bearer ${localStorage.getItem("token")}`,
+        };
+        if (lastEventId) {
+          headers["Last-Event-ID"] = lastEventId;
+        }
+        const res = await fetch(`${API.defaults.baseURL}${path}`, { headers, signal: controller.signal });
+        if (res.status === 401 || res.status === 403) {
+          onEvent("unauthorized", null);
+          return;
+        }
+        if (!res.ok || !res.body) {
+          throw new Error(`Stream refused: ${res.status}`);
+        }
+        retryMs = 1000;
+        announcedOutage = false;
+        await readEvents(res.body, (event) => {
+          if (event.id) {
+            lastEventId = event.id;
+          }
+          onEvent(event.name, event.data);
+        });
+      } catch (err) {
+        if (closed) {
+          return;
+        }
+        console.error("Inbox stream dropped:", err);
+        if (!announcedOutage) {
+          announcedOutage = true;
+          onEvent("reset", null);
+        }
+      }
+      if (closed) {
+        return;
+      }
+      // Also after the server ends the stream (its timeout): reconnect and resume
+      await new Promise((resolve) => setTimeout(resolve, retryMs));
+      retryMs = Math.min(retryMs * 2, 30000);
+    }
+  };
+
+  connect();
+  return () => {
+    closed = true;
+    controller.abort();
+  };
+}
+
+// Parses the text/event-stream format: fields up to a blank line make one event; comment
+// lines (the server's heartbeats) start with ":"
+async function readEvents(body, dispatch) {
+  const reader = body.getReader();
+  const decoder = new TextDecoder();
+  let buffer = "";
+  let event = { id: null, name: "message", data: [] };
+
+  for (;;) {
+    const { value, done } = await reader.read();
+    if (done) {
+      return;
+    }
+    buffer += decoder.decode(value, { stream: true });
+    const lines = buffer.split(/\r?\n/);
+    buffer = lines.pop();
+
+    for (const line of lines) {
+      if (line === "") {
+        if (event.data.length > 0) {
+          dispatch({ id: event.id, name: event.name, data: parse(event.data.join("\n")) });
+        }
+        event = { id: null, name: "message", data: [] };
+        continue;
+      }
+      if (line.startsWith(":")) {
+        continue;
+      }
+      const colon = line.indexOf(":");
+      const field = colon === -1 ? line : line.slice(0, colon);
+      const text = colon === -1 ? "" : line.slice(colon + 1).replace(/^ /, "");
+      if (field === "data") {
+        event.data.push(text);
+      } else if (field === "event") {
+        event.name = text;
+      } else if (field === "id") {
+        event.id = text;
+      }
+    }
+  }
+}
+
+function parse(data) {
+  try {
+    return JSON.parse(data);
+  } catch {
+    return data;
+  }
+}
@@ -14,8 +14,10 @@ import {
   Legend,
   ResponsiveContainer
 } from 'recharts';
+import { documentUrl, openClaimDocument } from "../../../claimDocuments";
 
-const AdminAllClaims = ({ claims = [] }) => {
+const AdminAllClaims = ({ claims = [], hasMore = false, onLoadMore }) => {
+  const [loadingMore, setLoadingMore] = useState(false);
   const [searchTerm, setSearchTerm] = useState("");
   const [statusFilter, setStatusFilter] = useState("All");
   const [dateFilter, setDateFilter] = useState("All");
@@ -730,9 +732,8 @@ const AdminAllClaims = ({ claims = [] }) => {
                                 <li key={idx}>
                                   <a
                                     className="dropdown-item"
-                                    href={`http://localhost:8080${doc}`}
-                                    target="_blank"
-                                    rel="noopener noreferrer"
+                                    href={documentUrl(claim.id, doc)}
+                                    onClick={(e) => { e.preventDefault(); openClaimDocument(claim.id, doc); }}
                                   >
                                     <i className="bi bi-download me-2"></i>
                                     Document {idx + 1}
@@ -827,6 +828,24 @@ const AdminAllClaims = ({ claims = [] }) => {
             </div>
           </div>
         )}
+
+        {/* Claims not fetched yet */}
+        {hasMore && (
+          <div className="card-footer bg-white text-center">
+            <button
+              className="btn btn-outline-primary btn-sm"
+              disabled={loadingMore}
+              onClick={async () => {
+                setLoadingMore(true);
+                await onLoadMore();
+                setLoadingMore(false);
+              }}
+            >
+              <i className="bi bi-arrow-down-circle me-2"></i>
+              {loadingMore ? "Loading..." : "Load more claims"}
+            </button>
+          </div>
+        )}
       </div>
 
       {/* View Claim Modal */}
@@ -875,9 +894,8 @@ const AdminAllClaims = ({ claims = [] }) => {
                       {viewClaim.documents.map((doc, idx) => (
                         <div key={idx} className="col-md-6 mb-2">
                           <a
-                            href={`http://localhost:8080${doc}`}
-                            target="_blank"
-                            rel="noopener noreferrer"
+                            href={documentUrl(viewClaim.id, doc)}
+                            onClick={(e) => { e.preventDefault(); openClaimDocument(viewClaim.id, doc); }}
                             className="btn btn-outline-primary w-100 text-start"
                           >
                             <i className="bi bi-download me-2"></i>
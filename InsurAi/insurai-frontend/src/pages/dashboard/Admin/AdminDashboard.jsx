@@ -1,4 +1,4 @@
-import React, { useState, useEffect, useCallback } from "react";
+import React, { useState, useEffect, useCallback, useRef } from "react";
 import { useNavigate } from "react-router-dom";
 import axios from "axios";
 import "bootstrap/dist/css/bootstrap.min.css";
@@ -11,6 +11,7 @@ import AdminAllClaims from './AdminAllClaims';
 import AdminReportsAnalytics from "./AdminReportsAnalytics"; // adjust path as needed
 import AdminUserManagement from "./AdminUserManagement";
 import { BarChart, Bar, XAxis, YAxis, Tooltip, ResponsiveContainer, Legend, CartesianGrid } from "recharts";
+import { fetchClaimsPage } from "../../../claimPages";
 
 export default function AdminDashboard() {
   const navigate = useNavigate();
@@ -20,6 +21,8 @@ export default function AdminDashboard() {
   const [fraudAlerts, setFraudAlerts] = useState([]);
   const [systemLogs, setSystemLogs] = useState([]);
   const [claims, setClaims] = useState([]);
+  const [claimsCursor, setClaimsCursor] = useState(null);
+  const claimLookups = useRef({ employees: [], hrs: [], policies: [] });
   const [policies, setPolicies] = useState([]);
 
   const [newHR, setNewHR] = useState({ name: "", email: "", password: "" });
@@ -118,21 +121,40 @@ export default function AdminDashboard() {
     }
   };
 
-  // ---------------- Fetch all claims with policies, employee & HR mapping ----------------
+  // ---------------- Map claims with employee, HR, and policy details ----------------
+  const mapClaims = (claimsData) => {
+    const { employees, hrs, policies: policiesData } = claimLookups.current;
+    return claimsData.map((claim) => {
+      const employee = employees.find(
+        (emp) => emp.id === claim.employeeId || emp.id === claim.employee_id
+      );
+      const hr = hrs.find(
+        (hr) => hr.id === claim.assignedHrId || hr.id === claim.assigned_hr_id
+      );
+      const policy = policiesData.find(
+        (p) => p.id === claim.policyId || p.id === claim.policy_id
+      );
+
+      return {
+        ...claim,
+        employeeName: employee?.name || "Unknown",
+        employeeIdDisplay: employee?.employeeId || "N/A",
+        documents: claim.documents || [],
+        assignedHrName: hr?.name || "Not Assigned",
+        policyName: policy?.policyName || "N/A",
+        remarks: claim.remarks || "",
+      };
+    });
+  };
+
+  // ---------------- Fetch the first page of claims with policies, employee & HR mapping ----------------
   const fetchAllClaims = async () => {
     try {
       const token = localStorage.getItem("token");
       if (!token) return;
 
-      // Fetch claims
-      const claimsRes = await fetch("http://localhost:8080/admin/claims", {
-        headers: { Authorization: `Bearer ${token}` },
-      });
-      if (!claimsRes.ok) {
-        console.error("Failed to fetch claims");
-        return;
-      }
-      const claimsData = await claimsRes.json();
+      // Fetch claims, newest first; later pages are loaded on request
+      const page = await fetchClaimsPage("/admin/claims");
 
       // Fetch employees
       const empRes = await fetch("http://localhost:8080/auth/employees", {
@@ -153,35 +175,26 @@ export default function AdminDashboard() {
       const policiesData = await policyRes.json();
       setPolicies(policiesData);
 
-      // Map claims with employee, HR, and policy details
-      const mappedClaims = claimsData.map((claim) => {
-        const employee = employees.find(
-          (emp) => emp.id === claim.employeeId || emp.id === claim.employee_id
-        );
-        const hr = hrs.find(
-          (hr) => hr.id === claim.assignedHrId || hr.id === claim.assigned_hr_id
-        );
-        const policy = policiesData.find(
-          (p) => p.id === claim.policyId || p.id === claim.policy_id
-        );
-
-        return {
-          ...claim,
-          employeeName: employee?.name || "Unknown",
-          employeeIdDisplay: employee?.employeeId || "N/A",
-          documents: claim.documents || [],
-          assignedHrName: hr?.name || "Not Assigned",
-          policyName: policy?.policyName || "N/A",
-          remarks: claim.remarks || "",
-        };
-      });
-
-      setClaims(mappedClaims);
+      claimLookups.current = { employees, hrs, policies: policiesData };
+      setClaims(mapClaims(page.items));
+      setClaimsCursor(page.next);
     } catch (err) {
       console.error("Error fetching claims:", err);
     }
   };
 
+  // ---------------- Load the next page of claims ----------------
+  const loadMoreClaims = async () => {
+    if (!claimsCursor) return;
+    try {
+      const page = await fetchClaimsPage("/admin/claims", claimsCursor);
+      setClaims((prev) => [...prev, ...mapClaims(page.items)]);
+      setClaimsCursor(page.next);
+    } catch (err) {
+      console.error("Error loading more claims:", err);
+    }
+  };
+
   useEffect(() => {
     fetchAllClaims();
   }, []);
@@ -420,7 +433,7 @@ case "users":
         return <AdminPolicy />;
 
 case "claims":
-      return <AdminAllClaims claims={claims} />;
+      return <AdminAllClaims claims={claims} hasMore={!!claimsCursor} onLoadMore={loadMoreClaims} />;
 
  case "reports":
   return <AdminReportsAnalytics />;
@@ -7,6 +7,7 @@ import { CSVLink } from "react-csv";
 import "bootstrap/dist/css/bootstrap.min.css";
 import "bootstrap-icons/font/bootstrap-icons.css";
 import { useMemo } from "react";
+import { fetchAllClaimPages } from "../../../claimPages";
 
 export default function AdminReportsAnalytics() {
   const [users, setUsers] = useState([]);
@@ -38,14 +39,15 @@ export default function AdminReportsAnalytics() {
       try {
         const [usersRes, claimsRes, policiesRes, hrsRes, agentsRes] = await Promise.all([
           axios.get("http://localhost:8080/auth/employees", { headers: { Authorization: `Bearer ${token}` } }),
-          axios.get("http://localhost:8080/admin/claims", { headers: { Authorization: `Bearer ${token}` } }),
+          // The report covers every claim: read page by page
+          fetchAllClaimPages("/admin/claims"),
           axios.get("http://localhost:8080/admin/policies", { headers: { Authorization: `Bearer ${token}` } }),
           axios.get("http://localhost:8080/hr", { headers: { Authorization: `Bearer ${token}` } }),
           axios.get("http://localhost:8080/agent", { headers: { Authorization: `Bearer ${token}` } }),
         ]);
 
         setUsers(usersRes.data || []);
-        setClaims(claimsRes.data || []);
+        setClaims(claimsRes);
         setPolicies(policiesRes.data || []);
         setHrs(hrsRes.data || []);
         setAgents(agentsRes.data || []);
@@ -4,6 +4,7 @@ import "bootstrap/dist/css/bootstrap.min.css";
 import "bootstrap-icons/font/bootstrap-icons.css";
 import "../Dashboard.css";
 import axios from "axios";
+import { openInboxStream } from "../../../inboxStream";
 
 export default function AgentDashboard() {
   const navigate = useNavigate();
@@ -27,6 +28,8 @@ export default function AgentDashboard() {
     const storedAgentId = localStorage.getItem("agentId");
     const storedAgentName = localStorage.getItem("agentName");
     const token = localStorage.getItem("token");
+    let closed = false;
+    let closeStream = () => {};
 
     if (!token) {
       alert("No token found, please login again");
@@ -50,66 +53,82 @@ export default function AgentDashboard() {
         })
         .catch(err => console.error("Failed to fetch availability", err));
 
-      // -------------------- Fetch all employees once --------------------
       let employeeMap = {};
-      axios.get("http://localhost:8080/auth/employees", axiosConfig)
-        .then(empRes => {
-          empRes.data.forEach(emp => {
-            employeeMap[emp.id] = emp.name;
-          });
-
-          // -------------------- Fetch pending queries --------------------
-          axios.get(`http://localhost:8080/agent/queries/pending/${id}`, axiosConfig)
-            .then(res => {
-              if (res.data) {
-                const pendingWithNames = res.data.map(q => ({
+      const loadQueries = () => {
+        // -------------------- Fetch pending queries --------------------
+        axios.get(`http://localhost:8080/agent/queries/pending/${id}`, axiosConfig)
+          .then(res => {
+            if (res.data) {
+              const pendingWithNames = res.data.map(q => ({
+                id: q.id,
+                employeeId: q.employeeId,
+                query: q.queryText,
+                createdAt: q.createdAt,
+                status: "Pending",
+                response: q.response || "",
+                agentId: q.agentId,
+                employee: q.employee ? q.employee.name : employeeMap[q.employeeId] || `Employee ${q.employeeId}`,
+                allowEdit: true  // ready for edit if needed in the future
+              }));
+              setEmployeeQueries(prev => [...prev.filter(q => q.status !== "Pending"), ...pendingWithNames]);
+            }
+          })
+          .catch(err => console.error("Failed to fetch pending queries", err));
+
+        // -------------------- Fetch resolved queries --------------------
+        axios.get(`http://localhost:8080/agent/queries/all/${id}`, axiosConfig)
+          .then(res => {
+            if (res.data) {
+              const resolvedWithNames = res.data
+                .filter(q => q.status === "resolved")
+                .map(q => ({
                   id: q.id,
                   employeeId: q.employeeId,
                   query: q.queryText,
                   createdAt: q.createdAt,
-                  status: "Pending",
+                  updatedAt: q.updatedAt,
+                  status: "Resolved",
                   response: q.response || "",
                   agentId: q.agentId,
-                  employee: q.employee ? q.employee.name : employeeMap[q.employeeId] || `Employee ${q.employeeId}`,
-                  allowEdit: true  // ready for edit if needed in the future
+                  employee: employeeMap[q.employeeId] || `Employee ${q.employeeId}`,
+                  allowEdit: false  // default: cannot edit after resolved
                 }));
-                setEmployeeQueries(prev => [...prev.filter(q => q.status !== "Pending"), ...pendingWithNames]);
-              }
-            })
-            .catch(err => console.error("Failed to fetch pending queries", err));
-
-          // -------------------- Fetch resolved queries --------------------
-          axios.get(`http://localhost:8080/agent/queries/all/${id}`, axiosConfig)
-            .then(res => {
-              if (res.data) {
-                const resolvedWithNames = res.data
-                  .filter(q => q.status === "resolved")
-                  .map(q => ({
-                    id: q.id,
-                    employeeId: q.employeeId,
-                    query: q.queryText,
-                    createdAt: q.createdAt,
-                    updatedAt: q.updatedAt,
-                    status: "Resolved",
-                    response: q.response || "",
-                    agentId: q.agentId,
-                    employee: employeeMap[q.employeeId] || `Employee ${q.employeeId}`,
-                    allowEdit: false  // default: cannot edit after resolved
-                  }));
-                setEmployeeQueries(prev => [
-                  ...prev.filter(q => q.status !== "Resolved"),
-                  ...resolvedWithNames
-                ]);
-              }
-            })
-            .catch(err => console.error("Failed to fetch resolved queries", err));
+              setEmployeeQueries(prev => [
+                ...prev.filter(q => q.status !== "Resolved"),
+                ...resolvedWithNames
+              ]);
+            }
+          })
+          .catch(err => console.error("Failed to fetch resolved queries", err));
+      };
 
+      // -------------------- Fetch all employees once, then follow this agent's queries live --------------------
+      // Queries are loaded once the stream is open, and again on every change to them
+      axios.get("http://localhost:8080/auth/employees", axiosConfig)
+        .then(empRes => {
+          empRes.data.forEach(emp => {
+            employeeMap[emp.id] = emp.name;
+          });
+          if (closed) {
+            return;
+          }
+          closeStream = openInboxStream("/agent/queries/stream", (name) => {
+            if (name === "unauthorized") {
+              navigate("/agent/login");
+            } else if (["ready", "reset", "query.assigned", "query.resolved"].includes(name)) {
+              loadQueries();
+            }
+          });
         })
         .catch(err => console.error("Failed to fetch employees", err));
 
     } else {
       navigate("/agent/login");
     }
+    return () => {
+      closed = true;
+      closeStream();
+    };
   }, [navigate]);
 
   const handleLogout = () => {
@@ -1,4 +1,6 @@
 import React, { useState, useEffect, useMemo } from "react";
+import { documentUrl, openClaimDocument } from "../../../claimDocuments";
+import { fetchClaimsPage } from "../../../claimPages";
 
 export default function EmployeeClaims({
   activeTab,
@@ -15,6 +17,8 @@ export default function EmployeeClaims({
     existingDocuments: [],
   });
   const [claims, setClaims] = useState([]);
+  const [claimsCursor, setClaimsCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [selectedPolicyId, setSelectedPolicyId] = useState(
     policies.length > 0 ? String(policies[0].id) : ""
   );
@@ -32,28 +36,25 @@ export default function EmployeeClaims({
   }, [policies, selectedPolicyId]);
 
   // ------------------ Fetch employee claims ------------------
+  const mapClaim = (claim) => ({
+    ...claim,
+    remarks: claim.remarks || "No remarks yet",
+    formattedAmount: `₹${claim.amount?.toLocaleString('en-IN') || '0'}`,
+    statusColor: getStatusColor(claim.status),
+    statusIcon: getStatusIcon(claim.status),
+    typeIcon: getTypeIcon(claim.title)
+  });
+
+  // The first page, newest first; older claims are loaded on request
   const fetchClaims = async () => {
     const token = localStorage.getItem("token");
     if (!token) return console.warn("Missing token, cannot fetch claims");
 
     setLoading(true);
     try {
-      const res = await fetch("http://localhost:8080/employee/claims", {
-        headers: { Authorization: `Bearer ${token}` },
-      });
-      if (!res.ok) throw new Error("Failed to fetch claims");
-      const data = await res.json();
-
-      const mapped = data.map(claim => ({
-        ...claim,
-        remarks: claim.remarks || "No remarks yet",
-        formattedAmount: `₹${claim.amount?.toLocaleString('en-IN') || '0'}`,
-        statusColor: getStatusColor(claim.status),
-        statusIcon: getStatusIcon(claim.status),
-        typeIcon: getTypeIcon(claim.title)
-      }));
-
-      setClaims(mapped);
+      const page = await fetchClaimsPage("/employee/claims");
+      setClaims(page.items.map(mapClaim));
+      setClaimsCursor(page.next);
     } catch (error) {
       console.error(error);
       showNotificationAlert("Error fetching claims", "error");
@@ -62,6 +63,21 @@ export default function EmployeeClaims({
     }
   };
 
+  const loadMoreClaims = async () => {
+    if (!claimsCursor) return;
+    setLoadingMore(true);
+    try {
+      const page = await fetchClaimsPage("/employee/claims", claimsCursor);
+      setClaims(prev => [...prev, ...page.items.map(mapClaim)]);
+      setClaimsCursor(page.next);
+    } catch (error) {
+      console.error(error);
+      showNotificationAlert("Error fetching claims", "error");
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   // Helper functions for status and type icons
   const getStatusColor = (status) => {
     switch (status?.toLowerCase()) {
@@ -582,6 +598,14 @@ export default function EmployeeClaims({
             </div>
           )}
         </div>
+        {claimsCursor && !loading && (
+          <div className="card-footer bg-white text-center">
+            <button className="btn btn-outline-primary btn-sm" onClick={loadMoreClaims} disabled={loadingMore}>
+              <i className="bi bi-arrow-down-circle me-2"></i>
+              {loadingMore ? "Loading..." : "Load older claims"}
+            </button>
+          </div>
+        )}
       </div>
 
       {/* Enhanced View Claim Modal */}
@@ -661,9 +685,8 @@ export default function EmployeeClaims({
                       {viewingClaim.documents.map((doc, index) => (
                         <a 
                           key={index}
-                          href={`http://localhost:8080${doc}`} 
-                          target="_blank" 
-                          rel="noopener noreferrer"
+                          href={documentUrl(viewingClaim.id, doc)}
+                          onClick={(e) => { e.preventDefault(); openClaimDocument(viewingClaim.id, doc); }}
                           className="list-group-item list-group-item-action d-flex justify-content-between align-items-center"
                         >
                           <span>
@@ -864,7 +887,8 @@ export default function EmployeeClaims({
                               </small>
                             </div>
                             <div>
-                              <a href={`http://localhost:8080${doc}`} target="_blank" rel="noopener noreferrer"
+                              <a href={documentUrl(newClaim.id, doc)}
+                                 onClick={(e) => { e.preventDefault(); openClaimDocument(newClaim.id, doc); }}
                                  className="btn btn-sm btn-outline-primary me-1" title="View">
                                 <i className="bi bi-eye"></i>
                               </a>
@@ -1,5 +1,6 @@
 // src/components/hr/HRClaims.jsx
 import React, { useState, useMemo } from "react";
+import { documentUrl, openClaimDocument } from "../../../claimDocuments";
 
 export default function HRClaims({
   pendingClaims,
@@ -15,7 +16,10 @@ export default function HRClaims({
   rejectClaim,
   downloadCSV,
   downloadPDF,
+  hasMoreClaims = false,
+  loadMoreClaims,
 }) {
+  const [loadingMore, setLoadingMore] = useState(false);
   const [searchTerm, setSearchTerm] = useState("");
   const [sortConfig, setSortConfig] = useState({ key: null, direction: 'asc' });
   const [selectedClaims, setSelectedClaims] = useState(new Set());
@@ -438,8 +442,8 @@ export default function HRClaims({
                           <li key={idx}>
                             <a
                               className="dropdown-item"
-                              href={`http://localhost:8080${doc}`}
-                              target="_blank"
+                              href={documentUrl(claim.id, doc)}
+                              onClick={(e) => { e.preventDefault(); openClaimDocument(claim.id, doc); }}
                             >
                               <i className="bi bi-download me-2"></i>{" "}
                               Document {idx + 1}
@@ -545,6 +549,22 @@ export default function HRClaims({
         </tbody>
       </table>
     </div>
+    {hasMoreClaims && (
+      <div className="text-center py-3">
+        <button
+          className="btn btn-outline-primary btn-sm"
+          disabled={loadingMore}
+          onClick={async () => {
+            setLoadingMore(true);
+            await loadMoreClaims();
+            setLoadingMore(false);
+          }}
+        >
+          <i className="bi bi-arrow-down-circle me-2"></i>
+          {loadingMore ? "Loading..." : "Load older claims"}
+        </button>
+      </div>
+    )}
   </div>
 </div>
 
@@ -618,7 +638,8 @@ export default function HRClaims({
                   {viewingClaim.documents?.length > 0 ? (
                     <div className="list-group">
                       {viewingClaim.documents.map((doc, idx) => (
-                        <a key={idx} href={`http://localhost:8080${doc}`} target="_blank" 
+                        <a key={idx} href={documentUrl(viewingClaim.id, doc)}
+                           onClick={(e) => { e.preventDefault(); openClaimDocument(viewingClaim.id, doc); }}
                            className="list-group-item list-group-item-action d-flex justify-content-between align-items-center">
                           <span>
                             <i className="bi bi-file-earmark me-2"></i>
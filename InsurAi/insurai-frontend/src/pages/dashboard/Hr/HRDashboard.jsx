@@ -9,6 +9,10 @@ import ReportsAnalytics from "./ReportsAnalytics"; // adjust path if needed
 import HRClaims from "./HRClaims";
 import HRPolicies from "./HRPolicies";
 import HREmployees from "./HREmployees"; 
+import { openInboxStream } from "../../../inboxStream";
+import { documentUrl } from "../../../claimDocuments";
+import { fetchClaimsPage } from "../../../claimPages";
+import API from "../../../api";
 
 export default function HRDashboard() {
   const navigate = useNavigate();
@@ -16,6 +20,7 @@ export default function HRDashboard() {
 
   // Claims from backend
   const [pendingClaims, setPendingClaims] = useState([]);
+  const [claimsCursor, setClaimsCursor] = useState(null);
   const [mappedClaims, setMappedClaims] = useState([]); // For employee names + assigned HR + policy
 
   // State to handle viewing claim
@@ -129,7 +134,8 @@ export default function HRDashboard() {
   };
 
   // ---------------- Fetch claims assigned to logged-in HR ----------------
-  const fetchClaims = async () => {
+  // The first page, newest first; older claims are loaded on request
+  const fetchClaims = async (cursor = null) => {
     try {
       const token = localStorage.getItem("token");
       if (!token) {
@@ -137,31 +143,82 @@ export default function HRDashboard() {
         return;
       }
 
-      const res = await fetch(`http://localhost:8080/hr/claims?hrId=${loggedInHrId}`, {
-        headers: { Authorization: `Bearer ${token}` },
-      });
-
-      if (res.ok) {
-        const data = await res.json();
-        setPendingClaims(data);
-      } else if (res.status === 403) {
+      const page = await fetchClaimsPage("/hr/claims", cursor);
+      if (cursor) {
+        // A claim assigned since the first page may already be listed
+        setPendingClaims(prev => [...prev, ...page.items.filter(c => !prev.some(p => p.id === c.id))]);
+      } else {
+        setPendingClaims(page.items);
+      }
+      setClaimsCursor(page.next);
+    } catch (err) {
+      if (err.response?.status === 403) {
         console.error("Forbidden: Invalid token or role");
         navigate("/hr/login");
       } else {
-        console.error("Failed to fetch claims");
+        console.error("Error fetching claims:", err);
       }
+    }
+  };
+
+  const loadMoreClaims = () => claimsCursor ? fetchClaims(claimsCursor) : Promise.resolve();
+
+  // A claim new in this HR's queue (or escalated within it): fetched on its own and put at the top,
+  // keeping the pages already loaded. A 404 means it has moved on again since the event.
+  const fetchAssignedClaim = async (claimId) => {
+    try {
+      const { data } = await API.get(`/hr/claims/${claimId}`);
+      setPendingClaims(prev => [data, ...prev.filter(c => c.id !== data.id)]);
     } catch (err) {
-      console.error("Error fetching claims:", err);
+      if (err.response?.status === 404) {
+        setPendingClaims(prev => prev.filter(c => c.id !== claimId));
+      } else {
+        console.error("Error fetching claim:", err);
+      }
     }
   };
 
+  // ---------------- Live updates to the claims assigned to this HR ----------------
+  // The list is loaded once the stream is open, and again whenever it may have missed changes
   useEffect(() => {
-    fetchClaims();
+    const close = openInboxStream("/hr/claims/stream", (name, data) => {
+      switch (name) {
+        case "ready":
+        case "reset":
+          fetchClaims();
+          break;
+        // New in this HR's queue; the event does not carry the whole claim
+        case "claim.assigned":
+        case "claim.escalated":
+          fetchAssignedClaim(data.claimId);
+          break;
+        case "claim.unassigned":
+          setPendingClaims(prev => prev.filter(c => c.id !== data.claimId));
+          break;
+        case "claim.status-changed":
+        case "claim.updated":
+          setPendingClaims(prev => prev.map(c => c.id === data.claimId
+            ? { ...c, status: data.status, amount: data.amount, policyId: data.policyId, remarks: data.remarks ?? c.remarks }
+            : c));
+          break;
+        case "claims.decided":
+          setPendingClaims(prev => prev.map(c => data.claimIds.includes(c.id)
+            ? { ...c, status: data.status, remarks: data.remarks ?? c.remarks }
+            : c));
+          break;
+        case "unauthorized":
+          navigate("/hr/login");
+          break;
+        default:
+          break;
+      }
+    });
+    return close;
   }, [loggedInHrId]);
 
   // ---------------- Map employee names, assigned HR, and policy ----------------
   useEffect(() => {
-    if (pendingClaims.length > 0 && employees.length > 0 && hrs.length > 0 && policies.length > 0) {
+    if (employees.length > 0 && hrs.length > 0 && policies.length > 0) {
       const updatedClaims = pendingClaims.map(claim => {
         const employee = employees.find(emp => emp.id === claim.employeeId || claim.employee_id);
         const hr = hrs.find(hr => hr.id === claim.assignedHrId || claim.assigned_hr_id);
@@ -307,7 +364,7 @@ const downloadCSV = () => {
     c.status,
     c.policyName,
     c.remarks || "",
-    c.documents?.length > 0 ? c.documents.map(d => `http://localhost:8080${d}`).join(" | ") : "No documents"
+    c.documents?.length > 0 ? c.documents.map(d => documentUrl(c.id, d)).join(" | ") : "No documents"
   ]);
 
   const csvContent = [headers, ...rows].map(e => e.join(",")).join("\n");
@@ -340,7 +397,7 @@ const downloadPDF = () => {
     // Same as CSV: full URLs concatenated with " | "
     c.documents?.length > 0
   ? c.documents
-      .map(d => `http://localhost:8080/uploads/${encodeURIComponent(d.split('/').pop())}`)
+      .map(d => documentUrl(c.id, d))
       .join(" | ")
   : "No documents"
 
@@ -765,6 +822,8 @@ case "claims":
       rejectClaim={rejectClaim}
       downloadCSV={downloadCSV}
       downloadPDF={downloadPDF}
+      hasMoreClaims={!!claimsCursor}
+      loadMoreClaims={loadMoreClaims}
     />
   );
   